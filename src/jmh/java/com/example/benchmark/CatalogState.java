@@ -0,0 +1,67 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.SLShopApplication;
+
+/**
+ * ベンチマーク用のアプリケーション状態
+ * perfプロファイル（組み込みDB）で起動し、指定した件数のカタログデータを生成する
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    /** 商品の件数 */
+    @Param({ "1000", "10000", "100000" })
+    public int products;
+
+    /** アプリケーションコンテキスト */
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(SLShopApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("perf")
+                .run(
+                        "--slshop.generator.enabled=true",
+                        "--slshop.generator.seed=1",
+                        "--slshop.generator.products=" + products,
+                        "--slshop.generator.brands=" + Math.max(10, products / 1000),
+                        "--slshop.generator.categories=" + Math.max(10, products / 2000),
+                        "--slshop.generator.users=" + users(),
+                        "--logging.level.root=warn");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * Beanを取得する
+     *
+     * @param type Beanの型
+     * @return Bean
+     */
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * 生成する管理者の件数
+     *
+     * @return 管理者の件数
+     */
+    public int users() {
+        return Math.max(10, products / 100);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.brand.BrandService;
+import com.example.category.CategoryService;
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.Product;
+import com.example.entity.User;
+import com.example.product.ProductService;
+import com.example.user.UserService;
+
+/**
+ * 重複チェック（各サービスのcheckUnique）のベンチマーク
+ * 新規登録（重複なし）の場合を測定する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CheckUniqueBenchmark {
+
+    private ProductService productService;
+
+    private BrandService brandService;
+
+    private CategoryService categoryService;
+
+    private UserService userService;
+
+    private Product product;
+
+    private Brand brand;
+
+    private Category category;
+
+    private User user;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState state) {
+        productService = state.bean(ProductService.class);
+        brandService = state.bean(BrandService.class);
+        categoryService = state.bean(CategoryService.class);
+        userService = state.bean(UserService.class);
+
+        product = new Product("未登録の商品");
+        brand = new Brand("未登録");
+        category = new Category("未登録のカテゴリー");
+        user = new User("unknown@example.com", "未登録");
+    }
+
+    @Benchmark
+    public boolean product() {
+        return productService.checkUnique(product);
+    }
+
+    @Benchmark
+    public boolean brand() {
+        return brandService.checkUnique(brand);
+    }
+
+    @Benchmark
+    public boolean category() {
+        return categoryService.checkUnique(category);
+    }
+
+    @Benchmark
+    public boolean user() {
+        return userService.checkUnique(user);
+    }
+}
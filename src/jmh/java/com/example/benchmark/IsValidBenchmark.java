@@ -0,0 +1,88 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.example.SLShopApplication;
+import com.example.brand.BrandService;
+import com.example.category.CategoryService;
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.product.ProductService;
+import com.example.user.UserService;
+
+/**
+ * 入力値チェック（各サービスのisValid）のベンチマーク
+ * 画面・APIから呼び出す場合と同じく、アプリケーションのBean（メトリクスなどのアスペクトを含む）を呼び出す
+ * DBアクセスを伴わないため、カタログデータは生成せずに初期データだけで起動する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class IsValidBenchmark {
+
+    private ConfigurableApplicationContext context;
+
+    private ProductService productService;
+
+    private BrandService brandService;
+
+    private CategoryService categoryService;
+
+    private UserService userService;
+
+    private final Brand brand = new Brand("ブランドA");
+
+    private final Category category = new Category("カテゴリーA");
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(SLShopApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("perf")
+                .run(
+                        "--slshop.sql.trace.enabled=false",
+                        "--logging.level.root=warn");
+        productService = context.getBean(ProductService.class);
+        brandService = context.getBean(BrandService.class);
+        categoryService = context.getBean(CategoryService.class);
+        userService = context.getBean(UserService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public boolean product() {
+        return productService.isValid("商品A", "商品の説明");
+    }
+
+    @Benchmark
+    public boolean brand() {
+        return brandService.isValid(brand);
+    }
+
+    @Benchmark
+    public boolean category() {
+        return categoryService.isValid(category);
+    }
+
+    @Benchmark
+    public boolean user() {
+        return userService.isValid("admin@example.com", "管理者太郎");
+    }
+}
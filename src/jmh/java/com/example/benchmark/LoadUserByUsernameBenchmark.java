@@ -0,0 +1,47 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.entity.User;
+import com.example.security.SLShopUserDetails;
+import com.example.security.SLShopUserDetailsService;
+import com.example.user.UserRepository;
+
+/**
+ * ログイン時の管理者情報取得（SLShopUserDetailsService.loadUserByUsername）のベンチマーク
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LoadUserByUsernameBenchmark {
+
+    private SLShopUserDetailsService userDetailsService;
+
+    /** 登録済みのメールアドレス */
+    private String[] emails;
+
+    /** 呼び出し回数 */
+    private long sequence;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState state) {
+        userDetailsService = state.bean(SLShopUserDetailsService.class);
+        emails = state.bean(UserRepository.class).findAll().stream()
+                .map(User::getEmail)
+                .toArray(String[]::new);
+    }
+
+    @Benchmark
+    public SLShopUserDetails loadUserByUsername() {
+        return userDetailsService.loadUserByUsername(emails[(int) (sequence++ % emails.length)]);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.example.logging.DiscardingAsyncAppender;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.OutputStreamAppender;
+
+/**
+ * ログ出力を含むリクエスト処理のレイテンシのベンチマーク
+ * 出力先は、ときどき書き込みが止まるコンソールを模したストリーム（stallEvery件ごとにstallMillis止まる）
+ * 同期出力（sync）と非同期出力（async）で、リクエストを処理するスレッドのレイテンシ分布を比較する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LoggingBenchmark {
+
+    /** 出力方法 */
+    @Param({ "sync", "async" })
+    public String appender;
+
+    /** 書き込みが止まる間隔（件数） */
+    @Param({ "500" })
+    public int stallEvery;
+
+    /** 書き込みが止まる時間（ミリ秒） */
+    @Param({ "1" })
+    public int stallMillis;
+
+    private LoggerContext context;
+
+    private Logger logger;
+
+    private long id;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new LoggerContext();
+
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %5p [%t] %-40.40logger{39} : %m%n");
+        encoder.start();
+
+        OutputStreamAppender<ILoggingEvent> console = new OutputStreamAppender<>();
+        console.setContext(context);
+        console.setName("CONSOLE");
+        console.setEncoder(encoder);
+        console.setOutputStream(new StallingOutputStream(stallEvery, TimeUnit.MILLISECONDS.toNanos(stallMillis)));
+        console.start();
+
+        Appender<ILoggingEvent> root = console;
+        if ("async".equals(appender)) {
+            DiscardingAsyncAppender async = new DiscardingAsyncAppender();
+            async.setContext(context);
+            async.setName("ASYNC_CONSOLE");
+            async.setQueueSize(8192);
+            async.setNeverBlock(false);
+            async.addAppender(console);
+            async.start();
+            root = async;
+        }
+
+        logger = context.getLogger("com.example.product.ProductController");
+        logger.setLevel(ch.qos.logback.classic.Level.INFO);
+        logger.addAppender(root);
+        logger.setAdditive(false);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.stop();
+    }
+
+    /**
+     * リクエスト1件分の処理（約20マイクロ秒の処理と、INFO1件・DEBUG1件のログ出力）
+     */
+    @Benchmark
+    public void request(Blackhole blackhole) {
+        Blackhole.consumeCPU(4000);
+        long current = ++id;
+        logger.debug("検索条件 keyword={}", current);
+        logger.info("商品一覧を表示しました id={}", current);
+        blackhole.consume(current);
+    }
+
+    /**
+     * stallEvery件ごとに書き込みが止まるストリーム
+     */
+    static class StallingOutputStream extends OutputStream {
+
+        private final int stallEvery;
+
+        private final long stallNanos;
+
+        private long writes;
+
+        StallingOutputStream(int stallEvery, long stallNanos) {
+            this.stallEvery = stallEvery;
+            this.stallNanos = stallNanos;
+        }
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (++writes % stallEvery == 0) {
+                LockSupport.parkNanos(stallNanos);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import com.example.SLShopApplication;
+
+/**
+ * 画面ごとの生成時間のベンチマーク
+ * ヘッダー・サイドバーのキャッシュ（slshop.fragment-cache.enabled）の有無で比較する
+ * 画面の生成以外の影響を減らすため、HTTPを介さずにMockMvcで呼び出し、認証のフィルターも通さない
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageRenderBenchmark {
+
+    /** ヘッダー・サイドバーのキャッシュを使うかどうか */
+    @Param({ "true", "false" })
+    public boolean fragmentCache;
+
+    /** 表示する画面 */
+    @Param({ "/home", "/brands", "/products/detail/1" })
+    public String page;
+
+    private ConfigurableApplicationContext context;
+
+    private MockMvc mockMvc;
+
+    /** ログイン中の管理者 */
+    private Authentication authentication;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(SLShopApplication.class)
+                .profiles("perf")
+                .run(
+                        "--server.port=0",
+                        "--slshop.fragment-cache.enabled=" + fragmentCache,
+                        "--slshop.generator.enabled=true",
+                        "--slshop.generator.seed=1",
+                        "--slshop.generator.products=100",
+                        "--slshop.generator.brands=10",
+                        "--slshop.generator.categories=10",
+                        "--slshop.generator.users=10",
+                        "--slshop.sql.trace.enabled=false",
+                        "--logging.level.root=warn");
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+
+        String email = context.getBean(JdbcTemplate.class)
+                .queryForObject("SELECT EMAIL FROM USERS ORDER BY ID FETCH FIRST 1 ROWS ONLY", String.class);
+        UserDetails user = context.getBean(UserDetailsService.class).loadUserByUsername(email);
+        authentication = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        SecurityContextHolder.clearContext();
+        context.close();
+    }
+
+    @Benchmark
+    public String render() throws Exception {
+        SecurityContextHolder.getContext().setAuthentication(authentication);
+        return mockMvc.perform(get(page)).andReturn().getResponse().getContentAsString();
+    }
+}
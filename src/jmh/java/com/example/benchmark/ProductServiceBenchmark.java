@@ -0,0 +1,42 @@
+package com.example.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.entity.Product;
+import com.example.product.ProductService;
+
+/**
+ * 商品一覧・検索（ProductService.listAll）のベンチマーク
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProductServiceBenchmark {
+
+    /** 検索キーワード（空文字は全件取得） */
+    @Param({ "", "時計", "該当なし" })
+    public String keyword;
+
+    private ProductService productService;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState state) {
+        productService = state.bean(ProductService.class);
+    }
+
+    @Benchmark
+    public List<Product> listAll() {
+        return productService.listAll(keyword);
+    }
+}
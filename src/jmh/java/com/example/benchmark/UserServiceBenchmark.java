@@ -0,0 +1,54 @@
+package com.example.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.example.entity.User;
+import com.example.user.UserRepository;
+import com.example.user.UserService;
+
+/**
+ * 管理者情報登録（UserService.save）のベンチマーク
+ * 既存の管理者のパスワードを変更する場合（パスワードのハッシュ化を伴う更新）を測定する
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UserServiceBenchmark {
+
+    private UserService userService;
+
+    private User template;
+
+    /** 保存する管理者情報のバージョン（保存のたびに、保存後のバージョンに更新する） */
+    private Long version;
+
+    @Setup(Level.Trial)
+    public void setUp(CatalogState state) {
+        userService = state.bean(UserService.class);
+        template = state.bean(UserRepository.class).findByEmail("admin@example.com");
+        version = template.getVersion();
+    }
+
+    @Benchmark
+    public User saveWithNewPassword() {
+        // フォームから送信された内容と同様に、毎回新しいインスタンスを保存する
+        // バージョンがない場合は新規登録として扱われるため、フォームと同じく現在のバージョンを指定する
+        User user = new User(template.getEmail(), template.getName());
+        user.setId(template.getId());
+        user.setVersion(version);
+        user.setRoles(template.getRoles());
+        user.setPassword("password");
+        User saved = userService.save(user);
+        version = saved.getVersion();
+        return saved;
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.loadtest;
+
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 負荷をかけるエンドポイント
+ */
+enum Endpoint {
+
+    /** 商品一覧 */
+    PRODUCTS("products", "GET /products") {
+        @Override
+        CompletableFuture<Boolean> send(Session session) {
+            return session.sendAsync(session.get("/products"))
+                    .thenApply(response -> response.statusCode() == 200);
+        }
+    },
+
+    /** HOME画面 */
+    HOME("home", "GET /home") {
+        @Override
+        CompletableFuture<Boolean> send(Session session) {
+            return session.sendAsync(session.get("/home"))
+                    .thenApply(response -> response.statusCode() == 200);
+        }
+    },
+
+    /** 商品登録 */
+    SAVE("save", "POST /products/save") {
+        @Override
+        CompletableFuture<Boolean> send(Session session) {
+            // 商品名は一意かつ10文字以内にする
+            String name = "L" + Long.toString(SEQUENCE.incrementAndGet(), 36);
+            Multipart body = new Multipart()
+                    .field("_csrf", session.csrfToken())
+                    .field("name", name)
+                    .field("description", "負荷試験で登録した商品")
+                    .field("brand", "1")
+                    .field("category", "1")
+                    .field("length", "10")
+                    .field("width", "10")
+                    .field("height", "10")
+                    .field("weight", "1")
+                    .emptyFile("file");
+            HttpRequest request = session.request("/products/save")
+                    .header("Content-Type", body.contentType())
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()))
+                    .build();
+            // 登録に成功した場合は一覧画面へリダイレクトされる
+            return session.sendAsync(request)
+                    .thenApply(response -> response.statusCode() == 302
+                            && response.headers().firstValue("Location").orElse("").endsWith("/products"));
+        }
+    },
+
+    /** ログイン（新しいセッションでログイン画面の取得とログイン処理を行う） */
+    LOGIN("login", "GET /loginForm + POST /login") {
+        @Override
+        CompletableFuture<Boolean> send(Session session) {
+            return session.newSession().loginAsync();
+        }
+    };
+
+    /** 商品名の採番用 */
+    private static final AtomicLong SEQUENCE = new AtomicLong(System.currentTimeMillis() % 1_000_000);
+
+    /** 設定で指定する名前 */
+    private final String key;
+
+    /** 結果に出力する名前 */
+    private final String label;
+
+    Endpoint(String key, String label) {
+        this.key = key;
+        this.label = label;
+    }
+
+    /**
+     * リクエストを送信する
+     *
+     * @param session ログイン済みのセッション
+     * @return 期待どおりのレスポンスだった場合はtrue
+     */
+    abstract CompletableFuture<Boolean> send(Session session);
+
+    String label() {
+        return label;
+    }
+
+    static Endpoint of(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown endpoint: " + key);
+    }
+
+    /**
+     * multipart/form-data の本文を組み立てる
+     */
+    static class Multipart {
+
+        private final String boundary = "----slshop" + Long.toHexString(System.nanoTime());
+
+        private final StringBuilder body = new StringBuilder();
+
+        Multipart field(String name, String value) {
+            body.append("--").append(boundary).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"").append(name).append("\"\r\n\r\n")
+                    .append(value).append("\r\n");
+            return this;
+        }
+
+        Multipart emptyFile(String name) {
+            body.append("--").append(boundary).append("\r\n")
+                    .append("Content-Disposition: form-data; name=\"").append(name).append("\"; filename=\"\"\r\n")
+                    .append("Content-Type: application/octet-stream\r\n\r\n\r\n");
+            return this;
+        }
+
+        String contentType() {
+            return "multipart/form-data; boundary=" + boundary;
+        }
+
+        byte[] toByteArray() {
+            return (body + "--" + boundary + "--\r\n").getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 負荷試験の設定
+ * コマンドライン引数（--キー=値）から作成する
+ */
+public class LoadTestOptions {
+
+    /** 負荷のかけ方（open:到着率を固定する, closed:仮想ユーザー数を固定する） */
+    String model = "closed";
+
+    /** 1秒あたりのリクエスト数（openの場合） */
+    double rate = 50;
+
+    /** 仮想ユーザー数（closedの場合）、openの場合はログイン済みセッションの数 */
+    int users = 10;
+
+    /** 仮想ユーザーがリクエストの間に待つ時間（ミリ秒、closedの場合） */
+    long thinkTimeMillis = 0;
+
+    /** ウォームアップ時間（秒、この間の結果は集計しない） */
+    int warmupSeconds = 10;
+
+    /** 測定時間（秒） */
+    int durationSeconds = 60;
+
+    /** エンドポイントごとの比率 */
+    Map<Endpoint, Integer> mix = new LinkedHashMap<>();
+
+    /** 対象のURL（指定しない場合はperfプロファイルでアプリケーションを起動する） */
+    String target;
+
+    /** 起動時に生成する商品の件数（アプリケーションを起動する場合） */
+    int products = 10_000;
+
+    /** ログインに使うメールアドレス（指定しない場合は生成したユーザーを使う） */
+    String email;
+
+    /** ログインに使うパスワード */
+    String password = "password";
+
+    /** 結果の出力先 */
+    Path report = Paths.get("build", "reports", "loadtest", "report.json");
+
+    /**
+     * コマンドライン引数から設定を作成する
+     *
+     * @param args コマンドライン引数
+     * @return 設定
+     */
+    static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        String mix = "products:60,home:25,save:10,login:5";
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Invalid argument: " + arg);
+            }
+            String key = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            switch (key) {
+            case "model":
+                options.model = value;
+                break;
+            case "rate":
+                options.rate = Double.parseDouble(value);
+                break;
+            case "users":
+                options.users = Integer.parseInt(value);
+                break;
+            case "think-time":
+                options.thinkTimeMillis = Long.parseLong(value);
+                break;
+            case "warmup":
+                options.warmupSeconds = Integer.parseInt(value);
+                break;
+            case "duration":
+                options.durationSeconds = Integer.parseInt(value);
+                break;
+            case "mix":
+                mix = value;
+                break;
+            case "target":
+                options.target = value.endsWith("/") ? value.substring(0, value.length() - 1) : value;
+                break;
+            case "products":
+                options.products = Integer.parseInt(value);
+                break;
+            case "email":
+                options.email = value;
+                break;
+            case "password":
+                options.password = value;
+                break;
+            case "report":
+                options.report = Paths.get(value);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown option: " + key);
+            }
+        }
+
+        // 例：products:60,home:25,save:10,login:5
+        for (String entry : mix.split(",")) {
+            String[] pair = entry.trim().split(":");
+            options.mix.put(Endpoint.of(pair[0]), Integer.parseInt(pair[1]));
+        }
+        if (!"open".equals(options.model) && !"closed".equals(options.model)) {
+            throw new IllegalArgumentException("model must be open or closed: " + options.model);
+        }
+        return options;
+    }
+}
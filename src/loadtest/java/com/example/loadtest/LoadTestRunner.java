@@ -0,0 +1,245 @@
+package com.example.loadtest;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.example.SLShopApplication;
+
+/**
+ * HTTP経由の負荷試験
+ * ログイン済みの仮想ユーザーから、指定した比率で各エンドポイントへリクエストを送信し、
+ * エンドポイントごとのレイテンシ（パーセンタイル）、スループット、エラー数を出力する
+ *
+ * 実行例：./gradlew loadTest --args="--model=open --rate=100 --duration=60"
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+
+        // 対象を指定しない場合は、perfプロファイルでアプリケーションを起動する
+        ConfigurableApplicationContext context = options.target == null ? start(options) : null;
+        try {
+            String baseUrl = options.target != null ? options.target
+                    : "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            List<String> emails = options.email != null ? List.of(options.email) : emails(context, options.users);
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(executor)
+                    .followRedirects(HttpClient.Redirect.NEVER)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            List<Session> sessions = new ArrayList<>();
+            for (int i = 0; i < options.users; i++) {
+                Session session = new Session(client, baseUrl, emails.get(i % emails.size()), options.password);
+                session.login();
+                sessions.add(session);
+            }
+
+            Results results = new Results();
+            Workload workload = "open".equals(options.model)
+                    ? new OpenWorkload(options, sessions, results)
+                    : new ClosedWorkload(options, sessions, results);
+            System.out.printf("%s model, %d users, warmup %ds, duration %ds, target %s%n",
+                    options.model, options.users, options.warmupSeconds, options.durationSeconds, baseUrl);
+            workload.run();
+
+            Map<String, Object> summary = results.summarize(options);
+            results.writeReport(summary, options.report);
+            results.print(summary, System.out);
+            System.out.println("report: " + options.report.toAbsolutePath());
+
+            executor.shutdownNow();
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    /**
+     * perfプロファイル（組み込みDB）でアプリケーションを起動し、カタログデータを生成する
+     */
+    private static ConfigurableApplicationContext start(LoadTestOptions options) {
+        return new SpringApplicationBuilder(SLShopApplication.class)
+                .profiles("perf")
+                .run(
+                        "--server.port=0",
+                        "--slshop.generator.enabled=true",
+                        "--slshop.generator.products=" + options.products,
+                        "--slshop.generator.brands=" + Math.max(10, options.products / 1000),
+                        "--slshop.generator.categories=" + Math.max(10, options.products / 2000),
+                        "--slshop.generator.users=" + Math.max(10, options.users),
+                        "--slshop.generator.password=" + options.password,
+                        "--logging.level.root=warn");
+    }
+
+    /**
+     * 生成したユーザーのメールアドレスを取得する
+     */
+    private static List<String> emails(ConfigurableApplicationContext context, int count) {
+        return context.getBean(JdbcTemplate.class).queryForList(
+                "SELECT EMAIL FROM USERS WHERE EMAIL LIKE 'user%@example.com' ORDER BY ID FETCH FIRST ? ROWS ONLY",
+                String.class, count);
+    }
+
+    /**
+     * 負荷のかけ方
+     */
+    abstract static class Workload {
+
+        final LoadTestOptions options;
+
+        final List<Session> sessions;
+
+        final Results results;
+
+        /** 比率に応じてエンドポイントを選ぶための表 */
+        private final Endpoint[] table;
+
+        Workload(LoadTestOptions options, List<Session> sessions, Results results) {
+            this.options = options;
+            this.sessions = sessions;
+            this.results = results;
+            List<Endpoint> entries = new ArrayList<>();
+            options.mix.forEach((endpoint, weight) -> {
+                for (int i = 0; i < weight; i++) {
+                    entries.add(endpoint);
+                }
+            });
+            this.table = entries.toArray(new Endpoint[0]);
+        }
+
+        Endpoint next() {
+            return table[ThreadLocalRandom.current().nextInt(table.length)];
+        }
+
+        /**
+         * ウォームアップ後に記録を開始し、測定時間が経過したら終了する
+         */
+        abstract void run() throws InterruptedException;
+
+        long warmupEndsAt(long startedAt) {
+            return startedAt + TimeUnit.SECONDS.toNanos(options.warmupSeconds);
+        }
+
+        long endsAt(long startedAt) {
+            return warmupEndsAt(startedAt) + TimeUnit.SECONDS.toNanos(options.durationSeconds);
+        }
+    }
+
+    /**
+     * オープンモデル：レスポンスを待たずに一定の到着率で送信する
+     * レイテンシは送信予定の時刻から測定する（サーバーの遅延で送信が遅れた分も含める）
+     */
+    static class OpenWorkload extends Workload {
+
+        OpenWorkload(LoadTestOptions options, List<Session> sessions, Results results) {
+            super(options, sessions, results);
+        }
+
+        @Override
+        void run() throws InterruptedException {
+            long interval = (long) (1_000_000_000L / options.rate);
+            long startedAt = System.nanoTime();
+            long warmupEndsAt = warmupEndsAt(startedAt);
+            long endsAt = endsAt(startedAt);
+            boolean recording = false;
+            List<CompletableFuture<Boolean>> pending = new ArrayList<>();
+
+            for (long i = 0;; i++) {
+                long scheduledAt = startedAt + i * interval;
+                if (scheduledAt >= endsAt) {
+                    break;
+                }
+                if (!recording && scheduledAt >= warmupEndsAt) {
+                    results.start();
+                    recording = true;
+                }
+                long wait = scheduledAt - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                Endpoint endpoint = next();
+                Session session = sessions.get((int) (i % sessions.size()));
+                pending.add(endpoint.send(session).whenComplete(
+                        (success, error) -> results.record(endpoint, scheduledAt, error == null && success)));
+                pending.removeIf(CompletableFuture::isDone);
+            }
+            results.stop();
+            // 送信済みのリクエストの完了を待つ（タイムアウトまでに完了しないものは集計しない）
+            try {
+                CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).get(1, TimeUnit.MINUTES);
+            } catch (ExecutionException | TimeoutException e) {
+                // 失敗したリクエストは記録済み
+            }
+        }
+    }
+
+    /**
+     * クローズドモデル：仮想ユーザーごとにレスポンスを待ってから次のリクエストを送信する
+     */
+    static class ClosedWorkload extends Workload {
+
+        ClosedWorkload(LoadTestOptions options, List<Session> sessions, Results results) {
+            super(options, sessions, results);
+        }
+
+        @Override
+        void run() throws InterruptedException {
+            long startedAt = System.nanoTime();
+            long endsAt = endsAt(startedAt);
+            List<Thread> threads = new ArrayList<>();
+            for (Session session : sessions) {
+                Thread thread = new Thread(() -> loop(session, endsAt), "vu-" + threads.size());
+                thread.start();
+                threads.add(thread);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, warmupEndsAt(startedAt) - System.nanoTime()));
+            results.start();
+            TimeUnit.NANOSECONDS.sleep(Math.max(0, endsAt - System.nanoTime()));
+            results.stop();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        private void loop(Session session, long endsAt) {
+            while (System.nanoTime() < endsAt) {
+                Endpoint endpoint = next();
+                long startedAt = System.nanoTime();
+                boolean success;
+                try {
+                    success = endpoint.send(session).join();
+                } catch (RuntimeException e) {
+                    success = false;
+                }
+                results.record(endpoint, startedAt, success);
+                if (options.thinkTimeMillis > 0) {
+                    try {
+                        Thread.sleep(options.thinkTimeMillis);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+/**
+ * エンドポイントごとの測定結果
+ * レイテンシはマイクロ秒単位でHdrHistogramに記録する
+ */
+class Results {
+
+    /** 記録できる最大のレイテンシ（マイクロ秒） */
+    private static final long HIGHEST_TRACKABLE = TimeUnit.MINUTES.toMicros(5);
+
+    private final Map<Endpoint, Histogram> histograms = new EnumMap<>(Endpoint.class);
+
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+
+    /** 記録を開始した時刻（ナノ秒、ウォームアップ中は記録しない） */
+    private volatile long startNanos = Long.MAX_VALUE;
+
+    /** 記録を終了した時刻（ナノ秒） */
+    private volatile long endNanos = Long.MAX_VALUE;
+
+    Results() {
+        for (Endpoint endpoint : Endpoint.values()) {
+            histograms.put(endpoint, new ConcurrentHistogram(HIGHEST_TRACKABLE, 3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    /**
+     * 記録を開始する（ウォームアップ終了時に呼ぶ）
+     */
+    void start() {
+        startNanos = System.nanoTime();
+    }
+
+    /**
+     * 記録を終了する
+     */
+    void stop() {
+        endNanos = System.nanoTime();
+    }
+
+    /**
+     * 1リクエスト分の結果を記録する
+     *
+     * @param endpoint エンドポイント
+     * @param startedAt 開始時刻（ナノ秒、openの場合は送信予定の時刻）
+     * @param success 期待どおりのレスポンスだった場合はtrue
+     */
+    void record(Endpoint endpoint, long startedAt, boolean success) {
+        long now = System.nanoTime();
+        // 測定期間内に開始したリクエストのみを記録する
+        if (startedAt < startNanos || startedAt >= endNanos) {
+            return;
+        }
+        if (success) {
+            long micros = TimeUnit.NANOSECONDS.toMicros(now - startedAt);
+            histograms.get(endpoint).recordValue(Math.min(Math.max(micros, 1), HIGHEST_TRACKABLE));
+        } else {
+            errors.get(endpoint).increment();
+        }
+    }
+
+    /**
+     * 集計結果を作成する
+     *
+     * @param options 設定
+     * @return 集計結果（JSONに出力する形）
+     */
+    Map<String, Object> summarize(LoadTestOptions options) {
+        double seconds = (endNanos - startNanos) / 1_000_000_000.0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Endpoint endpoint : options.mix.keySet()) {
+            Histogram histogram = histograms.get(endpoint);
+            long count = histogram.getTotalCount();
+            long errorCount = errors.get(endpoint).sum();
+
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("p50", millis(histogram.getValueAtPercentile(50)));
+            latency.put("p90", millis(histogram.getValueAtPercentile(90)));
+            latency.put("p99", millis(histogram.getValueAtPercentile(99)));
+            latency.put("p99.9", millis(histogram.getValueAtPercentile(99.9)));
+            latency.put("max", millis(histogram.getMaxValue()));
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("requests", count + errorCount);
+            result.put("errors", errorCount);
+            result.put("throughput", round(count / seconds));
+            result.put("latencyMillis", latency);
+            endpoints.put(endpoint.label(), result);
+        }
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("model", options.model);
+        if ("open".equals(options.model)) {
+            settings.put("rate", options.rate);
+        } else {
+            settings.put("thinkTimeMillis", options.thinkTimeMillis);
+        }
+        settings.put("users", options.users);
+        settings.put("warmupSeconds", options.warmupSeconds);
+        settings.put("durationSeconds", round(seconds));
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        options.mix.forEach((endpoint, weight) -> mix.put(endpoint.label(), weight));
+        settings.put("mix", mix);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("settings", settings);
+        summary.put("endpoints", endpoints);
+        return summary;
+    }
+
+    /**
+     * 集計結果をJSONで出力する
+     */
+    void writeReport(Map<String, Object> summary, Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(path.toFile(), summary);
+    }
+
+    /**
+     * 集計結果を表形式で表示する
+     */
+    @SuppressWarnings("unchecked")
+    void print(Map<String, Object> summary, PrintStream out) {
+        out.printf("%-30s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50(ms)", "p90(ms)", "p99(ms)", "p99.9(ms)", "max(ms)");
+        ((Map<String, Map<String, Object>>) summary.get("endpoints")).forEach((label, result) -> {
+            Map<String, Object> latency = (Map<String, Object>) result.get("latencyMillis");
+            out.printf("%-30s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", label,
+                    result.get("requests"), result.get("errors"), result.get("throughput"),
+                    latency.get("p50"), latency.get("p90"), latency.get("p99"), latency.get("p99.9"), latency.get("max"));
+        });
+    }
+
+    private static double millis(long micros) {
+        return round(micros / 1000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
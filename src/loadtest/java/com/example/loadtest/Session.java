@@ -0,0 +1,181 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ログイン済みのセッション（仮想ユーザー1人分）
+ * HttpClientは全セッションで共有し、Cookieはセッションごとに保持する
+ */
+class Session {
+
+    /** 画面に埋め込まれたCSRFトークン */
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"\\s+value=\"([^\"]+)\"");
+
+    /** リクエストのタイムアウト */
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+
+    private final String baseUrl;
+
+    private final String email;
+
+    private final String password;
+
+    /** Cookie（名前 → 値） */
+    private final Map<String, String> cookies = new ConcurrentHashMap<>();
+
+    /** ログイン後のCSRFトークン */
+    private volatile String csrfToken;
+
+    Session(HttpClient client, String baseUrl, String email, String password) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.email = email;
+        this.password = password;
+    }
+
+    /**
+     * 同じユーザーで新しいセッションを作成する（ログインはしない）
+     */
+    Session newSession() {
+        return new Session(client, baseUrl, email, password);
+    }
+
+    /**
+     * ログインし、登録画面からCSRFトークンを取得する
+     *
+     * @throws IOException ログインに失敗した場合
+     */
+    void login() throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(loginRequest(), this::handle);
+        if (!isLoginSucceeded(response)) {
+            throw new IOException("Login failed: " + email + " (" + response.statusCode() + ")");
+        }
+        // ログイン時にCSRFトークンが作り直されるため、ログイン後の画面から取得しなおす
+        csrfToken = fetchCsrfToken("/products/new");
+    }
+
+    /**
+     * ログイン画面を取得し、ログイン処理のリクエストを作成する
+     */
+    HttpRequest loginRequest() throws IOException, InterruptedException {
+        return loginRequest(csrfToken(client.send(get("/loginForm"), this::handleBody), "/loginForm"));
+    }
+
+    /**
+     * ログイン画面の取得からログイン処理までを非同期で行う
+     *
+     * @return ログインに成功した場合はtrue
+     */
+    CompletableFuture<Boolean> loginAsync() {
+        return client.sendAsync(get("/loginForm"), this::handleBody)
+                .thenCompose(response -> {
+                    try {
+                        return sendAsync(loginRequest(csrfToken(response, "/loginForm")));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .thenApply(Session::isLoginSucceeded);
+    }
+
+    private HttpRequest loginRequest(String token) {
+        String form = "email=" + encode(email) + "&password=" + encode(password) + "&_csrf=" + encode(token);
+        return request("/login")
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form))
+                .build();
+    }
+
+    /**
+     * ログイン処理のレスポンスが成功（HOME画面へのリダイレクト）かどうか
+     */
+    static boolean isLoginSucceeded(HttpResponse<?> response) {
+        return response.statusCode() == 302
+                && response.headers().firstValue("Location").orElse("").endsWith("/home");
+    }
+
+    String csrfToken() {
+        return csrfToken;
+    }
+
+    HttpRequest get(String path) {
+        return request(path).GET().build();
+    }
+
+    /**
+     * Cookieを付けたリクエストを作成する
+     */
+    HttpRequest.Builder request(String path) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(baseUrl + path)).timeout(TIMEOUT);
+        if (!cookies.isEmpty()) {
+            StringBuilder header = new StringBuilder();
+            cookies.forEach((name, value) -> header.append(header.length() == 0 ? "" : "; ").append(name).append('=').append(value));
+            builder.header("Cookie", header.toString());
+        }
+        return builder;
+    }
+
+    /**
+     * 非同期で送信する（本文は読み捨てる）
+     */
+    CompletableFuture<HttpResponse<String>> sendAsync(HttpRequest request) {
+        return client.sendAsync(request, this::handle);
+    }
+
+    private String fetchCsrfToken(String path) throws IOException, InterruptedException {
+        return csrfToken(client.send(get(path), this::handleBody), path);
+    }
+
+    private static String csrfToken(HttpResponse<String> response, String path) throws IOException {
+        Matcher matcher = CSRF.matcher(response.body());
+        if (response.statusCode() != 200 || !matcher.find()) {
+            throw new IOException("CSRF token not found: " + path + " (" + response.statusCode() + ")");
+        }
+        return matcher.group(1);
+    }
+
+    /**
+     * Cookieを保存し、本文を読み込む
+     */
+    private HttpResponse.BodySubscriber<String> handleBody(HttpResponse.ResponseInfo info) {
+        storeCookies(info);
+        return HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Cookieを保存し、本文は読み捨てる
+     */
+    private HttpResponse.BodySubscriber<String> handle(HttpResponse.ResponseInfo info) {
+        storeCookies(info);
+        return HttpResponse.BodySubscribers.replacing(null);
+    }
+
+    private void storeCookies(HttpResponse.ResponseInfo info) {
+        for (String header : info.headers().allValues("Set-Cookie")) {
+            String pair = header.split(";", 2)[0];
+            int index = pair.indexOf('=');
+            if (index > 0) {
+                cookies.put(pair.substring(0, index).trim(), pair.substring(index + 1).trim());
+            }
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
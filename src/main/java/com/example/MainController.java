@@ -1,16 +1,29 @@
 package com.example;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import com.example.dashboard.DashboardStatistics;
+
 @Controller
 public class MainController {
 
+    private final DashboardStatistics dashboardStatistics;
+
+    @Autowired
+    public MainController(DashboardStatistics dashboardStatistics) {
+        this.dashboardStatistics = dashboardStatistics;
+    }
+
     /**
      * HOME画面表示
+     * 集計値はメモリ上に保持したものを使い、表示のたびに全件を集計しない
      */
     @GetMapping("/home")
-    public String viewHomePage() {
+    public String viewHomePage(Model model) {
+        model.addAttribute("dashboard", dashboardStatistics.summary());
         return "index";
     }
 
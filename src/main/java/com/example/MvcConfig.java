@@ -3,14 +3,33 @@ package com.example;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
+import com.example.cursor.RowCursors;
+
 
 @Configuration
 public class MvcConfig implements WebMvcConfigurer {
 
+    private final RowCursors rowCursors;
+
+    @Autowired
+    public MvcConfig(RowCursors rowCursors) {
+        this.rowCursors = rowCursors;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // 画面の生成中に開いた検索は、Open EntityManager in View がエンティティマネージャーを閉じる前に終了する
+        // （終了処理は登録と逆の順序で呼ばれるため、最後に登録する）
+        registry.addInterceptor(rowCursors).order(Ordered.LOWEST_PRECEDENCE);
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         exposeDirectory("user-photos", registry);
@@ -0,0 +1,416 @@
+package com.example.api;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.FlushModeType;
+import javax.persistence.OptimisticLockException;
+import javax.persistence.PersistenceException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.api.BatchOperation.Op;
+import com.example.api.BatchOperation.Type;
+import com.example.brand.BrandService;
+import com.example.category.CategoryService;
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.Product;
+import com.example.product.ProductCountsChangedEvent;
+import com.example.product.ProductService;
+import com.example.product.ProductsDeletedEvent;
+
+/**
+ * 一括更新APIの操作の実行
+ * 操作を一定件数ごとに1つのトランザクションで実行し、SQLはJDBCのバッチでまとめて送る
+ * まとめて確定できなかった場合は、その範囲を1件ずつ実行し直して失敗した操作を特定する
+ */
+@Component
+public class BatchExecutor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchExecutor.class);
+
+    static final String INVALID = "入力に誤りがあります";
+
+    static final String DUPLICATE = "重複しています";
+
+    static final String NOT_FOUND = "存在しません";
+
+    static final String CONFLICT = "他の利用者が更新したため保存できませんでした。最新の内容を確認してください";
+
+    static final String FAILED = "保存できませんでした";
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final EntityManager entityManager;
+
+    private final ProductService productService;
+
+    private final BrandService brandService;
+
+    private final CategoryService categoryService;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /** 1つのトランザクションで実行する件数 */
+    private final int chunkSize;
+
+    @Autowired
+    public BatchExecutor(PlatformTransactionManager transactionManager, EntityManager entityManager,
+            ProductService productService, BrandService brandService, CategoryService categoryService,
+            ApplicationEventPublisher eventPublisher, @Value("${slshop.api.batch.chunk-size:100}") int chunkSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.entityManager = entityManager;
+        this.productService = productService;
+        this.brandService = brandService;
+        this.categoryService = categoryService;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 操作を順に実行する
+     *
+     * @param operations 操作
+     * @return 操作ごとの結果（操作と同じ順序）
+     */
+    public List<BatchResult> execute(List<BatchOperation> operations) {
+        BatchResult[] results = new BatchResult[operations.size()];
+        for (int from = 0; from < operations.size(); from += chunkSize) {
+            int to = Math.min(from + chunkSize, operations.size());
+            try {
+                executeChunk(operations, from, to, results);
+            } catch (PersistenceException | DataAccessException e) {
+                LOGGER.info("一括更新の{}件目から{}件目をまとめて確定できなかったため、1件ずつ実行します: {}", from, to - 1, e.toString());
+                for (int i = from; i < to; i++) {
+                    try {
+                        executeChunk(operations, i, i + 1, results);
+                    } catch (PersistenceException | DataAccessException single) {
+                        // 同時更新の競合だけを409とし、制約違反（存在しないブランド・カテゴリーの参照など）は422とする
+                        boolean conflict = single instanceof OptimisticLockException
+                                || single instanceof OptimisticLockingFailureException;
+                        results[i] = conflict ? BatchResult.failure(i, 409, operations.get(i).getId(), CONFLICT)
+                                : BatchResult.failure(i, 422, operations.get(i).getId(), FAILED);
+                    }
+                }
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 範囲内の操作を1つのトランザクションで実行する
+     * 重複チェックの検索のたびに未送信の更新が送られるとバッチにまとまらないため、送信は確定時にまとめて行う
+     */
+    private void executeChunk(List<BatchOperation> operations, int from, int to, BatchResult[] results) {
+        transactionTemplate.executeWithoutResult(status -> {
+            FlushModeType previous = entityManager.getFlushMode();
+            entityManager.setFlushMode(FlushModeType.COMMIT);
+            try {
+                Chunk chunk = new Chunk(load(operations, from, to));
+                for (int i = from; i < to; i++) {
+                    results[i] = chunk.apply(i, operations.get(i));
+                }
+                // まとめて送信し、採番したIDと更新後の版を結果に反映する
+                entityManager.flush();
+                chunk.complete(results);
+                // ブランド・カテゴリーごとの商品件数は確定してから反映する
+                eventPublisher.publishEvent(chunk.counts);
+                // 削除した商品の画像は確定してから削除する
+                if (!chunk.deletedProductIds.isEmpty()) {
+                    eventPublisher.publishEvent(new ProductsDeletedEvent(chunk.deletedProductIds));
+                }
+            } finally {
+                entityManager.setFlushMode(previous);
+            }
+        });
+        // 確定したエンティティは以降の範囲では使わないため、保持し続けないよう破棄する
+        entityManager.clear();
+    }
+
+    /**
+     * 範囲内の更新・削除の対象を種類ごとに1回の検索で取得する
+     */
+    private Map<Type, Map<Long, Object>> load(List<BatchOperation> operations, int from, int to) {
+        Map<Type, Set<Long>> ids = new EnumMap<>(Type.class);
+        for (int i = from; i < to; i++) {
+            BatchOperation operation = operations.get(i);
+            if (operation.getOp() != Op.CREATE && operation.getType() != null && operation.getId() != null) {
+                ids.computeIfAbsent(operation.getType(), type -> new HashSet<>()).add(operation.getId());
+            }
+        }
+
+        Map<Type, Map<Long, Object>> loaded = new EnumMap<>(Type.class);
+        ids.forEach((type, keys) -> {
+            Map<Long, Object> entities = new HashMap<>();
+            switch (type) {
+            case PRODUCT:
+                // 商品はブランドとカテゴリーを即時に読み込むため、結合して1回で取得する
+                find("SELECT p FROM Product p LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category WHERE p.id IN :ids",
+                        Product.class, keys).forEach(p -> entities.put(p.getId(), p));
+                break;
+            case BRAND:
+                find("SELECT b FROM Brand b WHERE b.id IN :ids", Brand.class, keys)
+                        .forEach(b -> entities.put(b.getId(), b));
+                break;
+            default:
+                find("SELECT c FROM Category c WHERE c.id IN :ids", Category.class, keys)
+                        .forEach(c -> entities.put(c.getId(), c));
+                break;
+            }
+            loaded.put(type, entities);
+        });
+        return loaded;
+    }
+
+    private <E> List<E> find(String jpql, Class<E> entityClass, Collection<Long> ids) {
+        return entityManager.createQuery(jpql, entityClass).setParameter("ids", ids).getResultList();
+    }
+
+    /**
+     * 1つのトランザクションで実行する範囲の状態
+     */
+    private class Chunk {
+
+        /** 更新・削除の対象 */
+        private final Map<Type, Map<Long, Object>> loaded;
+
+        /** この範囲で登録・変更した名前（未送信のため、重複チェックの検索では見つからない） */
+        private final Set<String> names = new HashSet<>();
+
+        /** 送信後に結果を確定する操作 */
+        private final List<Pending> pending = new ArrayList<>();
+
+        /** 商品件数・集計値の増減 */
+        private final ProductCountsChangedEvent counts = new ProductCountsChangedEvent();
+
+        /** 削除した商品ID */
+        private final List<Long> deletedProductIds = new ArrayList<>();
+
+        Chunk(Map<Type, Map<Long, Object>> loaded) {
+            this.loaded = loaded;
+        }
+
+        BatchResult apply(int index, BatchOperation operation) {
+            if (operation.getOp() == null || operation.getType() == null) {
+                return BatchResult.failure(index, 400, operation.getId(), INVALID);
+            }
+            if (operation.getOp() == Op.CREATE) {
+                Object entity = newEntity(operation.getType());
+                String error = change(operation.getType(), entity, operation);
+                if (error != null) {
+                    return BatchResult.failure(index, 400, null, error);
+                }
+                entityManager.persist(entity);
+                count(entity, 1);
+                pending.add(new Pending(index, entity, 201));
+                return null;
+            }
+
+            Object entity = operation.getId() != null
+                    ? loaded.getOrDefault(operation.getType(), Collections.emptyMap()).get(operation.getId())
+                    : null;
+            if (entity == null) {
+                return BatchResult.failure(index, 404, operation.getId(), NOT_FOUND);
+            }
+            if (operation.getVersion() != null && !operation.getVersion().equals(version(entity))) {
+                return BatchResult.failure(index, 409, operation.getId(), CONFLICT);
+            }
+            if (operation.getOp() == Op.DELETE) {
+                entityManager.remove(entity);
+                count(entity, -1);
+                if (entity instanceof Product) {
+                    deletedProductIds.add(((Product) entity).getId());
+                }
+                pending.add(new Pending(index, entity, 204));
+                return null;
+            }
+            // 変更前の値（誤りがあった場合は件数・集計値を変えない）
+            ProductCountsChangedEvent.Values before = entity instanceof Product
+                    ? ProductCountsChangedEvent.Values.of((Product) entity)
+                    : null;
+            String error = change(operation.getType(), entity, operation);
+            if (error != null) {
+                return BatchResult.failure(index, 400, operation.getId(), error);
+            }
+            if (before != null) {
+                counts.add(before, -1);
+                count(entity, 1);
+            }
+            pending.add(new Pending(index, entity, 200));
+            return null;
+        }
+
+        private void count(Object entity, int sign) {
+            if (entity instanceof Product) {
+                counts.add((Product) entity, sign);
+            }
+        }
+
+        void complete(BatchResult[] results) {
+            for (Pending entry : pending) {
+                Long version = entry.status == 204 ? null : version(entry.entity);
+                results[entry.index] = BatchResult.success(entry.index, entry.status, id(entry.entity), version);
+            }
+        }
+
+        /**
+         * 入力値と重複をチェックしてから変更する（チェックで誤りがあった場合は変更しない）
+         *
+         * @return 誤りの内容（誤りがない場合はnull）
+         */
+        private String change(Type type, Object entity, BatchOperation operation) {
+            switch (type) {
+            case PRODUCT:
+                return changeProduct((Product) entity, operation);
+            case BRAND:
+                return changeBrand((Brand) entity, operation);
+            default:
+                return changeCategory((Category) entity, operation);
+            }
+        }
+
+        private String changeProduct(Product product, BatchOperation operation) {
+            String name = operation.getName() != null ? operation.getName() : product.getName();
+            String description = operation.getDescription() != null ? operation.getDescription() : product.getDescription();
+            if (name == null || description == null || !productService.isValid(name, description)) {
+                return INVALID;
+            }
+            // 登録ではブランドとカテゴリーを必須にする（送信時の失敗で範囲全体を1件ずつ実行し直さないよう、ここで判定する）
+            if (product.getId() == null && (operation.getBrandId() == null || operation.getCategoryId() == null)) {
+                return INVALID;
+            }
+            if (!name.equals(product.getName())) {
+                Product candidate = new Product(name, description);
+                candidate.setId(product.getId());
+                if (!names.add("product:" + name) || !productService.checkUnique(candidate)) {
+                    return DUPLICATE;
+                }
+            }
+            product.setName(name);
+            product.setDescription(description);
+            if (operation.getPrice() != null) {
+                product.setPrice(operation.getPrice());
+            }
+            if (operation.getLength() != null) {
+                product.setLength(operation.getLength());
+            }
+            if (operation.getWidth() != null) {
+                product.setWidth(operation.getWidth());
+            }
+            if (operation.getHeight() != null) {
+                product.setHeight(operation.getHeight());
+            }
+            if (operation.getWeight() != null) {
+                product.setWeight(operation.getWeight());
+            }
+            // 参照先は読み込まずに設定する（存在しない場合は送信時に失敗する）
+            if (operation.getBrandId() != null) {
+                product.setBrand(entityManager.getReference(Brand.class, operation.getBrandId()));
+            }
+            if (operation.getCategoryId() != null) {
+                product.setCategory(entityManager.getReference(Category.class, operation.getCategoryId()));
+            }
+            return null;
+        }
+
+        private String changeBrand(Brand brand, BatchOperation operation) {
+            String name = operation.getName() != null ? operation.getName() : brand.getName();
+            if (name == null || !brandService.isValid(new Brand(name))) {
+                return INVALID;
+            }
+            if (!name.equals(brand.getName())) {
+                Brand candidate = new Brand(name);
+                candidate.setId(brand.getId());
+                if (!names.add("brand:" + name) || !brandService.checkUnique(candidate)) {
+                    return DUPLICATE;
+                }
+            }
+            brand.setName(name);
+            return null;
+        }
+
+        private String changeCategory(Category category, BatchOperation operation) {
+            String name = operation.getName() != null ? operation.getName() : category.getName();
+            if (name == null || !categoryService.isValid(new Category(name))) {
+                return INVALID;
+            }
+            if (!name.equals(category.getName())) {
+                Category candidate = new Category(name);
+                candidate.setId(category.getId());
+                if (!names.add("category:" + name) || !categoryService.checkUnique(candidate)) {
+                    return DUPLICATE;
+                }
+            }
+            category.setName(name);
+            return null;
+        }
+    }
+
+    /**
+     * 送信後に結果を確定する操作
+     */
+    private static final class Pending {
+
+        private final int index;
+
+        private final Object entity;
+
+        private final int status;
+
+        Pending(int index, Object entity, int status) {
+            this.index = index;
+            this.entity = entity;
+            this.status = status;
+        }
+    }
+
+    private static Object newEntity(Type type) {
+        switch (type) {
+        case PRODUCT:
+            return new Product();
+        case BRAND:
+            return new Brand();
+        default:
+            return new Category();
+        }
+    }
+
+    private static Long id(Object entity) {
+        if (entity instanceof Product) {
+            return ((Product) entity).getId();
+        }
+        if (entity instanceof Brand) {
+            return ((Brand) entity).getId();
+        }
+        return ((Category) entity).getId();
+    }
+
+    private static Long version(Object entity) {
+        if (entity instanceof Product) {
+            return ((Product) entity).getVersion();
+        }
+        if (entity instanceof Brand) {
+            return ((Brand) entity).getVersion();
+        }
+        return ((Category) entity).getVersion();
+    }
+}
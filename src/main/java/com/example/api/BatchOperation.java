@@ -0,0 +1,167 @@
+package com.example.api;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * 一括更新APIの1件分の操作
+ * 更新の場合は指定した項目だけを変更する
+ *
+ * <pre>
+ * {"op":"update","type":"product","id":5,"version":3,"price":1200}
+ * </pre>
+ */
+public class BatchOperation {
+
+    /** 操作の種類 */
+    public enum Op {
+        @JsonProperty("create")
+        CREATE,
+        @JsonProperty("update")
+        UPDATE,
+        @JsonProperty("delete")
+        DELETE
+    }
+
+    /** 対象の種類 */
+    public enum Type {
+        @JsonProperty("product")
+        PRODUCT,
+        @JsonProperty("brand")
+        BRAND,
+        @JsonProperty("category")
+        CATEGORY
+    }
+
+    private Op op;
+
+    private Type type;
+
+    /** 更新・削除の対象のID */
+    private Long id;
+
+    /** 取得時の版（指定した場合は、他の利用者が更新していたら変更しない） */
+    private Long version;
+
+    private String name;
+
+    /** 以降は商品のみ */
+    private String description;
+
+    private Integer price;
+
+    private Double length;
+
+    private Double width;
+
+    private Double height;
+
+    private Double weight;
+
+    private Long brandId;
+
+    private Long categoryId;
+
+    public Op getOp() {
+        return op;
+    }
+
+    public void setOp(Op op) {
+        this.op = op;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public void setType(Type type) {
+        this.type = type;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public Integer getPrice() {
+        return price;
+    }
+
+    public void setPrice(Integer price) {
+        this.price = price;
+    }
+
+    public Double getLength() {
+        return length;
+    }
+
+    public void setLength(Double length) {
+        this.length = length;
+    }
+
+    public Double getWidth() {
+        return width;
+    }
+
+    public void setWidth(Double width) {
+        this.width = width;
+    }
+
+    public Double getHeight() {
+        return height;
+    }
+
+    public void setHeight(Double height) {
+        this.height = height;
+    }
+
+    public Double getWeight() {
+        return weight;
+    }
+
+    public void setWeight(Double weight) {
+        this.weight = weight;
+    }
+
+    public Long getBrandId() {
+        return brandId;
+    }
+
+    public void setBrandId(Long brandId) {
+        this.brandId = brandId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.api;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * 一括更新APIの1件分の結果
+ * 状態はHTTPのステータスコードと同じ意味で返す（201:登録 200:更新 204:削除 400:入力の誤り 404:存在しない 409:競合）
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+
+    /** 要求の中での位置（0から） */
+    private final int index;
+
+    private final int status;
+
+    private final Long id;
+
+    /** 保存後の版（次の更新に指定する） */
+    private final Long version;
+
+    private final String error;
+
+    private BatchResult(int index, int status, Long id, Long version, String error) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.version = version;
+        this.error = error;
+    }
+
+    static BatchResult success(int index, int status, Long id, Long version) {
+        return new BatchResult(index, status, id, version, null);
+    }
+
+    static BatchResult failure(int index, int status, Long id, String error) {
+        return new BatchResult(index, status, id, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
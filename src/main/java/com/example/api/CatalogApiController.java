@@ -0,0 +1,300 @@
+package com.example.api;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.brand.BrandService;
+import com.example.category.CategoryService;
+import com.example.product.ProductAggregate;
+import com.example.product.ProductCriteria;
+import com.example.product.ProductService;
+import com.example.search.Projection;
+
+/**
+ * 商品・ブランド・カテゴリーのAPI
+ * 一覧はID順のキーセット方式で、fieldsに指定した項目だけを取得して出力する
+ * 更新は一括更新（/batch）でまとめて行う
+ * 認証はBASIC認証で、セッションは作らない（{@link com.example.security.SecurityConfig}）
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class CatalogApiController {
+
+    private final ProductService productService;
+
+    private final BrandService brandService;
+
+    private final CategoryService categoryService;
+
+    /** ページの件数の既定値 */
+    private final int defaultPageSize;
+
+    /** ページの件数の上限 */
+    private final int maxPageSize;
+
+    private final BatchExecutor batchExecutor;
+
+    /** 一括更新の1回の要求で指定できる操作の件数の上限 */
+    private final int maxBatchOperations;
+
+    @Autowired
+    public CatalogApiController(ProductService productService, BrandService brandService,
+            CategoryService categoryService,
+            @Value("${slshop.api.default-page-size:50}") int defaultPageSize,
+            @Value("${slshop.api.max-page-size:500}") int maxPageSize,
+            BatchExecutor batchExecutor,
+            @Value("${slshop.api.batch.max-operations:1000}") int maxBatchOperations) {
+        this.productService = productService;
+        this.brandService = brandService;
+        this.categoryService = categoryService;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+        this.batchExecutor = batchExecutor;
+        this.maxBatchOperations = maxBatchOperations;
+    }
+
+    /**
+     * 商品情報一覧
+     *
+     * @param keyword 検索キーワード
+     * @param fields 取得する項目名のカンマ区切り（省略時は全項目）
+     * @param after 前のページの最後のID（前のページのnext、省略時は先頭のページ）
+     * @param size ページの件数
+     * @param response レスポンス
+     * @throws IOException
+     */
+    @GetMapping("/products")
+    public void listProducts(@RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            HttpServletResponse response) throws IOException {
+        Projection projection = productService.projection(keyword, fields);
+        JsonPageWriter writer = open(response, projection);
+        writer.finish(productService.page(keyword, projection, after, pageSize(size), writer::write));
+    }
+
+    /**
+     * 箱に入る商品情報一覧
+     * 3辺は向きを変えて入るものも含む
+     *
+     * @param length 箱の内寸の長さ
+     * @param width 箱の内寸の幅
+     * @param height 箱の内寸の高さ
+     * @param weight 重さの上限（省略時は制限しない）
+     * @param fields 取得する項目名のカンマ区切り（省略時は全項目）
+     * @param after 前のページの最後のID（前のページのnext、省略時は先頭のページ）
+     * @param size ページの件数
+     * @param response レスポンス
+     * @throws IOException
+     */
+    @GetMapping("/products/fit")
+    public void listFitProducts(@RequestParam double length, @RequestParam double width,
+            @RequestParam double height, @RequestParam(required = false) Double weight,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            HttpServletResponse response) throws IOException {
+        if (length < 0 || width < 0 || height < 0 || (weight != null && weight < 0)) {
+            throw new IllegalArgumentException("length, width, height, weightは0以上で指定してください");
+        }
+        Projection projection = productService.projection(null, fields);
+        int pageSize = pageSize(size);
+        JsonPageWriter writer = open(response, projection);
+        writer.finish(productService.fitPage(length, width, height, weight, projection, after, pageSize, writer::write));
+    }
+
+    /**
+     * 大きさの近い商品情報一覧（近い順、ページは分けない）
+     *
+     * @param id 基準の商品ID
+     * @param fields 取得する項目名のカンマ区切り（省略時は全項目）
+     * @param size 件数
+     * @param response レスポンス
+     * @throws IOException
+     * @throws NotFoundException 基準の商品が存在しない場合
+     */
+    @GetMapping("/products/{id}/similar")
+    public void listSimilarProducts(@PathVariable Long id,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Integer size,
+            HttpServletResponse response) throws IOException, NotFoundException {
+        Projection projection = productService.projection(null, fields);
+        List<Long> ids = productService.similarIds(id, pageSize(size));
+        JsonPageWriter writer = open(response, projection);
+        productService.forEachById(projection, ids, writer::write);
+        writer.finish(null);
+    }
+
+    /**
+     * 金額・大きさ・ブランド・カテゴリーでの商品情報一覧
+     * 検索条件は {@link ProductCriteria} の項目名で指定する（例: minPrice=1000&amp;maxWeight=2.5&amp;brandId=3）
+     *
+     * @param criteria 検索条件
+     * @param sort 並び順（id:ID順 price:金額の安い順 -price:金額の高い順、金額順は先頭のページだけ）
+     * @param fields 取得する項目名のカンマ区切り（省略時は全項目）
+     * @param after 前のページの最後のID（前のページのnext、ID順の場合だけ指定できる）
+     * @param size ページの件数
+     * @param response レスポンス
+     * @throws IOException
+     */
+    @GetMapping("/products/query")
+    public void queryProducts(ProductCriteria criteria,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            HttpServletResponse response) throws IOException {
+        Projection projection = productService.projection(null, fields);
+        int pageSize = pageSize(size);
+        // 応答を書き始めると400を返せないため、並び順の誤りは先に判定する
+        if (!"id".equals(sort) && !"price".equals(sort) && !"-price".equals(sort)) {
+            throw new IllegalArgumentException("sortはid, price, -priceのいずれかで指定してください");
+        }
+        if (!"id".equals(sort) && after != null) {
+            throw new IllegalArgumentException("afterはsort=idの場合だけ指定できます");
+        }
+        JsonPageWriter writer = open(response, projection);
+        writer.finish(productService.queryPage(criteria, sort, projection, after, pageSize, writer::write));
+    }
+
+    /**
+     * 金額・大きさ・ブランド・カテゴリーでの商品の集計
+     *
+     * @param criteria 検索条件（{@link #queryProducts} と同じ）
+     * @return 件数、金額の最小・最大・平均、大きさ・重さの平均
+     */
+    @GetMapping("/products/stats")
+    public ProductAggregate productStats(ProductCriteria criteria) {
+        return productService.aggregate(criteria);
+    }
+
+    /**
+     * ブランド情報一覧
+     *
+     * @param keyword 検索キーワード
+     * @param fields 取得する項目名のカンマ区切り（省略時は全項目）
+     * @param after 前のページの最後のID（前のページのnext、省略時は先頭のページ）
+     * @param size ページの件数
+     * @param response レスポンス
+     * @throws IOException
+     */
+    @GetMapping("/brands")
+    public void listBrands(@RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            HttpServletResponse response) throws IOException {
+        Projection projection = brandService.projection(keyword, fields);
+        JsonPageWriter writer = open(response, projection);
+        writer.finish(brandService.page(keyword, projection, after, pageSize(size), writer::write));
+    }
+
+    /**
+     * カテゴリー情報一覧
+     *
+     * @param keyword 検索キーワード
+     * @param fields 取得する項目名のカンマ区切り（省略時は全項目）
+     * @param after 前のページの最後のID（前のページのnext、省略時は先頭のページ）
+     * @param size ページの件数
+     * @param response レスポンス
+     * @throws IOException
+     */
+    @GetMapping("/categories")
+    public void listCategories(@RequestParam(required = false) String keyword,
+            @RequestParam(required = false) String fields,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size,
+            HttpServletResponse response) throws IOException {
+        Projection projection = categoryService.projection(keyword, fields);
+        JsonPageWriter writer = open(response, projection);
+        writer.finish(categoryService.page(keyword, projection, after, pageSize(size), writer::write));
+    }
+
+    /**
+     * 一括更新
+     * 商品・ブランド・カテゴリーの登録・更新・削除をまとめて実行する
+     * 操作ごとに結果を返し、一部の操作が失敗しても他の操作は実行する
+     *
+     * @param operations 操作
+     * @return 操作ごとの結果（操作と同じ順序）
+     */
+    @PostMapping("/batch")
+    public List<BatchResult> batch(@RequestBody List<BatchOperation> operations) {
+        if (operations.size() > maxBatchOperations) {
+            throw new IllegalArgumentException("操作は" + maxBatchOperations + "件までで指定してください");
+        }
+        return batchExecutor.execute(operations);
+    }
+
+    /**
+     * 存在しない項目名やページの件数の誤り
+     *
+     * @param e 例外
+     * @return 400
+     */
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Collections.singletonMap("error", e.getMessage()));
+    }
+
+    /**
+     * 存在しない商品
+     *
+     * @param e 例外
+     * @return 404
+     */
+    @ExceptionHandler(NotFoundException.class)
+    public ResponseEntity<Map<String, String>> notFound(NotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(Collections.singletonMap("error", "対象のデータが見つかりませんでした"));
+    }
+
+    /**
+     * 検索のタイムアウト
+     *
+     * @param e 例外
+     * @return 503
+     */
+    @ExceptionHandler(QueryTimeoutException.class)
+    public ResponseEntity<Map<String, String>> queryTimeout(QueryTimeoutException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Collections.singletonMap("error", "検索に時間がかかったため中断しました。検索条件を絞り込んでください"));
+    }
+
+    private JsonPageWriter open(HttpServletResponse response, Projection projection) throws IOException {
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        return new JsonPageWriter(response.getOutputStream(), projection.getNames());
+    }
+
+    private int pageSize(Integer size) {
+        if (size == null) {
+            return defaultPageSize;
+        }
+        if (size < 1 || size > maxPageSize) {
+            throw new IllegalArgumentException("sizeは1から" + maxPageSize + "までで指定してください");
+        }
+        return size;
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * APIの一覧を1件ずつJSONで出力するためのクラス
+ * 取得した値をそのまま書き出し、JSONの木構造やエンティティを組み立てない
+ *
+ * <pre>
+ * {"items":[{"id":1,"name":"..."},...],"next":123}
+ * </pre>
+ */
+public class JsonPageWriter {
+
+    /** JSON生成用のファクトリ */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /** 項目名（値と同じ順序） */
+    private final List<String> names;
+
+    private final JsonGenerator generator;
+
+    /**
+     * コンストラクタ
+     * 出力は {@link #finish(Long)} まで生成用のバッファに溜まり、バッファを超えた分から書き出す
+     *
+     * @param out 出力先のストリーム
+     * @param names 項目名（値と同じ順序）
+     * @throws IOException
+     */
+    public JsonPageWriter(OutputStream out, List<String> names) throws IOException {
+        this.names = names;
+        this.generator = JSON_FACTORY.createGenerator(out, JsonEncoding.UTF8);
+        this.generator.writeStartObject();
+        this.generator.writeArrayFieldStart("items");
+    }
+
+    /**
+     * 1件出力する
+     *
+     * @param values 項目の値（項目名と同じ順序）
+     */
+    public void write(Object[] values) {
+        try {
+            generator.writeStartObject();
+            for (int i = 0; i < names.size(); i++) {
+                generator.writeFieldName(names.get(i));
+                writeValue(values[i]);
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            // クライアントの切断など
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 一覧を閉じて、残りを書き出す
+     *
+     * @param next 次のページの取得に指定するID（最後のページの場合はnull）
+     * @throws IOException
+     */
+    public void finish(Long next) throws IOException {
+        generator.writeEndArray();
+        generator.writeFieldName("next");
+        if (next == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(next);
+        }
+        generator.writeEndObject();
+        generator.close();
+    }
+
+    private void writeValue(Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof Integer || value instanceof Long) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Number) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else {
+            generator.writeString(value.toString());
+        }
+    }
+}
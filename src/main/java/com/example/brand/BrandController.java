@@ -1,9 +1,13 @@
 package com.example.brand;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,14 +15,23 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.cache.ConditionalGet;
 import com.example.entity.Brand;
+import com.example.export.ExportFormat;
+import com.example.export.ExportWriter;
+import com.example.search.LimitedList;
 
 @Controller
 @RequestMapping("/brands")
 public class BrandController {
 
+    /** 一覧出力時の列名 */
+    private static final String[] EXPORT_HEADERS = { "ID", "NAME" };
+
     private final BrandService brandService;
 
     @Autowired
@@ -34,13 +47,42 @@ public class BrandController {
      */
     @GetMapping
     public String listBrands(@RequestParam(required = false) String keyword, Model model) {
-        // 全ブランド情報の取得
-        List<Brand> listBrands = brandService.listAll(keyword);
+        List<Brand> listBrands;
+        try {
+            // ブランド情報の取得（表示件数の上限まで）
+            listBrands = brandService.listAll(keyword);
+        } catch (QueryTimeoutException e) {
+            // 時間のかかる検索はタイムアウトで中断されるため、条件の絞り込みを促す
+            model.addAttribute("error_message", "検索に時間がかかったため中断しました。検索条件を絞り込んでください");
+            listBrands = Collections.emptyList();
+        }
         model.addAttribute("listBrands", listBrands);
+        // 商品数はメモリ上の件数を使うため、SQLは増えない
+        model.addAttribute("productCounts", brandService.countProducts());
         model.addAttribute("keyword", keyword);
+        model.addAttribute("truncated", LimitedList.isTruncated(listBrands));
         return "brands/brands";
     }
 
+    /**
+     * ブランド一覧出力処理
+     *
+     * @param keyword 検索キーワード
+     * @param format 出力形式（csv, jsonl）
+     * @param gzip true:gzip圧縮して出力する
+     * @return ブランド一覧ファイル
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBrands(@RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        // レスポンスへ1件ずつ書き出す（途中で失敗した場合は、完全なファイルの形にせずに中断する）
+        StreamingResponseBody body = ExportWriter.body(exportFormat, gzip, EXPORT_HEADERS,
+                writer -> brandService.export(keyword, writer::write));
+        return ExportWriter.response("brands", exportFormat, gzip, body);
+    }
+
     /**
      * ブランド新規登録画面表示
      *
@@ -77,7 +119,13 @@ public class BrandController {
         }
         
         // ブランド情報の登録
-        brandService.save(brand);
+        try {
+            brandService.save(brand);
+        } catch (OptimisticLockingFailureException e) {
+            // 編集画面の表示後に他の利用者が更新していた場合は、上書きせずに一覧画面へ戻す
+            ra.addFlashAttribute("error_message", "他の利用者が更新したため保存できませんでした。最新の内容を確認してください");
+            return "redirect:/brands";
+        }
         // 登録成功のメッセージを格納
         ra.addFlashAttribute("success_message", "登録に成功しました");
         return "redirect:/brands";
@@ -89,10 +137,15 @@ public class BrandController {
      * @param id ブランドID
      * @param model
      * @param ra
+     * @param request
      * @return ブランド詳細画面
      */
     @GetMapping("/detail/{id}")
-    public String detailBrand(@PathVariable(name = "id") Long id, Model model, RedirectAttributes ra) {
+    public String detailBrand(@PathVariable(name = "id") Long id, Model model, RedirectAttributes ra, WebRequest request) {
+        // 前回表示から更新されていない場合は、ブランド情報を取得せずに304を返す
+        if (ConditionalGet.checkNotModified(request, brandService.getVersionTag(id))) {
+            return null;
+        }
         try {
             // ブランドIDに紐づくブランド情報取得
             Brand brand = brandService.get(id);
@@ -145,4 +198,39 @@ public class BrandController {
         return "redirect:/brands";
     }
 
+    /**
+     * ブランド一括削除処理
+     * 属する商品は、移動先の指定がある場合は移動し、ない場合は削除する
+     *
+     * @param ids 選択したブランドID
+     * @param moveTo 属する商品の移動先のブランドID
+     * @param ra
+     * @return ブランド一覧画面
+     */
+    @PostMapping("/bulk/delete")
+    public String bulkDeleteBrands(@RequestParam(name = "ids", required = false) List<Long> ids,
+            @RequestParam(required = false) Long moveTo, RedirectAttributes ra) {
+        if (ids == null || ids.isEmpty()) {
+            ra.addFlashAttribute("error_message", "対象を選択してください");
+            return "redirect:/brands";
+        }
+        if (moveTo != null) {
+            if (ids.contains(moveTo)) {
+                ra.addFlashAttribute("error_message", "削除するブランドは移動先に指定できません");
+                return "redirect:/brands";
+            }
+            try {
+                // 移動先のブランドが存在するかの確認
+                brandService.get(moveTo);
+            } catch (NotFoundException e) {
+                ra.addFlashAttribute("error_message", "対象のデータが見つかりませんでした");
+                return "redirect:/brands";
+            }
+        }
+        // ブランド情報の一括削除
+        int deleted = brandService.deleteAll(ids, moveTo);
+        ra.addFlashAttribute("success_message", deleted + "件を削除しました");
+        return "redirect:/brands";
+    }
+
 }
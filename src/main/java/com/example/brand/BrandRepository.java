@@ -1,9 +1,18 @@
 package com.example.brand;
 
+import static org.hibernate.jpa.QueryHints.*;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.entity.Brand;
 
@@ -17,6 +26,16 @@ public interface BrandRepository extends JpaRepository<Brand, Long> {
      */
     public Long countById(Long id);
 
+    /**
+     * ブランド情報の版の取得クエリ
+     * 画面の再表示が必要かどうかの判定に使うため、ブランド情報自体は取得しない
+     *
+     * @param id ブランドID
+     * @return ブランド情報の版（存在しない場合はnull）
+     */
+    @Query("SELECT b.version FROM Brand b WHERE b.id = ?1")
+    public Long findVersionById(Long id);
+
     /**
      * ブランド情報検索クエリ
      *
@@ -29,9 +48,50 @@ public interface BrandRepository extends JpaRepository<Brand, Long> {
      * ブランド情報検索クエリ
      *
      * @param keyword 検索キーワード
+     * @param pageable 取得範囲
      * @return ブランド情報のリスト
      */
+    @QueryHints(@QueryHint(name = SPEC_HINT_TIMEOUT, value = "5000"))
     @Query("SELECT b FROM Brand b WHERE b.name LIKE %?1%")
-    public List<Brand> search(String keyword);
+    public List<Brand> search(String keyword, Pageable pageable);
+
+    /**
+     * ブランド情報一覧表示用クエリ
+     *
+     * @param pageable 取得範囲
+     * @return ブランド情報のリスト
+     */
+    @QueryHints(@QueryHint(name = SPEC_HINT_TIMEOUT, value = "5000"))
+    @Query("SELECT b FROM Brand b")
+    public List<Brand> list(Pageable pageable);
+
+    /**
+     * ブランド情報出力用クエリ
+     *
+     * @return ブランド情報（ID, ブランド名）のストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT b.id, b.name FROM Brand b ORDER BY b.id")
+    public Stream<Object[]> streamAll();
+
+    /**
+     * ブランド情報出力用検索クエリ
+     *
+     * @param keyword 検索キーワード
+     * @return ブランド情報（ID, ブランド名）のストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT b.id, b.name FROM Brand b WHERE b.name LIKE %?1% ORDER BY b.id")
+    public Stream<Object[]> streamSearch(String keyword);
+
+    /**
+     * ブランド情報の一括削除クエリ
+     *
+     * @param ids ブランドID
+     * @return 削除した件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Brand b WHERE b.id IN ?1")
+    public int deleteByIds(Collection<Long> ids);
 
 }
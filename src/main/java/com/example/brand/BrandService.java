@@ -1,21 +1,55 @@
 package com.example.brand;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.bulk.ChunkedTransactions;
+import com.example.datasource.UseWorkload;
+import com.example.datasource.Workload;
 import com.example.entity.Brand;
+import com.example.product.ProductService;
+import com.example.search.KeysetQuery;
+import com.example.search.Projection;
+import com.example.search.SearchLimit;
 
 @Service
 public class BrandService {
 
+    /** APIで取得できる項目 */
+    private static final Projection.Definition API_FIELDS = Projection.from("Brand b")
+            .field("name", "b.name")
+            .field("version", "b.version");
+
+    /** APIの検索条件（一覧画面の検索と同じ項目を対象にする） */
+    private static final String API_SEARCH = "b.name LIKE :keyword";
+
     private final BrandRepository brandRepository;
 
+    private final SearchLimit searchLimit;
+
+    private final KeysetQuery keysetQuery;
+
+    private final ChunkedTransactions chunkedTransactions;
+
+    private final ProductService productService;
+
     @Autowired
-    public BrandService(BrandRepository brandRepository) {
+    public BrandService(BrandRepository brandRepository, SearchLimit searchLimit, KeysetQuery keysetQuery,
+            ChunkedTransactions chunkedTransactions, ProductService productService) {
         this.brandRepository = brandRepository;
+        this.searchLimit = searchLimit;
+        this.keysetQuery = keysetQuery;
+        this.chunkedTransactions = chunkedTransactions;
+        this.productService = productService;
     }
 
     /**
@@ -23,24 +57,90 @@ public class BrandService {
      *
      * @return ブランド情報のリスト
      */
+    @Transactional(readOnly = true)
     public List<Brand> listAll() {
         return brandRepository.findAll();
     }
 
     /**
      * ブランド情報検索処理
+     * 一覧画面に表示する件数には上限があり、上限を超えた場合は先頭から上限までを返す
      *
      * @param keyword 検索キーワード
-     * @return ブランド情報のリスト
+     * @return ブランド情報のリスト（上限を超えたかどうかは {@link com.example.search.LimitedList#isTruncated(List)} で判定する）
      */
+    @Transactional(readOnly = true)
     public List<Brand> listAll(String keyword) {
         // 検索キーワードがあった場合
         if (keyword != null && !keyword.isEmpty()) {
-            return brandRepository.search(keyword);
+            return searchLimit.limit(brandRepository.search(keyword, searchLimit.pageable()));
+        }
+        // それ以外の場合
+        else {
+            return searchLimit.limit(brandRepository.list(searchLimit.pageable()));
+        }
+    }
+
+    /**
+     * ブランドごとの商品数取得処理（メモリ上の件数を使うため、SQLを実行しない）
+     *
+     * @return ブランドIDごとの商品数（商品のないブランドは含まない）
+     */
+    public Map<Long, Long> countProducts() {
+        return productService.countByBrand();
+    }
+
+    /**
+     * APIで取得する項目の選択
+     *
+     * @param keyword 検索キーワード（ブランドは検索の有無で取得できる項目が変わらないため使わない）
+     * @param fields 取得する項目名のカンマ区切り（空の場合は全項目）
+     * @return 選択した項目
+     * @throws IllegalArgumentException 存在しない項目名が含まれる場合
+     */
+    public Projection projection(String keyword, String fields) {
+        return API_FIELDS.select(fields);
+    }
+
+    /**
+     * API用のブランド情報取得処理（キーセット方式で1ページ分を取得する）
+     * 選択した項目だけを取得し、エンティティを組み立てずに1件ずつ処理する
+     *
+     * @param keyword 検索キーワード
+     * @param projection 取得する項目（{@link #projection(String, String)} で選択する）
+     * @param after 前のページの最後のID（先頭のページの場合はnull）
+     * @param size ページの件数
+     * @param action 1件ごとの処理
+     * @return 次のページの取得に指定するID（最後のページの場合はnull）
+     */
+    @Transactional(readOnly = true)
+    public Long page(String keyword, Projection projection, Long after, int size, Consumer<Object[]> action) {
+        // 検索キーワードがあった場合
+        if (keyword != null && !keyword.isEmpty()) {
+            return keysetQuery.forEach(projection, API_SEARCH, Collections.singletonMap("keyword", "%" + keyword + "%"),
+                    after, size, action);
         }
         // それ以外の場合
         else {
-            return brandRepository.findAll();
+            return keysetQuery.forEach(projection, null, Collections.emptyMap(), after, size, action);
+        }
+    }
+
+    /**
+     * ブランド情報出力処理
+     * 検索結果を1件ずつ読み込みながら処理するため、件数に関わらずメモリ使用量は一定になる
+     *
+     * @param keyword 検索キーワード
+     * @param action 1件ごとの処理
+     */
+    @Transactional(readOnly = true)
+    @UseWorkload(Workload.BULK)
+    public void export(String keyword, Consumer<Object[]> action) {
+        // 検索キーワードがあった場合は検索結果、それ以外の場合は全件を出力
+        try (Stream<Object[]> rows = (keyword != null && !keyword.isEmpty())
+                ? brandRepository.streamSearch(keyword)
+                : brandRepository.streamAll()) {
+            rows.forEach(action);
         }
     }
 
@@ -51,6 +151,7 @@ public class BrandService {
      * @return ブランド情報
      * @throws NotFoundException
      */
+    @Transactional(readOnly = true)
     public Brand get(Long id) throws NotFoundException {
         // IDに紐づくブランド情報が存在するかの確認
         if (!this.exists(id)) {
@@ -59,12 +160,26 @@ public class BrandService {
         return brandRepository.findById(id).get();
     }
 
+    /**
+     * IDに紐づくブランド情報の版取得処理
+     * 詳細画面のETagに使う
+     *
+     * @param id ブランドID
+     * @return ブランド情報の版（存在しない場合はnull）
+     */
+    @Transactional(readOnly = true)
+    public String getVersionTag(Long id) {
+        Long version = brandRepository.findVersionById(id);
+        return version != null ? version.toString() : null;
+    }
+
     /**
      * ブランド情報登録処理
      *
      * @param brand 保存したいブランド情報
      * @return 保存したブランド情報
      */
+    @Transactional
     public Brand save(Brand brand) {
         return brandRepository.save(brand);
     }
@@ -118,6 +233,7 @@ public class BrandService {
      * @param id ブランドID
      * @throws NotFoundException
      */
+    @Transactional
     public void delete(Long id) throws NotFoundException {
         // IDに紐づくブランド情報が存在するかの確認
         if (!this.exists(id)) {
@@ -126,6 +242,25 @@ public class BrandService {
         brandRepository.deleteById(id);
     }
 
+    /**
+     * ブランド情報の一括削除処理
+     * 一定件数ごとに、属する商品情報の移動または削除とブランド情報の削除を1回ずつのSQLで行う
+     *
+     * @param ids ブランドID
+     * @param moveTo 属する商品情報の移動先のブランドID（nullの場合は商品情報も削除する）
+     * @return 削除したブランド情報の件数
+     */
+    public int deleteAll(Collection<Long> ids, Long moveTo) {
+        return chunkedTransactions.execute(ids, chunk -> {
+            if (moveTo != null) {
+                productService.moveBrands(chunk, moveTo);
+            } else {
+                productService.deleteByBrands(chunk);
+            }
+            return brandRepository.deleteByIds(chunk);
+        });
+    }
+
     /**
      * ブランド情報の存在チェック
      *
@@ -0,0 +1,51 @@
+package com.example.bulk;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 一括処理の分割実行
+ * 対象のIDを一定件数ごとに分け、分けた単位ごとに1つのトランザクションで実行する
+ * 1回のSQLのIN句の要素数と、1つのトランザクションでロックする行数を一定以内に抑える
+ */
+@Component
+public class ChunkedTransactions {
+
+    private final TransactionTemplate transactionTemplate;
+
+    /** 1つのトランザクションで処理する件数（OracleのIN句の上限の1000件以下にする） */
+    private final int chunkSize;
+
+    @Autowired
+    public ChunkedTransactions(PlatformTransactionManager transactionManager,
+            @Value("${slshop.bulk.chunk-size:500}") int chunkSize) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 分割して実行する
+     * 途中で失敗した場合、それまでに確定した分は元に戻らない
+     *
+     * @param ids 対象のID
+     * @param action 分けた単位ごとの処理（戻り値は処理した件数）
+     * @return 処理した件数の合計
+     */
+    public int execute(Collection<Long> ids, ToIntFunction<List<Long>> action) {
+        List<Long> all = new ArrayList<>(ids);
+        int total = 0;
+        for (int from = 0; from < all.size(); from += chunkSize) {
+            List<Long> chunk = all.subList(from, Math.min(from + chunkSize, all.size()));
+            total += transactionTemplate.execute(status -> action.applyAsInt(chunk));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.cache;
+
+import java.util.Collections;
+import java.util.Set;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.dialect.AbstractProcessorDialect;
+import org.thymeleaf.processor.IProcessor;
+import org.thymeleaf.standard.StandardDialect;
+
+/**
+ * 画面の部品をキャッシュするThymeleafの方言
+ * {@code <div slshop:fragment="layout/header :: header"></div>} のように、
+ * th:replace の代わりに指定すると、部品の生成結果を {@link FragmentCache} に保持して再利用する
+ */
+@Component
+public class CachedFragmentDialect extends AbstractProcessorDialect {
+
+    /** 属性の接頭辞 */
+    static final String PREFIX = "slshop";
+
+    private final FragmentCache fragmentCache;
+
+    /** 部品の生成に使うテンプレートエンジン（テンプレートエンジンがこの方言を使うため、使う時に取得する） */
+    private final ObjectProvider<ITemplateEngine> templateEngine;
+
+    @Autowired
+    public CachedFragmentDialect(FragmentCache fragmentCache, ObjectProvider<ITemplateEngine> templateEngine) {
+        super("SLShop Fragment Cache", PREFIX, StandardDialect.PROCESSOR_PRECEDENCE);
+        this.fragmentCache = fragmentCache;
+        this.templateEngine = templateEngine;
+    }
+
+    @Override
+    public Set<IProcessor> getProcessors(String dialectPrefix) {
+        return Collections.singleton(new CachedFragmentProcessor(dialectPrefix, fragmentCache, templateEngine));
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.cache;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.TemplateSpec;
+import org.thymeleaf.context.ExpressionContext;
+import org.thymeleaf.context.IContext;
+import org.thymeleaf.context.ITemplateContext;
+import org.thymeleaf.context.IWebContext;
+import org.thymeleaf.context.WebExpressionContext;
+import org.thymeleaf.engine.AttributeName;
+import org.thymeleaf.exceptions.TemplateProcessingException;
+import org.thymeleaf.model.IProcessableElementTag;
+import org.thymeleaf.processor.element.AbstractAttributeTagProcessor;
+import org.thymeleaf.processor.element.IElementTagStructureHandler;
+import org.thymeleaf.templatemode.TemplateMode;
+
+/**
+ * slshop:fragment 属性の処理
+ * 指定した部品（テンプレート名 :: セレクター）を生成し、要素をその生成結果で置き換える
+ */
+class CachedFragmentProcessor extends AbstractAttributeTagProcessor {
+
+    /** 属性名 */
+    static final String ATTRIBUTE_NAME = "fragment";
+
+    /** テンプレート名とセレクターの区切り */
+    private static final String SEPARATOR = "::";
+
+    private final FragmentCache fragmentCache;
+
+    private final ObjectProvider<ITemplateEngine> templateEngine;
+
+    CachedFragmentProcessor(String dialectPrefix, FragmentCache fragmentCache, ObjectProvider<ITemplateEngine> templateEngine) {
+        super(TemplateMode.HTML, dialectPrefix, null, false, ATTRIBUTE_NAME, true, 100, true);
+        this.fragmentCache = fragmentCache;
+        this.templateEngine = templateEngine;
+    }
+
+    @Override
+    protected void doProcess(ITemplateContext context, IProcessableElementTag tag, AttributeName attributeName,
+            String attributeValue, IElementTagStructureHandler structureHandler) {
+        int separator = attributeValue.indexOf(SEPARATOR);
+        if (separator < 0) {
+            throw new TemplateProcessingException("Fragment must be specified as 'template :: selector': " + attributeValue);
+        }
+        String template = attributeValue.substring(0, separator).trim();
+        String selector = attributeValue.substring(separator + SEPARATOR.length()).trim();
+
+        String html = fragmentCache.get(attributeValue, () -> render(context, template, selector));
+        // 生成済みのため、置き換えた内容は処理しない
+        structureHandler.replaceWith(html, false);
+    }
+
+    /**
+     * 部品を生成する
+     * 呼び出し元の画面と同じリクエスト・変数で、指定した部品だけを処理する
+     *
+     * @param context 呼び出し元の画面のコンテキスト
+     * @param template テンプレート名
+     * @param selector セレクター
+     * @return 部品の生成結果
+     */
+    private String render(ITemplateContext context, String template, String selector) {
+        Map<String, Object> variables = new HashMap<>();
+        for (String name : context.getVariableNames()) {
+            variables.put(name, context.getVariable(name));
+        }
+        IContext fragmentContext;
+        if (context instanceof IWebContext) {
+            IWebContext web = (IWebContext) context;
+            fragmentContext = new WebExpressionContext(context.getConfiguration(), web.getRequest(), web.getResponse(),
+                    web.getServletContext(), context.getLocale(), variables);
+        } else {
+            fragmentContext = new ExpressionContext(context.getConfiguration(), context.getLocale(), variables);
+        }
+        TemplateSpec spec = new TemplateSpec(template, Collections.singleton(selector), TemplateMode.HTML, null);
+        return templateEngine.getObject().process(spec, fragmentContext);
+    }
+}
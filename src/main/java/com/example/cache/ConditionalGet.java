@@ -0,0 +1,60 @@
+package com.example.cache;
+
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.web.csrf.CsrfToken;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+
+/**
+ * 版（エンティティのバージョン）によるETagを使った条件付きGET
+ * ブラウザが前回表示した画面の版と変わっていない場合は、画面を生成せずに304を返す
+ */
+public final class ConditionalGet {
+
+    /** ブラウザには保存させるが、表示のたびに再検証させる（利用者ごとの画面のため共有キャッシュには保存させない） */
+    static final String CACHE_CONTROL = CacheControl.noCache().cachePrivate().getHeaderValue();
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * 前回表示した画面から変わっていないかを判定する
+     * 変わっていない場合は304のレスポンスが設定されるため、呼び出し元は画面を生成せずにnullを返す
+     *
+     * @param request リクエスト
+     * @param versionTag 画面に表示する情報の版（nullの場合は判定しない）
+     * @return true:変わっていない false:画面の生成が必要
+     */
+    public static boolean checkNotModified(WebRequest request, String versionTag) {
+        if (versionTag == null) {
+            return false;
+        }
+        if (request instanceof NativeWebRequest) {
+            HttpServletResponse response = ((NativeWebRequest) request).getNativeResponse(HttpServletResponse.class);
+            if (response != null) {
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+            }
+        }
+        return request.checkNotModified(etag(request, versionTag));
+    }
+
+    /**
+     * ETagの生成
+     * 画面にはCSRFトークンを埋め込むため、トークンが変わった場合（再ログインなど）も別の版として扱う
+     *
+     * @param request リクエスト
+     * @param versionTag 画面に表示する情報の版
+     * @return ETag
+     */
+    static String etag(WebRequest request, String versionTag) {
+        Object token = request.getAttribute(CsrfToken.class.getName(), RequestAttributes.SCOPE_REQUEST);
+        if (token instanceof CsrfToken) {
+            return versionTag + "-" + Integer.toHexString(((CsrfToken) token).getToken().hashCode());
+        }
+        return versionTag;
+    }
+}
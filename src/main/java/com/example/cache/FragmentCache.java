@@ -0,0 +1,172 @@
+package com.example.cache;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.example.entity.User;
+import com.example.security.SLShopUserDetails;
+import com.example.user.UserChangedEvent;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 画面の部品（ヘッダー・サイドバーなど）の生成結果のキャッシュ
+ * 部品の内容はログイン中の管理者と権限によってのみ変わるため、部品名・管理者ID・管理者情報のバージョン・権限の組み合わせごとに保持する
+ * 管理者情報が更新された場合は、その管理者の生成結果を破棄する
+ * 部品には認証情報（ログイン時に読み込んだ管理者情報）の管理者名を表示するため、更新前の情報でログイン中のセッションが
+ * 更新後に生成した結果を、更新後の情報でログインしたセッションが使わないよう、キーにバージョンを含める
+ *
+ * リンクにセッションIDが埋め込まれると他のセッションに漏れるため、
+ * セッションの追跡はCookieのみにする（server.servlet.session.tracking-modes=cookie）
+ */
+@Component
+public class FragmentCache implements MeterBinder {
+
+    /** キャッシュを使うかどうか */
+    private final boolean enabled;
+
+    /** 保持する生成結果の最大件数（超えた場合は全て破棄する） */
+    private final int maxEntries;
+
+    private final Map<Key, String> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    @Autowired
+    public FragmentCache(
+            @Value("${slshop.fragment-cache.enabled:true}") boolean enabled,
+            @Value("${slshop.fragment-cache.max-entries:10000}") int maxEntries) {
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * 部品の生成結果を取得する
+     * ログイン中でない場合やキャッシュを使わない場合は、毎回生成する
+     *
+     * @param fragment 部品名
+     * @param renderer 部品の生成処理
+     * @return 部品の生成結果
+     */
+    public String get(String fragment, Supplier<String> renderer) {
+        Key key = enabled ? currentKey(fragment) : null;
+        if (key == null) {
+            return renderer.get();
+        }
+        String html = entries.get(key);
+        if (html != null) {
+            hits.increment();
+            return html;
+        }
+        misses.increment();
+        html = renderer.get();
+        if (entries.size() >= maxEntries) {
+            entries.clear();
+        }
+        entries.put(key, html);
+        return html;
+    }
+
+    /**
+     * 管理者情報の更新時に、その管理者の生成結果を破棄する
+     * 更新のトランザクションが確定してから破棄し、確定前の情報で再生成されないようにする
+     *
+     * @param event 管理者情報の更新の通知
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        entries.keySet().removeIf(key -> key.userId.equals(event.getUserId()));
+    }
+
+    /**
+     * 全ての生成結果を破棄する
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("slshop.fragment.cache.size", entries, Map::size)
+                .register(registry);
+        FunctionCounter.builder("slshop.fragment.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("slshop.fragment.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(registry);
+    }
+
+    /**
+     * ログイン中の管理者のキャッシュのキー
+     *
+     * @param fragment 部品名
+     * @return キー（ログイン中でない場合はnull）
+     */
+    private static Key currentKey(String fragment) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !(authentication.getPrincipal() instanceof SLShopUserDetails)) {
+            return null;
+        }
+        User user = ((SLShopUserDetails) authentication.getPrincipal()).getUser();
+        return new Key(fragment, user.getId(), user.getVersion(),
+                new TreeSet<>(AuthorityUtils.authorityListToSet(authentication.getAuthorities())));
+    }
+
+    /**
+     * キャッシュのキー（部品名・管理者ID・管理者情報のバージョン・権限）
+     */
+    private static final class Key {
+
+        private final String fragment;
+
+        private final Long userId;
+
+        private final Long userVersion;
+
+        private final Set<String> authorities;
+
+        Key(String fragment, Long userId, Long userVersion, Set<String> authorities) {
+            this.fragment = fragment;
+            this.userId = userId;
+            this.userVersion = userVersion;
+            this.authorities = authorities;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return fragment.equals(other.fragment) && userId.equals(other.userId)
+                    && Objects.equals(userVersion, other.userVersion) && authorities.equals(other.authorities);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(fragment, userId, userVersion, authorities);
+        }
+    }
+}
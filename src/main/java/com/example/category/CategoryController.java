@@ -1,9 +1,13 @@
 package com.example.category;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,14 +15,23 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.cache.ConditionalGet;
 import com.example.entity.Category;
+import com.example.export.ExportFormat;
+import com.example.export.ExportWriter;
+import com.example.search.LimitedList;
 
 @Controller
 @RequestMapping("/categories")
 public class CategoryController {
 
+    /** 一覧出力時の列名 */
+    private static final String[] EXPORT_HEADERS = { "ID", "NAME" };
+
     private final CategoryService categoryService;
 
     @Autowired
@@ -34,13 +47,42 @@ public class CategoryController {
      */
     @GetMapping
     public String listCategories(@RequestParam(required = false) String keyword, Model model) {
-        // 全カテゴリー情報の取得
-        List<Category> listCategories = categoryService.listAll(keyword);
+        List<Category> listCategories;
+        try {
+            // カテゴリー情報の取得（表示件数の上限まで）
+            listCategories = categoryService.listAll(keyword);
+        } catch (QueryTimeoutException e) {
+            // 時間のかかる検索はタイムアウトで中断されるため、条件の絞り込みを促す
+            model.addAttribute("error_message", "検索に時間がかかったため中断しました。検索条件を絞り込んでください");
+            listCategories = Collections.emptyList();
+        }
         model.addAttribute("listCategories", listCategories);
+        // 商品数はメモリ上の件数を使うため、SQLは増えない
+        model.addAttribute("productCounts", categoryService.countProducts());
         model.addAttribute("keyword", keyword);
+        model.addAttribute("truncated", LimitedList.isTruncated(listCategories));
         return "categories/categories";
     }
 
+    /**
+     * カテゴリー一覧出力処理
+     *
+     * @param keyword 検索キーワード
+     * @param format 出力形式（csv, jsonl）
+     * @param gzip true:gzip圧縮して出力する
+     * @return カテゴリー一覧ファイル
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportCategories(@RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        // レスポンスへ1件ずつ書き出す（途中で失敗した場合は、完全なファイルの形にせずに中断する）
+        StreamingResponseBody body = ExportWriter.body(exportFormat, gzip, EXPORT_HEADERS,
+                writer -> categoryService.export(keyword, writer::write));
+        return ExportWriter.response("categories", exportFormat, gzip, body);
+    }
+
     /**
      * カテゴリー新規登録画面表示
      *
@@ -77,7 +119,13 @@ public class CategoryController {
         }
         
         // カテゴリー情報の登録
-        categoryService.save(category);
+        try {
+            categoryService.save(category);
+        } catch (OptimisticLockingFailureException e) {
+            // 編集画面の表示後に他の利用者が更新していた場合は、上書きせずに一覧画面へ戻す
+            ra.addFlashAttribute("error_message", "他の利用者が更新したため保存できませんでした。最新の内容を確認してください");
+            return "redirect:/categories";
+        }
         // 登録成功のメッセージを格納
         ra.addFlashAttribute("success_message", "登録に成功しました");
         return "redirect:/categories";
@@ -89,10 +137,15 @@ public class CategoryController {
      * @param id カテゴリーID
      * @param model
      * @param ra 
+     * @param request
      * @return カテゴリー詳細画面
      */
     @GetMapping("/detail/{id}")
-    public String detailCategory(@PathVariable(name = "id") Long id, Model model, RedirectAttributes ra) {
+    public String detailCategory(@PathVariable(name = "id") Long id, Model model, RedirectAttributes ra, WebRequest request) {
+        // 前回表示から更新されていない場合は、カテゴリー情報を取得せずに304を返す
+        if (ConditionalGet.checkNotModified(request, categoryService.getVersionTag(id))) {
+            return null;
+        }
         try {
             // カテゴリーIDに紐づくカテゴリー情報取得
             Category category = categoryService.get(id);
@@ -145,4 +198,39 @@ public class CategoryController {
         return "redirect:/categories";
     }
 
+    /**
+     * カテゴリー一括削除処理
+     * 属する商品は、移動先の指定がある場合は移動し、ない場合は削除する
+     *
+     * @param ids 選択したカテゴリーID
+     * @param moveTo 属する商品の移動先のカテゴリーID
+     * @param ra
+     * @return カテゴリー一覧画面
+     */
+    @PostMapping("/bulk/delete")
+    public String bulkDeleteCategories(@RequestParam(name = "ids", required = false) List<Long> ids,
+            @RequestParam(required = false) Long moveTo, RedirectAttributes ra) {
+        if (ids == null || ids.isEmpty()) {
+            ra.addFlashAttribute("error_message", "対象を選択してください");
+            return "redirect:/categories";
+        }
+        if (moveTo != null) {
+            if (ids.contains(moveTo)) {
+                ra.addFlashAttribute("error_message", "削除するカテゴリーは移動先に指定できません");
+                return "redirect:/categories";
+            }
+            try {
+                // 移動先のカテゴリーが存在するかの確認
+                categoryService.get(moveTo);
+            } catch (NotFoundException e) {
+                ra.addFlashAttribute("error_message", "対象のデータが見つかりませんでした");
+                return "redirect:/categories";
+            }
+        }
+        // カテゴリー情報の一括削除
+        int deleted = categoryService.deleteAll(ids, moveTo);
+        ra.addFlashAttribute("success_message", deleted + "件を削除しました");
+        return "redirect:/categories";
+    }
+
 }
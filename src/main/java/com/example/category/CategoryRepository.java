@@ -1,9 +1,18 @@
 package com.example.category;
 
+import static org.hibernate.jpa.QueryHints.*;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.entity.Category;
 
@@ -17,6 +26,16 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      */
     public Long countById(Long id);
 
+    /**
+     * カテゴリー情報の版の取得クエリ
+     * 画面の再表示が必要かどうかの判定に使うため、カテゴリー情報自体は取得しない
+     *
+     * @param id カテゴリーID
+     * @return カテゴリー情報の版（存在しない場合はnull）
+     */
+    @Query("SELECT c.version FROM Category c WHERE c.id = ?1")
+    public Long findVersionById(Long id);
+
     /**
      * カテゴリー情報検索クエリ
      *
@@ -29,9 +48,50 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * カテゴリー情報検索クエリ
      *
      * @param keyword 検索キーワード
+     * @param pageable 取得範囲
      * @return カテゴリー情報のリスト
      */
+    @QueryHints(@QueryHint(name = SPEC_HINT_TIMEOUT, value = "5000"))
     @Query("SELECT c FROM Category c WHERE c.name LIKE %?1%")
-    public List<Category> search(String keyword);
+    public List<Category> search(String keyword, Pageable pageable);
+
+    /**
+     * カテゴリー情報一覧表示用クエリ
+     *
+     * @param pageable 取得範囲
+     * @return カテゴリー情報のリスト
+     */
+    @QueryHints(@QueryHint(name = SPEC_HINT_TIMEOUT, value = "5000"))
+    @Query("SELECT c FROM Category c")
+    public List<Category> list(Pageable pageable);
+
+    /**
+     * カテゴリー情報出力用クエリ
+     *
+     * @return カテゴリー情報（ID, カテゴリー名）のストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c.id, c.name FROM Category c ORDER BY c.id")
+    public Stream<Object[]> streamAll();
+
+    /**
+     * カテゴリー情報出力用検索クエリ
+     *
+     * @param keyword 検索キーワード
+     * @return カテゴリー情報（ID, カテゴリー名）のストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT c.id, c.name FROM Category c WHERE c.name LIKE %?1% ORDER BY c.id")
+    public Stream<Object[]> streamSearch(String keyword);
+
+    /**
+     * カテゴリー情報の一括削除クエリ
+     *
+     * @param ids カテゴリーID
+     * @return 削除した件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Category c WHERE c.id IN ?1")
+    public int deleteByIds(Collection<Long> ids);
 
 }
@@ -1,21 +1,55 @@
 package com.example.category;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.bulk.ChunkedTransactions;
+import com.example.datasource.UseWorkload;
+import com.example.datasource.Workload;
 import com.example.entity.Category;
+import com.example.product.ProductService;
+import com.example.search.KeysetQuery;
+import com.example.search.Projection;
+import com.example.search.SearchLimit;
 
 @Service
 public class CategoryService {
 
+    /** APIで取得できる項目 */
+    private static final Projection.Definition API_FIELDS = Projection.from("Category c")
+            .field("name", "c.name")
+            .field("version", "c.version");
+
+    /** APIの検索条件（一覧画面の検索と同じ項目を対象にする） */
+    private static final String API_SEARCH = "c.name LIKE :keyword";
+
     private final CategoryRepository categoryRepository;
 
+    private final SearchLimit searchLimit;
+
+    private final KeysetQuery keysetQuery;
+
+    private final ChunkedTransactions chunkedTransactions;
+
+    private final ProductService productService;
+
     @Autowired
-    public CategoryService(CategoryRepository categoryRepository) {
+    public CategoryService(CategoryRepository categoryRepository, SearchLimit searchLimit, KeysetQuery keysetQuery,
+            ChunkedTransactions chunkedTransactions, ProductService productService) {
         this.categoryRepository = categoryRepository;
+        this.searchLimit = searchLimit;
+        this.keysetQuery = keysetQuery;
+        this.chunkedTransactions = chunkedTransactions;
+        this.productService = productService;
     }
 
     /**
@@ -23,24 +57,90 @@ public class CategoryService {
      *
      * @return カテゴリー情報のリスト
      */
+    @Transactional(readOnly = true)
     public List<Category> listAll() {
         return categoryRepository.findAll();
     }
 
     /**
      * カテゴリー情報検索処理
+     * 一覧画面に表示する件数には上限があり、上限を超えた場合は先頭から上限までを返す
      *
      * @param keyword 検索キーワード
-     * @return カテゴリー情報のリスト
+     * @return カテゴリー情報のリスト（上限を超えたかどうかは {@link com.example.search.LimitedList#isTruncated(List)} で判定する）
      */
+    @Transactional(readOnly = true)
     public List<Category> listAll(String keyword) {
         // 検索キーワードがあった場合
         if (keyword != null && !keyword.isEmpty()) {
-            return categoryRepository.search(keyword);
+            return searchLimit.limit(categoryRepository.search(keyword, searchLimit.pageable()));
+        }
+        // それ以外の場合
+        else {
+            return searchLimit.limit(categoryRepository.list(searchLimit.pageable()));
+        }
+    }
+
+    /**
+     * カテゴリーごとの商品数取得処理（メモリ上の件数を使うため、SQLを実行しない）
+     *
+     * @return カテゴリーIDごとの商品数（商品のないカテゴリーは含まない）
+     */
+    public Map<Long, Long> countProducts() {
+        return productService.countByCategory();
+    }
+
+    /**
+     * APIで取得する項目の選択
+     *
+     * @param keyword 検索キーワード（カテゴリーは検索の有無で取得できる項目が変わらないため使わない）
+     * @param fields 取得する項目名のカンマ区切り（空の場合は全項目）
+     * @return 選択した項目
+     * @throws IllegalArgumentException 存在しない項目名が含まれる場合
+     */
+    public Projection projection(String keyword, String fields) {
+        return API_FIELDS.select(fields);
+    }
+
+    /**
+     * API用のカテゴリー情報取得処理（キーセット方式で1ページ分を取得する）
+     * 選択した項目だけを取得し、エンティティを組み立てずに1件ずつ処理する
+     *
+     * @param keyword 検索キーワード
+     * @param projection 取得する項目（{@link #projection(String, String)} で選択する）
+     * @param after 前のページの最後のID（先頭のページの場合はnull）
+     * @param size ページの件数
+     * @param action 1件ごとの処理
+     * @return 次のページの取得に指定するID（最後のページの場合はnull）
+     */
+    @Transactional(readOnly = true)
+    public Long page(String keyword, Projection projection, Long after, int size, Consumer<Object[]> action) {
+        // 検索キーワードがあった場合
+        if (keyword != null && !keyword.isEmpty()) {
+            return keysetQuery.forEach(projection, API_SEARCH, Collections.singletonMap("keyword", "%" + keyword + "%"),
+                    after, size, action);
         }
         // それ以外の場合
         else {
-            return categoryRepository.findAll();
+            return keysetQuery.forEach(projection, null, Collections.emptyMap(), after, size, action);
+        }
+    }
+
+    /**
+     * カテゴリー情報出力処理
+     * 検索結果を1件ずつ読み込みながら処理するため、件数に関わらずメモリ使用量は一定になる
+     *
+     * @param keyword 検索キーワード
+     * @param action 1件ごとの処理
+     */
+    @Transactional(readOnly = true)
+    @UseWorkload(Workload.BULK)
+    public void export(String keyword, Consumer<Object[]> action) {
+        // 検索キーワードがあった場合は検索結果、それ以外の場合は全件を出力
+        try (Stream<Object[]> rows = (keyword != null && !keyword.isEmpty())
+                ? categoryRepository.streamSearch(keyword)
+                : categoryRepository.streamAll()) {
+            rows.forEach(action);
         }
     }
 
@@ -51,6 +151,7 @@ public class CategoryService {
      * @return カテゴリー情報
      * @throws NotFoundException 
      */
+    @Transactional(readOnly = true)
     public Category get(Long id) throws NotFoundException {
         // IDに紐づくカテゴリー情報が存在するかの確認
         if (!this.exists(id)) {
@@ -59,12 +160,26 @@ public class CategoryService {
         return categoryRepository.findById(id).get();
     }
 
+    /**
+     * IDに紐づくカテゴリー情報の版取得処理
+     * 詳細画面のETagに使う
+     *
+     * @param id カテゴリーID
+     * @return カテゴリー情報の版（存在しない場合はnull）
+     */
+    @Transactional(readOnly = true)
+    public String getVersionTag(Long id) {
+        Long version = categoryRepository.findVersionById(id);
+        return version != null ? version.toString() : null;
+    }
+
     /**
      * カテゴリー情報登録処理
      *
      * @param category 保存したいカテゴリー情報
      * @return 保存したカテゴリー情報
      */
+    @Transactional
     public Category save(Category category) {
         return categoryRepository.save(category);
     }
@@ -114,6 +229,7 @@ public class CategoryService {
      * @param id カテゴリーID
      * @throws NotFoundException 
      */
+    @Transactional
     public void delete(Long id) throws NotFoundException {
         // IDに紐づくカテゴリー情報が存在するかの確認
         if (!this.exists(id)) {
@@ -122,6 +238,25 @@ public class CategoryService {
         categoryRepository.deleteById(id);
     }
 
+    /**
+     * カテゴリー情報の一括削除処理
+     * 一定件数ごとに、属する商品情報の移動または削除とカテゴリー情報の削除を1回ずつのSQLで行う
+     *
+     * @param ids カテゴリーID
+     * @param moveTo 属する商品情報の移動先のカテゴリーID（nullの場合は商品情報も削除する）
+     * @return 削除したカテゴリー情報の件数
+     */
+    public int deleteAll(Collection<Long> ids, Long moveTo) {
+        return chunkedTransactions.execute(ids, chunk -> {
+            if (moveTo != null) {
+                productService.moveCategories(chunk, moveTo);
+            } else {
+                productService.deleteByCategories(chunk);
+            }
+            return categoryRepository.deleteByIds(chunk);
+        });
+    }
+
     /**
      * カテゴリー情報の存在チェック
      *
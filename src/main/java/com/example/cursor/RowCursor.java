@@ -0,0 +1,161 @@
+package com.example.cursor;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+
+/**
+ * 画面の生成中に1件ずつ読み込む一覧
+ * テンプレートの th:each で最初の要素を取得した時に、読み取り専用のトランザクションで検索を開始する
+ * 一定件数ごとに、それまでに生成した画面をクライアントへ送信し、読み込んだエンティティを破棄するため、
+ * 件数に関わらずメモリ使用量は一定になる
+ *
+ * @param <T> 要素の型
+ */
+public class RowCursor<T> implements Iterator<T>, Closeable {
+
+    private final Supplier<Stream<T>> query;
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final TransactionDefinition definition;
+
+    private final EntityManager entityManager;
+
+    /** 生成した画面の送信先（nullの場合は送信しない） */
+    private final HttpServletResponse response;
+
+    /** 送信・破棄の単位となる件数 */
+    private final int chunkSize;
+
+    private TransactionStatus status;
+
+    private Stream<T> stream;
+
+    private Iterator<T> rows;
+
+    /** 読み込んだ件数 */
+    private long count;
+
+    /** 最後まで読み込んだかどうか */
+    private boolean exhausted;
+
+    private boolean closed;
+
+    RowCursor(Supplier<Stream<T>> query, PlatformTransactionManager transactionManager, TransactionDefinition definition,
+            EntityManager entityManager, HttpServletResponse response, int chunkSize) {
+        this.query = query;
+        this.transactionManager = transactionManager;
+        this.definition = definition;
+        this.entityManager = entityManager;
+        this.response = response;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        open();
+        if (rows.hasNext()) {
+            return true;
+        }
+        // 最後まで読み込んだ時点でトランザクションを終了し、接続を返却する
+        exhausted = true;
+        close();
+        return false;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        if (count > 0 && count % chunkSize == 0) {
+            // 前の単位の行は生成済みのため、クライアントへ送信してからエンティティを破棄する
+            flush();
+            entityManager.clear();
+        }
+        count++;
+        return rows.next();
+    }
+
+    /**
+     * 読み込んだ件数
+     *
+     * @return 件数
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * 検索を終了する
+     * 画面の生成が途中で終了した場合（クライアントの切断など）も、リクエストの終了時に呼び出される
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (stream != null) {
+                stream.close();
+            }
+        } finally {
+            if (status != null && !status.isCompleted()) {
+                if (exhausted) {
+                    transactionManager.commit(status);
+                } else {
+                    transactionManager.rollback(status);
+                }
+            }
+        }
+    }
+
+    /**
+     * トランザクションを開始して検索する
+     */
+    private void open() {
+        if (rows != null) {
+            return;
+        }
+        status = transactionManager.getTransaction(definition);
+        try {
+            stream = query.get();
+            rows = stream.iterator();
+        } catch (RuntimeException e) {
+            transactionManager.rollback(status);
+            closed = true;
+            throw e;
+        }
+    }
+
+    /**
+     * それまでに生成した画面をクライアントへ送信する
+     */
+    private void flush() {
+        if (response == null) {
+            return;
+        }
+        try {
+            response.flushBuffer();
+        } catch (IOException e) {
+            // クライアントが切断した場合は、画面の生成を中断する
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * {@link RowCursor} の生成と終了
+ * 画面の生成中にリクエストが終了した場合に備え、リクエストの終了時に開いたままの検索を終了する
+ * エンティティマネージャーより先に終了する必要があるため、Open EntityManager in View より後に登録する
+ */
+@Component
+public class RowCursors implements HandlerInterceptor {
+
+    /** 生成した検索を保持するリクエストの属性名 */
+    static final String CURSORS_ATTRIBUTE = RowCursors.class.getName() + ".CURSORS";
+
+    private final PlatformTransactionManager transactionManager;
+
+    private final EntityManager entityManager;
+
+    /** 送信・破棄の単位となる件数 */
+    private final int chunkSize;
+
+    @Autowired
+    public RowCursors(PlatformTransactionManager transactionManager, EntityManager entityManager,
+            @Value("${slshop.cursor.chunk-size:200}") int chunkSize) {
+        this.transactionManager = transactionManager;
+        this.entityManager = entityManager;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 画面の生成中に1件ずつ読み込む一覧を生成する
+     * 検索は最初の要素を取得した時に行う
+     *
+     * @param <T> 要素の型
+     * @param query 検索処理（読み取り専用のトランザクション内で呼び出す）
+     * @return 一覧
+     */
+    @SuppressWarnings("unchecked")
+    public <T> RowCursor<T> open(Supplier<Stream<T>> query) {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(true);
+        HttpServletResponse response = null;
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            response = ((ServletRequestAttributes) attributes).getResponse();
+        }
+        RowCursor<T> cursor = new RowCursor<>(query, transactionManager, definition, entityManager, response, chunkSize);
+        if (attributes != null) {
+            List<RowCursor<?>> cursors = (List<RowCursor<?>>) attributes.getAttribute(CURSORS_ATTRIBUTE,
+                    RequestAttributes.SCOPE_REQUEST);
+            if (cursors == null) {
+                cursors = new ArrayList<>();
+                attributes.setAttribute(CURSORS_ATTRIBUTE, cursors, RequestAttributes.SCOPE_REQUEST);
+            }
+            cursors.add(cursor);
+        }
+        return cursor;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        List<RowCursor<?>> cursors = (List<RowCursor<?>>) request.getAttribute(CURSORS_ATTRIBUTE);
+        if (cursors != null) {
+            cursors.forEach(RowCursor::close);
+        }
+    }
+}
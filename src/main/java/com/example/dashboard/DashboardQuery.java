@@ -0,0 +1,73 @@
+package com.example.dashboard;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * ダッシュボードの集計値の全件集計
+ * 起動時と定期的な照合で使うため、画面の表示では実行しない
+ * 呼び出し元のトランザクション内で実行する
+ */
+@Component
+public class DashboardQuery {
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public DashboardQuery(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * 商品の集計値の集計（1回の全件走査で集計する）
+     *
+     * @return 商品の集計値
+     */
+    ProductTotals productTotals() {
+        StringBuilder jpql = new StringBuilder("SELECT COUNT(p), SUM(p.price),"
+                + " SUM(p.length), SUM(p.width), SUM(p.height), SUM(p.weight)");
+        for (int bound : ProductTotals.PRICE_BOUNDS) {
+            jpql.append(", SUM(CASE WHEN p.price < ").append(bound).append(" THEN 1 ELSE 0 END)");
+        }
+        jpql.append(" FROM Product p");
+
+        Object[] row = entityManager.createQuery(jpql.toString(), Object[].class).getSingleResult();
+        long[] belowBounds = new long[ProductTotals.PRICE_BOUNDS.length];
+        for (int i = 0; i < belowBounds.length; i++) {
+            belowBounds[i] = longValue(row[6 + i]);
+        }
+        // 商品がない場合、合計はnullになる
+        return ProductTotals.of(longValue(row[0]), longValue(row[1]), doubleValue(row[2]), doubleValue(row[3]),
+                doubleValue(row[4]), doubleValue(row[5]), belowBounds);
+    }
+
+    /**
+     * 権限ごとの管理者数の集計
+     *
+     * @return 権限名ごとの管理者数（管理者のいない権限も0件で含む、権限名の順）
+     */
+    Map<String, Long> countUsersByRole() {
+        Map<String, Long> counts = new TreeMap<>();
+        for (String name : entityManager.createQuery("SELECT r.name FROM Role r", String.class).getResultList()) {
+            counts.put(name, 0L);
+        }
+        for (Object[] row : entityManager.createQuery(
+                "SELECT r.name, COUNT(u) FROM User u JOIN u.roles r GROUP BY r.name", Object[].class).getResultList()) {
+            counts.put((String) row[0], longValue(row[1]));
+        }
+        return counts;
+    }
+
+    private static long longValue(Object value) {
+        return value != null ? ((Number) value).longValue() : 0;
+    }
+
+    private static double doubleValue(Object value) {
+        return value != null ? ((Number) value).doubleValue() : 0;
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.dashboard;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.product.ProductCounts;
+import com.example.product.ProductCountsChangedEvent;
+import com.example.product.ProductService;
+import com.example.reload.BackgroundReloader;
+import com.example.user.UserChangedEvent;
+
+/**
+ * ダッシュボードの集計値（メモリ上に保持する）
+ * 起動時に全件を集計し、以降は商品情報・管理者情報の変更が確定するたびに増減を反映する
+ * 表示内容は変更があった後の最初の表示で作成し、次の変更までは作成済みのものを返す
+ * 増減の反映漏れに備えて、一定間隔で全件を集計し直して照合する（ずれていた場合は警告を出力する）
+ */
+@Component
+public class DashboardStatistics implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DashboardStatistics.class);
+
+    private final DashboardQuery dashboardQuery;
+
+    private final ProductService productService;
+
+    private final ProductCounts productCounts;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /** 集計・照合と、集計中の増減の記録（商品・管理者の変更の通知を記録する） */
+    private final BackgroundReloader<Object> reloader;
+
+    /** 別スレッドで集計し直す処理 */
+    private final BackgroundReloader<Object>.Task reload;
+
+    /** 照合の間隔（ミリ秒、0以下の場合は照合しない） */
+    private final long reconcileMillis;
+
+    /** 商品の集計値 */
+    private ProductTotals products = new ProductTotals();
+
+    /** 権限名ごとの管理者数 */
+    private Map<String, Long> usersByRole = new TreeMap<>();
+
+    /** 最後に全件を集計した日時 */
+    private LocalDateTime loadedAt;
+
+    /** 集計値を変更した回数（作成済みの表示内容が古くなったかの判定に使う） */
+    private volatile long version;
+
+    /** 作成済みの表示内容 */
+    private volatile Cached cached;
+
+    @Autowired
+    public DashboardStatistics(DashboardQuery dashboardQuery, ProductService productService,
+            ProductCounts productCounts, PlatformTransactionManager transactionManager,
+            @Value("${slshop.dashboard.reconcile-millis:600000}") long reconcileMillis) {
+        this.dashboardQuery = dashboardQuery;
+        this.productService = productService;
+        this.productCounts = productCounts;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reconcileMillis = reconcileMillis;
+        this.reloader = new BackgroundReloader<>(this, "dashboard-statistics");
+        this.reload = reloader.task(this::load, "reload dashboard statistics");
+    }
+
+    /**
+     * 起動時に全件を集計し、照合を開始する
+     * 起動時に生成・読み込みした商品情報も含めるため、起動処理がすべて終わってから実行する
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        load();
+        if (reconcileMillis > 0) {
+            reloader.scheduleWithFixedDelay(this::reconcile, reconcileMillis, "reconcile dashboard statistics");
+        }
+    }
+
+    /**
+     * 全件を集計して読み込む
+     */
+    public void load() {
+        load(false);
+    }
+
+    /**
+     * 全件を集計し直し、増減を反映した集計値と照合する（照合の間隔ごとに実行する）
+     * 商品件数（{@link ProductCounts}）も集計し直す
+     */
+    void reconcile() {
+        load(true);
+        productCounts.reloadLater();
+    }
+
+    /**
+     * 集計中に増減を反映した場合は、集計結果に含まれているか分からない（反映し直すと重複する場合がある）ため、もう一度集計し直す
+     */
+    private void load(boolean reconcile) {
+        long start = System.currentTimeMillis();
+        Loaded loaded = reloader.load(() -> {
+            // 直前の変更がレプリカに反映されていない場合があるため、更新と同じ接続先（プライマリ）で集計する
+            return new Loaded(transactionTemplate.execute(status -> dashboardQuery.productTotals()),
+                    transactionTemplate.execute(status -> dashboardQuery.countUsersByRole()));
+        }, (totals, changesWhileLoading) -> {
+            boolean changed = !changesWhileLoading.isEmpty();
+            // 集計中に増減を反映した場合は、集計結果と比べられない
+            if (reconcile && !changed
+                    && (!products.sameCounts(totals.products) || !usersByRole.equals(totals.usersByRole))) {
+                LOGGER.warn("Dashboard statistics drifted: products [{}] -> [{}], users {} -> {}",
+                        products, totals.products, usersByRole, totals.usersByRole);
+            }
+            products = totals.products;
+            usersByRole = totals.usersByRole;
+            loadedAt = LocalDateTime.now();
+            version++;
+            if (changed) {
+                reload.schedule();
+            }
+        });
+        LOGGER.info("Loaded dashboard statistics for {} products in {} ms",
+                loaded.products.getCount(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 別スレッドで全件を集計し直す
+     * 集計を始める前に続けて呼び出した場合は、1回の集計にまとめる
+     */
+    public void reloadLater() {
+        reload.schedule();
+    }
+
+    /**
+     * 確定した商品の増減を反映する
+     *
+     * @param event 商品件数・集計値の変更の通知
+     */
+    @TransactionalEventListener
+    public void onProductCountsChanged(ProductCountsChangedEvent event) {
+        if (event.isRecount()) {
+            reloadLater();
+            return;
+        }
+        reloader.apply(Collections.singletonList(event), () -> {
+            event.getRemoved().forEach(values -> products.add(values, -1));
+            event.getAdded().forEach(values -> products.add(values, 1));
+            version++;
+        });
+    }
+
+    /**
+     * 確定した管理者の権限の増減を反映する
+     *
+     * @param event 管理者情報の登録・更新・削除の通知
+     */
+    @TransactionalEventListener
+    public void onUserChanged(UserChangedEvent event) {
+        reloader.apply(Collections.singletonList(event), () -> {
+            event.getOldRoles().forEach(role -> usersByRole.merge(role, -1L, Long::sum));
+            event.getNewRoles().forEach(role -> usersByRole.merge(role, 1L, Long::sum));
+            version++;
+        });
+    }
+
+    /**
+     * ダッシュボードの表示内容
+     * 変更がなければ作成済みのものを返す（SQLを実行しない）
+     * 変更があった場合は、件数の多いブランド・カテゴリーの名前だけを取得して作成し直す
+     *
+     * @return 表示内容
+     */
+    public DashboardSummary summary() {
+        long countsVersion = productCounts.version();
+        Cached current = cached;
+        if (current != null && current.version == version && current.countsVersion == countsVersion) {
+            return current.summary;
+        }
+        ProductTotals totals;
+        Map<String, Long> users;
+        LocalDateTime at;
+        long summaryVersion;
+        synchronized (this) {
+            totals = products.copy();
+            users = new TreeMap<>(usersByRole);
+            at = loadedAt;
+            summaryVersion = version;
+        }
+        DashboardSummary summary = new DashboardSummary(totals, productService.topFacets(), users, at);
+        cached = new Cached(summary, summaryVersion, countsVersion);
+        return summary;
+    }
+
+    @Override
+    public void destroy() {
+        reloader.shutdown(0);
+    }
+
+    /**
+     * 全件を集計した値
+     */
+    private static final class Loaded {
+
+        private final ProductTotals products;
+
+        private final Map<String, Long> usersByRole;
+
+        Loaded(ProductTotals products, Map<String, Long> usersByRole) {
+            this.products = products;
+            this.usersByRole = usersByRole;
+        }
+    }
+
+    /**
+     * 作成済みの表示内容と、作成した時点の変更回数
+     */
+    private static final class Cached {
+
+        private final DashboardSummary summary;
+
+        private final long version;
+
+        private final long countsVersion;
+
+        Cached(DashboardSummary summary, long version, long countsVersion) {
+            this.summary = summary;
+            this.version = version;
+            this.countsVersion = countsVersion;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.dashboard;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import com.example.product.FacetCount;
+import com.example.product.ProductFacets;
+
+/**
+ * ダッシュボードの表示内容
+ * 集計値から作成した時点の値を保持し、変更できない
+ */
+public class DashboardSummary {
+
+    /** 商品の件数 */
+    private final long productCount;
+
+    /** 平均金額（円、商品がない場合は0） */
+    private final double averagePrice;
+
+    /** 平均の長さ */
+    private final double averageLength;
+
+    /** 平均の幅 */
+    private final double averageWidth;
+
+    /** 平均の高さ */
+    private final double averageHeight;
+
+    /** 平均の重さ */
+    private final double averageWeight;
+
+    /** 価格帯ごとの件数（金額の安い順） */
+    private final List<PriceRange> priceRanges;
+
+    /** 商品件数の多いブランド */
+    private final List<FacetCount> brands;
+
+    /** 商品件数の多いカテゴリー */
+    private final List<FacetCount> categories;
+
+    /** 権限名ごとの管理者数 */
+    private final Map<String, Long> usersByRole;
+
+    /** 最後に全件を集計した日時 */
+    private final LocalDateTime loadedAt;
+
+    DashboardSummary(ProductTotals totals, ProductFacets top, Map<String, Long> usersByRole, LocalDateTime loadedAt) {
+        long count = totals.getCount();
+        this.productCount = count;
+        this.averagePrice = average(totals.getPriceSum(), count);
+        this.averageLength = average(totals.getLengthSum(), count);
+        this.averageWidth = average(totals.getWidthSum(), count);
+        this.averageHeight = average(totals.getHeightSum(), count);
+        this.averageWeight = average(totals.getWeightSum(), count);
+        List<PriceRange> ranges = new ArrayList<>();
+        for (int i = 0; i <= ProductTotals.PRICE_BOUNDS.length; i++) {
+            Integer from = i > 0 ? ProductTotals.PRICE_BOUNDS[i - 1] : null;
+            Integer to = i < ProductTotals.PRICE_BOUNDS.length ? ProductTotals.PRICE_BOUNDS[i] : null;
+            ranges.add(new PriceRange(from, to, totals.getPriceRange(i), count));
+        }
+        this.priceRanges = Collections.unmodifiableList(ranges);
+        this.brands = top.getBrands();
+        this.categories = top.getCategories();
+        this.usersByRole = Collections.unmodifiableMap(usersByRole);
+        this.loadedAt = loadedAt;
+    }
+
+    private static double average(double sum, long count) {
+        return count > 0 ? sum / count : 0;
+    }
+
+    public long getProductCount() {
+        return productCount;
+    }
+
+    public double getAveragePrice() {
+        return averagePrice;
+    }
+
+    public double getAverageLength() {
+        return averageLength;
+    }
+
+    public double getAverageWidth() {
+        return averageWidth;
+    }
+
+    public double getAverageHeight() {
+        return averageHeight;
+    }
+
+    public double getAverageWeight() {
+        return averageWeight;
+    }
+
+    public List<PriceRange> getPriceRanges() {
+        return priceRanges;
+    }
+
+    public List<FacetCount> getBrands() {
+        return brands;
+    }
+
+    public List<FacetCount> getCategories() {
+        return categories;
+    }
+
+    public Map<String, Long> getUsersByRole() {
+        return usersByRole;
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * 価格帯と、その価格帯の商品の件数
+     */
+    public static class PriceRange {
+
+        /** 下限（円、下限がない場合はnull） */
+        private final Integer from;
+
+        /** 上限（円、この金額は含まない、上限がない場合はnull） */
+        private final Integer to;
+
+        private final long count;
+
+        /** 全体に占める割合（%） */
+        private final double percent;
+
+        PriceRange(Integer from, Integer to, long count, long total) {
+            this.from = from;
+            this.to = to;
+            this.count = count;
+            this.percent = total > 0 ? count * 100.0 / total : 0;
+        }
+
+        public Integer getFrom() {
+            return from;
+        }
+
+        public Integer getTo() {
+            return to;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getPercent() {
+            return percent;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.dashboard;
+
+import java.util.Arrays;
+
+import com.example.product.ProductCountsChangedEvent;
+
+/**
+ * 商品の集計値（件数・金額の合計と価格帯ごとの件数・大きさと重さの合計）
+ * 合計だけを保持するため、商品の追加・取り除きのたびに一定の時間で増減できる
+ * スレッドセーフではないため、呼び出し元で排他する
+ */
+class ProductTotals {
+
+    /** 価格帯の境界（円、各価格帯の下限） */
+    static final int[] PRICE_BOUNDS = { 1000, 5000, 10000, 50000, 100000 };
+
+    private long count;
+
+    private long priceSum;
+
+    private double lengthSum;
+
+    private double widthSum;
+
+    private double heightSum;
+
+    private double weightSum;
+
+    /** 価格帯ごとの件数（境界の数 + 1 個） */
+    private final long[] priceRanges = new long[PRICE_BOUNDS.length + 1];
+
+    /**
+     * 集計結果から作成する
+     *
+     * @param count 件数
+     * @param priceSum 金額の合計
+     * @param lengthSum 長さの合計
+     * @param widthSum 幅の合計
+     * @param heightSum 高さの合計
+     * @param weightSum 重さの合計
+     * @param belowBounds 境界ごとの、境界未満の件数
+     * @return 集計値
+     */
+    static ProductTotals of(long count, long priceSum, double lengthSum, double widthSum, double heightSum,
+            double weightSum, long[] belowBounds) {
+        ProductTotals totals = new ProductTotals();
+        totals.count = count;
+        totals.priceSum = priceSum;
+        totals.lengthSum = lengthSum;
+        totals.widthSum = widthSum;
+        totals.heightSum = heightSum;
+        totals.weightSum = weightSum;
+        long below = 0;
+        for (int i = 0; i < PRICE_BOUNDS.length; i++) {
+            totals.priceRanges[i] = belowBounds[i] - below;
+            below = belowBounds[i];
+        }
+        totals.priceRanges[PRICE_BOUNDS.length] = count - below;
+        return totals;
+    }
+
+    /**
+     * 商品の追加・取り除きを反映する
+     *
+     * @param values 商品の値
+     * @param sign 1:追加した -1:取り除いた
+     */
+    void add(ProductCountsChangedEvent.Values values, int sign) {
+        count += sign;
+        priceSum += (long) sign * values.getPrice();
+        lengthSum += sign * values.getLength();
+        widthSum += sign * values.getWidth();
+        heightSum += sign * values.getHeight();
+        weightSum += sign * values.getWeight();
+        priceRanges[priceRange(values.getPrice())] += sign;
+    }
+
+    /**
+     * 価格帯の判定
+     *
+     * @param price 金額
+     * @return 価格帯の番号（0から境界の数まで）
+     */
+    static int priceRange(int price) {
+        int range = 0;
+        while (range < PRICE_BOUNDS.length && price >= PRICE_BOUNDS[range]) {
+            range++;
+        }
+        return range;
+    }
+
+    /**
+     * 件数と価格帯ごとの件数が一致するかどうか（合計は小数の誤差があるため比べない）
+     *
+     * @param other 比べる集計値
+     * @return true:一致する false:一致しない
+     */
+    boolean sameCounts(ProductTotals other) {
+        return count == other.count && priceSum == other.priceSum && Arrays.equals(priceRanges, other.priceRanges);
+    }
+
+    ProductTotals copy() {
+        ProductTotals copy = new ProductTotals();
+        copy.count = count;
+        copy.priceSum = priceSum;
+        copy.lengthSum = lengthSum;
+        copy.widthSum = widthSum;
+        copy.heightSum = heightSum;
+        copy.weightSum = weightSum;
+        System.arraycopy(priceRanges, 0, copy.priceRanges, 0, priceRanges.length);
+        return copy;
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    long getPriceSum() {
+        return priceSum;
+    }
+
+    double getLengthSum() {
+        return lengthSum;
+    }
+
+    double getWidthSum() {
+        return widthSum;
+    }
+
+    double getHeightSum() {
+        return heightSum;
+    }
+
+    double getWeightSum() {
+        return weightSum;
+    }
+
+    long getPriceRange(int range) {
+        return priceRanges[range];
+    }
+
+    @Override
+    public String toString() {
+        return "count=" + count + ", priceSum=" + priceSum + ", priceRanges=" + Arrays.toString(priceRanges);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.datasource;
+
+import java.time.Duration;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * 更新した利用者が、更新結果をすぐに参照できるようにする
+ * 更新した時刻をHTTPセッションに記録し、一定時間（レプリカの遅延より長い時間）は参照もプライマリで行う
+ * リクエストの処理中以外（起動時の処理など）は記録しない
+ * セッションを使わないリクエスト（APIなど）は、記録のためにセッションを作らない（ログイン済みの画面の利用者だけを対象にする）
+ */
+public class ReadYourWrites {
+
+    /** 更新した時刻を記録するセッションの属性名 */
+    static final String LAST_WRITE_ATTRIBUTE = ReadYourWrites.class.getName() + ".LAST_WRITE";
+
+    /** 更新後にプライマリを使う時間 */
+    private final long windowMillis;
+
+    public ReadYourWrites(Duration window) {
+        this.windowMillis = window.toMillis();
+    }
+
+    /**
+     * 更新したことを記録する
+     */
+    void markWrite() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes
+                && ((ServletRequestAttributes) attributes).getRequest().getSession(false) != null) {
+            attributes.setAttribute(LAST_WRITE_ATTRIBUTE, System.currentTimeMillis(), RequestAttributes.SCOPE_SESSION);
+        }
+    }
+
+    /**
+     * 直前に更新したかどうか
+     *
+     * @return 更新してから一定時間内の場合はtrue
+     */
+    boolean isRecentWriter() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return false;
+        }
+        Object lastWrite = attributes.getAttribute(LAST_WRITE_ATTRIBUTE, RequestAttributes.SCOPE_SESSION);
+        return lastWrite instanceof Long && System.currentTimeMillis() - (Long) lastWrite < windowMillis;
+    }
+}
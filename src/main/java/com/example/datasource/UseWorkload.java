@@ -0,0 +1,22 @@
+package com.example.datasource;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * メソッドの処理で使う接続プールの指定
+ * 指定しない場合は、読み取り専用のトランザクションならREAD、それ以外はWRITEを使う
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface UseWorkload {
+
+    /**
+     * 処理の種類
+     */
+    Workload value();
+}
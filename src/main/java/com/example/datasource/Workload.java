@@ -0,0 +1,28 @@
+package com.example.datasource;
+
+/**
+ * 処理の種類（種類ごとに接続プールを分ける）
+ */
+public enum Workload {
+
+    /** 認証（ログイン時の利用者の取得） */
+    AUTH,
+
+    /** 画面からの参照（一覧・詳細・検索） */
+    READ,
+
+    /** 登録・更新・削除 */
+    WRITE,
+
+    /** 一括処理（出力・取込） */
+    BULK;
+
+    /**
+     * 設定で使う名前
+     *
+     * @return 小文字の名前
+     */
+    public String key() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.datasource;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@link UseWorkload}を付けたメソッドの実行中、処理の種類をスレッドに設定する
+ * 接続の取得はメソッド内の最初のSQLの実行時に行うため、トランザクションとの順序は問わない
+ */
+@Aspect
+@Component
+public class WorkloadAspect {
+
+    private static final ThreadLocal<Workload> CURRENT = new ThreadLocal<>();
+
+    @Around("@annotation(useWorkload)")
+    public Object use(ProceedingJoinPoint pjp, UseWorkload useWorkload) throws Throwable {
+        Workload previous = CURRENT.get();
+        CURRENT.set(useWorkload.value());
+        try {
+            return pjp.proceed();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * 現在のスレッドに指定されている処理の種類
+     *
+     * @return 処理の種類（指定がない場合はnull）
+     */
+    static Workload current() {
+        return CURRENT.get();
+    }
+}
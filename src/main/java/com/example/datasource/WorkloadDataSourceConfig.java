@@ -0,0 +1,132 @@
+package com.example.datasource;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 処理の種類ごとの接続プールの設定
+ * プライマリは spring.datasource.*、レプリカは slshop.datasource.replica.* で接続先を指定する
+ *
+ * slshop.datasource.workload-pools.enabled=true の場合は、認証・参照・更新・一括処理ごとに接続プールを分け、
+ * slshop.datasource.workload-pools.{auth|read|write|bulk}.* で接続先（target）とプールの設定（hikari.*）を指定する
+ * 分けない場合は、プライマリ（更新）とレプリカ（認証・参照・一括処理）の2つのプールを使う
+ */
+@Configuration
+@ConditionalOnExpression("${slshop.datasource.replica.enabled:false} or ${slshop.datasource.workload-pools.enabled:false}")
+public class WorkloadDataSourceConfig {
+
+    /** 接続先：プライマリ */
+    private static final String PRIMARY = "primary";
+
+    /** 接続先：レプリカ */
+    private static final String REPLICA = "replica";
+
+    @Bean
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties primaryDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @ConfigurationProperties("slshop.datasource.replica")
+    public DataSourceProperties replicaDataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    public ReadYourWrites readYourWrites(
+            @Value("${slshop.datasource.replica.read-your-writes-window:5s}") Duration window) {
+        return new ReadYourWrites(window);
+    }
+
+    /**
+     * アプリケーションが使うDataSource
+     * 振り分けはトランザクションの開始時ではなく最初のSQLの実行時に行う（readOnlyの設定が反映された後に判定するため）
+     * 接続プールはBeanにしない（DataSourceのBeanが複数あると初期化SQLの実行対象が定まらないため）
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSourceProperties") DataSourceProperties primaryProperties,
+            @Qualifier("replicaDataSourceProperties") DataSourceProperties replicaProperties,
+            ReadYourWrites readYourWrites, ObjectProvider<MeterRegistry> meterRegistry, Environment environment,
+            @Value("${slshop.datasource.replica.enabled:false}") boolean replicaEnabled,
+            @Value("${slshop.datasource.workload-pools.enabled:false}") boolean workloadPoolsEnabled) {
+        Map<Object, Object> targets = new HashMap<>();
+        if (workloadPoolsEnabled) {
+            for (Workload workload : Workload.values()) {
+                String prefix = "slshop.datasource.workload-pools." + workload.key();
+                // 更新以外は、レプリカがある場合は既定でレプリカに接続する
+                boolean readOnly = workload != Workload.WRITE;
+                String target = environment.getProperty(prefix + ".target", readOnly && replicaEnabled ? REPLICA : PRIMARY);
+                if (REPLICA.equals(target) && !replicaEnabled) {
+                    throw new IllegalStateException(prefix + ".target=replica requires slshop.datasource.replica.enabled=true");
+                }
+                targets.put(workload, pool(REPLICA.equals(target) ? replicaProperties : primaryProperties,
+                        prefix + ".hikari", workload.key(), meterRegistry, environment));
+            }
+        } else {
+            DataSource primary = pool(primaryProperties, "spring.datasource.hikari", PRIMARY, meterRegistry, environment);
+            DataSource replica = replicaEnabled
+                    ? pool(replicaProperties, "slshop.datasource.replica.hikari", REPLICA, meterRegistry, environment)
+                    : primary;
+            // 認証（ログイン時の利用者の取得）は参照と同じくレプリカで行う
+            targets.put(Workload.AUTH, replica);
+            targets.put(Workload.WRITE, primary);
+            targets.put(Workload.READ, replica);
+            targets.put(Workload.BULK, replica);
+        }
+
+        WorkloadRoutingDataSource routing = new WorkloadRoutingDataSource(readYourWrites);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.get(Workload.WRITE));
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+
+    /**
+     * 接続プールを作成する（プールの設定は prefix.* で指定する）
+     * プールごとに取得待ちの件数・タイムアウトの件数などのメトリクス（hikaricp.*）を出力する
+     */
+    private static HikariDataSource pool(DataSourceProperties properties, String prefix, String name,
+            ObjectProvider<MeterRegistry> meterRegistry, Environment environment) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind(prefix, Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        meterRegistry.ifAvailable(registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+        return dataSource;
+    }
+
+    /**
+     * トランザクションごとに接続を返却する
+     * 既定ではリクエストの間（open-in-view）同じ接続を使い続けるため、最初のトランザクションの振り分け先に固定されてしまう
+     */
+    @Bean
+    public HibernatePropertiesCustomizer workloadConnectionHandlingCustomizer() {
+        return properties -> properties.put("hibernate.connection.handling_mode",
+                "DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION");
+    }
+}
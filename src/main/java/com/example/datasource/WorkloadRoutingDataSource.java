@@ -0,0 +1,35 @@
+package com.example.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 処理の種類ごとに接続プールを振り分けるDataSource
+ * {@link UseWorkload}の指定がある場合はその種類、読み取り専用のトランザクションはREAD、それ以外はWRITEを使う
+ * ただし、直前に更新した利用者の参照は、レプリカへの反映を待たずに済むようWRITEを使う（{@link ReadYourWrites}）
+ */
+public class WorkloadRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final ReadYourWrites readYourWrites;
+
+    public WorkloadRoutingDataSource(ReadYourWrites readYourWrites) {
+        this.readYourWrites = readYourWrites;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Workload workload = WorkloadAspect.current();
+        if (workload != null) {
+            return workload;
+        }
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return Workload.WRITE;
+        }
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return readYourWrites.isRecentWriter() ? Workload.WRITE : Workload.READ;
+        }
+        // 更新するトランザクションの場合は、以降の参照をしばらくWRITEに向ける
+        readYourWrites.markWrite();
+        return Workload.WRITE;
+    }
+}
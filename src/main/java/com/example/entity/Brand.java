@@ -7,6 +7,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 /**
  * ブランド情報
@@ -21,6 +22,11 @@ public class Brand {
     @Column(name = "ID")
     private Long id;
 
+    /** 更新のたびに加算し、楽観的ロックとETagに使う */
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
     @Column(name = "NAME", nullable = false, length = 10, unique = true)
     private String name;
 
@@ -41,6 +47,14 @@ public class Brand {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
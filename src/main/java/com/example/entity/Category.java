@@ -7,6 +7,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 /**
  * カテゴリー情報
@@ -21,6 +22,11 @@ public class Category {
     @Column(name = "ID")
     private Long id;
 
+    /** 更新のたびに加算し、楽観的ロックとETagに使う */
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
     @Column(name = "NAME", length = 32, nullable = false, unique = true)
     private String name;
 
@@ -40,6 +46,14 @@ public class Category {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
@@ -0,0 +1,108 @@
+package com.example.entity;
+
+import java.time.LocalDateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
+
+/**
+ * 商品の金額の変更予定
+ * 指定した日時に商品の金額を変更する（適用後は適用日時を記録して残す）
+ */
+@Entity
+@Table(name = "PRICE_SCHEDULES")
+public class PriceSchedule {
+
+    /** 一度に多数の予定を登録するため、シーケンスの値を50件ずつ取得する（シーケンスの増分と合わせる） */
+    @Id
+    @SequenceGenerator(name = "PRICE_SCHEDULES_ID_GENERATOR", sequenceName = "PRICE_SCHEDULES_ID_SEQ", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "PRICE_SCHEDULES_ID_GENERATOR")
+    @Column(name = "ID")
+    private Long id;
+
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "PRODUCT_ID", nullable = false)
+    private Product product;
+
+    /** 変更後の金額 */
+    @Column(name = "PRICE", nullable = false)
+    private int price;
+
+    /** 変更する日時 */
+    @Column(name = "EFFECTIVE_AT", nullable = false)
+    private LocalDateTime effectiveAt;
+
+    /** 適用した日時（未適用の場合はnull） */
+    @Column(name = "APPLIED_AT")
+    private LocalDateTime appliedAt;
+
+    public PriceSchedule() {
+    }
+
+    public PriceSchedule(Product product, int price, LocalDateTime effectiveAt) {
+        this.product = product;
+        this.price = price;
+        this.effectiveAt = effectiveAt;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
+    public Product getProduct() {
+        return product;
+    }
+
+    public void setProduct(Product product) {
+        this.product = product;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public void setPrice(int price) {
+        this.price = price;
+    }
+
+    public LocalDateTime getEffectiveAt() {
+        return effectiveAt;
+    }
+
+    public void setEffectiveAt(LocalDateTime effectiveAt) {
+        this.effectiveAt = effectiveAt;
+    }
+
+    public LocalDateTime getAppliedAt() {
+        return appliedAt;
+    }
+
+    public void setAppliedAt(LocalDateTime appliedAt) {
+        this.appliedAt = appliedAt;
+    }
+}
@@ -9,6 +9,7 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 /**
  * 商品情報
@@ -23,6 +24,11 @@ public class Product {
     @Column(name = "ID")
     private Long id;
 
+    /** 更新のたびに加算し、楽観的ロックとETagに使う */
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
     @Column(name = "NAME", unique = true, length = 10, nullable = false)
     private String name;
 
@@ -76,6 +82,14 @@ public class Product {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
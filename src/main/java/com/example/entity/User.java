@@ -14,6 +14,7 @@ import javax.persistence.JoinTable;
 import javax.persistence.ManyToMany;
 import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 /**
  * 管理者情報
@@ -28,6 +29,11 @@ public class User {
     @Column(name = "ID")
     private Long id;
 
+    /** 更新のたびに加算し、楽観的ロックとETagに使う */
+    @Version
+    @Column(name = "VERSION", nullable = false)
+    private Long version;
+
     @Column(name = "EMAIL", length = 50, nullable = false, unique = true)
     private String email;
 
@@ -66,6 +72,14 @@ public class User {
         this.id = id;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public String getEmail() {
         return email;
     }
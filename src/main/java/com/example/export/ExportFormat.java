@@ -0,0 +1,50 @@
+package com.example.export;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 出力形式
+ */
+public enum ExportFormat {
+
+    /** CSV形式 */
+    CSV("csv", "text/csv"),
+
+    /** JSON Lines形式 */
+    JSONL("jsonl", "application/x-ndjson");
+
+    /** 拡張子 */
+    private final String extension;
+
+    /** Content-Type */
+    private final String contentType;
+
+    ExportFormat(String extension, String contentType) {
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * リクエストパラメーターから出力形式を取得する
+     *
+     * @param value リクエストパラメーターの値
+     * @return 出力形式
+     */
+    public static ExportFormat of(String value) {
+        for (ExportFormat format : values()) {
+            if (format.extension.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unsupported export format: " + value);
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.export;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+/**
+ * 一覧データを1行ずつ出力するためのクラス
+ * 行をバッファに溜め込まずに書き出すため、件数に関わらずメモリ使用量は一定になる
+ */
+public class ExportWriter implements Closeable {
+
+    /** JSON生成用のファクトリ */
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /** 出力形式 */
+    private final ExportFormat format;
+
+    /** 列名 */
+    private final String[] headers;
+
+    /** gzip圧縮用のストリーム（圧縮しない場合はnull） */
+    private final GZIPOutputStream gzipStream;
+
+    /** 出力先 */
+    private final Writer writer;
+
+    /** JSON Lines出力用 */
+    private final JsonGenerator generator;
+
+    /**
+     * コンストラクタ
+     *
+     * @param out 出力先のストリーム
+     * @param format 出力形式
+     * @param gzip true:gzip圧縮して出力する
+     * @param headers 列名
+     * @throws IOException
+     */
+    public ExportWriter(OutputStream out, ExportFormat format, boolean gzip, String... headers) throws IOException {
+        this.format = format;
+        this.headers = headers;
+        this.gzipStream = gzip ? new GZIPOutputStream(out, 8192) : null;
+        this.writer = new BufferedWriter(
+                new OutputStreamWriter(gzip ? gzipStream : out, StandardCharsets.UTF_8), 8192);
+
+        if (format == ExportFormat.JSONL) {
+            this.generator = JSON_FACTORY.createGenerator(writer);
+            this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(new SerializedString("\n"));
+        } else {
+            this.generator = null;
+            // Excelで文字化けしないようにBOMを付与する
+            writer.write('\uFEFF');
+            writeCsvRow(headers);
+        }
+    }
+
+    /**
+     * 1行出力する
+     *
+     * @param values 列の値（列名と同じ順序）
+     */
+    public void write(Object... values) {
+        try {
+            if (format == ExportFormat.JSONL) {
+                writeJsonRow(values);
+            } else {
+                writeCsvRow(values);
+            }
+        } catch (IOException e) {
+            // クライアントの切断など
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (generator != null) {
+            generator.writeRaw('\n');
+            generator.close();
+        }
+        writer.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+    }
+
+    private void writeCsvRow(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCsvValue(values[i]);
+        }
+        writer.write("\r\n");
+    }
+
+    private void writeCsvValue(Object value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        String text = value.toString();
+        boolean needsQuote = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                needsQuote = true;
+                break;
+            }
+        }
+        if (!needsQuote) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    private void writeJsonRow(Object[] values) throws IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < headers.length; i++) {
+            generator.writeFieldName(headers[i]);
+            Object value = i < values.length ? values[i] : null;
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof Integer || value instanceof Long) {
+                generator.writeNumber(((Number) value).longValue());
+            } else if (value instanceof Number) {
+                generator.writeNumber(((Number) value).doubleValue());
+            } else {
+                generator.writeString(value.toString());
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    /**
+     * レスポンスへ1件ずつ書き出す出力処理を作成する
+     * 途中で失敗した場合は、gzipの末尾やJSON Linesの最後の改行を書かずに例外をそのまま投げる
+     * （正常に終えた形にすると、途中までの内容が完全なファイルとして保存されるため。接続は異常終了として閉じられる）
+     *
+     * @param format 出力形式
+     * @param gzip true:gzip圧縮して出力する
+     * @param headers 列名
+     * @param exporter 1行ずつ出力する処理
+     * @return 出力処理
+     */
+    public static StreamingResponseBody body(ExportFormat format, boolean gzip, String[] headers,
+            Consumer<ExportWriter> exporter) {
+        return out -> {
+            ExportWriter writer = new ExportWriter(out, format, gzip, headers);
+            exporter.accept(writer);
+            writer.close();
+        };
+    }
+
+    /**
+     * ダウンロード用のレスポンスを作成する
+     *
+     * @param baseName ファイル名（拡張子なし）
+     * @param format 出力形式
+     * @param gzip true:gzip圧縮して出力する
+     * @param body 出力処理
+     * @return レスポンス
+     */
+    public static ResponseEntity<StreamingResponseBody> response(String baseName, ExportFormat format, boolean gzip,
+            StreamingResponseBody body) {
+        String fileName = baseName + "." + format.getExtension() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8");
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(fileName).build().toString())
+                .body(body);
+    }
+}
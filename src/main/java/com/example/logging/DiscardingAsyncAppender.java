@@ -0,0 +1,59 @@
+package com.example.logging;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+
+/**
+ * 上限付きのキューを使う非同期のアペンダー
+ * キューの空きが閾値（discardingThreshold）を下回った場合、破棄レベル（discardLevel）以下のログを破棄する
+ * WARN以上のログは破棄せず、キューに空きができるまで待つ（neverBlockはfalseで使う）
+ */
+public class DiscardingAsyncAppender extends AsyncAppender {
+
+    /** 破棄の対象にする最も高いレベル（INFOより高いレベルは指定できない） */
+    private Level discardLevel = Level.DEBUG;
+
+    /** 破棄したログの件数 */
+    private final LongAdder discarded = new LongAdder();
+
+    @Override
+    public void start() {
+        if (discardLevel.isGreaterOrEqual(Level.WARN)) {
+            addWarn("discardLevel " + discardLevel + " is not allowed, using INFO");
+            discardLevel = Level.INFO;
+        }
+        super.start();
+    }
+
+    /**
+     * キューの空きが閾値を下回った場合のみ呼ばれる
+     */
+    @Override
+    protected boolean isDiscardable(ILoggingEvent event) {
+        if (event.getLevel().toInt() <= discardLevel.toInt()) {
+            discarded.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public void setDiscardLevel(String discardLevel) {
+        this.discardLevel = Level.toLevel(discardLevel, Level.DEBUG);
+    }
+
+    public String getDiscardLevel() {
+        return discardLevel.toString();
+    }
+
+    /**
+     * 破棄したログの件数
+     *
+     * @return 件数
+     */
+    public long getDiscardedCount() {
+        return discarded.sum();
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.logging;
+
+import java.util.Iterator;
+
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 非同期アペンダーのメトリクス
+ * ルートロガーの{@link DiscardingAsyncAppender}ごとに、キューに溜まっている件数と破棄した件数を出力する
+ */
+@Component
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        if (!(LoggerFactory.getILoggerFactory() instanceof LoggerContext)) {
+            return;
+        }
+        LoggerContext context = (LoggerContext) LoggerFactory.getILoggerFactory();
+        Iterator<Appender<ILoggingEvent>> appenders = context.getLogger(Logger.ROOT_LOGGER_NAME).iteratorForAppenders();
+        while (appenders.hasNext()) {
+            Appender<ILoggingEvent> appender = appenders.next();
+            if (appender instanceof DiscardingAsyncAppender) {
+                DiscardingAsyncAppender async = (DiscardingAsyncAppender) appender;
+                Gauge.builder("slshop.logging.queued", async, DiscardingAsyncAppender::getNumberOfElementsInQueue)
+                        .tag("appender", async.getName())
+                        .register(registry);
+                FunctionCounter.builder("slshop.logging.discarded", async, DiscardingAsyncAppender::getDiscardedCount)
+                        .tag("appender", async.getName())
+                        .register(registry);
+            }
+        }
+    }
+}
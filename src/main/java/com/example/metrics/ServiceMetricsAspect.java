@@ -0,0 +1,48 @@
+package com.example.metrics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * サービスの処理時間を計測する
+ * {@code @Service}のクラスのpublicメソッドを対象に、クラス名・メソッド名・例外ごとのタイマー（slshop.service）に記録する
+ * パーセンタイルとヒストグラムの設定はapplication.properties（management.metrics.distribution.*）で行う
+ */
+@Aspect
+@Component
+public class ServiceMetricsAspect {
+
+    /** メトリクス名 */
+    public static final String METRIC_NAME = "slshop.service";
+
+    private final MeterRegistry registry;
+
+    @Autowired
+    public ServiceMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("@within(org.springframework.stereotype.Service) && execution(public * com.example..*(..))")
+    public Object time(ProceedingJoinPoint pjp) throws Throwable {
+        Timer.Sample sample = Timer.start(registry);
+        String exception = "none";
+        try {
+            return pjp.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            sample.stop(Timer.builder(METRIC_NAME)
+                    .tag("class", pjp.getSignature().getDeclaringType().getSimpleName())
+                    .tag("method", pjp.getSignature().getName())
+                    .tag("exception", exception)
+                    .register(registry));
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.metrics;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * リクエストごとのSQL実行状況
+ * リクエストを処理するスレッドに紐づけて、実行したSQLの件数、読み込んだエンティティの件数、
+ * 初期化したコレクションの件数を数える（リクエストの処理中以外は数えない）
+ */
+public final class SqlStatistics {
+
+    private static final ThreadLocal<SqlStatistics> CURRENT = new ThreadLocal<>();
+
+    /** リクエストの終了時に通知する先（テストでの検証用） */
+    private static final List<Consumer<SqlStatistics>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    /** リクエスト（メソッドとURI） */
+    private final String request;
+
+    /** SQLの実行件数 */
+    private int statements;
+
+    /** 読み込んだエンティティの件数 */
+    private int entitiesLoaded;
+
+    /** 初期化したコレクションの件数 */
+    private int collectionsFetched;
+
+    /** SQLごとの実行件数（N+1の検出用） */
+    private final Map<String, Integer> counts = new HashMap<>();
+
+    private SqlStatistics(String request) {
+        this.request = request;
+    }
+
+    /**
+     * 集計を開始する
+     *
+     * @param request リクエスト（メソッドとURI）
+     * @return 集計結果
+     */
+    static SqlStatistics begin(String request) {
+        SqlStatistics statistics = new SqlStatistics(request);
+        CURRENT.set(statistics);
+        return statistics;
+    }
+
+    /**
+     * 集計を終了し、登録された通知先に通知する
+     */
+    static void end(SqlStatistics statistics) {
+        CURRENT.remove();
+        for (Consumer<SqlStatistics> listener : LISTENERS) {
+            listener.accept(statistics);
+        }
+    }
+
+    /**
+     * リクエストの終了時の通知先を登録する
+     *
+     * @param listener 通知先
+     */
+    public static void addListener(Consumer<SqlStatistics> listener) {
+        LISTENERS.add(listener);
+    }
+
+    /**
+     * 通知先の登録を解除する
+     *
+     * @param listener 通知先
+     */
+    public static void removeListener(Consumer<SqlStatistics> listener) {
+        LISTENERS.remove(listener);
+    }
+
+    static void statementPrepared(String sql) {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statements++;
+            statistics.counts.merge(sql, 1, Integer::sum);
+        }
+    }
+
+    static void entityLoaded() {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.entitiesLoaded++;
+        }
+    }
+
+    static void collectionFetched() {
+        SqlStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.collectionsFetched++;
+        }
+    }
+
+    public String getRequest() {
+        return request;
+    }
+
+    public int getStatements() {
+        return statements;
+    }
+
+    public int getEntitiesLoaded() {
+        return entitiesLoaded;
+    }
+
+    public int getCollectionsFetched() {
+        return collectionsFetched;
+    }
+
+    /**
+     * 最も多く実行されたSQL
+     *
+     * @return SQLと実行件数（SQLを実行していない場合はnull）
+     */
+    public Map.Entry<String, Integer> getMostRepeated() {
+        return counts.entrySet().stream().max(Map.Entry.comparingByValue()).orElse(null);
+    }
+
+    @Override
+    public String toString() {
+        return request + " statements=" + statements + ", entities=" + entitiesLoaded
+                + ", collections=" + collectionsFetched;
+    }
+}
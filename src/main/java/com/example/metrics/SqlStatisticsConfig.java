@@ -0,0 +1,53 @@
+package com.example.metrics;
+
+import java.util.Collections;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * リクエストごとのSQL実行状況を数えるためのHibernateの設定
+ * SQLの実行はStatementInspector、エンティティとコレクションの読み込みはイベントリスナーで数える
+ */
+@Configuration
+public class SqlStatisticsConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatisticsCustomizer() {
+        return properties -> {
+            properties.put("hibernate.session_factory.statement_inspector", (StatementInspector) sql -> {
+                SqlStatistics.statementPrepared(sql);
+                return sql;
+            });
+            properties.put("hibernate.integrator_provider",
+                    (IntegratorProvider) () -> Collections.singletonList(new SqlStatisticsIntegrator()));
+        };
+    }
+
+    /**
+     * エンティティとコレクションの読み込みを数えるリスナーを登録する
+     */
+    static class SqlStatisticsIntegrator implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, SessionFactoryImplementor sessionFactory,
+                SessionFactoryServiceRegistry serviceRegistry) {
+            EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_LOAD, event -> SqlStatistics.entityLoaded());
+            registry.appendListeners(EventType.INIT_COLLECTION, event -> SqlStatistics.collectionFetched());
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
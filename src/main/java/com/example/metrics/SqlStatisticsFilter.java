@@ -0,0 +1,101 @@
+package com.example.metrics;
+
+import java.io.IOException;
+import java.util.Map;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.metrics.web.servlet.WebMvcTags;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+
+/**
+ * リクエストごとのSQL実行状況をレスポンスヘッダーとメトリクスに出力する
+ * ヘッダーはレスポンスの確定時点の件数を出力する（画面の描画中に確定した場合、それ以降の件数はメトリクスにのみ含まれる）
+ * 同じSQLを閾値以上実行した場合は、N+1の可能性があるため警告を出力する
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlStatisticsFilter extends OncePerRequestFilter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlStatisticsFilter.class);
+
+    /** SQLの実行件数のヘッダー */
+    public static final String STATEMENTS_HEADER = "X-SQL-Statements";
+
+    /** 読み込んだエンティティの件数のヘッダー */
+    public static final String ENTITIES_HEADER = "X-SQL-Entities-Loaded";
+
+    /** 初期化したコレクションの件数のヘッダー */
+    public static final String COLLECTIONS_HEADER = "X-SQL-Collections-Fetched";
+
+    private final MeterRegistry registry;
+
+    /** N+1として警告する、同じSQLの実行件数 */
+    private final int repeatThreshold;
+
+    @Autowired
+    public SqlStatisticsFilter(MeterRegistry registry,
+            @Value("${slshop.sql.repeat-threshold:10}") int repeatThreshold) {
+        this.registry = registry;
+        this.repeatThreshold = repeatThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        SqlStatistics statistics = SqlStatistics.begin(request.getMethod() + " " + request.getRequestURI());
+        HttpServletResponse wrapped = new OnCommittedResponseWrapper(response) {
+            @Override
+            protected void onResponseCommitted() {
+                writeHeaders(response, statistics);
+            }
+        };
+        try {
+            filterChain.doFilter(request, wrapped);
+        } finally {
+            // コミットされていない場合はここでヘッダーを出力する
+            if (!response.isCommitted()) {
+                writeHeaders(response, statistics);
+            }
+            SqlStatistics.end(statistics);
+            record(request, response, statistics);
+        }
+    }
+
+    private static void writeHeaders(HttpServletResponse response, SqlStatistics statistics) {
+        response.setIntHeader(STATEMENTS_HEADER, statistics.getStatements());
+        response.setIntHeader(ENTITIES_HEADER, statistics.getEntitiesLoaded());
+        response.setIntHeader(COLLECTIONS_HEADER, statistics.getCollectionsFetched());
+    }
+
+    private void record(HttpServletRequest request, HttpServletResponse response, SqlStatistics statistics) {
+        Tags tags = Tags.of(WebMvcTags.method(request), WebMvcTags.uri(request, response));
+        DistributionSummary.builder("slshop.sql.statements").tags(tags).register(registry)
+                .record(statistics.getStatements());
+        DistributionSummary.builder("slshop.sql.entities.loaded").tags(tags).register(registry)
+                .record(statistics.getEntitiesLoaded());
+        DistributionSummary.builder("slshop.sql.collections.fetched").tags(tags).register(registry)
+                .record(statistics.getCollectionsFetched());
+
+        Map.Entry<String, Integer> mostRepeated = statistics.getMostRepeated();
+        if (mostRepeated != null && mostRepeated.getValue() >= repeatThreshold) {
+            LOGGER.warn("N+1の可能性があります: {} 同じSQLを{}回実行しました: {}",
+                    statistics.getRequest(), mostRepeated.getValue(), mostRepeated.getKey());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.metrics;
+
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * サンプリングによるSQLのトレースの設定
+ * slshop.sql.trace.enabled=true の場合に、DataSourceをプロキシで包んでSQLの実行時間を計測する
+ */
+@Configuration
+@ConditionalOnProperty(name = "slshop.sql.trace.enabled", havingValue = "true")
+public class SqlTraceConfig {
+
+    @Bean(destroyMethod = "close")
+    public SqlTracer sqlTracer(
+            @Value("${slshop.sql.trace.sample-rate:0.01}") double sampleRate,
+            @Value("${slshop.sql.trace.slow-threshold-millis:500}") long slowThresholdMillis,
+            @Value("${slshop.sql.trace.queue-capacity:10000}") int queueCapacity,
+            @Value("${slshop.sql.trace.show-parameters:false}") boolean showParameters) {
+        return new SqlTracer(sampleRate, slowThresholdMillis, queueCapacity, showParameters);
+    }
+
+    @Bean
+    public SqlTraceEndpoint sqlTraceEndpoint(SqlTracer sqlTracer, @Value("${slshop.sql.trace.top:20}") int top) {
+        return new SqlTraceEndpoint(sqlTracer, top);
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlTraceFilter> sqlTraceFilter(SqlTracer sqlTracer) {
+        FilterRegistrationBean<SqlTraceFilter> registration = new FilterRegistrationBean<>(new SqlTraceFilter(sqlTracer));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+
+    /**
+     * DataSourceをプロキシで包む
+     * BeanPostProcessorは他のBeanより先に作成されるため、SqlTracerは最初のSQLの実行時に取得する
+     */
+    @Bean
+    public static BeanPostProcessor sqlTraceDataSourcePostProcessor(ObjectProvider<SqlTracer> sqlTracer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource)) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create(beanName, (DataSource) bean)
+                        .listener(new LazyListener(sqlTracer))
+                        .build();
+            }
+        };
+    }
+
+    /**
+     * SqlTracerを遅延して取得するリスナー
+     */
+    static class LazyListener implements QueryExecutionListener {
+
+        private final ObjectProvider<SqlTracer> provider;
+
+        private volatile SqlTracer sqlTracer;
+
+        LazyListener(ObjectProvider<SqlTracer> provider) {
+            this.provider = provider;
+        }
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            SqlTracer tracer = sqlTracer;
+            if (tracer == null) {
+                tracer = provider.getIfAvailable();
+                if (tracer == null) {
+                    return;
+                }
+                sqlTracer = tracer;
+            }
+            tracer.afterQuery(execInfo, queryInfoList);
+        }
+    }
+}
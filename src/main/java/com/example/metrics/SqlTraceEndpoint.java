@@ -0,0 +1,35 @@
+package com.example.metrics;
+
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+/**
+ * SQLのトレースの集計結果（/actuator/sqltrace）
+ * GETで集計結果を取得し、DELETEで消去する
+ */
+@Endpoint(id = "sqltrace")
+public class SqlTraceEndpoint {
+
+    private final SqlTracer sqlTracer;
+
+    /** 出力する件数 */
+    private final int top;
+
+    public SqlTraceEndpoint(SqlTracer sqlTracer, int top) {
+        this.sqlTracer = sqlTracer;
+        this.top = top;
+    }
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        return sqlTracer.report(top);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sqlTracer.reset();
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * リクエストごとにSQLのトレースのサンプリング対象にするかどうかを決める
+ */
+public class SqlTraceFilter extends OncePerRequestFilter {
+
+    private final SqlTracer sqlTracer;
+
+    public SqlTraceFilter(SqlTracer sqlTracer) {
+        this.sqlTracer = sqlTracer;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        sqlTracer.beginRequest();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            sqlTracer.endRequest();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.example.metrics;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+/**
+ * サンプリングによるSQLのトレース
+ * 実行したSQLのうち、サンプリング対象のリクエストのSQLと、閾値より遅いSQLを
+ * 上限付きのキューに入れ、専用のスレッドで集計する（キューが一杯の場合は破棄し、リクエストの処理を待たせない）
+ * 集計結果は正規化したSQLごとの実行回数・合計時間・最大時間と、直近の遅いSQLの一覧
+ * 遅いSQLのバインド値には個人情報（メールアドレスなど）やパスワードのハッシュが含まれるため、
+ * 指定した場合（slshop.sql.trace.show-parameters=true）のみログと集計結果に含める
+ */
+public class SqlTracer implements QueryExecutionListener, MeterBinder {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SqlTracer.class);
+
+    /** 遅いSQLの出力先 */
+    private static final Logger SLOW_LOGGER = LoggerFactory.getLogger("slshop.sql.slow");
+
+    /** 集計するSQLの種類の上限（超えた分は「その他」にまとめる） */
+    private static final int MAX_STATEMENTS = 1000;
+
+    /** 「その他」の集計に使うキー */
+    private static final String OTHERS = "(others)";
+
+    /** 保持する遅いSQLの件数 */
+    private static final int MAX_SLOW_QUERIES = 100;
+
+    /** 保持するバインド値の長さ */
+    private static final int MAX_PARAMETER_LENGTH = 100;
+
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    /** 現在のリクエストがサンプリング対象かどうか */
+    private static final ThreadLocal<Boolean> SAMPLED = new ThreadLocal<>();
+
+    /** サンプリングするリクエストの割合（0〜1） */
+    private final double sampleRate;
+
+    /** 遅いSQLとして必ず記録する実行時間（ミリ秒） */
+    private final long slowThresholdMillis;
+
+    /** 遅いSQLのバインド値を記録するかどうか */
+    private final boolean showParameters;
+
+    private final BlockingQueue<Event> queue;
+
+    /** キューが一杯のため破棄した件数 */
+    private final LongAdder dropped = new LongAdder();
+
+    /** 正規化したSQLごとの集計 */
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+
+    /** 直近の遅いSQL */
+    private final Deque<SlowQuery> slowQueries = new ArrayDeque<>();
+
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    public SqlTracer(double sampleRate, long slowThresholdMillis, int queueCapacity, boolean showParameters) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThresholdMillis;
+        this.showParameters = showParameters;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.worker = new Thread(this::consume, "sql-tracer");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * リクエストの処理開始時に、サンプリング対象にするかどうかを決める
+     */
+    void beginRequest() {
+        SAMPLED.set(sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+    }
+
+    /**
+     * リクエストの処理終了時に呼ぶ
+     */
+    void endRequest() {
+        SAMPLED.remove();
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        boolean slow = elapsed >= slowThresholdMillis;
+        if (!slow && !Boolean.TRUE.equals(SAMPLED.get())) {
+            return;
+        }
+        for (QueryInfo queryInfo : queryInfoList) {
+            // バインド値は記録する設定で、遅いSQLの場合のみ取得する
+            Event event = new Event(queryInfo.getQuery(), elapsed, slow,
+                    slow && showParameters ? parameters(queryInfo) : null);
+            if (!queue.offer(event)) {
+                dropped.increment();
+            }
+        }
+    }
+
+    private static List<List<Object>> parameters(QueryInfo queryInfo) {
+        List<List<Object>> result = new ArrayList<>();
+        for (List<ParameterSetOperation> operations : queryInfo.getParametersList()) {
+            // 長い値（画像など）は先頭のみ保持する
+            result.add(operations.stream()
+                    .map(operation -> operation.getArgs().length > 1 ? abbreviate(operation.getArgs()[1]) : null)
+                    .collect(Collectors.toList()));
+        }
+        return result;
+    }
+
+    private static Object abbreviate(Object value) {
+        if (value == null || value instanceof Number || value instanceof Boolean) {
+            return value;
+        }
+        String text = String.valueOf(value);
+        return text.length() > MAX_PARAMETER_LENGTH ? text.substring(0, MAX_PARAMETER_LENGTH) + "..." : text;
+    }
+
+    private void consume() {
+        while (running) {
+            try {
+                aggregate(queue.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOGGER.warn("SQLの集計に失敗しました", e);
+            }
+        }
+    }
+
+    private void aggregate(Event event) {
+        String normalized = normalize(event.sql);
+        if (!stats.containsKey(normalized) && stats.size() >= MAX_STATEMENTS) {
+            normalized = OTHERS;
+        }
+        stats.computeIfAbsent(normalized, key -> new Stats()).add(event.elapsed);
+
+        if (event.slow) {
+            SlowQuery slowQuery = new SlowQuery(System.currentTimeMillis(), event.elapsed, event.sql, event.parameters);
+            synchronized (slowQueries) {
+                if (slowQueries.size() >= MAX_SLOW_QUERIES) {
+                    slowQueries.removeFirst();
+                }
+                slowQueries.addLast(slowQuery);
+            }
+            if (event.parameters != null) {
+                SLOW_LOGGER.info("{}ms {} {}", event.elapsed, event.sql, event.parameters);
+            } else {
+                SLOW_LOGGER.info("{}ms {}", event.elapsed, event.sql);
+            }
+        }
+    }
+
+    /**
+     * 集計用にSQLを正規化する（リテラルとINリストの要素数の違いをまとめる）
+     *
+     * @param sql SQL
+     * @return 正規化したSQL
+     */
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        return IN_LIST.matcher(normalized).replaceAll("(?)");
+    }
+
+    /**
+     * 集計結果を取得する
+     *
+     * @param top 取得する件数
+     * @return 合計時間の上位、実行回数の上位、直近の遅いSQL
+     */
+    public Map<String, Object> report(int top) {
+        List<Map<String, Object>> rows = stats.entrySet().stream()
+                .map(entry -> entry.getValue().toMap(entry.getKey()))
+                .collect(Collectors.toList());
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("sampleRate", sampleRate);
+        report.put("slowThresholdMillis", slowThresholdMillis);
+        report.put("queued", queue.size());
+        report.put("dropped", dropped.sum());
+        report.put("byTotalTime", top(rows, "totalMillis", top));
+        report.put("byCount", top(rows, "count", top));
+        synchronized (slowQueries) {
+            report.put("slowQueries", new ArrayList<>(slowQueries));
+        }
+        return report;
+    }
+
+    private static List<Map<String, Object>> top(List<Map<String, Object>> rows, String key, int top) {
+        return rows.stream()
+                .sorted(Comparator.comparing((Map<String, Object> row) -> (Long) row.get(key)).reversed())
+                .limit(top)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 集計結果を消去する
+     */
+    public void reset() {
+        stats.clear();
+        synchronized (slowQueries) {
+            slowQueries.clear();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("slshop.sql.trace.queued", queue, BlockingQueue::size).register(registry);
+        FunctionCounter.builder("slshop.sql.trace.dropped", dropped, LongAdder::sum).register(registry);
+    }
+
+    /**
+     * 集計用のスレッドを停止する
+     */
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * 実行したSQL（キューに入れる単位）
+     */
+    private static class Event {
+
+        final String sql;
+
+        final long elapsed;
+
+        final boolean slow;
+
+        final List<List<Object>> parameters;
+
+        Event(String sql, long elapsed, boolean slow, List<List<Object>> parameters) {
+            this.sql = sql;
+            this.elapsed = elapsed;
+            this.slow = slow;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * 正規化したSQLごとの集計（集計用のスレッドのみが更新する）
+     */
+    private static class Stats {
+
+        private volatile long count;
+
+        private volatile long totalMillis;
+
+        private volatile long maxMillis;
+
+        void add(long elapsed) {
+            count++;
+            totalMillis += elapsed;
+            maxMillis = Math.max(maxMillis, elapsed);
+        }
+
+        Map<String, Object> toMap(String sql) {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("sql", sql);
+            map.put("count", count);
+            map.put("totalMillis", totalMillis);
+            map.put("maxMillis", maxMillis);
+            return map;
+        }
+    }
+
+    /**
+     * 遅いSQL
+     */
+    public static class SlowQuery {
+
+        private final long timestamp;
+
+        private final long elapsedMillis;
+
+        private final String sql;
+
+        private final List<List<Object>> parameters;
+
+        SlowQuery(long timestamp, long elapsedMillis, String sql, List<List<Object>> parameters) {
+            this.timestamp = timestamp;
+            this.elapsedMillis = elapsedMillis;
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        /**
+         * @return バインド値（記録しない設定の場合はnull）
+         */
+        public List<List<Object>> getParameters() {
+            return parameters;
+        }
+    }
+}
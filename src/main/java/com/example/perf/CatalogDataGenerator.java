@@ -0,0 +1,316 @@
+package com.example.perf;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * 性能測定用のカタログデータ生成クラス
+ * 同じシード値からは常に同じデータを生成する（並列に投入しても、チャンクごとに乱数系列を分けているため結果は変わらない）
+ */
+public class CatalogDataGenerator {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CatalogDataGenerator.class);
+
+    /** 1タスクで生成・投入する件数 */
+    private static final int CHUNK_SIZE = 10_000;
+
+    /** 商品名に使う名詞（3文字以内） */
+    private static final String[] PRODUCT_NOUNS = {
+            "時計", "財布", "鞄", "靴", "帽子", "傘", "眼鏡", "机", "椅子", "照明",
+            "茶碗", "皿", "鍋", "包丁", "毛布", "枕", "手袋", "水筒", "ペン", "ノート",
+            "マウス", "カメラ", "ラジオ", "ケトル", "ソファ", "テレビ", "タオル", "シャツ", "コート", "ベルト" };
+
+    /** 商品説明に使う形容 */
+    private static final String[] DESCRIPTION_ADJECTIVES = {
+            "軽量で丈夫な", "手になじむ", "シンプルなデザインの", "職人が仕上げた", "お手入れ簡単な",
+            "コンパクトな", "大容量の", "国産素材を使った", "長く使える", "贈り物に最適な" };
+
+    /** 商品説明に使う用途 */
+    private static final String[] DESCRIPTION_USES = {
+            "毎日の暮らしに", "通勤・通学に", "アウトドアに", "ご家庭で", "オフィスで",
+            "旅行のお供に", "季節を問わず", "プレゼントに" };
+
+    /** ブランド名に使う音（カタカナ） */
+    private static final String[] BRAND_SYLLABLES = {
+            "サ", "ク", "ラ", "ミ", "ツ", "カ", "ゼ", "ノ", "ア", "オ",
+            "イ", "ト", "リ", "ナ", "ヒ", "マ", "ル", "コ", "ヤ", "ホ" };
+
+    /** カテゴリー名に使う大分類 */
+    private static final String[] CATEGORY_GROUPS = {
+            "家電", "キッチン用品", "インテリア", "ファッション", "スポーツ",
+            "アウトドア", "文房具", "食品", "美容", "ホビー" };
+
+    /** カテゴリー名に使う小分類 */
+    private static final String[] CATEGORY_KINDS = {
+            "定番", "新作", "限定", "セール", "ギフト", "業務用", "キッズ", "プレミアム" };
+
+    /** 管理者名に使う姓 */
+    private static final String[] FAMILY_NAMES = {
+            "佐藤", "鈴木", "高橋", "田中", "伊藤", "渡辺", "山本", "中村", "小林", "加藤" };
+
+    /** 管理者名に使う名 */
+    private static final String[] GIVEN_NAMES = {
+            "太郎", "花子", "次郎", "美咲", "健太", "陽菜", "翔太", "結衣", "大輔", "彩" };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** シード値 */
+    private final long seed;
+
+    /** 並列に投入するスレッド数 */
+    private final int threads;
+
+    /** 1回のバッチで投入する件数 */
+    private final int batchSize;
+
+    /**
+     * コンストラクタ
+     *
+     * @param dataSource 投入先
+     * @param seed シード値
+     * @param threads 並列に投入するスレッド数（コネクションプールのサイズ以下にする）
+     * @param batchSize 1回のバッチで投入する件数
+     */
+    public CatalogDataGenerator(DataSource dataSource, long seed, int threads, int batchSize) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.seed = seed;
+        this.threads = threads;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * データを生成して投入する（既存データのIDの後ろに追加する）
+     *
+     * @param brands ブランドの件数
+     * @param categories カテゴリーの件数
+     * @param products 商品の件数
+     * @param users 管理者の件数
+     * @param rawPassword 管理者のパスワード（全員共通）
+     */
+    public void generate(int brands, int categories, int products, int users, String rawPassword) {
+        long start = System.currentTimeMillis();
+
+        long brandStart = SequenceSupport.maxId(jdbcTemplate, "BRANDS") + 1;
+        long categoryStart = SequenceSupport.maxId(jdbcTemplate, "CATEGORIES") + 1;
+        long productStart = SequenceSupport.maxId(jdbcTemplate, "PRODUCTS") + 1;
+        long userStart = SequenceSupport.maxId(jdbcTemplate, "USERS") + 1;
+
+        // ブランド・カテゴリーは件数が少ないため、先に単一スレッドで投入する
+        insertBrands(brandStart, brands);
+        insertCategories(categoryStart, categories);
+        long[] brandIds = jdbcTemplate.queryForList("SELECT ID FROM BRANDS ORDER BY ID", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        long[] categoryIds = jdbcTemplate.queryForList("SELECT ID FROM CATEGORIES ORDER BY ID", Long.class)
+                .stream().mapToLong(Long::longValue).toArray();
+        long[] roleIds = ensureRoles();
+
+        // パスワードのハッシュ化は重いため、1回だけ行い全員で共有する
+        String encodedPassword = new BCryptPasswordEncoder().encode(rawPassword);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int offset = 0; offset < products; offset += CHUNK_SIZE) {
+                int chunk = offset / CHUNK_SIZE;
+                long from = productStart + offset;
+                int count = Math.min(CHUNK_SIZE, products - offset);
+                futures.add(executor.submit(() -> insertProducts(chunk, from, count, brandIds, categoryIds)));
+            }
+            for (int offset = 0; offset < users; offset += CHUNK_SIZE) {
+                int chunk = offset / CHUNK_SIZE;
+                long from = userStart + offset;
+                int count = Math.min(CHUNK_SIZE, users - offset);
+                futures.add(executor.submit(() -> insertUsers(chunk, from, count, roleIds, encodedPassword)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Data generation was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Data generation failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (String table : new String[] { "BRANDS", "CATEGORIES", "PRODUCTS", "USERS", "ROLES" }) {
+            SequenceSupport.restartAfterMaxId(jdbcTemplate, table);
+        }
+
+        LOGGER.info("Generated {} brands, {} categories, {} products and {} users in {} ms (seed={})",
+                brands, categories, products, users, System.currentTimeMillis() - start, seed);
+    }
+
+    /**
+     * ブランドを投入する
+     */
+    private void insertBrands(long from, int count) {
+        SplittableRandom random = random("brands", 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = from; id < from + count; id++) {
+            rows.add(new Object[] { id, brandName(random, id) });
+            flushIfFull("INSERT INTO BRANDS (ID, NAME) VALUES (?, ?)", rows);
+        }
+        flush("INSERT INTO BRANDS (ID, NAME) VALUES (?, ?)", rows);
+    }
+
+    /**
+     * カテゴリーを投入する
+     */
+    private void insertCategories(long from, int count) {
+        SplittableRandom random = random("categories", 0);
+        List<Object[]> rows = new ArrayList<>();
+        for (long id = from; id < from + count; id++) {
+            String name = pick(random, CATEGORY_GROUPS) + "・" + pick(random, CATEGORY_KINDS) + id;
+            rows.add(new Object[] { id, name });
+            flushIfFull("INSERT INTO CATEGORIES (ID, NAME) VALUES (?, ?)", rows);
+        }
+        flush("INSERT INTO CATEGORIES (ID, NAME) VALUES (?, ?)", rows);
+    }
+
+    /**
+     * 商品を1チャンク分投入する
+     */
+    private void insertProducts(int chunk, long from, int count, long[] brandIds, long[] categoryIds) {
+        String sql = "INSERT INTO PRODUCTS "
+                + "(ID, NAME, DESCRIPTION, PRICE, IMAGE, LENGTH, WIDTH, HEIGHT, WEIGHT, BRAND_ID, CATEGORY_ID) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        SplittableRandom random = random("products", chunk);
+        List<Object[]> rows = new ArrayList<>();
+
+        for (long id = from; id < from + count; id++) {
+            String noun = pick(random, PRODUCT_NOUNS);
+            // 商品名は10文字以内（IDを付けて一意にする）
+            String name = noun + id;
+            if (name.length() > 10) {
+                name = "P" + id;
+            }
+            String description = pick(random, DESCRIPTION_ADJECTIVES) + noun + "。" + pick(random, DESCRIPTION_USES)
+                    + "お使いいただけます。";
+            if (description.length() > 50) {
+                description = description.substring(0, 50);
+            }
+            // 価格は100円～50万円（安い商品ほど多い分布）、10円単位
+            int price = (int) (Math.round(100 * Math.pow(5000, random.nextDouble() * random.nextDouble()) / 10) * 10);
+            // 寸法（cm）は長辺 >= 短辺となるようにする
+            double length = round1(1 + random.nextDouble() * 199);
+            double width = round1(1 + random.nextDouble() * (length - 1));
+            double height = round1(1 + random.nextDouble() * 99);
+            // 重量（kg）は体積におおむね比例させる
+            double weight = round2(Math.max(0.01, length * width * height / 100_000 * (0.1 + random.nextDouble())));
+
+            rows.add(new Object[] { id, name, description, price, "image.jpeg", length, width, height, weight,
+                    skewed(random, brandIds), skewed(random, categoryIds) });
+            flushIfFull(sql, rows);
+        }
+        flush(sql, rows);
+    }
+
+    /**
+     * 管理者とロールの割り当てを1チャンク分投入する
+     */
+    private void insertUsers(int chunk, long from, int count, long[] roleIds, String encodedPassword) {
+        String userSql = "INSERT INTO USERS (ID, EMAIL, PASSWORD, NAME) VALUES (?, ?, ?, ?)";
+        String roleSql = "INSERT INTO USERS_ROLES (USER_ID, ROLE_ID) VALUES (?, ?)";
+        SplittableRandom random = random("users", chunk);
+        List<Object[]> users = new ArrayList<>();
+        List<Object[]> userRoles = new ArrayList<>();
+
+        for (long id = from; id < from + count; id++) {
+            String name = pick(random, FAMILY_NAMES) + pick(random, GIVEN_NAMES);
+            users.add(new Object[] { id, "user" + id + "@example.com", encodedPassword, name });
+
+            // 1つ以上のロールを割り当てる
+            int first = random.nextInt(roleIds.length);
+            for (int i = 0; i < roleIds.length; i++) {
+                if (i == first || random.nextInt(4) == 0) {
+                    userRoles.add(new Object[] { id, roleIds[i] });
+                }
+            }
+            if (users.size() >= batchSize) {
+                flush(userSql, users);
+                flush(roleSql, userRoles);
+            }
+        }
+        flush(userSql, users);
+        flush(roleSql, userRoles);
+    }
+
+    /**
+     * ロールが未登録の場合は登録し、全ロールのIDを返す
+     */
+    private long[] ensureRoles() {
+        List<Long> roleIds = jdbcTemplate.queryForList("SELECT ID FROM ROLES ORDER BY ID", Long.class);
+        if (roleIds.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO ROLES (ID, NAME, DESCRIPTION) VALUES (1, '管理者', 'Admin')");
+            jdbcTemplate.update("INSERT INTO ROLES (ID, NAME, DESCRIPTION) VALUES (2, 'アシスタント', 'Assistant')");
+            roleIds = jdbcTemplate.queryForList("SELECT ID FROM ROLES ORDER BY ID", Long.class);
+        }
+        return roleIds.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private String brandName(SplittableRandom random, long id) {
+        StringBuilder name = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            name.append(pick(random, BRAND_SYLLABLES));
+        }
+        // ブランド名は10文字以内（IDを付けて一意にする）
+        String suffix = Long.toString(id);
+        int maxLength = 10 - suffix.length();
+        return (name.length() > maxLength ? name.substring(0, Math.max(0, maxLength)) : name) + suffix;
+    }
+
+    private void flushIfFull(String sql, List<Object[]> rows) {
+        if (rows.size() >= batchSize) {
+            flush(sql, rows);
+        }
+    }
+
+    private void flush(String sql, List<Object[]> rows) {
+        if (!rows.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, rows);
+            rows.clear();
+        }
+    }
+
+    /**
+     * 対象とチャンクごとに独立した乱数を作成する
+     */
+    private SplittableRandom random(String target, int chunk) {
+        return new SplittableRandom(seed * 31 + target.hashCode() * 1_000_003L + chunk);
+    }
+
+    private static String pick(SplittableRandom random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    /**
+     * 先頭に近いIDほど選ばれやすくする（人気ブランド・カテゴリーへの偏りを再現する）
+     */
+    private static long skewed(SplittableRandom random, long[] ids) {
+        return ids[(int) (random.nextDouble() * random.nextDouble() * ids.length)];
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    private static double round2(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
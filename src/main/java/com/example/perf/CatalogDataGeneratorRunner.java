@@ -0,0 +1,58 @@
+package com.example.perf;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * 起動時に性能測定用のカタログデータを生成する
+ * slshop.generator.enabled=true の場合のみ動作する（初期データ投入の後に実行する）
+ */
+@Component
+@ConditionalOnProperty(name = "slshop.generator.enabled", havingValue = "true")
+@Order(1)
+public class CatalogDataGeneratorRunner implements ApplicationRunner {
+
+    private final DataSource dataSource;
+
+    @Value("${slshop.generator.seed:1}")
+    private long seed;
+
+    @Value("${slshop.generator.brands:100}")
+    private int brands;
+
+    @Value("${slshop.generator.categories:50}")
+    private int categories;
+
+    @Value("${slshop.generator.products:10000}")
+    private int products;
+
+    @Value("${slshop.generator.users:100}")
+    private int users;
+
+    @Value("${slshop.generator.password:password}")
+    private String password;
+
+    @Value("${slshop.generator.threads:4}")
+    private int threads;
+
+    @Value("${slshop.generator.batch-size:1000}")
+    private int batchSize;
+
+    @Autowired
+    public CatalogDataGeneratorRunner(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        new CatalogDataGenerator(dataSource, seed, threads, batchSize)
+                .generate(brands, categories, products, users, password);
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.perf;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * perfプロファイルの初期データ投入
+ * DBUnitのテストデータ（src/test/resources/testData）をそのまま組み込みDBへ投入する
+ */
+@Component
+@Profile("perf")
+@Order(0)
+public class PerfDataLoader implements ApplicationRunner {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(PerfDataLoader.class);
+
+    /** IDをシーケンスで採番するテーブル */
+    private static final List<String> SEQUENCE_TABLES = Arrays.asList(
+            "BRANDS", "CATEGORIES", "PRODUCTS", "USERS", "ROLES");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /** 初期データの格納ディレクトリ */
+    private final Path seedDir;
+
+    @Autowired
+    public PerfDataLoader(JdbcTemplate jdbcTemplate, @Value("${slshop.perf.seed-dir}") String seedDir) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.seedDir = Paths.get(seedDir);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Path ordering = seedDir.resolve("table-ordering.txt");
+        if (!Files.exists(ordering)) {
+            LOGGER.warn("Seed data not found: {}", seedDir.toAbsolutePath());
+            return;
+        }
+
+        // 外部キーの順序（table-ordering.txt）に従って投入する
+        for (String table : Files.readAllLines(ordering, StandardCharsets.UTF_8)) {
+            if (!table.trim().isEmpty()) {
+                load(table.trim());
+            }
+        }
+
+        // 投入したIDと重複しないよう、シーケンスを進める
+        for (String table : SEQUENCE_TABLES) {
+            SequenceSupport.restartAfterMaxId(jdbcTemplate, table);
+        }
+    }
+
+    /**
+     * CSVファイル（テーブル名.csv）の内容をテーブルへ投入する
+     *
+     * @param table テーブル名
+     * @throws IOException
+     */
+    private void load(String table) throws IOException {
+        Path csv = seedDir.resolve(table + ".csv");
+        List<String> columns = null;
+        List<Object[]> rows = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(csv, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                List<String> values = split(line);
+                if (columns == null) {
+                    columns = values;
+                } else {
+                    rows.add(values.toArray());
+                }
+            }
+        }
+        if (columns == null) {
+            return;
+        }
+
+        String sql = "INSERT INTO " + table.toUpperCase() + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", Collections.nCopies(columns.size(), "?")) + ")";
+        jdbcTemplate.batchUpdate(sql, rows);
+        LOGGER.info("Loaded {} rows into {}", rows.size(), table.toUpperCase());
+    }
+
+    /**
+     * CSVの1行を分割する（DBUnitのCSVと同様に、値の前後の空白は取り除く）
+     *
+     * @param line CSVの1行
+     * @return 値のリスト
+     */
+    private static List<String> split(String line) {
+        List<String> values = new ArrayList<>();
+        for (String value : line.split(",", -1)) {
+            values.add(value.trim());
+        }
+        return values;
+    }
+}
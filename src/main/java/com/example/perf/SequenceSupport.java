@@ -0,0 +1,65 @@
+package com.example.perf;
+
+import java.sql.DatabaseMetaData;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * シーケンス操作用のクラス
+ * IDを指定してデータを投入した後に、シーケンスの次の値を投入済みのIDより後ろへ進める
+ */
+public class SequenceSupport {
+
+    /** ロガー */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SequenceSupport.class);
+
+    /**
+     * テーブルのIDの最大値を取得する
+     *
+     * @param jdbcTemplate
+     * @param table テーブル名
+     * @return IDの最大値（データがない場合は0）
+     */
+    public static long maxId(JdbcTemplate jdbcTemplate, String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT MAX(ID) FROM " + table, Long.class);
+        return maxId == null ? 0L : maxId;
+    }
+
+    /**
+     * テーブルに対応するシーケンス（テーブル名_ID_SEQ）の次の値を、IDの最大値+1にする
+     *
+     * @param jdbcTemplate
+     * @param table テーブル名
+     */
+    public static void restartAfterMaxId(JdbcTemplate jdbcTemplate, String table) {
+        long next = maxId(jdbcTemplate, table) + 1;
+        String sequence = table + "_ID_SEQ";
+        String productName = databaseProductName(jdbcTemplate);
+
+        if ("H2".equals(productName)) {
+            jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH " + next);
+        } else {
+            // Oracleのシーケンスは巻き戻せないため、次の値に届くまで進める
+            Long current = jdbcTemplate.queryForObject("SELECT " + sequence + ".NEXTVAL FROM DUAL", Long.class);
+            if (current != null && current < next - 1) {
+                LOGGER.warn("Sequence {} is behind {} (current {}). Advancing it by NEXTVAL.", sequence, next, current);
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY " + (next - 1 - current));
+                jdbcTemplate.queryForObject("SELECT " + sequence + ".NEXTVAL FROM DUAL", Long.class);
+                jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " INCREMENT BY 1");
+            }
+        }
+    }
+
+    private static String databaseProductName(JdbcTemplate jdbcTemplate) {
+        try {
+            return JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                    DatabaseMetaData::getDatabaseProductName);
+        } catch (Exception e) {
+            LOGGER.warn("Could not detect database product", e);
+            return "";
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.pricing;
+
+/**
+ * 未適用の金額の変更予定（タイミングホイールに保持する内容）
+ * エンティティを保持し続けないよう、適用に必要な値だけを持つ
+ */
+public class PendingPriceChange {
+
+    private final long scheduleId;
+
+    private final long productId;
+
+    private final int price;
+
+    /** 変更する日時（エポックミリ秒） */
+    private final long effectiveAt;
+
+    public PendingPriceChange(long scheduleId, long productId, int price, long effectiveAt) {
+        this.scheduleId = scheduleId;
+        this.productId = productId;
+        this.price = price;
+        this.effectiveAt = effectiveAt;
+    }
+
+    public long getScheduleId() {
+        return scheduleId;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+
+    public int getPrice() {
+        return price;
+    }
+
+    public long getEffectiveAt() {
+        return effectiveAt;
+    }
+}
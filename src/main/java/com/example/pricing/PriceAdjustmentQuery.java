@@ -0,0 +1,183 @@
+package com.example.pricing;
+
+import static org.hibernate.jpa.QueryHints.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * 一括金額変更の問い合わせ
+ * 変更は、変更後の金額を1つのSQLの式で表したUPDATEで行い、商品をアプリケーションへ読み込まない
+ * 試算は、現在の金額ごとの件数を集計し、同じ計算（{@link PriceRule#adjust(int)}）をアプリケーションで行う
+ * 呼び出し元のトランザクション内で実行する
+ */
+@Component
+public class PriceAdjustmentQuery {
+
+    /** 試算の問い合わせのタイムアウト（ミリ秒、一覧画面の検索と同じ） */
+    static final int TIMEOUT_MILLIS = 5000;
+
+    /** 金額ごとの集計結果と商品IDを一度に取得する行数 */
+    private static final int FETCH_SIZE = 1000;
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public PriceAdjustmentQuery(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * 変更後の金額の集計
+     * 商品を現在の金額ごとに集計し（1回のSQL）、金額ごとに変更後の金額を求める
+     * データベースの処理は（対象と金額の索引での）集計だけで済み、アプリケーションへ転送する行数も金額の種類数で済む
+     *
+     * @param rule 変更の条件（検証済みのもの）
+     * @param size 変更内容を返す金額の数（件数の多い順に選ぶ）
+     * @return 試算結果
+     */
+    public PriceSummary summarize(PriceRule rule, int size) {
+        // 件数は索引に含まれる金額で数える（NOT NULLのため全件と同じ）
+        Query query = entityManager.createQuery(
+                "SELECT p.price, COUNT(p.price) FROM Product p WHERE " + scope(rule) + " GROUP BY p.price")
+                .setParameter("targetId", rule.getTargetId())
+                .setHint(SPEC_HINT_TIMEOUT, TIMEOUT_MILLIS)
+                .setHint(HINT_FETCH_SIZE, FETCH_SIZE);
+        long targets = 0;
+        long changed = 0;
+        long atFloor = 0;
+        long atCeiling = 0;
+        long totalBefore = 0;
+        long totalAfter = 0;
+        // 件数の少ないものから取り出せるようにして、件数の多いものだけを残す
+        PriorityQueue<PriceChange> largest = new PriorityQueue<>(Comparator.comparingLong(PriceChange::getCount));
+        try (Stream<?> rows = query.getResultStream()) {
+            Iterator<?> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object[] row = (Object[]) iterator.next();
+                int price = ((Number) row[0]).intValue();
+                long count = ((Number) row[1]).longValue();
+                long rounded = rule.round(price);
+                int adjusted = rule.adjust(price);
+                targets += count;
+                totalBefore += price * count;
+                totalAfter += adjusted * count;
+                if (rounded < rule.floorOrDefault()) {
+                    atFloor += count;
+                } else if (rounded > rule.ceilingOrDefault()) {
+                    atCeiling += count;
+                }
+                if (adjusted == price) {
+                    continue;
+                }
+                changed += count;
+                largest.add(new PriceChange(price, adjusted, count));
+                if (largest.size() > size) {
+                    largest.poll();
+                }
+            }
+        }
+        List<PriceChange> changes = new ArrayList<>(largest);
+        changes.sort(Comparator.comparingInt(PriceChange::getBefore));
+        return new PriceSummary(targets, changed, atFloor, atCeiling, totalBefore, totalAfter, changes);
+    }
+
+    /**
+     * 対象の商品IDの取得
+     *
+     * @param rule 変更の条件（検証済みのもの）
+     * @return 商品ID（ID順）
+     */
+    public List<Long> ids(PriceRule rule) {
+        return entityManager.createQuery(
+                "SELECT p.id FROM Product p WHERE " + scope(rule) + " ORDER BY p.id", Long.class)
+                .setParameter("targetId", rule.getTargetId())
+                .setHint(HINT_FETCH_SIZE, FETCH_SIZE)
+                .getResultList();
+    }
+
+    /**
+     * 商品の金額の変更
+     * 金額が変わる商品だけを更新し、バージョンを上げる
+     * 対象の条件は付けない（付けると対象の索引が選ばれ、変更する件数によらず対象全体を読むことがある）
+     *
+     * @param rule 変更の条件（検証済みのもの）
+     * @param ids 商品ID
+     * @return 変更した件数
+     */
+    public int update(PriceRule rule, Collection<Long> ids) {
+        String adjusted = adjusted(rule);
+        String jpql = "UPDATE Product p SET p.price = " + adjusted + ", p.version = p.version + 1"
+                + " WHERE p.id IN :ids AND p.price <> " + adjusted;
+        return entityManager.createQuery(jpql)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
+    /**
+     * 対象の条件（JPQL）
+     */
+    private static String scope(PriceRule rule) {
+        return rule.getScope() == PriceRule.Scope.BRAND ? "p.brand.id = :targetId" : "p.category.id = :targetId";
+    }
+
+    /**
+     * 端数を処理した金額（下限と上限を適用する前、JPQL、{@link PriceRule#round(int)}と同じ計算）
+     * 数値は検証済みのため、パラメータにせず式に埋め込む（式の中のパラメータは型が決まらないデータベースがある）
+     * 整数同士の除算にならないよう、単位は小数で表す
+     */
+    private static String rounded(PriceRule rule) {
+        String raw;
+        if (rule.getMethod() == PriceRule.Method.PERCENT) {
+            BigDecimal factor = BigDecimal.ONE.add(rule.getValue().movePointLeft(2));
+            raw = "p.price * " + decimal(factor);
+        } else if (rule.getValue().signum() < 0) {
+            raw = "p.price - " + decimal(rule.getValue().negate());
+        } else {
+            raw = "p.price + " + decimal(rule.getValue());
+        }
+        String unit = decimal(BigDecimal.valueOf(rule.getUnit()));
+        String units;
+        switch (rule.getRounding()) {
+        case DOWN:
+            units = "FLOOR((" + raw + ") / " + unit + ")";
+            break;
+        case UP:
+            // 切り上げは符号を反転して切り捨てる（CEILの関数名はデータベースによって異なる）
+            units = "(0 - FLOOR((0 - (" + raw + ")) / " + unit + "))";
+            break;
+        default:
+            units = "FLOOR((" + raw + ") / " + unit + " + 0.5)";
+            break;
+        }
+        // 下限と上限で止めるまでは金額の範囲を超えることがあるため、桁の大きい型で表す
+        return "CAST(" + units + " * " + rule.getUnit() + " AS long)";
+    }
+
+    /**
+     * 変更後の金額（JPQL）
+     */
+    private static String adjusted(PriceRule rule) {
+        String rounded = rounded(rule);
+        return "CAST(CASE WHEN " + rounded + " < " + rule.floorOrDefault() + " THEN " + rule.floorOrDefault()
+                + " WHEN " + rounded + " > " + rule.ceilingOrDefault() + " THEN " + rule.ceilingOrDefault()
+                + " ELSE " + rounded + " END AS integer)";
+    }
+
+    private static String decimal(BigDecimal value) {
+        String text = value.toPlainString();
+        return text.indexOf('.') < 0 ? text + ".0" : text;
+    }
+}
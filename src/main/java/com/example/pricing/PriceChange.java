@@ -0,0 +1,34 @@
+package com.example.pricing;
+
+/**
+ * 一括金額変更の試算での、現在の金額ごとの変更内容
+ */
+public class PriceChange {
+
+    /** 現在の金額 */
+    private final int before;
+
+    /** 変更後の金額 */
+    private final int after;
+
+    /** 現在この金額の商品の件数 */
+    private final long count;
+
+    public PriceChange(int before, int after, long count) {
+        this.before = before;
+        this.after = after;
+        this.count = count;
+    }
+
+    public int getBefore() {
+        return before;
+    }
+
+    public int getAfter() {
+        return after;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
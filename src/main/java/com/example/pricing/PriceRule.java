@@ -0,0 +1,175 @@
+package com.example.pricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 一括金額変更の条件
+ * 対象（ブランドまたはカテゴリー）に属する全商品の金額を、同じ規則で変更する
+ */
+public class PriceRule {
+
+    /** 対象の種類 */
+    public enum Scope {
+        /** ブランド */
+        BRAND,
+        /** カテゴリー */
+        CATEGORY
+    }
+
+    /** 変更方法 */
+    public enum Method {
+        /** 現在の金額に対する割合（%）で増減する */
+        PERCENT,
+        /** 金額を増減する */
+        AMOUNT
+    }
+
+    /** 端数の処理 */
+    public enum Rounding {
+        /** 四捨五入 */
+        HALF_UP,
+        /** 切り捨て */
+        DOWN,
+        /** 切り上げ */
+        UP
+    }
+
+    /** 四捨五入で加える値 */
+    private static final BigDecimal HALF = new BigDecimal("0.5");
+
+    private Scope scope = Scope.BRAND;
+
+    /** 対象のブランドIDまたはカテゴリーID */
+    private Long targetId;
+
+    private Method method = Method.PERCENT;
+
+    /** 増減の割合（%）または金額（負の値は値下げ） */
+    private BigDecimal value;
+
+    /** 端数を処理する単位（1, 10, 100, 1000円） */
+    private int unit = 1;
+
+    private Rounding rounding = Rounding.HALF_UP;
+
+    /** 変更後の金額の下限（省略時は0円） */
+    private Integer floor;
+
+    /** 変更後の金額の上限（省略時は上限なし） */
+    private Integer ceiling;
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    public void setScope(Scope scope) {
+        this.scope = scope;
+    }
+
+    public Long getTargetId() {
+        return targetId;
+    }
+
+    public void setTargetId(Long targetId) {
+        this.targetId = targetId;
+    }
+
+    public Method getMethod() {
+        return method;
+    }
+
+    public void setMethod(Method method) {
+        this.method = method;
+    }
+
+    public BigDecimal getValue() {
+        return value;
+    }
+
+    public void setValue(BigDecimal value) {
+        this.value = value;
+    }
+
+    public int getUnit() {
+        return unit;
+    }
+
+    public void setUnit(int unit) {
+        this.unit = unit;
+    }
+
+    public Rounding getRounding() {
+        return rounding;
+    }
+
+    public void setRounding(Rounding rounding) {
+        this.rounding = rounding;
+    }
+
+    public Integer getFloor() {
+        return floor;
+    }
+
+    public void setFloor(Integer floor) {
+        this.floor = floor;
+    }
+
+    public Integer getCeiling() {
+        return ceiling;
+    }
+
+    public void setCeiling(Integer ceiling) {
+        this.ceiling = ceiling;
+    }
+
+    /**
+     * 端数を処理した金額（下限と上限を適用する前）
+     * 変更処理のSQLの式（{@link PriceAdjustmentQuery}）と同じ計算をする（四捨五入は0.5を加えて切り捨てる）
+     *
+     * @param price 現在の金額
+     * @return 端数を処理した金額
+     */
+    public long round(int price) {
+        BigDecimal raw = method == Method.PERCENT
+                ? BigDecimal.valueOf(price).multiply(BigDecimal.ONE.add(value.movePointLeft(2)))
+                : BigDecimal.valueOf(price).add(value);
+        BigDecimal units = raw.divide(BigDecimal.valueOf(unit));
+        switch (rounding) {
+        case DOWN:
+            units = units.setScale(0, RoundingMode.FLOOR);
+            break;
+        case UP:
+            units = units.setScale(0, RoundingMode.CEILING);
+            break;
+        default:
+            units = units.add(HALF).setScale(0, RoundingMode.FLOOR);
+            break;
+        }
+        return units.longValue() * unit;
+    }
+
+    /**
+     * 変更後の金額
+     *
+     * @param price 現在の金額
+     * @return 下限と上限を適用した金額
+     */
+    public int adjust(int price) {
+        return (int) Math.max(floorOrDefault(), Math.min(ceilingOrDefault(), round(price)));
+    }
+
+    /**
+     * @return 下限（省略時は0円）
+     */
+    public int floorOrDefault() {
+        return floor != null ? floor : 0;
+    }
+
+    /**
+     * @return 上限（省略時は金額の最大値）
+     */
+    public int ceilingOrDefault() {
+        return ceiling != null ? ceiling : Integer.MAX_VALUE;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.pricing;
+
+import static org.hibernate.jpa.QueryHints.*;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import com.example.entity.PriceSchedule;
+
+public interface PriceScheduleRepository extends JpaRepository<PriceSchedule, Long> {
+
+    /**
+     * 未適用の金額の変更予定の取得クエリ
+     *
+     * @return 予定（ID, 商品ID, 変更後の金額, 変更する日時）のストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT s.id, s.product.id, s.price, s.effectiveAt FROM PriceSchedule s WHERE s.appliedAt IS NULL")
+    public Stream<Object[]> streamPending();
+
+    /**
+     * 金額の変更予定の適用済みへの変更クエリ
+     * 未適用の予定だけを変更するため、同時に適用しようとした他の処理と重複しない
+     *
+     * @param ids 予定のID
+     * @param appliedAt 適用した日時
+     * @return 変更した件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PriceSchedule s SET s.appliedAt = ?2, s.version = s.version + 1 "
+            + "WHERE s.id IN ?1 AND s.appliedAt IS NULL")
+    public int markApplied(Collection<Long> ids, LocalDateTime appliedAt);
+
+    /**
+     * 適用した日時が一致する予定のIDの取得クエリ（{@link #markApplied}で適用済みにした予定の確認に使う）
+     *
+     * @param ids 予定のID
+     * @param appliedAt 適用した日時
+     * @return 予定のID
+     */
+    @Query("SELECT s.id FROM PriceSchedule s WHERE s.id IN ?1 AND s.appliedAt = ?2")
+    public List<Long> findIdsByAppliedAt(Collection<Long> ids, LocalDateTime appliedAt);
+}
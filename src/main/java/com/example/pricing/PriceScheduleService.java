@@ -0,0 +1,184 @@
+package com.example.pricing;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.bulk.ChunkedTransactions;
+import com.example.entity.PriceSchedule;
+import com.example.entity.Product;
+import com.example.product.ProductService;
+
+@Service
+public class PriceScheduleService {
+
+    /** 予定の適用の順序（変更する日時の順、同じ日時の場合は登録順） */
+    private static final Comparator<PendingPriceChange> EFFECTIVE_ORDER = Comparator
+            .comparingLong(PendingPriceChange::getEffectiveAt)
+            .thenComparingLong(PendingPriceChange::getScheduleId);
+
+    private final PriceScheduleRepository priceScheduleRepository;
+
+    private final ProductService productService;
+
+    private final ChunkedTransactions chunkedTransactions;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public PriceScheduleService(PriceScheduleRepository priceScheduleRepository, ProductService productService,
+            ChunkedTransactions chunkedTransactions, ApplicationEventPublisher eventPublisher,
+            EntityManager entityManager) {
+        this.priceScheduleRepository = priceScheduleRepository;
+        this.productService = productService;
+        this.chunkedTransactions = chunkedTransactions;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * 入力値の判定
+     *
+     * @param price 変更後の金額
+     * @param effectiveAt 変更する日時
+     * @param endAt 元の金額に戻す日時（期間を指定しない場合はnull）
+     * @return true:正しい false:誤りがある
+     */
+    public boolean isValid(Integer price, LocalDateTime effectiveAt, LocalDateTime endAt) {
+        if (price == null || price < 0 || effectiveAt == null) {
+            return false;
+        }
+        // 期間を指定する場合、終了は開始より後
+        if (endAt != null && !endAt.isAfter(effectiveAt)) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 金額の変更の予約処理
+     * 期間を指定した場合は、終了の日時に現在の金額へ戻す予定も登録する（セールなど）
+     * 登録が確定してから実行待ちの予定に加える
+     *
+     * @param productIds 商品ID
+     * @param price 変更後の金額
+     * @param effectiveAt 変更する日時
+     * @param endAt 元の金額に戻す日時（期間を指定しない場合はnull）
+     * @return 予約した商品の件数
+     */
+    @Transactional
+    public int schedule(Collection<Long> productIds, int price, LocalDateTime effectiveAt, LocalDateTime endAt) {
+        // 存在しない商品は予約しない
+        Map<Long, Integer> currentPrices = productService.getPrices(productIds);
+        List<PriceSchedule> schedules = new ArrayList<>();
+        int scheduled = 0;
+        for (Long productId : productIds) {
+            Integer currentPrice = currentPrices.get(productId);
+            if (currentPrice == null) {
+                continue;
+            }
+            scheduled++;
+            schedules.add(new PriceSchedule(reference(productId), price, effectiveAt));
+            if (endAt != null) {
+                schedules.add(new PriceSchedule(reference(productId), currentPrice, endAt));
+            }
+        }
+        priceScheduleRepository.saveAll(schedules);
+
+        List<PendingPriceChange> changes = new ArrayList<>(schedules.size());
+        for (PriceSchedule schedule : schedules) {
+            changes.add(new PendingPriceChange(schedule.getId(), schedule.getProduct().getId(), schedule.getPrice(),
+                    toEpochMilli(schedule.getEffectiveAt())));
+        }
+        eventPublisher.publishEvent(new PriceSchedulesCreatedEvent(changes));
+        return scheduled;
+    }
+
+    /**
+     * 未適用の予定を1件ずつ処理する（起動時に実行待ちの予定を読み込むために使う）
+     * 直前に登録された予定を読み落とさないよう、更新と同じ接続先（プライマリ）から読む
+     *
+     * @param action 1件ごとの処理
+     */
+    @Transactional
+    public void forEachPending(Consumer<PendingPriceChange> action) {
+        try (Stream<Object[]> rows = priceScheduleRepository.streamPending()) {
+            rows.forEach(row -> action.accept(new PendingPriceChange(((Number) row[0]).longValue(),
+                    ((Number) row[1]).longValue(), ((Number) row[2]).intValue(), toEpochMilli((LocalDateTime) row[3]))));
+        }
+    }
+
+    /**
+     * 期限の来た予定の適用処理
+     * 変更する日時の順に一定件数ごとに分け、分けた単位ごとに1つのトランザクションで適用する
+     * 同じ金額への変更はまとめて1回のSQLで変更する（セールの開始など、多数の商品が同時に同じ金額になる場合）
+     *
+     * @param changes 期限の来た予定
+     * @return 金額を変更した商品の件数
+     */
+    public int apply(Collection<PendingPriceChange> changes) {
+        List<PendingPriceChange> ordered = new ArrayList<>(changes);
+        ordered.sort(EFFECTIVE_ORDER);
+        Map<Long, PendingPriceChange> bySchedule = new LinkedHashMap<>();
+        for (PendingPriceChange change : ordered) {
+            bySchedule.put(change.getScheduleId(), change);
+        }
+        return chunkedTransactions.execute(bySchedule.keySet(), chunk -> applyChunk(chunk, bySchedule));
+    }
+
+    private int applyChunk(List<Long> scheduleIds, Map<Long, PendingPriceChange> bySchedule) {
+        LocalDateTime appliedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        if (priceScheduleRepository.markApplied(scheduleIds, appliedAt) == 0) {
+            return 0;
+        }
+        // 取消された予定や、他の処理（別のサーバーなど）が先に適用した予定を除く
+        List<Long> claimed = priceScheduleRepository.findIdsByAppliedAt(scheduleIds, appliedAt);
+        Collections.sort(claimed, Comparator.comparing(bySchedule::get, EFFECTIVE_ORDER));
+
+        // 同じ商品の予定が重なった場合は、変更する日時の遅い予定だけを適用する
+        Map<Long, Integer> latestPrices = new HashMap<>();
+        for (Long scheduleId : claimed) {
+            PendingPriceChange change = bySchedule.get(scheduleId);
+            latestPrices.put(change.getProductId(), change.getPrice());
+        }
+        Map<Integer, List<Long>> productsByPrice = new HashMap<>();
+        latestPrices.forEach((productId, price) ->
+                productsByPrice.computeIfAbsent(price, key -> new ArrayList<>()).add(productId));
+
+        int changed = 0;
+        for (Map.Entry<Integer, List<Long>> entry : productsByPrice.entrySet()) {
+            changed += productService.changePrice(entry.getValue(), entry.getKey());
+        }
+        return changed;
+    }
+
+    /**
+     * 商品の参照（商品を読み込まずに外部キーだけを設定する）
+     */
+    private Product reference(Long productId) {
+        return entityManager.getReference(Product.class, productId);
+    }
+
+    static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.pricing;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * 金額の変更予定の実行
+ * 未適用の予定を起動時にDBから読み込んでタイミングホイールに保持し、目盛りの間隔ごとに期限の来た予定を適用する
+ * 期限の判定はメモリ上で行うため、予定のテーブルを定期的に検索しない
+ * 起動後に登録された予定は、登録の確定時に通知を受けて加える
+ */
+@Component
+public class PriceScheduler implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PriceScheduler.class);
+
+    private final PriceScheduleService priceScheduleService;
+
+    private final TimingWheel<PendingPriceChange> wheel;
+
+    private final ScheduledExecutorService executor;
+
+    /** 目盛りの間隔（ミリ秒） */
+    private final long tickMillis;
+
+    /** 適用に失敗した予定を再度適用するまでの間隔（ミリ秒） */
+    private final long retryMillis;
+
+    @Autowired
+    public PriceScheduler(PriceScheduleService priceScheduleService,
+            @Value("${slshop.price-schedule.tick-millis:100}") long tickMillis,
+            @Value("${slshop.price-schedule.wheel-size:1024}") int wheelSize,
+            @Value("${slshop.price-schedule.retry-millis:5000}") long retryMillis) {
+        this.priceScheduleService = priceScheduleService;
+        this.wheel = new TimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+        this.tickMillis = tickMillis;
+        this.retryMillis = retryMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "price-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 起動時に未適用の予定を読み込み、実行を開始する
+     * 停止中に期限を過ぎた予定は、最初の目盛りで適用する
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        load();
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 未適用の予定の読み込み
+     * 読み込み済みの予定を重ねて読み込んでも、適用済みの予定は適用時に除くため二重には適用しない
+     */
+    void load() {
+        int before = wheel.size();
+        priceScheduleService.forEachPending(this::add);
+        LOGGER.info("Loaded {} pending price changes", wheel.size() - before);
+    }
+
+    /**
+     * 登録した予定を実行待ちに加える
+     * 登録が確定してから実行するため、登録を取り消した場合は加えない
+     *
+     * @param event 金額の変更予定の登録の通知
+     */
+    @TransactionalEventListener
+    public void onPriceSchedulesCreated(PriceSchedulesCreatedEvent event) {
+        event.getChanges().forEach(this::add);
+    }
+
+    /**
+     * 期限の来た予定の適用（目盛りの間隔ごとに実行する）
+     * 失敗した場合は、一定時間後に再度適用する
+     */
+    void tick() {
+        List<PendingPriceChange> due = wheel.advance(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+        try {
+            int changed = priceScheduleService.apply(due);
+            LOGGER.info("Applied {} price changes to {} products", due.size(), changed);
+        } catch (RuntimeException e) {
+            // 例外を投げると以降の実行が止まるため、ここで処理する
+            LOGGER.warn("Failed to apply {} price changes, retrying in {} ms", due.size(), retryMillis, e);
+            long retryAt = System.currentTimeMillis() + retryMillis;
+            due.forEach(change -> wheel.add(retryAt, change));
+        }
+    }
+
+    /**
+     * @return 実行待ちの予定の件数
+     */
+    public int pendingCount() {
+        return wheel.size();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void add(PendingPriceChange change) {
+        wheel.add(change.getEffectiveAt(), change);
+    }
+}
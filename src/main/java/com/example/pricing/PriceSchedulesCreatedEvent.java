@@ -0,0 +1,21 @@
+package com.example.pricing;
+
+import java.util.List;
+
+/**
+ * 金額の変更予定の登録の通知
+ * 登録が確定してから、実行待ちの予定（タイミングホイール）に加えるために使う
+ */
+public class PriceSchedulesCreatedEvent {
+
+    /** 登録した予定 */
+    private final List<PendingPriceChange> changes;
+
+    public PriceSchedulesCreatedEvent(List<PendingPriceChange> changes) {
+        this.changes = changes;
+    }
+
+    public List<PendingPriceChange> getChanges() {
+        return changes;
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.pricing;
+
+import java.util.List;
+
+/**
+ * 一括金額変更の試算結果
+ */
+public class PriceSummary {
+
+    /** 対象の商品の件数 */
+    private final long targets;
+
+    /** 金額が変わる商品の件数 */
+    private final long changed;
+
+    /** 下限で止めた商品の件数 */
+    private final long atFloor;
+
+    /** 上限で止めた商品の件数 */
+    private final long atCeiling;
+
+    /** 変更前の金額の合計 */
+    private final long totalBefore;
+
+    /** 変更後の金額の合計 */
+    private final long totalAfter;
+
+    /** 件数の多い金額の変更内容（金額順） */
+    private final List<PriceChange> changes;
+
+    public PriceSummary(long targets, long changed, long atFloor, long atCeiling, long totalBefore, long totalAfter,
+            List<PriceChange> changes) {
+        this.targets = targets;
+        this.changed = changed;
+        this.atFloor = atFloor;
+        this.atCeiling = atCeiling;
+        this.totalBefore = totalBefore;
+        this.totalAfter = totalAfter;
+        this.changes = changes;
+    }
+
+    public long getTargets() {
+        return targets;
+    }
+
+    public long getChanged() {
+        return changed;
+    }
+
+    public long getAtFloor() {
+        return atFloor;
+    }
+
+    public long getAtCeiling() {
+        return atCeiling;
+    }
+
+    public long getTotalBefore() {
+        return totalBefore;
+    }
+
+    public long getTotalAfter() {
+        return totalAfter;
+    }
+
+    public List<PriceChange> getChanges() {
+        return changes;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.pricing;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+
+import com.example.brand.BrandService;
+import com.example.category.CategoryService;
+
+@Controller
+@RequestMapping("/pricing")
+public class PricingController {
+
+    private final PricingService pricingService;
+
+    private final BrandService brandService;
+
+    private final CategoryService categoryService;
+
+    @Autowired
+    public PricingController(PricingService pricingService, BrandService brandService,
+            CategoryService categoryService) {
+        this.pricingService = pricingService;
+        this.brandService = brandService;
+        this.categoryService = categoryService;
+    }
+
+    /**
+     * 一括金額変更画面表示
+     *
+     * @param model
+     * @return 一括金額変更画面
+     */
+    @GetMapping
+    public String pricing(Model model) {
+        return showForm(new PriceRule(), model);
+    }
+
+    /**
+     * 一括金額変更の試算処理
+     * 変更する前に、対象と変更される件数、変更前後の金額の合計、主な金額の変更内容を表示する
+     *
+     * @param rule 変更の条件
+     * @param model
+     * @return 一括金額変更画面（試算結果付き）
+     */
+    @PostMapping("/preview")
+    public String preview(PriceRule rule, Model model) {
+        // 入力値のチェック
+        if (!pricingService.isValid(rule)) {
+            model.addAttribute("error_message", "入力に誤りがあります");
+            return showForm(rule, model);
+        }
+        try {
+            model.addAttribute("summary", pricingService.summarize(rule));
+        } catch (QueryTimeoutException e) {
+            model.addAttribute("error_message", "試算に時間がかかったため中断しました。時間をおいて再度実行してください");
+        }
+        return showForm(rule, model);
+    }
+
+    /**
+     * 一括金額変更処理
+     *
+     * @param rule 変更の条件
+     * @param ra
+     * @return 商品一覧画面
+     */
+    @PostMapping("/apply")
+    public String apply(PriceRule rule, RedirectAttributes ra) {
+        // 入力値のチェック
+        if (!pricingService.isValid(rule)) {
+            ra.addFlashAttribute("error_message", "入力に誤りがあります");
+            return "redirect:/pricing";
+        }
+        int count = pricingService.apply(rule);
+        ra.addFlashAttribute("success_message", count + "件の金額を変更しました");
+        return "redirect:/products";
+    }
+
+    private String showForm(PriceRule rule, Model model) {
+        model.addAttribute("rule", rule);
+        // ブランド情報の全件取得
+        model.addAttribute("listBrands", brandService.listAll());
+        // カテゴリー情報の全件取得
+        model.addAttribute("listCategories", categoryService.listAll());
+        return "pricing/pricing";
+    }
+}
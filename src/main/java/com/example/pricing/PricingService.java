@@ -0,0 +1,127 @@
+package com.example.pricing;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.bulk.ChunkedTransactions;
+import com.example.product.ProductCountsChangedEvent;
+import com.example.product.ProductService;
+
+@Service
+public class PricingService {
+
+    /** 試算で変更内容を表示する金額の数 */
+    static final int SAMPLE_SIZE = 20;
+
+    /** 指定できる端数の単位 */
+    private static final List<Integer> UNITS = Arrays.asList(1, 10, 100, 1000);
+
+    /** 割合で指定する場合の上限（%） */
+    private static final BigDecimal MAX_PERCENT = BigDecimal.valueOf(1000);
+
+    /** 金額で指定する場合の上限（円） */
+    private static final BigDecimal MAX_AMOUNT = BigDecimal.valueOf(10_000_000);
+
+    private final PriceAdjustmentQuery priceAdjustmentQuery;
+
+    private final ChunkedTransactions chunkedTransactions;
+
+    private final ProductService productService;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    public PricingService(PriceAdjustmentQuery priceAdjustmentQuery, ChunkedTransactions chunkedTransactions,
+            ProductService productService, PlatformTransactionManager transactionManager,
+            ApplicationEventPublisher eventPublisher) {
+        this.priceAdjustmentQuery = priceAdjustmentQuery;
+        this.chunkedTransactions = chunkedTransactions;
+        this.productService = productService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * 変更の条件の判定
+     *
+     * @param rule 変更の条件
+     * @return true:正しい false:誤りがある
+     */
+    public boolean isValid(PriceRule rule) {
+        if (rule.getScope() == null || rule.getTargetId() == null || rule.getMethod() == null
+                || rule.getRounding() == null || rule.getValue() == null) {
+            return false;
+        }
+        // 小数は2桁まで
+        if (rule.getValue().stripTrailingZeros().scale() > 2) {
+            return false;
+        }
+        // 割合は-100%より大きく1000%まで、金額は1000万円まで
+        if (rule.getMethod() == PriceRule.Method.PERCENT) {
+            if (rule.getValue().compareTo(BigDecimal.valueOf(-100)) <= 0 || rule.getValue().compareTo(MAX_PERCENT) > 0) {
+                return false;
+            }
+        } else if (rule.getValue().abs().compareTo(MAX_AMOUNT) > 0) {
+            return false;
+        }
+        if (!UNITS.contains(rule.getUnit())) {
+            return false;
+        }
+        // 下限は0円以上、上限は下限以上
+        if (rule.getFloor() != null && rule.getFloor() < 0) {
+            return false;
+        }
+        int floor = rule.getFloor() != null ? rule.getFloor() : 0;
+        if (rule.getCeiling() != null && rule.getCeiling() < floor) {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 試算処理
+     * 現在の金額ごとの件数を1回のSQLで集計し、対象と変更される件数、変更前後の金額の合計、件数の多い金額の変更内容を求める
+     *
+     * @param rule 変更の条件（検証済みのもの）
+     * @return 試算結果
+     */
+    @Transactional(readOnly = true)
+    public PriceSummary summarize(PriceRule rule) {
+        return priceAdjustmentQuery.summarize(rule, SAMPLE_SIZE);
+    }
+
+    /**
+     * 一括金額変更処理
+     * 対象の商品IDを取得し、一定件数ごとに1回のSQLで変更する（エンティティは読み込まない）
+     * 集計値に反映するため、変更前の値を一定件数ごとに1回のSQLで読み込み、変更後の金額を同じ計算で求めて通知する
+     * 途中で失敗した場合、それまでに確定した分は元に戻らない（同じ条件で再実行すると確定済みの分にも再び適用される）
+     *
+     * @param rule 変更の条件（検証済みのもの）
+     * @return 変更した件数
+     */
+    public int apply(PriceRule rule) {
+        // 対象の取得も更新と同じ接続先（プライマリ）で行う
+        List<Long> ids = transactionTemplate.execute(status -> priceAdjustmentQuery.ids(rule));
+        return chunkedTransactions.execute(ids, chunk -> {
+            ProductCountsChangedEvent changes = new ProductCountsChangedEvent();
+            for (ProductCountsChangedEvent.Values before : productService.getValues(chunk)) {
+                int adjusted = rule.adjust(before.getPrice());
+                if (adjusted != before.getPrice()) {
+                    changes.add(before, -1).add(before.withPrice(adjusted), 1);
+                }
+            }
+            eventPublisher.publishEvent(changes);
+            return priceAdjustmentQuery.update(rule, chunk);
+        });
+    }
+}
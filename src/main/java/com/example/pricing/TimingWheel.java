@@ -0,0 +1,118 @@
+package com.example.pricing;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ハッシュ方式のタイミングホイール
+ * 時間を一定の間隔（目盛り）で区切り、実行する目盛りの番号を輪の大きさで割った余りの位置に予定を置く
+ * 時間を進めるときは経過した目盛りの位置だけを調べるため、予定の件数によらず一定の手間で期限の来た予定を取り出せる
+ * 輪を一周するより先の予定は同じ位置に置き、目盛りの番号が来るまで残す
+ *
+ * @param <T> 予定の内容
+ */
+public class TimingWheel<T> {
+
+    /** 目盛りの間隔（ミリ秒） */
+    private final long tickMillis;
+
+    /** 位置を求めるためのマスク（輪の大きさ-1） */
+    private final int mask;
+
+    private final List<List<Entry<T>>> buckets;
+
+    /** 次に調べる目盛りの番号（エポックミリ秒を目盛りの間隔で割った値） */
+    private long currentTick;
+
+    private int size;
+
+    /**
+     * @param tickMillis 目盛りの間隔（ミリ秒、期限を過ぎてから取り出すまでの遅れの上限）
+     * @param wheelSize 輪の大きさ（2のべき乗）
+     * @param startMillis 開始時刻（エポックミリ秒）
+     */
+    public TimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        if (tickMillis <= 0 || wheelSize <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tickMillis must be positive and wheelSize must be a power of two");
+        }
+        this.tickMillis = tickMillis;
+        this.mask = wheelSize - 1;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            buckets.add(new ArrayList<>());
+        }
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /**
+     * 予定の追加
+     * 期限を過ぎている予定は、次に時間を進めたときに取り出す
+     *
+     * @param deadlineMillis 期限（エポックミリ秒）
+     * @param item 予定の内容
+     */
+    public synchronized void add(long deadlineMillis, T item) {
+        // 期限より前に取り出さないよう、期限を含む目盛りの次の目盛りに置く（期限ちょうどの場合はその目盛り）
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick);
+        buckets.get((int) (tick & mask)).add(new Entry<>(tick, item));
+        size++;
+    }
+
+    /**
+     * 時間を進め、期限の来た予定を取り出す
+     *
+     * @param nowMillis 現在時刻（エポックミリ秒）
+     * @return 期限の来た予定（期限の順とは限らない）
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        long targetTick = Math.floorDiv(nowMillis, tickMillis);
+        List<T> due = new ArrayList<>();
+        if (targetTick < currentTick) {
+            return due;
+        }
+        if (targetTick - currentTick >= buckets.size()) {
+            // 一周以上進める場合（停止していた場合など）は、全ての位置を一度ずつ調べれば足りる
+            for (List<Entry<T>> bucket : buckets) {
+                collect(bucket, targetTick, due);
+            }
+        } else {
+            for (long tick = currentTick; tick <= targetTick; tick++) {
+                collect(buckets.get((int) (tick & mask)), targetTick, due);
+            }
+        }
+        currentTick = targetTick + 1;
+        return due;
+    }
+
+    /**
+     * @return 保持している予定の件数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private void collect(List<Entry<T>> bucket, long targetTick, List<T> due) {
+        // 同じ時刻の予定が多数ある場合も、1回の走査でまとめて取り除く
+        int before = due.size();
+        bucket.removeIf(entry -> {
+            if (entry.tick > targetTick) {
+                return false;
+            }
+            due.add(entry.item);
+            return true;
+        });
+        size -= due.size() - before;
+    }
+
+    private static final class Entry<T> {
+
+        private final long tick;
+
+        private final T item;
+
+        private Entry(long tick, T item) {
+            this.tick = tick;
+            this.item = item;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package com.example.product;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * カタログのスナップショットのファイル（商品の列ごとの配列と、ブランド・カテゴリーの辞書）
+ * 起動時にDBの全件を読み込まずに {@link ProductColumns} を作成するために使う
+ *
+ * 形式（数値はビッグエンディアン）
+ * <ol>
+ * <li>ヘッダー：識別子、形式のバージョン、行数、ブランド数、カテゴリー数、予備、書き出した日時</li>
+ * <li>辞書：ブランドID、カテゴリーID（辞書の番号1から順）</li>
+ * <li>列：商品ID、バージョン、長さ、幅、高さ、重さ（8バイト）、金額、ブランドの番号、カテゴリーの番号（4バイト）</li>
+ * <li>末尾：それより前の内容のCRC32</li>
+ * </ol>
+ * 形式を変えた場合は形式のバージョンを上げる（古い形式のファイルは読み込まず、DBから読み込み直す）
+ *
+ * 書き出しは一時ファイルに書いてから置き換えるため、書き出し中に停止しても前のファイルが残る
+ * 読み込みはファイルをメモリにマップし、列ごとに配列へまとめて複写する
+ */
+final class CatalogSnapshotFile {
+
+    /** 識別子（"SLCP"） */
+    private static final int MAGIC = 0x534C4350;
+
+    /** 形式のバージョン */
+    static final int FORMAT_VERSION = 1;
+
+    private static final int HEADER_SIZE = 32;
+
+    /** 末尾のCRC32の大きさ */
+    private static final int TRAILER_SIZE = 8;
+
+    /** 書き出しの単位 */
+    private static final int BUFFER_SIZE = 65536;
+
+    private final ColumnarProducts columns;
+
+    private final long writtenAt;
+
+    private CatalogSnapshotFile(ColumnarProducts columns, long writtenAt) {
+        this.columns = columns;
+        this.writtenAt = writtenAt;
+    }
+
+    ColumnarProducts getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return 書き出した日時（エポックミリ秒）
+     */
+    long getWrittenAt() {
+        return writtenAt;
+    }
+
+    /**
+     * ファイルを読み込む
+     *
+     * @param path ファイル
+     * @return 読み込んだ内容（ファイルがない場合はnull）
+     * @throws IOException 読み込めない場合、形式・バージョンが異なる場合、内容が壊れている場合
+     */
+    static CatalogSnapshotFile read(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_SIZE + TRAILER_SIZE || fileSize > Integer.MAX_VALUE) {
+                throw new IOException("Unexpected catalog snapshot size: " + fileSize);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not a catalog snapshot: " + path);
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException("Unsupported catalog snapshot version: " + formatVersion);
+            }
+            int size = buffer.getInt();
+            int brandCount = buffer.getInt();
+            int categoryCount = buffer.getInt();
+            buffer.getInt();
+            long writtenAt = buffer.getLong();
+            if (size < 0 || brandCount < 0 || categoryCount < 0
+                    || fileSize != fileSize(size, brandCount, categoryCount)) {
+                throw new IOException("Truncated catalog snapshot: " + path);
+            }
+
+            // Java 8で実行できるよう、位置の変更はBufferのメソッドとして呼び出す
+            ByteBuffer body = buffer.duplicate();
+            ((Buffer) body).position(0);
+            ((Buffer) body).limit((int) fileSize - TRAILER_SIZE);
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            if (crc.getValue() != buffer.getLong((int) fileSize - TRAILER_SIZE)) {
+                throw new IOException("Corrupted catalog snapshot: " + path);
+            }
+
+            Long[] brandIds = dictionary(buffer, brandCount);
+            Long[] categoryIds = dictionary(buffer, categoryCount);
+            long[] ids = longs(buffer, size);
+            long[] versions = longs(buffer, size);
+            double[] lengths = doubles(buffer, size);
+            double[] widths = doubles(buffer, size);
+            double[] heights = doubles(buffer, size);
+            double[] weights = doubles(buffer, size);
+            int[] prices = ints(buffer, size);
+            int[] brands = ints(buffer, size);
+            int[] categories = ints(buffer, size);
+            return new CatalogSnapshotFile(new ColumnarProducts(ids, versions, prices, lengths, widths, heights,
+                    weights, brands, categories, brandIds, categoryIds), writtenAt);
+        }
+    }
+
+    /**
+     * ファイルを書き出す（一時ファイルに書いてから置き換える）
+     *
+     * @param path ファイル
+     * @param columns 列ごとの配列
+     * @param writtenAt 書き出した日時（エポックミリ秒）
+     * @throws IOException 書き出せない場合
+     */
+    static void write(Path path, ColumnarProducts columns, long writtenAt) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        int size = columns.size();
+        try (Output output = new Output(FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE))) {
+            output.putInt(MAGIC);
+            output.putInt(FORMAT_VERSION);
+            output.putInt(size);
+            output.putInt(columns.brandIds.length - 1);
+            output.putInt(columns.categoryIds.length - 1);
+            output.putInt(0);
+            output.putLong(writtenAt);
+            for (int code = 1; code < columns.brandIds.length; code++) {
+                output.putLong(columns.brandIds[code]);
+            }
+            for (int code = 1; code < columns.categoryIds.length; code++) {
+                output.putLong(columns.categoryIds[code]);
+            }
+            for (long[] column : new long[][] { columns.ids, columns.versions }) {
+                for (int row = 0; row < size; row++) {
+                    output.putLong(column[row]);
+                }
+            }
+            for (double[] column : new double[][] { columns.lengths, columns.widths, columns.heights,
+                    columns.weights }) {
+                for (int row = 0; row < size; row++) {
+                    output.putDouble(column[row]);
+                }
+            }
+            for (int[] column : new int[][] { columns.prices, columns.brands, columns.categories }) {
+                for (int row = 0; row < size; row++) {
+                    output.putInt(column[row]);
+                }
+            }
+            output.finish();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long fileSize(int size, int brandCount, int categoryCount) {
+        return HEADER_SIZE + 8L * (brandCount + categoryCount) + 8L * 6 * size + 4L * 3 * size + TRAILER_SIZE;
+    }
+
+    private static Long[] dictionary(ByteBuffer buffer, int count) {
+        Long[] dictionary = new Long[count + 1];
+        for (int code = 1; code <= count; code++) {
+            dictionary[code] = buffer.getLong();
+        }
+        return dictionary;
+    }
+
+    private static long[] longs(ByteBuffer buffer, int count) {
+        long[] values = new long[count];
+        buffer.asLongBuffer().get(values);
+        ((Buffer) buffer).position(buffer.position() + count * 8);
+        return values;
+    }
+
+    private static double[] doubles(ByteBuffer buffer, int count) {
+        double[] values = new double[count];
+        buffer.asDoubleBuffer().get(values);
+        ((Buffer) buffer).position(buffer.position() + count * 8);
+        return values;
+    }
+
+    private static int[] ints(ByteBuffer buffer, int count) {
+        int[] values = new int[count];
+        buffer.asIntBuffer().get(values);
+        ((Buffer) buffer).position(buffer.position() + count * 4);
+        return values;
+    }
+
+    /**
+     * 書き出し先（一定の大きさごとにまとめて書き、書いた内容のCRC32を求める）
+     */
+    private static final class Output implements AutoCloseable {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+        private final CRC32 crc = new CRC32();
+
+        Output(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+
+        /**
+         * 残りを書き、末尾にCRC32を書いて、ファイルの内容を確定する
+         */
+        void finish() throws IOException {
+            flush();
+            buffer.putLong(crc.getValue());
+            ((Buffer) buffer).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            ((Buffer) buffer).flip();
+            crc.update(buffer.array(), 0, buffer.limit());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            ((Buffer) buffer).clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package com.example.product;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 商品情報の列ごとの配列（作成後は変更しない）
+ * 行はID順に並べ、ブランド・カテゴリーはIDを辞書の番号に置き換えて保持する
+ * 条件の判定・集計は行ごとに配列の値を比べるだけで、エンティティやオブジェクトを作らない
+ * 行数の多い走査は区間に分けて、複数のスレッドで並列に実行する
+ * 配列はそのままカタログのスナップショットのファイル（{@link CatalogSnapshotFile}）に書き出す
+ */
+final class ColumnarProducts {
+
+    /** 1つのスレッドで走査する区間の行数 */
+    static final int CHUNK_SIZE = 65536;
+
+    /** 辞書の番号（ブランド・カテゴリーなし） */
+    private static final int NO_CODE = 0;
+
+    /** 条件の番号（絞り込まない） */
+    private static final int ANY_CODE = -1;
+
+    /** 条件の番号（辞書にないため、どの行にも一致しない） */
+    private static final int UNKNOWN_CODE = -2;
+
+    /** バージョン（変更の通知から反映した値のため、DBのどのバージョンの値か分からない） */
+    static final long UNKNOWN_VERSION = -1;
+
+    final long[] ids;
+
+    /** 商品情報のバージョン（DBから読み込んでいない値の場合は {@link #UNKNOWN_VERSION}） */
+    final long[] versions;
+
+    final int[] prices;
+
+    final double[] lengths;
+
+    final double[] widths;
+
+    final double[] heights;
+
+    final double[] weights;
+
+    /** ブランドの辞書の番号 */
+    final int[] brands;
+
+    /** カテゴリーの辞書の番号 */
+    final int[] categories;
+
+    /** ブランドIDごとの辞書の番号 */
+    private final Map<Long, Integer> brandCodes;
+
+    /** カテゴリーIDごとの辞書の番号 */
+    private final Map<Long, Integer> categoryCodes;
+
+    /** 辞書の番号ごとのブランドID（番号0はブランドなし） */
+    final Long[] brandIds;
+
+    /** 辞書の番号ごとのカテゴリーID（番号0はカテゴリーなし） */
+    final Long[] categoryIds;
+
+    private final int size;
+
+    /**
+     * 列ごとの配列から作成する（配列は複写せずにそのまま保持する）
+     *
+     * @param brandIds 辞書の番号ごとのブランドID（番号0はnull）
+     * @param categoryIds 辞書の番号ごとのカテゴリーID（番号0はnull）
+     */
+    ColumnarProducts(long[] ids, long[] versions, int[] prices, double[] lengths, double[] widths, double[] heights,
+            double[] weights, int[] brands, int[] categories, Long[] brandIds, Long[] categoryIds) {
+        this.size = ids.length;
+        this.ids = ids;
+        this.versions = versions;
+        this.prices = prices;
+        this.lengths = lengths;
+        this.widths = widths;
+        this.heights = heights;
+        this.weights = weights;
+        this.brands = brands;
+        this.categories = categories;
+        this.brandIds = brandIds;
+        this.categoryIds = categoryIds;
+        this.brandCodes = codes(brandIds);
+        this.categoryCodes = codes(categoryIds);
+    }
+
+    private static Long[] dictionary(Map<Long, Integer> codes) {
+        Long[] dictionary = new Long[codes.size() + 1];
+        codes.forEach((id, code) -> dictionary[code] = id);
+        return dictionary;
+    }
+
+    private static Map<Long, Integer> codes(Long[] dictionary) {
+        Map<Long, Integer> codes = new HashMap<>();
+        for (int code = 1; code < dictionary.length; code++) {
+            codes.put(dictionary[code], code);
+        }
+        return codes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param id 商品ID
+     * @return 行（存在しない場合は負の値）
+     */
+    int rowOf(long id) {
+        return Arrays.binarySearch(ids, id);
+    }
+
+    /**
+     * @param id 商品ID
+     * @return このIDより大きい最初の行
+     */
+    int rowAfter(long id) {
+        int row = Arrays.binarySearch(ids, id);
+        return row >= 0 ? row + 1 : -row - 1;
+    }
+
+    /**
+     * 検索条件を、行の値と比べる形に変換する
+     *
+     * @param criteria 検索条件
+     * @return 変換した条件
+     */
+    Bounds bounds(ProductCriteria criteria) {
+        return new Bounds(criteria, code(brandCodes, criteria.getBrandId()),
+                code(categoryCodes, criteria.getCategoryId()));
+    }
+
+    private static int code(Map<Long, Integer> codes, Long id) {
+        if (id == null) {
+            return ANY_CODE;
+        }
+        return codes.getOrDefault(id, UNKNOWN_CODE);
+    }
+
+    /**
+     * 行が条件に一致するかの判定
+     *
+     * @param row 行
+     * @param bounds 条件
+     * @param hidden 除く行（変更・削除した商品の行、ビットの配列）
+     * @return 一致する場合はtrue
+     */
+    boolean matches(int row, Bounds bounds, long[] hidden) {
+        if ((hidden[row >>> 6] & (1L << row)) != 0) {
+            return false;
+        }
+        int price = prices[row];
+        if (price < bounds.minPrice || price > bounds.maxPrice) {
+            return false;
+        }
+        if (bounds.brand != ANY_CODE && brands[row] != bounds.brand) {
+            return false;
+        }
+        if (bounds.category != ANY_CODE && categories[row] != bounds.category) {
+            return false;
+        }
+        return bounds.dimensions
+                ? lengths[row] >= bounds.minLength && lengths[row] <= bounds.maxLength
+                        && widths[row] >= bounds.minWidth && widths[row] <= bounds.maxWidth
+                        && heights[row] >= bounds.minHeight && heights[row] <= bounds.maxHeight
+                        && weights[row] >= bounds.minWeight && weights[row] <= bounds.maxWeight
+                : true;
+    }
+
+    /**
+     * 条件に一致する行の集計
+     *
+     * @param bounds 条件
+     * @param hidden 除く行
+     * @return 集計値
+     */
+    ProductAggregate.Totals aggregate(Bounds bounds, long[] hidden) {
+        ProductAggregate.Totals totals = new ProductAggregate.Totals();
+        if (bounds.none()) {
+            return totals;
+        }
+        for (ProductAggregate.Totals chunk : scan(chunk -> {
+            ProductAggregate.Totals partial = new ProductAggregate.Totals();
+            int to = Math.min(chunk + CHUNK_SIZE, size);
+            for (int row = chunk; row < to; row++) {
+                if (matches(row, bounds, hidden)) {
+                    partial.add(prices[row], lengths[row], widths[row], heights[row], weights[row]);
+                }
+            }
+            return partial;
+        })) {
+            totals.merge(chunk);
+        }
+        return totals;
+    }
+
+    /**
+     * 条件に一致する行のうち、金額の順で先頭から指定した数の行
+     *
+     * @param bounds 条件
+     * @param hidden 除く行
+     * @param count 取得する数
+     * @param descending true:金額の高い順 false:金額の安い順（同じ金額の場合はどちらもID順）
+     * @return 行（金額の順）
+     */
+    int[] topByPrice(Bounds bounds, long[] hidden, int count, boolean descending) {
+        if (bounds.none() || count <= 0) {
+            return new int[0];
+        }
+        // 金額（高い順の場合は反転）を上位、行を下位に置いた値で比べる（行はID順のため、同じ金額はID順になる）
+        long[] keys = scan(chunk -> {
+            long[] heap = new long[Math.min(count, CHUNK_SIZE)];
+            int found = 0;
+            int to = Math.min(chunk + CHUNK_SIZE, size);
+            for (int row = chunk; row < to; row++) {
+                if (matches(row, bounds, hidden)) {
+                    long key = ((long) (descending ? ~prices[row] : prices[row]) << 32) | row;
+                    if (found < heap.length) {
+                        heap[found++] = key;
+                        siftUp(heap, found - 1);
+                    } else if (key < heap[0]) {
+                        heap[0] = key;
+                        siftDown(heap, found);
+                    }
+                }
+            }
+            return Arrays.copyOf(heap, found);
+        }).stream().flatMapToLong(Arrays::stream).sorted().limit(count).toArray();
+        int[] rows = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            rows[i] = (int) keys[i];
+        }
+        return rows;
+    }
+
+    /**
+     * 値の大きいものを先頭に置くヒープへの追加
+     */
+    private static void siftUp(long[] heap, int index) {
+        long key = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent] >= key) {
+                break;
+            }
+            heap[index] = heap[parent];
+            index = parent;
+        }
+        heap[index] = key;
+    }
+
+    /**
+     * 値の大きいものを先頭に置くヒープの、先頭の置き換え
+     */
+    private static void siftDown(long[] heap, int size) {
+        long key = heap[0];
+        int index = 0;
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1] > heap[child]) {
+                child++;
+            }
+            if (heap[child] <= key) {
+                break;
+            }
+            heap[index] = heap[child];
+            index = child;
+        }
+        heap[index] = key;
+    }
+
+    /**
+     * 区間ごとの処理を実行する（区間が複数ある場合は並列に実行する）
+     *
+     * @param task 区間の先頭の行を受け取る処理
+     * @return 区間ごとの結果（行の順）
+     */
+    private <T> List<T> scan(IntFunction<T> task) {
+        int chunks = (size + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        IntStream starts = IntStream.range(0, chunks).map(chunk -> chunk * CHUNK_SIZE);
+        return (chunks > 1 ? starts.parallel() : starts).mapToObj(task).collect(Collectors.toList());
+    }
+
+    /**
+     * 行の値と比べる形に変換した検索条件
+     */
+    static final class Bounds {
+
+        private final int minPrice;
+
+        private final int maxPrice;
+
+        /** 大きさ・重さの条件があるかどうか */
+        private final boolean dimensions;
+
+        private final double minLength;
+
+        private final double maxLength;
+
+        private final double minWidth;
+
+        private final double maxWidth;
+
+        private final double minHeight;
+
+        private final double maxHeight;
+
+        private final double minWeight;
+
+        private final double maxWeight;
+
+        private final int brand;
+
+        private final int category;
+
+        private Bounds(ProductCriteria criteria, int brand, int category) {
+            this.minPrice = criteria.getMinPrice() != null ? criteria.getMinPrice() : Integer.MIN_VALUE;
+            this.maxPrice = criteria.getMaxPrice() != null ? criteria.getMaxPrice() : Integer.MAX_VALUE;
+            this.dimensions = criteria.hasDimensions();
+            this.minLength = min(criteria.getMinLength());
+            this.maxLength = max(criteria.getMaxLength());
+            this.minWidth = min(criteria.getMinWidth());
+            this.maxWidth = max(criteria.getMaxWidth());
+            this.minHeight = min(criteria.getMinHeight());
+            this.maxHeight = max(criteria.getMaxHeight());
+            this.minWeight = min(criteria.getMinWeight());
+            this.maxWeight = max(criteria.getMaxWeight());
+            this.brand = brand;
+            this.category = category;
+        }
+
+        private static double min(Double value) {
+            return value != null ? value : Double.NEGATIVE_INFINITY;
+        }
+
+        private static double max(Double value) {
+            return value != null ? value : Double.POSITIVE_INFINITY;
+        }
+
+        /**
+         * @return どの行にも一致しない場合はtrue（辞書にないブランド・カテゴリーを指定した場合）
+         */
+        boolean none() {
+            return brand == UNKNOWN_CODE || category == UNKNOWN_CODE;
+        }
+    }
+
+    /**
+     * 列ごとの配列の作成（ID順に追加する）
+     */
+    static final class Builder {
+
+        private long[] ids = new long[1024];
+
+        private long[] versions = new long[1024];
+
+        private int[] prices = new int[1024];
+
+        private double[] lengths = new double[1024];
+
+        private double[] widths = new double[1024];
+
+        private double[] heights = new double[1024];
+
+        private double[] weights = new double[1024];
+
+        private int[] brands = new int[1024];
+
+        private int[] categories = new int[1024];
+
+        private final Map<Long, Integer> brandCodes = new HashMap<>();
+
+        private final Map<Long, Integer> categoryCodes = new HashMap<>();
+
+        private int size;
+
+        /**
+         * 行を追加する
+         *
+         * @throws IllegalArgumentException IDが前の行より大きくない場合
+         */
+        Builder add(long id, long version, int price, double length, double width, double height, double weight,
+                Long brandId, Long categoryId) {
+            if (size > 0 && ids[size - 1] >= id) {
+                throw new IllegalArgumentException("rows must be added in ascending id order");
+            }
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                versions = Arrays.copyOf(versions, capacity);
+                prices = Arrays.copyOf(prices, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                widths = Arrays.copyOf(widths, capacity);
+                heights = Arrays.copyOf(heights, capacity);
+                weights = Arrays.copyOf(weights, capacity);
+                brands = Arrays.copyOf(brands, capacity);
+                categories = Arrays.copyOf(categories, capacity);
+            }
+            ids[size] = id;
+            versions[size] = version;
+            prices[size] = price;
+            lengths[size] = length;
+            widths[size] = width;
+            heights[size] = height;
+            weights[size] = weight;
+            brands[size] = encode(brandCodes, brandId);
+            categories[size] = encode(categoryCodes, categoryId);
+            size++;
+            return this;
+        }
+
+        /**
+         * 変更の通知の値を追加する（バージョンは分からない値にする）
+         */
+        Builder add(ProductCountsChangedEvent.Values values) {
+            return add(values.getId(), UNKNOWN_VERSION, values.getPrice(), values.getLength(), values.getWidth(), values.getHeight(),
+                    values.getWeight(), values.getBrandId(), values.getCategoryId());
+        }
+
+        /**
+         * 作成済みの配列の行を追加する
+         */
+        Builder add(ColumnarProducts columns, int row) {
+            return add(columns.ids[row], columns.versions[row], columns.prices[row], columns.lengths[row], columns.widths[row],
+                    columns.heights[row], columns.weights[row], columns.brandIds[columns.brands[row]],
+                    columns.categoryIds[columns.categories[row]]);
+        }
+
+        private static int encode(Map<Long, Integer> codes, Long id) {
+            if (id == null) {
+                return NO_CODE;
+            }
+            Integer code = codes.get(id);
+            if (code == null) {
+                code = codes.size() + 1;
+                codes.put(id, code);
+            }
+            return code;
+        }
+
+        int size() {
+            return size;
+        }
+
+        ColumnarProducts build() {
+            return new ColumnarProducts(Arrays.copyOf(ids, size), Arrays.copyOf(versions, size),
+                    Arrays.copyOf(prices, size), Arrays.copyOf(lengths, size), Arrays.copyOf(widths, size),
+                    Arrays.copyOf(heights, size), Arrays.copyOf(weights, size), Arrays.copyOf(brands, size),
+                    Arrays.copyOf(categories, size), dictionary(brandCodes), dictionary(categoryCodes));
+        }
+    }
+
+}
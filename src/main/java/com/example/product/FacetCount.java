@@ -0,0 +1,34 @@
+package com.example.product;
+
+/**
+ * 商品一覧の絞り込みの候補（ブランド・カテゴリー）と、一致する商品の件数
+ */
+public class FacetCount {
+
+    /** ブランドID・カテゴリーID */
+    private final Long id;
+
+    /** ブランド名・カテゴリー名 */
+    private final String name;
+
+    /** 一致する商品の件数 */
+    private final long count;
+
+    public FacetCount(Long id, String name, long count) {
+        this.id = id;
+        this.name = name;
+        this.count = count;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,366 @@
+package com.example.product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.LongConsumer;
+import java.util.function.LongPredicate;
+
+/**
+ * 配列で表すk-d木（作成後は変更しない）
+ * 点を配列上で並べ替え、範囲 [lo, hi) の中央の位置に、深さで決まる次元の中央値の点を置く
+ * 分割に使う次元は先頭から指定した数までで、それ以降の次元は範囲の判定だけに使う
+ * 中央より前の点はその次元の値が中央値以下、後の点は中央値以上になるため、子の範囲の位置を保持せずに探索できる
+ * ノードのオブジェクトを作らないため、100万件でもIDと座標の配列だけの大きさになる
+ */
+public class KdTree {
+
+    /** 近い順（同じ距離の場合はID順） */
+    static final Comparator<Neighbor> NEAREST_FIRST =
+            Comparator.comparingDouble(Neighbor::getDistance).thenComparingLong(Neighbor::getId);
+
+    /** 次元数 */
+    private final int dimensions;
+
+    /** 分割に使う次元数 */
+    private final int splitDimensions;
+
+    /** ID（木の順序） */
+    private final long[] ids;
+
+    /** 座標（木の順序、1点あたり次元数の個数を続けて置く） */
+    private final double[] points;
+
+    /**
+     * 木を作成する
+     * 渡した配列は木の順序に並べ替えて、そのまま使う
+     *
+     * @param dimensions 次元数
+     * @param ids ID
+     * @param points 座標（1点あたり次元数の個数を続けて置く）
+     * @param size 点の数（配列の先頭からこの数までを使う）
+     */
+    public KdTree(int dimensions, long[] ids, double[] points, int size) {
+        this(dimensions, dimensions, ids, points, size);
+    }
+
+    /**
+     * 分割に使う次元を限定して木を作成する
+     * 近い点の検索で距離に使わない次元を分割に使うと、その深さでは両方の枝を調べることになるため、分割に使わない
+     * 渡した配列は木の順序に並べ替えて、そのまま使う
+     *
+     * @param dimensions 次元数
+     * @param splitDimensions 分割に使う次元数（先頭から）
+     * @param ids ID
+     * @param points 座標（1点あたり次元数の個数を続けて置く）
+     * @param size 点の数（配列の先頭からこの数までを使う）
+     */
+    public KdTree(int dimensions, int splitDimensions, long[] ids, double[] points, int size) {
+        if (dimensions <= 0 || splitDimensions <= 0 || splitDimensions > dimensions || ids.length < size
+                || points.length < size * dimensions) {
+            throw new IllegalArgumentException("arrays must hold size points of the given dimensions");
+        }
+        this.dimensions = dimensions;
+        this.splitDimensions = splitDimensions;
+        this.ids = ids.length == size ? ids : Arrays.copyOf(ids, size);
+        this.points = points.length == size * dimensions ? points : Arrays.copyOf(points, size * dimensions);
+        build(0, size, 0);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @param index 木の順序の位置
+     * @return ID
+     */
+    public long id(int index) {
+        return ids[index];
+    }
+
+    /**
+     * @param index 木の順序の位置
+     * @param dimension 次元
+     * @return 座標
+     */
+    public double coordinate(int index, int dimension) {
+        return points[index * dimensions + dimension];
+    }
+
+    /**
+     * 範囲に含まれる点の検索
+     * 下限・上限を含む
+     *
+     * @param min 次元ごとの下限
+     * @param max 次元ごとの上限
+     * @param action 範囲に含まれる点のIDごとの処理
+     */
+    public void range(double[] min, double[] max, LongConsumer action) {
+        range(0, ids.length, 0, min, max, action);
+    }
+
+    private void range(int lo, int hi, int depth, double[] min, double[] max, LongConsumer action) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int axis = depth % splitDimensions;
+            double value = points[mid * dimensions + axis];
+            if (contains(mid, min, max)) {
+                action.accept(ids[mid]);
+            }
+            boolean left = min[axis] <= value;
+            boolean right = max[axis] >= value;
+            depth++;
+            if (left && right) {
+                range(lo, mid, depth, min, max, action);
+                lo = mid + 1;
+            } else if (left) {
+                hi = mid;
+            } else if (right) {
+                lo = mid + 1;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean contains(int index, double[] min, double[] max) {
+        int offset = index * dimensions;
+        for (int d = 0; d < dimensions; d++) {
+            double value = points[offset + d];
+            if (value < min[d] || value > max[d]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 近い点の検索
+     * 距離は先頭から指定した数の次元だけで求める（それ以外の次元で分けた枝は両方を調べる）
+     *
+     * @param target 基準の座標（距離を求める次元の分だけ）
+     * @param count 取得する数
+     * @param filter 対象にするIDの判定
+     * @return 近い順の点（同じ距離の場合はID順）
+     */
+    public List<Neighbor> nearest(double[] target, int count, LongPredicate filter) {
+        Nearest nearest = new Nearest(count);
+        nearest(target, filter, nearest);
+        return nearest.result();
+    }
+
+    /**
+     * 近い点の検索（複数の木の結果をまとめる場合に使う）
+     * 取得済みの点より遠い枝は調べない
+     *
+     * @param target 基準の座標（距離を求める次元の分だけ）
+     * @param filter 対象にするIDの判定
+     * @param nearest 取得済みの近い点（この木の点を加える）
+     */
+    public void nearest(double[] target, LongPredicate filter, Nearest nearest) {
+        if (nearest.count > 0) {
+            nearest(0, ids.length, 0, target, filter, nearest);
+        }
+    }
+
+    private void nearest(int lo, int hi, int depth, double[] target, LongPredicate filter, Nearest nearest) {
+        if (lo >= hi) {
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        if (filter.test(ids[mid])) {
+            nearest.offer(ids[mid], distance(mid, target));
+        }
+        int axis = depth % splitDimensions;
+        if (axis >= target.length) {
+            // 距離に使わない次元で分けた場合は、どちらの側にも近い点がありうる
+            nearest(lo, mid, depth + 1, target, filter, nearest);
+            nearest(mid + 1, hi, depth + 1, target, filter, nearest);
+            return;
+        }
+        double diff = target[axis] - points[mid * dimensions + axis];
+        // 基準に近い側から調べ、反対側は分割面までの距離が取得済みの最も遠いもの以下の場合だけ調べる
+        // （同じ距離でIDの小さいものがありうるため、等しい場合も調べる）
+        if (diff < 0) {
+            nearest(lo, mid, depth + 1, target, filter, nearest);
+            if (nearest.reaches(diff * diff)) {
+                nearest(mid + 1, hi, depth + 1, target, filter, nearest);
+            }
+        } else {
+            nearest(mid + 1, hi, depth + 1, target, filter, nearest);
+            if (nearest.reaches(diff * diff)) {
+                nearest(lo, mid, depth + 1, target, filter, nearest);
+            }
+        }
+    }
+
+    /**
+     * @return 距離の2乗
+     */
+    private double distance(int index, double[] target) {
+        int offset = index * dimensions;
+        double sum = 0;
+        for (int d = 0; d < target.length; d++) {
+            double diff = points[offset + d] - target[d];
+            sum += diff * diff;
+        }
+        return sum;
+    }
+
+    private void build(int lo, int hi, int depth) {
+        while (hi - lo > 1) {
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi - 1, mid, depth % splitDimensions);
+            build(lo, mid, depth + 1);
+            lo = mid + 1;
+            depth++;
+        }
+    }
+
+    /**
+     * 範囲 [left, right] を並べ替え、k番目に小さい点を位置kに置く（前はその値以下、後はその値以上）
+     */
+    private void select(int left, int right, int k, int axis) {
+        while (right > left) {
+            // 3点の中央値を基準にする（並び済みの入力でも分割が偏らない）
+            int middle = (left + right) >>> 1;
+            if (value(middle, axis) < value(left, axis)) {
+                swap(middle, left);
+            }
+            if (value(right, axis) < value(left, axis)) {
+                swap(right, left);
+            }
+            if (value(right, axis) < value(middle, axis)) {
+                swap(right, middle);
+            }
+            double pivot = value(middle, axis);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (value(i, axis) < pivot) {
+                    i++;
+                }
+                while (value(j, axis) > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private double value(int index, int axis) {
+        return points[index * dimensions + axis];
+    }
+
+    private void swap(int a, int b) {
+        long id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        int offsetA = a * dimensions;
+        int offsetB = b * dimensions;
+        for (int d = 0; d < dimensions; d++) {
+            double value = points[offsetA + d];
+            points[offsetA + d] = points[offsetB + d];
+            points[offsetB + d] = value;
+        }
+    }
+
+    /**
+     * 取得済みの近い点（取得する数まで保持する）
+     */
+    public static final class Nearest {
+
+        /** 取得する数 */
+        private final int count;
+
+        /** 取得済みのうち最も遠いもの（同じ距離の場合はIDの大きいもの）を先頭に置く */
+        private final PriorityQueue<Neighbor> found;
+
+        /**
+         * @param count 取得する数
+         */
+        public Nearest(int count) {
+            this.count = count;
+            this.found = new PriorityQueue<>(Math.min(count, 1024) + 1, NEAREST_FIRST.reversed());
+        }
+
+        /**
+         * 点を加える（取得済みの点より遠い場合は加えない）
+         *
+         * @param id ID
+         * @param distance 距離の2乗
+         */
+        public void offer(long id, double distance) {
+            if (count <= 0) {
+                return;
+            }
+            Neighbor neighbor = new Neighbor(id, distance);
+            if (found.size() < count) {
+                found.add(neighbor);
+            } else if (NEAREST_FIRST.compare(neighbor, found.peek()) < 0) {
+                found.poll();
+                found.add(neighbor);
+            }
+        }
+
+        /**
+         * @param distance 距離の2乗
+         * @return この距離の点を加える場合があるかどうか
+         */
+        boolean reaches(double distance) {
+            return found.size() < count || distance <= found.peek().getDistance();
+        }
+
+        /**
+         * @return 近い順の点（同じ距離の場合はID順）
+         */
+        public List<Neighbor> result() {
+            List<Neighbor> neighbors = new ArrayList<>(found);
+            Collections.sort(neighbors, NEAREST_FIRST);
+            return neighbors;
+        }
+    }
+
+    /**
+     * 近い点のIDと距離
+     */
+    public static final class Neighbor {
+
+        private final long id;
+
+        /** 距離の2乗 */
+        private final double distance;
+
+        public Neighbor(long id, double distance) {
+            this.id = id;
+            this.distance = distance;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public double getDistance() {
+            return distance;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.product;
+
+/**
+ * 検索条件に一致する商品の集計値
+ * 商品がない場合、金額の最小・最大と平均はnullになる
+ */
+public class ProductAggregate {
+
+    /** 件数 */
+    private final long count;
+
+    /** 金額の最小 */
+    private final Integer minPrice;
+
+    /** 金額の最大 */
+    private final Integer maxPrice;
+
+    /** 平均金額 */
+    private final Double averagePrice;
+
+    /** 平均の長さ */
+    private final Double averageLength;
+
+    /** 平均の幅 */
+    private final Double averageWidth;
+
+    /** 平均の高さ */
+    private final Double averageHeight;
+
+    /** 平均の重さ */
+    private final Double averageWeight;
+
+    ProductAggregate(Totals totals) {
+        this.count = totals.count;
+        boolean empty = totals.count == 0;
+        this.minPrice = empty ? null : totals.minPrice;
+        this.maxPrice = empty ? null : totals.maxPrice;
+        this.averagePrice = empty ? null : (double) totals.priceSum / totals.count;
+        this.averageLength = empty ? null : totals.lengthSum / totals.count;
+        this.averageWidth = empty ? null : totals.widthSum / totals.count;
+        this.averageHeight = empty ? null : totals.heightSum / totals.count;
+        this.averageWeight = empty ? null : totals.weightSum / totals.count;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public Integer getMinPrice() {
+        return minPrice;
+    }
+
+    public Integer getMaxPrice() {
+        return maxPrice;
+    }
+
+    public Double getAveragePrice() {
+        return averagePrice;
+    }
+
+    public Double getAverageLength() {
+        return averageLength;
+    }
+
+    public Double getAverageWidth() {
+        return averageWidth;
+    }
+
+    public Double getAverageHeight() {
+        return averageHeight;
+    }
+
+    public Double getAverageWeight() {
+        return averageWeight;
+    }
+
+    /**
+     * 集計中の値（区間ごとに集計し、最後にまとめる）
+     */
+    static final class Totals {
+
+        private long count;
+
+        private int minPrice = Integer.MAX_VALUE;
+
+        private int maxPrice = Integer.MIN_VALUE;
+
+        private long priceSum;
+
+        private double lengthSum;
+
+        private double widthSum;
+
+        private double heightSum;
+
+        private double weightSum;
+
+        void add(int price, double length, double width, double height, double weight) {
+            count++;
+            minPrice = Math.min(minPrice, price);
+            maxPrice = Math.max(maxPrice, price);
+            priceSum += price;
+            lengthSum += length;
+            widthSum += width;
+            heightSum += height;
+            weightSum += weight;
+        }
+
+        void add(ProductCountsChangedEvent.Values values) {
+            add(values.getPrice(), values.getLength(), values.getWidth(), values.getHeight(), values.getWeight());
+        }
+
+        void merge(Totals other) {
+            count += other.count;
+            minPrice = Math.min(minPrice, other.minPrice);
+            maxPrice = Math.max(maxPrice, other.maxPrice);
+            priceSum += other.priceSum;
+            lengthSum += other.lengthSum;
+            widthSum += other.widthSum;
+            heightSum += other.heightSum;
+            weightSum += other.weightSum;
+        }
+    }
+}
@@ -0,0 +1,627 @@
+package com.example.product;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.reload.BackgroundReloader;
+
+/**
+ * 商品の金額・大きさ・ブランド・カテゴリーの列ごとの複写（メモリ上に保持する）
+ * 金額・大きさでの絞り込み、金額順の上位の取得、集計を、エンティティを読み込まずに配列の走査だけで行う
+ *
+ * 起動時に全件を読み込んで列ごとの配列を作成し、以降の登録・変更・削除は配列を作り直さずに差分として保持する
+ * 検索では配列から差分で置き換えた行を除き、差分の商品を加える
+ * 差分が一定件数を超えたら、別スレッドでメモリ上の値から配列を作り直す（DBは読まない）
+ * 変更した商品の分からない一括変更の後は、別スレッドで全件を読み込み直す
+ *
+ * スナップショットのファイル（{@link CatalogSnapshotFile}）を使う場合は、一定間隔と終了時に配列をファイルに書き出す
+ * 起動時はファイルから配列を作成し、ファイルを書き出した後に登録・変更・削除した商品だけをDBから読み込む
+ * 変更の有無は商品のバージョンで判定する（バージョンは変更のたびに増え、商品IDは再利用されないため）
+ */
+@Component
+public class ProductColumns implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductColumns.class);
+
+    /** 変更した商品をDBから読み込む件数（IN句に指定できる件数の上限） */
+    private static final int REFRESH_CHUNK_SIZE = 1000;
+
+    /** 終了時に実行中の読み込み・作り直しを待つ秒数 */
+    private static final long SHUTDOWN_SECONDS = 30;
+
+    private final ProductRepository productRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /** 配列の作成と、作成中の変更の記録（作成後に新しい配列に反映し直す） */
+    private final BackgroundReloader<Change> reloader;
+
+    /** 別スレッドで配列を作り直す処理 */
+    private final BackgroundReloader<Change>.Task rebuild;
+
+    /** 別スレッドで全件を読み込み直す処理 */
+    private final BackgroundReloader<Change>.Task reload;
+
+    /** 配列を作り直す差分の件数 */
+    private final int rebuildThreshold;
+
+    /** 検索に使う配列と差分（変更のたびに作り直し、検索中は変えない） */
+    private volatile Snapshot snapshot = new Snapshot(new ColumnarProducts.Builder().build());
+
+    /** スナップショットのファイルを使うかどうか */
+    private final boolean snapshotEnabled;
+
+    /** スナップショットのファイル */
+    private final Path snapshotPath;
+
+    /** スナップショットのファイルを書き出す間隔（ミリ秒、0以下の場合は終了時だけ書き出す） */
+    private final long snapshotWriteMillis;
+
+    /** 起動時の配列の作成が終わったかどうか */
+    private volatile boolean loaded;
+
+    /** 前回ファイルを書き出した後に配列・差分を変更したかどうか */
+    private final AtomicBoolean changedSinceWrite = new AtomicBoolean();
+
+    /** ファイルの書き出しを1つずつ行うためのロック */
+    private final Object writeLock = new Object();
+
+    @Autowired
+    public ProductColumns(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+            @Value("${slshop.product-columns.rebuild-threshold:10000}") int rebuildThreshold,
+            @Value("${slshop.catalog-snapshot.enabled:false}") boolean snapshotEnabled,
+            @Value("${slshop.catalog-snapshot.path:snapshot/catalog.snapshot}") String snapshotPath,
+            @Value("${slshop.catalog-snapshot.write-millis:600000}") long snapshotWriteMillis) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildThreshold = rebuildThreshold;
+        this.snapshotEnabled = snapshotEnabled;
+        this.snapshotPath = snapshotPath != null ? Paths.get(snapshotPath) : null;
+        this.snapshotWriteMillis = snapshotWriteMillis;
+        // 配列を作り直す処理・全件を読み込み直す処理・ファイルを書き出す処理を同じスレッドで実行する
+        this.reloader = new BackgroundReloader<>(this, "product-columns");
+        this.rebuild = reloader.task(this::rebuild, "rebuild product columns");
+        this.reload = reloader.task(this::load, "reload product columns");
+    }
+
+    /**
+     * 起動時に配列を作成し、ファイルの書き出しを開始する
+     * スナップショットのファイルから作成できない場合は、DBから全件を読み込む
+     * 起動時に生成・読み込みした商品情報も含めるため、起動処理がすべて終わってから実行する
+     * 大きさの索引（{@link ProductDimensionIndex}）がこの配列から作成できるよう、先に実行する
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void start() {
+        if (!snapshotEnabled || !restore()) {
+            load();
+        }
+        loaded = true;
+        if (snapshotEnabled && snapshotWriteMillis > 0) {
+            reloader.scheduleWithFixedDelay(this::writeChangedSnapshot, snapshotWriteMillis,
+                    "write catalog snapshot");
+        }
+    }
+
+    /**
+     * 全件を読み込んで配列を作成する
+     */
+    public void load() {
+        long start = System.currentTimeMillis();
+        ColumnarProducts columns = reloader.load(() -> {
+            ColumnarProducts.Builder builder = new ColumnarProducts.Builder();
+            // 直前の変更がレプリカに反映されていない場合があるため、更新と同じ接続先（プライマリ）で読み込む
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = productRepository.streamColumns()) {
+                    rows.forEach(row -> add(builder, row));
+                }
+            });
+            return builder.build();
+        }, this::install);
+        LOGGER.info("Loaded product columns for {} products in {} ms", columns.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * {@link ProductRepository#streamColumns()} の1行を追加する
+     */
+    private static void add(ColumnarProducts.Builder builder, Object[] row) {
+        builder.add((Long) row[0], ((Number) row[1]).longValue(), ((Number) row[2]).intValue(),
+                ((Number) row[3]).doubleValue(), ((Number) row[4]).doubleValue(), ((Number) row[5]).doubleValue(),
+                ((Number) row[6]).doubleValue(), (Long) row[7], (Long) row[8]);
+    }
+
+    /**
+     * スナップショットのファイルから配列を作成する
+     * ファイルを書き出した後に登録・変更・削除した商品は、DBから読み込んだ値に置き換える
+     *
+     * @return 作成した場合はtrue（ファイルがない・読み込めない場合、変更した商品が多い場合はfalse）
+     */
+    boolean restore() {
+        long start = System.currentTimeMillis();
+        CatalogSnapshotFile file;
+        try {
+            file = CatalogSnapshotFile.read(snapshotPath);
+        } catch (IOException e) {
+            LOGGER.warn("Ignored catalog snapshot {}", snapshotPath, e);
+            return false;
+        }
+        if (file == null) {
+            return false;
+        }
+        // 直前の変更がレプリカに反映されていない場合があるため、更新と同じ接続先（プライマリ）で読み込む
+        ColumnarProducts columns = reloader.load(
+                () -> transactionTemplate.execute(status -> catchUp(file.getColumns())), this::install);
+        if (columns == null) {
+            LOGGER.info("Catalog snapshot {} is too old, loading product columns from the database", snapshotPath);
+            return false;
+        }
+        LOGGER.info("Restored product columns for {} products from catalog snapshot written at {} in {} ms",
+                columns.size(), new Date(file.getWrittenAt()), System.currentTimeMillis() - start);
+        return true;
+    }
+
+    /**
+     * ファイルの配列に、ファイルを書き出した後のDBの変更を反映する
+     * 件数・最大の商品ID・バージョンの合計が一致する場合は変更がないため、商品を読み込まない
+     * 一致しない場合は商品IDとバージョンだけを全件読み込んで比べ、変更した商品だけを読み込む
+     *
+     * @param columns ファイルの配列
+     * @return 反映した配列（変更した商品が全体の1/4と1回に読み込む件数のどちらも超える場合は、全件を読み込むほうが速いためnull）
+     */
+    private ColumnarProducts catchUp(ColumnarProducts columns) {
+        int size = columns.size();
+        Object[] marker = productRepository.findChangeMarker().get(0);
+        long versionSum = 0;
+        for (long version : columns.versions) {
+            versionSum += version;
+        }
+        if (((Number) marker[0]).longValue() == size
+                && (size == 0 || ((Number) marker[1]).longValue() == columns.ids[size - 1])
+                && (size == 0 || ((Number) marker[2]).longValue() == versionSum)) {
+            return columns;
+        }
+        int limit = Math.max(size / 4, REFRESH_CHUNK_SIZE);
+        List<Long> changed = new ArrayList<>();
+        int row = 0;
+        try (Stream<Object[]> rows = productRepository.streamVersions()) {
+            for (Iterator<Object[]> iterator = rows.iterator(); iterator.hasNext();) {
+                Object[] current = iterator.next();
+                long id = (Long) current[0];
+                // ファイルにあってDBにない商品（削除した商品）
+                while (row < size && columns.ids[row] < id) {
+                    changed.add(columns.ids[row++]);
+                }
+                if (row < size && columns.ids[row] == id) {
+                    if (columns.versions[row] != ((Number) current[1]).longValue()) {
+                        changed.add(id);
+                    }
+                    row++;
+                } else {
+                    changed.add(id);
+                }
+                if (changed.size() > limit) {
+                    return null;
+                }
+            }
+        }
+        while (row < size) {
+            changed.add(columns.ids[row++]);
+        }
+        return changed.size() > limit ? null : refresh(columns, changed);
+    }
+
+    /**
+     * 指定した商品の行を、DBから読み込んだ値に置き換える（DBにない商品の行は除く）
+     * 呼び出し元のトランザクション内で実行する
+     *
+     * @param columns 配列
+     * @param ids 置き換える商品ID（ID順）
+     * @return 置き換えた配列
+     */
+    private ColumnarProducts refresh(ColumnarProducts columns, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return columns;
+        }
+        List<Object[]> loaded = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += REFRESH_CHUNK_SIZE) {
+            loaded.addAll(productRepository.findColumnsByIds(
+                    ids.subList(from, Math.min(from + REFRESH_CHUNK_SIZE, ids.size()))));
+        }
+        Set<Long> replaced = new HashSet<>(ids);
+        ColumnarProducts.Builder builder = new ColumnarProducts.Builder();
+        int next = 0;
+        for (int row = 0; row < columns.size(); row++) {
+            if (replaced.contains(columns.ids[row])) {
+                continue;
+            }
+            while (next < loaded.size() && (Long) loaded.get(next)[0] < columns.ids[row]) {
+                add(builder, loaded.get(next++));
+            }
+            builder.add(columns, row);
+        }
+        while (next < loaded.size()) {
+            add(builder, loaded.get(next++));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 現在の配列と差分をスナップショットのファイルに書き出す
+     * 変更の通知から反映した商品（DBのどのバージョンの値か分からない）は、DBから読み込み直した値を書き出す
+     * 書き出した後の変更は、次の起動時にバージョンで判定してDBから読み込む
+     *
+     * @throws IOException 書き出せない場合
+     */
+    void writeSnapshot() throws IOException {
+        synchronized (writeLock) {
+            long start = System.currentTimeMillis();
+            ColumnarProducts merged = snapshot.merge();
+            List<Long> unknown = new ArrayList<>();
+            for (int row = 0; row < merged.size(); row++) {
+                if (merged.versions[row] == ColumnarProducts.UNKNOWN_VERSION) {
+                    unknown.add(merged.ids[row]);
+                }
+            }
+            ColumnarProducts columns = unknown.isEmpty() ? merged
+                    : transactionTemplate.execute(status -> refresh(merged, unknown));
+            CatalogSnapshotFile.write(snapshotPath, columns, System.currentTimeMillis());
+            LOGGER.info("Wrote catalog snapshot {} for {} products in {} ms", snapshotPath, columns.size(),
+                    System.currentTimeMillis() - start);
+        }
+    }
+
+    /**
+     * 前回の書き出しの後に変更があった場合だけ、スナップショットのファイルを書き出す
+     * 失敗した場合は次の間隔で書き出し直す
+     */
+    private void writeChangedSnapshot() {
+        if (changedSinceWrite.getAndSet(false) && !writeSnapshotQuietly()) {
+            changedSinceWrite.set(true);
+        }
+    }
+
+    /**
+     * スナップショットのファイルを書き出す（失敗した場合は警告を出力する）
+     *
+     * @return 書き出した場合はtrue
+     */
+    private boolean writeSnapshotQuietly() {
+        try {
+            writeSnapshot();
+            return true;
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Failed to write catalog snapshot {}", snapshotPath, e);
+            return false;
+        }
+    }
+
+    /**
+     * メモリ上の値から配列を作り直す（差分を配列に含める）
+     */
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        ColumnarProducts columns = reloader.load(() -> snapshot.merge(), this::install);
+        LOGGER.info("Rebuilt product columns for {} products in {} ms", columns.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 作成した配列に、作成中に反映した変更を反映し直して入れ替える
+     * 作成中の変更は商品ごとの値の置き換えのため、作成した配列に含まれていても反映し直してよい
+     *
+     * @param columns 作成した配列（作成しなかった場合はnull）
+     * @param changesWhileBuilding 作成中に反映した変更
+     */
+    private void install(ColumnarProducts columns, List<Change> changesWhileBuilding) {
+        if (columns != null) {
+            snapshot = new Snapshot(columns).apply(changesWhileBuilding);
+            changedSinceWrite.set(true);
+        }
+    }
+
+    /**
+     * 別スレッドで全件を読み込み直す
+     * 読み込みを始める前に続けて呼び出した場合は、1回の読み込みにまとめる
+     */
+    public void reloadLater() {
+        reload.schedule();
+    }
+
+    /**
+     * 確定した登録・変更・削除を反映する
+     * 変更した商品の分からない一括変更の後は、全件を読み込み直す
+     *
+     * @param event 商品件数・集計値の変更の通知
+     */
+    @TransactionalEventListener
+    public void onProductCountsChanged(ProductCountsChangedEvent event) {
+        if (event.isRecount()) {
+            reloadLater();
+            return;
+        }
+        List<Change> changes = new ArrayList<>();
+        for (ProductCountsChangedEvent.Values values : event.getRemoved()) {
+            changes.add(new Change(values.getId(), null));
+        }
+        for (ProductCountsChangedEvent.Values values : event.getAdded()) {
+            changes.add(new Change(values.getId(), values));
+        }
+        apply(changes);
+    }
+
+    /**
+     * 確定した一括削除を反映する
+     *
+     * @param event 商品情報の削除の通知
+     */
+    @TransactionalEventListener
+    public void onProductsDeleted(ProductsDeletedEvent event) {
+        apply(event.getProductIds().stream().map(id -> new Change(id, null)).collect(Collectors.toList()));
+    }
+
+    private void apply(List<Change> changes) {
+        reloader.apply(changes, () -> {
+            snapshot = snapshot.apply(changes);
+            changedSinceWrite.set(true);
+        });
+        Snapshot applied = snapshot;
+        if (applied.hiddenCount + applied.added.size() > rebuildThreshold) {
+            rebuild.schedule();
+        }
+    }
+
+    /**
+     * 条件に一致する商品の集計
+     *
+     * @param criteria 検索条件
+     * @return 集計値
+     */
+    public ProductAggregate aggregate(ProductCriteria criteria) {
+        Snapshot current = snapshot;
+        ProductAggregate.Totals totals = current.columns.aggregate(current.columns.bounds(criteria), current.hidden);
+        current.added.values().stream().filter(criteria::matches).forEach(totals::add);
+        return new ProductAggregate(totals);
+    }
+
+    /**
+     * 条件に一致する商品ID（ID順）
+     *
+     * @param criteria 検索条件
+     * @param after このIDより大きい商品だけを対象にする（先頭から取得する場合はnull）
+     * @param limit 取得する件数
+     * @return 商品ID（ID順、取得する件数まで）
+     */
+    public List<Long> filter(ProductCriteria criteria, Long after, int limit) {
+        Snapshot current = snapshot;
+        ColumnarProducts columns = current.columns;
+        ColumnarProducts.Bounds bounds = columns.bounds(criteria);
+        long from = after != null ? after : Long.MIN_VALUE;
+        List<Long> ids = new ArrayList<>();
+        // ID順に調べ、件数に達したら残りの行は調べない
+        if (!bounds.none()) {
+            for (int row = columns.rowAfter(from); row < columns.size() && ids.size() < limit; row++) {
+                if (columns.matches(row, bounds, current.hidden)) {
+                    ids.add(columns.ids[row]);
+                }
+            }
+        }
+        current.added.values().stream()
+                .filter(values -> values.getId() > from && criteria.matches(values))
+                .forEach(values -> ids.add(values.getId()));
+        Collections.sort(ids);
+        return ids.size() > limit ? new ArrayList<>(ids.subList(0, limit)) : ids;
+    }
+
+    /**
+     * 条件に一致する商品のうち、金額の順で先頭から指定した数の商品ID
+     *
+     * @param criteria 検索条件
+     * @param count 取得する件数
+     * @param descending true:金額の高い順 false:金額の安い順（同じ金額の場合はどちらもID順）
+     * @return 商品ID（金額の順）
+     */
+    public List<Long> topByPrice(ProductCriteria criteria, int count, boolean descending) {
+        Snapshot current = snapshot;
+        ColumnarProducts columns = current.columns;
+        List<long[]> found = new ArrayList<>();
+        for (int row : columns.topByPrice(columns.bounds(criteria), current.hidden, count, descending)) {
+            found.add(new long[] { columns.prices[row], columns.ids[row] });
+        }
+        current.added.values().stream().filter(criteria::matches)
+                .forEach(values -> found.add(new long[] { values.getPrice(), values.getId() }));
+        Comparator<long[]> byPrice = Comparator.comparingLong(entry -> entry[0]);
+        return found.stream()
+                .sorted((descending ? byPrice.reversed() : byPrice).thenComparingLong(entry -> entry[1]))
+                .limit(count)
+                .map(entry -> entry[1])
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 全ての商品の大きさと重さを順に渡す（差分の商品を含む、ID順とは限らない）
+     *
+     * @param action 1件ごとの処理
+     */
+    void forEachDimensions(DimensionsConsumer action) {
+        Snapshot current = snapshot;
+        ColumnarProducts columns = current.columns;
+        for (int row = 0; row < columns.size(); row++) {
+            if (!current.isHidden(row)) {
+                action.accept(columns.ids[row], columns.lengths[row], columns.widths[row], columns.heights[row],
+                        columns.weights[row]);
+            }
+        }
+        for (ProductCountsChangedEvent.Values values : current.added.values()) {
+            action.accept(values.getId(), values.getLength(), values.getWidth(), values.getHeight(),
+                    values.getWeight());
+        }
+    }
+
+    /**
+     * @return 起動時の配列の作成が終わっている場合はtrue
+     */
+    boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * @return 商品の件数
+     */
+    public int size() {
+        Snapshot current = snapshot;
+        return current.columns.size() - current.hiddenCount + current.added.size();
+    }
+
+    /**
+     * スナップショットのファイルを使う場合は、終了前に書き出す
+     * 実行中の読み込み・作り直しの完了を待ってから、変更の有無にかかわらず最後の内容を書き出す
+     */
+    @Override
+    public void destroy() {
+        reloader.shutdown(SHUTDOWN_SECONDS);
+        if (snapshotEnabled && loaded) {
+            changedSinceWrite.set(false);
+            writeSnapshotQuietly();
+        }
+    }
+
+    /**
+     * 商品の大きさと重さを受け取る処理
+     */
+    @FunctionalInterface
+    interface DimensionsConsumer {
+
+        void accept(long id, double length, double width, double height, double weight);
+    }
+
+    /**
+     * 検索に使う配列と差分
+     */
+    private static final class Snapshot {
+
+        private final ColumnarProducts columns;
+
+        /** 配列の作成後に変更・削除した商品の行（ビットの配列） */
+        private final long[] hidden;
+
+        /** 変更・削除した商品の行の数 */
+        private final int hiddenCount;
+
+        /** 配列の作成後に登録・変更した商品の値 */
+        private final Map<Long, ProductCountsChangedEvent.Values> added;
+
+        Snapshot(ColumnarProducts columns) {
+            this(columns, new long[(columns.size() + 63) >>> 6], 0, Collections.emptyMap());
+        }
+
+        private Snapshot(ColumnarProducts columns, long[] hidden, int hiddenCount,
+                Map<Long, ProductCountsChangedEvent.Values> added) {
+            this.columns = columns;
+            this.hidden = hidden;
+            this.hiddenCount = hiddenCount;
+            this.added = added;
+        }
+
+        boolean isHidden(int row) {
+            return (hidden[row >>> 6] & (1L << row)) != 0;
+        }
+
+        /**
+         * 差分を含めた配列を作成する（このスナップショットは変えない）
+         */
+        ColumnarProducts merge() {
+            // 差分の商品をID順に並べ、ID順の配列の行と合わせながら追加する
+            List<ProductCountsChangedEvent.Values> sorted = new ArrayList<>(added.values());
+            sorted.sort(Comparator.comparing(ProductCountsChangedEvent.Values::getId));
+            ColumnarProducts.Builder builder = new ColumnarProducts.Builder();
+            int next = 0;
+            for (int row = 0; row < columns.size(); row++) {
+                if (isHidden(row)) {
+                    continue;
+                }
+                while (next < sorted.size() && sorted.get(next).getId() < columns.ids[row]) {
+                    builder.add(sorted.get(next++));
+                }
+                builder.add(columns, row);
+            }
+            while (next < sorted.size()) {
+                builder.add(sorted.get(next++));
+            }
+            return builder.build();
+        }
+
+        /**
+         * 変更を反映した差分を持つ新しいスナップショットを作成する（このスナップショットは変えない）
+         */
+        Snapshot apply(List<Change> changes) {
+            if (changes.isEmpty()) {
+                return this;
+            }
+            long[] newHidden = hidden;
+            int newHiddenCount = hiddenCount;
+            Map<Long, ProductCountsChangedEvent.Values> newAdded = new HashMap<>(added);
+            for (Change change : changes) {
+                // 配列の中の値は、変更・削除のどちらの場合も使わない
+                int row = columns.rowOf(change.id);
+                if (row >= 0 && (newHidden[row >>> 6] & (1L << row)) == 0) {
+                    if (newHidden == hidden) {
+                        newHidden = Arrays.copyOf(hidden, hidden.length);
+                    }
+                    newHidden[row >>> 6] |= 1L << row;
+                    newHiddenCount++;
+                }
+                if (change.values != null) {
+                    newAdded.put(change.id, change.values);
+                } else {
+                    newAdded.remove(change.id);
+                }
+            }
+            return new Snapshot(columns, newHidden, newHiddenCount, newAdded);
+        }
+    }
+
+    /**
+     * 商品の登録・変更（値あり）と削除（値なし）
+     */
+    private static final class Change {
+
+        private final long id;
+
+        private final ProductCountsChangedEvent.Values values;
+
+        Change(long id, ProductCountsChangedEvent.Values values) {
+            this.id = id;
+            this.values = values;
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package com.example.product;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -12,20 +19,33 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import com.example.brand.BrandService;
+import com.example.cache.ConditionalGet;
 import com.example.category.CategoryService;
+import com.example.cursor.RowCursor;
+import com.example.cursor.RowCursors;
 import com.example.entity.Brand;
 import com.example.entity.Category;
 import com.example.entity.Product;
+import com.example.export.ExportFormat;
+import com.example.export.ExportWriter;
+import com.example.pricing.PriceScheduleService;
+import com.example.search.LimitedList;
 
 
 @Controller
 @RequestMapping("/products")
 public class ProductController {
 
+    /** 一覧出力時の列名 */
+    private static final String[] EXPORT_HEADERS = {
+            "ID", "NAME", "DESCRIPTION", "PRICE", "LENGTH", "WIDTH", "HEIGHT", "WEIGHT", "BRAND", "CATEGORY" };
+
     private final ProductService productService;
 
     private final BrandService brandService;
@@ -33,34 +53,146 @@ public class ProductController {
     private final CategoryService categoryService;
 
     private final ProductSaveHelper productSaveHelper;
+
+    private final RowCursors rowCursors;
+
+    private final PriceScheduleService priceScheduleService;
     
     @Autowired
     public ProductController(
             ProductService productService,
             BrandService brandService,
             CategoryService categoryService,
-            ProductSaveHelper productSaveHelper) {
+            ProductSaveHelper productSaveHelper,
+            RowCursors rowCursors,
+            PriceScheduleService priceScheduleService) {
         this.productService = productService;
         this.brandService = brandService;
         this.categoryService = categoryService;
         this.productSaveHelper = productSaveHelper;
+        this.rowCursors = rowCursors;
+        this.priceScheduleService = priceScheduleService;
     }
 
     /**
      * 商品一覧画面表示
      *
+     * @param keyword 検索キーワード
+     * @param brandId 絞り込むブランドID
+     * @param categoryId 絞り込むカテゴリーID
+     * @param all true:表示件数の上限なしで全件を表示する
      * @param model
      * @return 商品一覧画面
      */
     @GetMapping
-    public String listProducts(@RequestParam(required = false) String keyword, Model model) {
-        // 全商品情報の取得
-        List<Product> listProducts = productService.listAll(keyword);
-        model.addAttribute("listProducts", listProducts);
+    public String listProducts(@RequestParam(required = false) String keyword,
+            @RequestParam(required = false) Long brandId, @RequestParam(required = false) Long categoryId,
+            @RequestParam(defaultValue = "false") boolean all, Model model) {
         model.addAttribute("keyword", keyword);
+        model.addAttribute("brandId", brandId);
+        model.addAttribute("categoryId", categoryId);
+        if (all) {
+            // 全件表示の場合は、画面の生成中に1件ずつ読み込み、一定件数ごとにクライアントへ送信する
+            RowCursor<Product> cursor = rowCursors.open(() -> productService.stream(keyword, brandId, categoryId));
+            try {
+                // 画面の生成を始める前に検索し、タイムアウトした場合は件数を制限した一覧と同じく絞り込みを促す
+                cursor.hasNext();
+            } catch (QueryTimeoutException e) {
+                model.addAttribute("error_message", "検索に時間がかかったため中断しました。検索条件を絞り込んでください");
+                model.addAttribute("listProducts", Collections.emptyList());
+                model.addAttribute("truncated", false);
+                return "products/products";
+            }
+            model.addAttribute("listProducts", cursor);
+            model.addAttribute("truncated", false);
+            return "products/products";
+        }
+        List<Product> listProducts;
+        try {
+            // 商品情報の取得（表示件数の上限まで）
+            listProducts = productService.listAll(keyword, brandId, categoryId);
+            try {
+                // 絞り込みの候補の取得（ブランド・カテゴリーごとの件数）
+                model.addAttribute("facets", productService.facets(keyword, brandId, categoryId, listProducts));
+            } catch (QueryTimeoutException e) {
+                // 一致する件数が多く集計に時間がかかった場合は、候補を表示せずに一覧だけを表示する
+            }
+        } catch (QueryTimeoutException e) {
+            // 時間のかかる検索はタイムアウトで中断されるため、条件の絞り込みを促す
+            model.addAttribute("error_message", "検索に時間がかかったため中断しました。検索条件を絞り込んでください");
+            listProducts = Collections.emptyList();
+        }
+        model.addAttribute("listProducts", listProducts);
+        model.addAttribute("truncated", LimitedList.isTruncated(listProducts));
         return "products/products";
     }
 
+    /**
+     * 大きさでの商品検索画面表示
+     * 箱の内寸（長さ・幅・高さ）を指定した場合は向きを変えて入る商品を、基準の商品を指定した場合は大きさの近い商品を表示する
+     *
+     * @param length 箱の内寸の長さ
+     * @param width 箱の内寸の幅
+     * @param height 箱の内寸の高さ
+     * @param weight 重さの上限
+     * @param similarTo 基準の商品ID
+     * @param model
+     * @param ra
+     * @return 大きさでの商品検索画面
+     */
+    @GetMapping("/dimensions")
+    public String searchByDimensions(@RequestParam(required = false) Double length,
+            @RequestParam(required = false) Double width, @RequestParam(required = false) Double height,
+            @RequestParam(required = false) Double weight, @RequestParam(required = false) Long similarTo,
+            Model model, RedirectAttributes ra) {
+        model.addAttribute("length", length);
+        model.addAttribute("width", width);
+        model.addAttribute("height", height);
+        model.addAttribute("weight", weight);
+        List<Product> listProducts = null;
+        // 基準の商品を指定した場合
+        if (similarTo != null) {
+            try {
+                Product product = productService.get(similarTo);
+                model.addAttribute("similarTo", product);
+                listProducts = productService.listSimilar(product);
+            } catch (NotFoundException e) {
+                ra.addFlashAttribute("error_message", "対象のデータが見つかりませんでした");
+                return "redirect:/products/dimensions";
+            }
+        }
+        // 箱の内寸を指定した場合
+        else if (length != null && width != null && height != null) {
+            if (length < 0 || width < 0 || height < 0 || (weight != null && weight < 0)) {
+                model.addAttribute("error_message", "大きさと重さは0以上で指定してください");
+            } else {
+                listProducts = productService.listFit(length, width, height, weight);
+            }
+        }
+        model.addAttribute("listProducts", listProducts);
+        model.addAttribute("truncated", listProducts != null && LimitedList.isTruncated(listProducts));
+        return "products/dimensions";
+    }
+
+    /**
+     * 商品一覧出力処理
+     *
+     * @param keyword 検索キーワード
+     * @param format 出力形式（csv, jsonl）
+     * @param gzip true:gzip圧縮して出力する
+     * @return 商品一覧ファイル
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportProducts(@RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        // レスポンスへ1件ずつ書き出す（途中で失敗した場合は、完全なファイルの形にせずに中断する）
+        StreamingResponseBody body = ExportWriter.body(exportFormat, gzip, EXPORT_HEADERS,
+                writer -> productService.export(keyword, writer::write));
+        return ExportWriter.response("products", exportFormat, gzip, body);
+    }
+
     /**
      * 商品新規登録画面表示
      *
@@ -106,7 +238,14 @@ public class ProductController {
         // 商品画像のファイル名を取得し、商品情報に格納する
         productSaveHelper.setMainImageName(file, product);
         // 商品情報の登録
-        Product savedProduct = productService.save(product);
+        Product savedProduct;
+        try {
+            savedProduct = productService.save(product);
+        } catch (OptimisticLockingFailureException e) {
+            // 編集画面の表示後に他の利用者が更新していた場合は、上書きせずに一覧画面へ戻す
+            ra.addFlashAttribute("error_message", "他の利用者が更新したため保存できませんでした。最新の内容を確認してください");
+            return "redirect:/products";
+        }
         // 商品画像のファイルを保存する
         productSaveHelper.saveUploadedImages(file, savedProduct);
         ra.addFlashAttribute("success_message", "登録に成功しました");
@@ -119,10 +258,15 @@ public class ProductController {
      * @param id 商品ID
      * @param model
      * @param ra 
+     * @param request
      * @return 商品詳細画面
      */
     @GetMapping("/detail/{id}")
-    public String detailUser(@PathVariable(name = "id") Long id, Model model, RedirectAttributes ra) {
+    public String detailUser(@PathVariable(name = "id") Long id, Model model, RedirectAttributes ra, WebRequest request) {
+        // 前回表示から更新されていない場合は、商品情報を取得せずに304を返す
+        if (ConditionalGet.checkNotModified(request, productService.getVersionTag(id))) {
+            return null;
+        }
         try {
             // 商品IDに紐づく商品情報取得
             Product product = productService.get(id);
@@ -184,4 +328,136 @@ public class ProductController {
         return "redirect:/products";
     }
 
+    /**
+     * 商品一括削除処理
+     *
+     * @param ids 選択した商品ID
+     * @param ra
+     * @return 商品一覧画面
+     */
+    @PostMapping("/bulk/delete")
+    public String bulkDeleteProducts(@RequestParam(name = "ids", required = false) List<Long> ids,
+            RedirectAttributes ra) {
+        if (ids == null || ids.isEmpty()) {
+            ra.addFlashAttribute("error_message", "対象を選択してください");
+            return "redirect:/products";
+        }
+        // 商品情報の一括削除
+        int deleted = productService.deleteAll(ids);
+        ra.addFlashAttribute("success_message", deleted + "件を削除しました");
+        return "redirect:/products";
+    }
+
+    /**
+     * 商品のブランドの一括変更処理
+     *
+     * @param ids 選択した商品ID
+     * @param brandId 変更後のブランドID
+     * @param ra
+     * @return 商品一覧画面
+     */
+    @PostMapping("/bulk/brand")
+    public String bulkChangeBrand(@RequestParam(name = "ids", required = false) List<Long> ids,
+            @RequestParam Long brandId, RedirectAttributes ra) {
+        if (ids == null || ids.isEmpty()) {
+            ra.addFlashAttribute("error_message", "対象を選択してください");
+            return "redirect:/products";
+        }
+        try {
+            // 変更後のブランドが存在するかの確認
+            brandService.get(brandId);
+        } catch (NotFoundException e) {
+            ra.addFlashAttribute("error_message", "対象のデータが見つかりませんでした");
+            return "redirect:/products";
+        }
+        // 商品情報のブランドの一括変更
+        int changed = productService.changeBrand(ids, brandId);
+        ra.addFlashAttribute("success_message", changed + "件のブランドを変更しました");
+        return "redirect:/products";
+    }
+
+    /**
+     * 商品のカテゴリーの一括変更処理
+     *
+     * @param ids 選択した商品ID
+     * @param categoryId 変更後のカテゴリーID
+     * @param ra
+     * @return 商品一覧画面
+     */
+    @PostMapping("/bulk/category")
+    public String bulkChangeCategory(@RequestParam(name = "ids", required = false) List<Long> ids,
+            @RequestParam Long categoryId, RedirectAttributes ra) {
+        if (ids == null || ids.isEmpty()) {
+            ra.addFlashAttribute("error_message", "対象を選択してください");
+            return "redirect:/products";
+        }
+        try {
+            // 変更後のカテゴリーが存在するかの確認
+            categoryService.get(categoryId);
+        } catch (NotFoundException e) {
+            ra.addFlashAttribute("error_message", "対象のデータが見つかりませんでした");
+            return "redirect:/products";
+        }
+        // 商品情報のカテゴリーの一括変更
+        int changed = productService.changeCategory(ids, categoryId);
+        ra.addFlashAttribute("success_message", changed + "件のカテゴリーを変更しました");
+        return "redirect:/products";
+    }
+
+    /**
+     * 商品の金額の変更の予約処理
+     * 終了の日時を指定した場合は、その日時に現在の金額へ戻す（セールなど）
+     *
+     * @param ids 選択した商品ID
+     * @param price 変更後の金額
+     * @param effectiveAt 変更する日時
+     * @param endAt 元の金額に戻す日時
+     * @param ra
+     * @return 商品一覧画面
+     */
+    @PostMapping("/bulk/schedule")
+    public String bulkSchedulePrice(@RequestParam(name = "ids", required = false) List<Long> ids,
+            @RequestParam(required = false) Integer price,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime effectiveAt,
+            @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime endAt,
+            RedirectAttributes ra) {
+        if (ids == null || ids.isEmpty()) {
+            ra.addFlashAttribute("error_message", "対象を選択してください");
+            return "redirect:/products";
+        }
+        // 入力値のチェック
+        if (!priceScheduleService.isValid(price, effectiveAt, endAt)) {
+            ra.addFlashAttribute("error_message", "入力に誤りがあります");
+            return "redirect:/products";
+        }
+        // 金額の変更予定の登録
+        int scheduled = priceScheduleService.schedule(ids, price, effectiveAt, endAt);
+        ra.addFlashAttribute("success_message", scheduled + "件の金額の変更を予約しました");
+        return "redirect:/products";
+    }
+
+    /**
+     * 商品一括変更画面表示
+     * 変更先の選択肢は一覧画面では取得せず、この画面で取得する
+     *
+     * @param ids 選択した商品ID
+     * @param model
+     * @param ra
+     * @return 商品一括変更画面
+     */
+    @PostMapping("/bulk/edit")
+    public String bulkEditProducts(@RequestParam(name = "ids", required = false) List<Long> ids, Model model,
+            RedirectAttributes ra) {
+        if (ids == null || ids.isEmpty()) {
+            ra.addFlashAttribute("error_message", "対象を選択してください");
+            return "redirect:/products";
+        }
+        model.addAttribute("ids", ids);
+        // ブランド情報の全件取得
+        model.addAttribute("listBrands", brandService.listAll());
+        // カテゴリー情報の全件取得
+        model.addAttribute("listCategories", categoryService.listAll());
+        return "products/product_bulk_edit";
+    }
+
 }
@@ -0,0 +1,207 @@
+package com.example.product;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.reload.BackgroundReloader;
+
+/**
+ * ブランドとカテゴリーの組み合わせごとの商品件数（メモリ上に保持する）
+ * 起動時に1回の集計で読み込み、以降は商品情報の変更が確定するたびに増減を反映する
+ * 一覧画面の件数の表示では、SQLを実行せずにこの件数を使う
+ * 増減の分からない一括変更の後は、別スレッドで全件を集計し直す（続けて変更した場合は1回にまとめる）
+ */
+@Component
+public class ProductCounts implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductCounts.class);
+
+    private final ProductRepository productRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    /** 組み合わせごとの件数（件数が0の組み合わせは保持しない） */
+    private final Map<Key, Long> counts = new ConcurrentHashMap<>();
+
+    /** 集計と、集計中の増減の記録 */
+    private final BackgroundReloader<ProductCountsChangedEvent> reloader;
+
+    /** 別スレッドで集計し直す処理 */
+    private final BackgroundReloader<ProductCountsChangedEvent>.Task reload;
+
+    /** 件数を変更した回数（件数から作成した表示内容が古くなったかの判定に使う） */
+    private long version;
+
+    @Autowired
+    public ProductCounts(ProductRepository productRepository, PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.reloader = new BackgroundReloader<>(this, "product-counts");
+        this.reload = reloader.task(this::load, "reload product counts");
+    }
+
+    /**
+     * 全件を集計して読み込む
+     * 起動時に生成・読み込みした商品情報も含めるため、起動処理がすべて終わってから実行する
+     * 集計中も一覧画面に件数を表示できるよう、集計が終わってから入れ替える
+     * 集計中に増減を反映した場合は、集計結果に含まれているか分からない（反映し直すと重複する場合がある）ため、もう一度集計し直す
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        Map<Key, Long> loaded = reloader.load(() -> {
+            Map<Key, Long> rows = new HashMap<>();
+            // 直前の変更がレプリカに反映されていない場合があるため、更新と同じ接続先（プライマリ）で集計する
+            transactionTemplate.executeWithoutResult(status -> {
+                for (Object[] row : productRepository.countGroupByBrandAndCategory()) {
+                    rows.put(new Key((Long) row[0], (Long) row[1]), ((Number) row[2]).longValue());
+                }
+            });
+            return rows;
+        }, (rows, changesWhileLoading) -> {
+            counts.clear();
+            counts.putAll(rows);
+            version++;
+            if (!changesWhileLoading.isEmpty()) {
+                reload.schedule();
+            }
+        });
+        LOGGER.info("Loaded product counts for {} brand-category pairs in {} ms",
+                loaded.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 別スレッドで全件を集計し直す
+     * 集計を始める前に続けて呼び出した場合は、1回の集計にまとめる
+     */
+    public void reloadLater() {
+        reload.schedule();
+    }
+
+    /**
+     * 確定した件数の増減を反映する
+     * 取り消した変更は反映しない
+     *
+     * @param event 件数の変更の通知
+     */
+    @TransactionalEventListener
+    public void onProductCountsChanged(ProductCountsChangedEvent event) {
+        if (event.isRecount()) {
+            reloadLater();
+            return;
+        }
+        // 金額・大きさだけの変更は件数が変わらないため、件数から作成した表示内容を作り直さない
+        if (event.getChanges().isEmpty()) {
+            return;
+        }
+        reloader.apply(Collections.singletonList(event), () -> {
+            // 合計が0になった組み合わせは削除する
+            event.getChanges().forEach((key, count) -> counts.merge(key, count, (a, b) -> a + b == 0 ? null : a + b));
+            version++;
+        });
+    }
+
+    /**
+     * 件数を変更した回数
+     *
+     * @return 読み込み・増減の反映のたびに増える値
+     */
+    public synchronized long version() {
+        return version;
+    }
+
+    /**
+     * 組み合わせごとの件数
+     *
+     * @return 組み合わせごとの件数（変更できない複製）
+     */
+    public Map<Key, Long> snapshot() {
+        return Collections.unmodifiableMap(new HashMap<>(counts));
+    }
+
+    /**
+     * ブランドごとの件数
+     *
+     * @return ブランドIDごとの件数（商品のないブランドは含まない）
+     */
+    public Map<Long, Long> byBrand() {
+        return sum(Key::getBrandId);
+    }
+
+    /**
+     * カテゴリーごとの件数
+     *
+     * @return カテゴリーIDごとの件数（商品のないカテゴリーは含まない）
+     */
+    public Map<Long, Long> byCategory() {
+        return sum(Key::getCategoryId);
+    }
+
+    @Override
+    public void destroy() {
+        reloader.shutdown(0);
+    }
+
+    private Map<Long, Long> sum(Function<Key, Long> dimension) {
+        Map<Long, Long> sums = new HashMap<>();
+        counts.forEach((key, count) -> {
+            Long id = dimension.apply(key);
+            if (id != null) {
+                sums.merge(id, count, Long::sum);
+            }
+        });
+        return sums;
+    }
+
+    /**
+     * ブランドとカテゴリーの組み合わせ
+     */
+    public static final class Key {
+
+        private final Long brandId;
+
+        private final Long categoryId;
+
+        public Key(Long brandId, Long categoryId) {
+            this.brandId = brandId;
+            this.categoryId = categoryId;
+        }
+
+        public Long getBrandId() {
+            return brandId;
+        }
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return Objects.equals(brandId, other.brandId) && Objects.equals(categoryId, other.categoryId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(brandId, categoryId);
+        }
+    }
+}
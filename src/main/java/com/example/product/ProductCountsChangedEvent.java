@@ -0,0 +1,183 @@
+package com.example.product;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.entity.Product;
+
+/**
+ * 商品件数・集計値の変更の通知
+ * 変更が確定してから {@link ProductCounts} やダッシュボードの集計値、大きさの索引、列ごとの複写に反映するために使う
+ */
+public class ProductCountsChangedEvent {
+
+    /** ブランドとカテゴリーの組み合わせごとの増減 */
+    private final Map<ProductCounts.Key, Long> changes = new HashMap<>();
+
+    /** 追加した商品（変更後の値） */
+    private final List<Values> added = new ArrayList<>();
+
+    /** 取り除いた商品（変更前の値） */
+    private final List<Values> removed = new ArrayList<>();
+
+    /** 増減が分からず、全件を集計し直すかどうか */
+    private final boolean recount;
+
+    public ProductCountsChangedEvent() {
+        this(false);
+    }
+
+    private ProductCountsChangedEvent(boolean recount) {
+        this.recount = recount;
+    }
+
+    /**
+     * 全件を集計し直す通知を作成する
+     * 条件を指定した一括変更・一括削除など、変更した商品を読み込まないため増減が分からない場合に使う
+     *
+     * @return 集計し直す通知
+     */
+    public static ProductCountsChangedEvent recount() {
+        return new ProductCountsChangedEvent(true);
+    }
+
+    /**
+     * 商品の追加・取り除きを追加する
+     *
+     * @param product 商品情報（この時点の値を複写する）
+     * @param sign 1:追加した -1:取り除いた
+     * @return この通知
+     */
+    public ProductCountsChangedEvent add(Product product, int sign) {
+        return add(Values.of(product), sign);
+    }
+
+    /**
+     * 商品の追加・取り除きを追加する
+     * 変更前の値は、変更する前に {@link Values#of(Product)} で複写しておく
+     *
+     * @param values 商品の値
+     * @param sign 1:追加した -1:取り除いた
+     * @return この通知
+     */
+    public ProductCountsChangedEvent add(Values values, int sign) {
+        // 金額・大きさだけの変更のように増減が打ち消し合った組み合わせは含めない
+        changes.merge(new ProductCounts.Key(values.brandId, values.categoryId), (long) sign,
+                (a, b) -> a + b == 0 ? null : a + b);
+        (sign > 0 ? added : removed).add(values);
+        return this;
+    }
+
+    /**
+     * @return ブランドとカテゴリーの組み合わせごとの増減（増減のない組み合わせは含まない）
+     */
+    public Map<ProductCounts.Key, Long> getChanges() {
+        return changes;
+    }
+
+    public List<Values> getAdded() {
+        return Collections.unmodifiableList(added);
+    }
+
+    public List<Values> getRemoved() {
+        return Collections.unmodifiableList(removed);
+    }
+
+    public boolean isRecount() {
+        return recount;
+    }
+
+    /**
+     * 件数・集計値の対象になる商品の値（変更前後の値を保持するため、商品情報から複写する）
+     */
+    public static final class Values {
+
+        private final Long id;
+
+        private final Long brandId;
+
+        private final Long categoryId;
+
+        private final int price;
+
+        private final double length;
+
+        private final double width;
+
+        private final double height;
+
+        private final double weight;
+
+        private Values(Long id, Long brandId, Long categoryId, int price, double length, double width,
+                double height, double weight) {
+            this.id = id;
+            this.brandId = brandId;
+            this.categoryId = categoryId;
+            this.price = price;
+            this.length = length;
+            this.width = width;
+            this.height = height;
+            this.weight = weight;
+        }
+
+        public static Values of(Product product) {
+            return new Values(product.getId(), product.getBrand() != null ? product.getBrand().getId() : null,
+                    product.getCategory() != null ? product.getCategory().getId() : null, product.getPrice(),
+                    product.getLength(), product.getWidth(), product.getHeight(), product.getWeight());
+        }
+
+        /**
+         * {@link ProductRepository#findColumnsByIds(List)} の1行から作成する
+         */
+        static Values of(Object[] row) {
+            return new Values((Long) row[0], (Long) row[7], (Long) row[8], ((Number) row[2]).intValue(),
+                    ((Number) row[3]).doubleValue(), ((Number) row[4]).doubleValue(),
+                    ((Number) row[5]).doubleValue(), ((Number) row[6]).doubleValue());
+        }
+
+        /**
+         * 金額だけを変えた値を作成する（一括での金額の変更の後の値に使う）
+         *
+         * @param newPrice 変更後の金額
+         * @return 変更後の値
+         */
+        public Values withPrice(int newPrice) {
+            return new Values(id, brandId, categoryId, newPrice, length, width, height, weight);
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public Long getBrandId() {
+            return brandId;
+        }
+
+        public Long getCategoryId() {
+            return categoryId;
+        }
+
+        public int getPrice() {
+            return price;
+        }
+
+        public double getLength() {
+            return length;
+        }
+
+        public double getWidth() {
+            return width;
+        }
+
+        public double getHeight() {
+            return height;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+    }
+}
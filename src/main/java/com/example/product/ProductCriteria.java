@@ -0,0 +1,173 @@
+package com.example.product;
+
+/**
+ * 金額・大きさ・ブランド・カテゴリーでの商品の検索条件
+ * 値を指定しない（null）項目では絞り込まない。下限・上限はその値を含む
+ * APIではリクエストパラメータの名前で指定する（例: minPrice=1000&amp;maxWeight=2.5&amp;brandId=3）
+ */
+public class ProductCriteria {
+
+    /** 金額の下限 */
+    private Integer minPrice;
+
+    /** 金額の上限 */
+    private Integer maxPrice;
+
+    /** 長さの下限 */
+    private Double minLength;
+
+    /** 長さの上限 */
+    private Double maxLength;
+
+    /** 幅の下限 */
+    private Double minWidth;
+
+    /** 幅の上限 */
+    private Double maxWidth;
+
+    /** 高さの下限 */
+    private Double minHeight;
+
+    /** 高さの上限 */
+    private Double maxHeight;
+
+    /** 重さの下限 */
+    private Double minWeight;
+
+    /** 重さの上限 */
+    private Double maxWeight;
+
+    /** ブランドID */
+    private Long brandId;
+
+    /** カテゴリーID */
+    private Long categoryId;
+
+    /**
+     * @return 大きさ・重さの条件がある場合はtrue
+     */
+    public boolean hasDimensions() {
+        return minLength != null || maxLength != null || minWidth != null || maxWidth != null
+                || minHeight != null || maxHeight != null || minWeight != null || maxWeight != null;
+    }
+
+    /**
+     * 商品の値が条件に一致するかの判定
+     *
+     * @param values 商品の値
+     * @return 一致する場合はtrue
+     */
+    public boolean matches(ProductCountsChangedEvent.Values values) {
+        return within(values.getPrice(), minPrice, maxPrice)
+                && within(values.getLength(), minLength, maxLength)
+                && within(values.getWidth(), minWidth, maxWidth)
+                && within(values.getHeight(), minHeight, maxHeight)
+                && within(values.getWeight(), minWeight, maxWeight)
+                && (brandId == null || brandId.equals(values.getBrandId()))
+                && (categoryId == null || categoryId.equals(values.getCategoryId()));
+    }
+
+    private static boolean within(int value, Integer min, Integer max) {
+        return (min == null || value >= min) && (max == null || value <= max);
+    }
+
+    private static boolean within(double value, Double min, Double max) {
+        return (min == null || value >= min) && (max == null || value <= max);
+    }
+
+    public Integer getMinPrice() {
+        return minPrice;
+    }
+
+    public void setMinPrice(Integer minPrice) {
+        this.minPrice = minPrice;
+    }
+
+    public Integer getMaxPrice() {
+        return maxPrice;
+    }
+
+    public void setMaxPrice(Integer maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+
+    public Double getMinLength() {
+        return minLength;
+    }
+
+    public void setMinLength(Double minLength) {
+        this.minLength = minLength;
+    }
+
+    public Double getMaxLength() {
+        return maxLength;
+    }
+
+    public void setMaxLength(Double maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    public Double getMinWidth() {
+        return minWidth;
+    }
+
+    public void setMinWidth(Double minWidth) {
+        this.minWidth = minWidth;
+    }
+
+    public Double getMaxWidth() {
+        return maxWidth;
+    }
+
+    public void setMaxWidth(Double maxWidth) {
+        this.maxWidth = maxWidth;
+    }
+
+    public Double getMinHeight() {
+        return minHeight;
+    }
+
+    public void setMinHeight(Double minHeight) {
+        this.minHeight = minHeight;
+    }
+
+    public Double getMaxHeight() {
+        return maxHeight;
+    }
+
+    public void setMaxHeight(Double maxHeight) {
+        this.maxHeight = maxHeight;
+    }
+
+    public Double getMinWeight() {
+        return minWeight;
+    }
+
+    public void setMinWeight(Double minWeight) {
+        this.minWeight = minWeight;
+    }
+
+    public Double getMaxWeight() {
+        return maxWeight;
+    }
+
+    public void setMaxWeight(Double maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public Long getBrandId() {
+        return brandId;
+    }
+
+    public void setBrandId(Long brandId) {
+        this.brandId = brandId;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public void setCategoryId(Long categoryId) {
+        this.categoryId = categoryId;
+    }
+}
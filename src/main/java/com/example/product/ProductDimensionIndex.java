@@ -0,0 +1,562 @@
+package com.example.product;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.reload.BackgroundReloader;
+
+/**
+ * 商品の大きさ（長さ・幅・高さ）と重さの索引（メモリ上に保持する）
+ * 箱に入る商品と、大きさの近い商品をDBを検索せずに求める
+ *
+ * 向きを変えて入るかを判定できるよう、3辺は長い順に並べ替えて保持する（箱の内寸も同じく並べ替えて比べる）
+ * 起動時に全件を読み込んでk-d木を作成し（列ごとの複写 {@link ProductColumns} を作成済みの場合は、DBを読まずにその値から作成する）、以降の登録・変更・削除は木を作り直さずに差分として保持する
+ * 木はIDの範囲ごとに分けて作成する（箱に入る商品はID順に返すため、ID順に木を調べて件数に達したら残りの木を調べない）
+ * 検索では木から差分で置き換えた商品を除き、差分の商品を加える
+ * 差分は木ごとに1つを共有して追記し、検索は変更の世代で自分の時点までの差分だけを参照する（変更のたびに差分全体を複写しない）
+ * 差分が一定件数を超えたら、別スレッドでメモリ上の値から木を作り直す（DBは読まない）
+ */
+@Component
+public class ProductDimensionIndex implements DisposableBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductDimensionIndex.class);
+
+    /** 次元数（長い順の3辺と重さ） */
+    static final int DIMENSIONS = 4;
+
+    /** 大きさの近さと木の分割に使う次元数（3辺、重さは範囲の判定だけに使う） */
+    private static final int SIZE_DIMENSIONS = 3;
+
+    /** 木1本の点の数 */
+    static final int TREE_SIZE = 8192;
+
+    private final ProductRepository productRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ProductColumns productColumns;
+
+    /** 木の作成と、作成中の変更の記録（作成後に新しい木に反映し直す） */
+    private final BackgroundReloader<Change> reloader;
+
+    /** 別スレッドで木を作り直す処理 */
+    private final BackgroundReloader<Change>.Task rebuild;
+
+    /** 木を作り直す差分の件数 */
+    private final int rebuildThreshold;
+
+    /** 検索に使う木と差分（変更のたびに作り直し、検索中は変えない） */
+    private volatile Snapshot snapshot = new Points().build();
+
+    @Autowired
+    public ProductDimensionIndex(ProductRepository productRepository, PlatformTransactionManager transactionManager,
+            ProductColumns productColumns,
+            @Value("${slshop.dimension-index.rebuild-threshold:10000}") int rebuildThreshold) {
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.productColumns = productColumns;
+        this.rebuildThreshold = rebuildThreshold;
+        this.reloader = new BackgroundReloader<>(this, "product-dimension-index");
+        this.rebuild = reloader.task(this::rebuild, "rebuild dimension index");
+    }
+
+    /**
+     * 起動時に木を作成する
+     * 列ごとの複写を作成済みの場合はその値から作成し、作成していない場合はDBから全件を読み込む
+     * 起動時に生成・読み込みした商品情報も含めるため、起動処理がすべて終わってから実行する
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (productColumns == null || !productColumns.isLoaded()) {
+            load();
+            return;
+        }
+        long start = System.currentTimeMillis();
+        Snapshot built = reloader.load(() -> {
+            Points points = new Points();
+            productColumns.forEachDimensions(
+                    (id, length, width, height, weight) -> points.add(id, point(length, width, height, weight)));
+            return points.build();
+        }, this::install);
+        LOGGER.info("Built dimension index for {} products from product columns in {} ms", built.size,
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 全件を読み込んで木を作成する
+     */
+    public void load() {
+        long start = System.currentTimeMillis();
+        Snapshot built = reloader.load(() -> {
+            Points points = new Points();
+            // 直前の変更がレプリカに反映されていない場合があるため、更新と同じ接続先（プライマリ）で読み込む
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = productRepository.streamDimensions()) {
+                    rows.forEach(row -> points.add((Long) row[0], point(((Number) row[1]).doubleValue(),
+                            ((Number) row[2]).doubleValue(), ((Number) row[3]).doubleValue(),
+                            ((Number) row[4]).doubleValue())));
+                }
+            });
+            return points.build();
+        }, this::install);
+        LOGGER.info("Loaded dimension index for {} products in {} ms", built.size, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * メモリ上の値から木を作り直す（差分を木に含める）
+     */
+    void rebuild() {
+        long start = System.currentTimeMillis();
+        Snapshot built = reloader.load(() -> {
+            Snapshot current = snapshot;
+            Points points = new Points();
+            double[] point = new double[DIMENSIONS];
+            for (KdTree tree : current.trees) {
+                for (int i = 0; i < tree.size(); i++) {
+                    long id = tree.id(i);
+                    if (!current.isRemoved(id)) {
+                        for (int d = 0; d < DIMENSIONS; d++) {
+                            point[d] = tree.coordinate(i, d);
+                        }
+                        points.add(id, point);
+                    }
+                }
+            }
+            current.forEachAdded(points::add);
+            return points.build();
+        }, this::install);
+        LOGGER.info("Rebuilt dimension index for {} products in {} ms", built.size, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 作成した木に、作成中に反映した変更を反映し直して入れ替える
+     * 作成中の変更は商品ごとの座標の置き換えのため、作成した木に含まれていても反映し直してよい
+     *
+     * @param built 作成した木
+     * @param changesWhileBuilding 作成中に反映した変更
+     */
+    private void install(Snapshot built, List<Change> changesWhileBuilding) {
+        snapshot = built.apply(changesWhileBuilding);
+    }
+
+    /**
+     * 確定した登録・変更・削除を反映する
+     * 条件を指定した一括変更（ブランド・カテゴリー・金額）は大きさが変わらないため反映しない
+     *
+     * @param event 商品件数・集計値の変更の通知
+     */
+    @TransactionalEventListener
+    public void onProductCountsChanged(ProductCountsChangedEvent event) {
+        if (event.isRecount()) {
+            return;
+        }
+        List<Change> changes = new ArrayList<>();
+        for (ProductCountsChangedEvent.Values values : event.getRemoved()) {
+            changes.add(new Change(values.getId(), null));
+        }
+        for (ProductCountsChangedEvent.Values values : event.getAdded()) {
+            changes.add(new Change(values.getId(),
+                    point(values.getLength(), values.getWidth(), values.getHeight(), values.getWeight())));
+        }
+        apply(changes);
+    }
+
+    /**
+     * 確定した一括削除を反映する
+     *
+     * @param event 商品情報の削除の通知
+     */
+    @TransactionalEventListener
+    public void onProductsDeleted(ProductsDeletedEvent event) {
+        apply(event.getProductIds().stream().map(id -> new Change(id, null)).collect(Collectors.toList()));
+    }
+
+    private void apply(List<Change> changes) {
+        reloader.apply(changes, () -> snapshot = snapshot.apply(changes));
+        if (snapshot.changeCount > rebuildThreshold) {
+            rebuild.schedule();
+        }
+    }
+
+    /**
+     * 箱に入る商品の検索
+     * 3辺は向きを変えて入るものも含む（長い順に並べ替えて比べる）
+     *
+     * @param length 箱の内寸の長さ
+     * @param width 箱の内寸の幅
+     * @param height 箱の内寸の高さ
+     * @param maxWeight 重さの上限（制限しない場合はnull）
+     * @param after このIDより大きい商品だけを対象にする（先頭から取得する場合はnull）
+     * @param limit 取得する件数
+     * @return 商品ID（ID順、取得する件数まで）
+     */
+    public List<Long> fit(double length, double width, double height, Double maxWeight, Long after, int limit) {
+        double[] max = point(length, width, height, maxWeight != null ? maxWeight : Double.POSITIVE_INFINITY);
+        double[] min = new double[DIMENSIONS];
+        Arrays.fill(min, Double.NEGATIVE_INFINITY);
+        long from = after != null ? after : Long.MIN_VALUE;
+
+        // IDの小さい順に取得する件数だけを残す（最も大きいものを先頭に置く）
+        PriorityQueue<Long> found = new PriorityQueue<>(Math.min(limit, 1024) + 1, Collections.reverseOrder());
+        Snapshot current = snapshot;
+        for (int i = 0; i < current.trees.length && limit > 0; i++) {
+            if (current.maxIds[i] <= from) {
+                continue;
+            }
+            // 件数に達していれば、以降の木の商品はすべて取得済みのものよりIDが大きい
+            if (found.size() == limit && i > 0 && found.peek() <= current.maxIds[i - 1]) {
+                break;
+            }
+            current.trees[i].range(min, max, id -> {
+                if (id > from && !current.isRemoved(id)) {
+                    keep(found, id, limit);
+                }
+            });
+        }
+        current.forEachAdded((id, point) -> {
+            if (id > from && contains(point, min, max)) {
+                keep(found, id, limit);
+            }
+        });
+        List<Long> ids = new ArrayList<>(found);
+        Collections.sort(ids);
+        return ids;
+    }
+
+    private static void keep(PriorityQueue<Long> found, long id, int limit) {
+        if (found.size() < limit) {
+            found.add(id);
+        } else if (limit > 0 && id < found.peek()) {
+            found.poll();
+            found.add(id);
+        }
+    }
+
+    /**
+     * 大きさの近い商品の検索
+     * 長い順に並べ替えた3辺の差で比べる（重さは比べない）
+     *
+     * @param length 基準の長さ
+     * @param width 基準の幅
+     * @param height 基準の高さ
+     * @param count 取得する件数
+     * @param excludeId 除く商品ID（基準の商品自身、除かない場合はnull）
+     * @return 商品ID（近い順、同じ近さの場合はID順）
+     */
+    public List<Long> nearest(double length, double width, double height, int count, Long excludeId) {
+        double[] target = Arrays.copyOf(point(length, width, height, 0), SIZE_DIMENSIONS);
+        long exclude = excludeId != null ? excludeId : Long.MIN_VALUE;
+        Snapshot current = snapshot;
+        // 取得済みの点より遠い枝は調べないため、どの木から調べても結果は同じになる
+        KdTree.Nearest nearest = new KdTree.Nearest(count);
+        for (KdTree tree : current.trees) {
+            tree.nearest(target, id -> id != exclude && !current.isRemoved(id), nearest);
+        }
+        current.forEachAdded((id, point) -> {
+            if (id != exclude) {
+                double distance = 0;
+                for (int d = 0; d < SIZE_DIMENSIONS; d++) {
+                    distance += (point[d] - target[d]) * (point[d] - target[d]);
+                }
+                nearest.offer(id, distance);
+            }
+        });
+        return nearest.result().stream().map(KdTree.Neighbor::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * @return 索引の商品の件数
+     */
+    public int size() {
+        return snapshot.size;
+    }
+
+    @Override
+    public void destroy() {
+        reloader.shutdown(0);
+    }
+
+    /**
+     * 索引の座標（3辺を長い順に並べ替え、重さを続ける）
+     */
+    static double[] point(double length, double width, double height, double weight) {
+        double[] sides = { length, width, height };
+        Arrays.sort(sides);
+        return new double[] { sides[2], sides[1], sides[0], weight };
+    }
+
+    private static boolean contains(double[] point, double[] min, double[] max) {
+        for (int d = 0; d < DIMENSIONS; d++) {
+            if (point[d] < min[d] || point[d] > max[d]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 検索に使う木と差分
+     * 差分は同じ木のスナップショットで共有し、スナップショットの世代までに追記された変更だけを参照する
+     */
+    private static final class Snapshot {
+
+        /** IDの範囲ごとの木（ID順） */
+        private final KdTree[] trees;
+
+        /** 木ごとの最大のID */
+        private final long[] maxIds;
+
+        /** 木にある商品ID（ID順、木にある商品かの判定に使う） */
+        private final long[] ids;
+
+        /** 木の作成後の差分（同じ木のスナップショットで共有する） */
+        private final Diff diff;
+
+        /** 参照する差分の世代 */
+        private final long generation;
+
+        /** 木の作成後に反映した変更の件数 */
+        private final int changeCount;
+
+        /** 商品の件数 */
+        private final int size;
+
+        Snapshot(KdTree[] trees, long[] maxIds, long[] ids) {
+            this(trees, maxIds, ids, new Diff(), 0, 0, ids.length);
+        }
+
+        private Snapshot(KdTree[] trees, long[] maxIds, long[] ids, Diff diff, long generation, int changeCount,
+                int size) {
+            this.trees = trees;
+            this.maxIds = maxIds;
+            this.ids = ids;
+            this.diff = diff;
+            this.generation = generation;
+            this.changeCount = changeCount;
+            this.size = size;
+        }
+
+        /**
+         * 木の中の座標を使わない商品かどうか（木の作成後に変更・削除した商品）
+         */
+        boolean isRemoved(long id) {
+            Long removedAt = diff.removed.get(id);
+            return removedAt != null && removedAt <= generation;
+        }
+
+        /**
+         * 木の作成後に登録・変更した商品の座標を順に渡す（この世代で削除済みの商品は除く）
+         */
+        void forEachAdded(BiConsumer<Long, double[]> action) {
+            diff.added.forEach((id, version) -> {
+                double[] point = version.pointAt(generation);
+                if (point != null) {
+                    action.accept(id, point);
+                }
+            });
+        }
+
+        /**
+         * 変更を反映した新しいスナップショットを作成する
+         * 差分に次の世代として追記するため、このスナップショットから見える内容は変わらない
+         * 最新のスナップショットに対してだけ、1つずつ（ロックを取得して）呼び出す
+         */
+        Snapshot apply(List<Change> changes) {
+            if (changes.isEmpty()) {
+                return this;
+            }
+            long next = generation + 1;
+            int newSize = size;
+            for (Change change : changes) {
+                // 木の中の座標は、変更・削除のどちらの場合も使わない
+                if (Arrays.binarySearch(ids, change.id) >= 0 && diff.removed.putIfAbsent(change.id, next) == null) {
+                    newSize--;
+                }
+                Version latest = diff.added.get(change.id);
+                if (latest != null && latest.point != null) {
+                    newSize--;
+                }
+                if (change.point != null) {
+                    newSize++;
+                }
+                if (latest != null || change.point != null) {
+                    diff.added.put(change.id, new Version(change.point, next, latest));
+                }
+            }
+            return new Snapshot(trees, maxIds, ids, diff, next, changeCount + changes.size(), newSize);
+        }
+    }
+
+    /**
+     * 木の作成後の差分
+     */
+    private static final class Diff {
+
+        /** 変更・削除した木の中の商品IDと、変更・削除した世代 */
+        private final Map<Long, Long> removed = new ConcurrentHashMap<>();
+
+        /** 登録・変更した商品IDと、その座標の履歴 */
+        private final Map<Long, Version> added = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * 差分の商品の座標（新しいものから順に、前の世代の座標をたどれる）
+     */
+    private static final class Version {
+
+        /** 座標（削除した場合はnull） */
+        private final double[] point;
+
+        /** 反映した世代 */
+        private final long generation;
+
+        private final Version previous;
+
+        Version(double[] point, long generation, Version previous) {
+            this.point = point;
+            this.generation = generation;
+            this.previous = previous;
+        }
+
+        /**
+         * 指定した世代の時点の座標（その時点で登録されていない・削除済みの場合はnull）
+         */
+        double[] pointAt(long at) {
+            for (Version version = this; version != null; version = version.previous) {
+                if (version.generation <= at) {
+                    return version.point;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 商品の登録・変更（座標あり）と削除（座標なし）
+     */
+    private static final class Change {
+
+        private final long id;
+
+        private final double[] point;
+
+        Change(long id, double[] point) {
+            this.id = id;
+            this.point = point;
+        }
+    }
+
+    /**
+     * 木を作成するための座標の配列（件数に合わせて広げる）
+     */
+    private static final class Points {
+
+        private long[] ids = new long[1024];
+
+        private double[] coordinates = new double[1024 * DIMENSIONS];
+
+        private int size;
+
+        void add(long id, double[] point) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                coordinates = Arrays.copyOf(coordinates, size * 2 * DIMENSIONS);
+            }
+            ids[size] = id;
+            System.arraycopy(point, 0, coordinates, size * DIMENSIONS, DIMENSIONS);
+            size++;
+        }
+
+        /**
+         * ID順に並べ替え、IDの範囲ごとに木を作成する
+         */
+        Snapshot build() {
+            if (!sorted()) {
+                sort(0, size - 1);
+            }
+            int count = (size + TREE_SIZE - 1) / TREE_SIZE;
+            KdTree[] trees = new KdTree[count];
+            long[] maxIds = new long[count];
+            for (int i = 0; i < count; i++) {
+                int from = i * TREE_SIZE;
+                int to = Math.min(from + TREE_SIZE, size);
+                maxIds[i] = ids[to - 1];
+                trees[i] = new KdTree(DIMENSIONS, SIZE_DIMENSIONS, Arrays.copyOfRange(ids, from, to),
+                        Arrays.copyOfRange(coordinates, from * DIMENSIONS, to * DIMENSIONS), to - from);
+            }
+            return new Snapshot(trees, maxIds, Arrays.copyOf(ids, size));
+        }
+
+        private boolean sorted() {
+            for (int i = 1; i < size; i++) {
+                if (ids[i - 1] > ids[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 範囲 [left, right] をID順に並べ替える（座標も合わせて入れ替える）
+         */
+        private void sort(int left, int right) {
+            while (left < right) {
+                long pivot = ids[(left + right) >>> 1];
+                int i = left;
+                int j = right;
+                while (i <= j) {
+                    while (ids[i] < pivot) {
+                        i++;
+                    }
+                    while (ids[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i, j);
+                        i++;
+                        j--;
+                    }
+                }
+                // 短い側を再帰で並べ替え、長い側は繰り返しで並べ替える（再帰を深くしない）
+                if (j - left < right - i) {
+                    sort(left, j);
+                    left = i;
+                } else {
+                    sort(i, right);
+                    right = j;
+                }
+            }
+        }
+
+        private void swap(int a, int b) {
+            long id = ids[a];
+            ids[a] = ids[b];
+            ids[b] = id;
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double value = coordinates[a * DIMENSIONS + d];
+                coordinates[a * DIMENSIONS + d] = coordinates[b * DIMENSIONS + d];
+                coordinates[b * DIMENSIONS + d] = value;
+            }
+        }
+    }
+}
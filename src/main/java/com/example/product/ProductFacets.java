@@ -0,0 +1,79 @@
+package com.example.product;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 商品一覧の絞り込みの候補
+ * ブランドの候補は選択中のカテゴリー、カテゴリーの候補は選択中のブランドで絞り込んだ件数を表示する
+ */
+public class ProductFacets {
+
+    /** ブランドの候補（件数の多い順） */
+    private final List<FacetCount> brands;
+
+    /** カテゴリーの候補（件数の多い順） */
+    private final List<FacetCount> categories;
+
+    public ProductFacets(List<FacetCount> brands, List<FacetCount> categories) {
+        this.brands = brands;
+        this.categories = categories;
+    }
+
+    public List<FacetCount> getBrands() {
+        return brands;
+    }
+
+    public List<FacetCount> getCategories() {
+        return categories;
+    }
+
+    /**
+     * 組み合わせごとの件数を、ブランドごと（カテゴリーごと）に合計して件数の多い順に並べる
+     *
+     * @param counts ブランドとカテゴリーの組み合わせごとの件数
+     * @param dimension 合計する単位（{@link ProductCounts.Key#getBrandId} など）
+     * @param other 合計の対象にする他方のID（{@link ProductCounts.Key#getCategoryId} など）
+     * @param otherId 選択中の他方のID（選択していない場合はnull）
+     * @param size 候補の数
+     * @return ID, 件数のリスト（件数の多い順、同じ件数の場合はID順）
+     */
+    static List<Map.Entry<Long, Long>> top(Map<ProductCounts.Key, Long> counts, Function<ProductCounts.Key, Long> dimension,
+            Function<ProductCounts.Key, Long> other, Long otherId, int size) {
+        Map<Long, Long> sums = new HashMap<>();
+        counts.forEach((key, count) -> {
+            Long id = dimension.apply(key);
+            if (id != null && (otherId == null || otherId.equals(other.apply(key)))) {
+                sums.merge(id, count, Long::sum);
+            }
+        });
+        return sums.entrySet().stream()
+                .sorted(Map.Entry.<Long, Long> comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(size)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 候補に名前を付ける
+     *
+     * @param top ID, 件数のリスト
+     * @param names IDごとの名前
+     * @return 候補のリスト（名前が見つからないものは含まない）
+     */
+    static List<FacetCount> named(List<Map.Entry<Long, Long>> top, Map<Long, String> names) {
+        List<FacetCount> facets = new ArrayList<>();
+        for (Map.Entry<Long, Long> entry : top) {
+            String name = names.get(entry.getKey());
+            if (name != null) {
+                facets.add(new FacetCount(entry.getKey(), name, entry.getValue()));
+            }
+        }
+        return facets;
+    }
+}
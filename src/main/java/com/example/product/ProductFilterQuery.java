@@ -0,0 +1,100 @@
+package com.example.product;
+
+import static org.hibernate.jpa.QueryHints.*;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Repository;
+
+import com.example.entity.Product;
+
+/**
+ * ブランド・カテゴリーで絞り込んだ商品情報の取得
+ * 指定した条件だけをSQLに含め、ブランド・カテゴリーの索引を使えるようにする
+ * 呼び出し元のトランザクション内で実行する
+ * タイムアウトなどの例外は、リポジトリと同じくSpringの例外（{@link org.springframework.dao.QueryTimeoutException} など）に変換する
+ */
+@Repository
+public class ProductFilterQuery {
+
+    /** 問い合わせのタイムアウト（ミリ秒、一覧画面の検索と同じ） */
+    static final int TIMEOUT_MILLIS = 5000;
+
+    /** 1件ずつ読み込む場合に1回で取得する件数 */
+    static final int FETCH_SIZE = 200;
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public ProductFilterQuery(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * 先頭から指定した件数までをID順に取得する
+     *
+     * @param keyword 検索キーワード（指定しない場合はnullまたは空文字）
+     * @param brandId ブランドID（指定しない場合はnull）
+     * @param categoryId カテゴリーID（指定しない場合はnull）
+     * @param maxResults 取得する件数
+     * @return 商品情報のリスト
+     */
+    public List<Product> list(String keyword, Long brandId, Long categoryId, int maxResults) {
+        return query(keyword, brandId, categoryId)
+                .setMaxResults(maxResults)
+                .setHint(SPEC_HINT_TIMEOUT, TIMEOUT_MILLIS)
+                .getResultList();
+    }
+
+    /**
+     * 全件をID順に1件ずつ読み込む
+     * 件数の上限がないため、一覧画面の検索と同じタイムアウトで長時間の検索を中断する
+     *
+     * @param keyword 検索キーワード（指定しない場合はnullまたは空文字）
+     * @param brandId ブランドID（指定しない場合はnull）
+     * @param categoryId カテゴリーID（指定しない場合はnull）
+     * @return 商品情報のストリーム（呼び出し元のトランザクション内で読み込み、読み込み後に閉じる）
+     */
+    public Stream<Product> stream(String keyword, Long brandId, Long categoryId) {
+        return query(keyword, brandId, categoryId)
+                .setHint(HINT_FETCH_SIZE, FETCH_SIZE)
+                .setHint(HINT_READONLY, true)
+                .setHint(SPEC_HINT_TIMEOUT, TIMEOUT_MILLIS)
+                .getResultStream();
+    }
+
+    private TypedQuery<Product> query(String keyword, Long brandId, Long categoryId) {
+        // 一覧画面に表示するブランドとカテゴリーも同時に取得する
+        StringBuilder jpql = new StringBuilder(
+                "SELECT p FROM Product p LEFT JOIN FETCH p.brand b LEFT JOIN FETCH p.category c WHERE 1 = 1");
+        boolean search = keyword != null && !keyword.isEmpty();
+        if (search) {
+            jpql.append(" AND (p.name LIKE :keyword OR p.description LIKE :keyword"
+                    + " OR b.name LIKE :keyword OR c.name LIKE :keyword)");
+        }
+        if (brandId != null) {
+            jpql.append(" AND p.brand.id = :brandId");
+        }
+        if (categoryId != null) {
+            jpql.append(" AND p.category.id = :categoryId");
+        }
+        jpql.append(" ORDER BY p.id");
+
+        TypedQuery<Product> query = entityManager.createQuery(jpql.toString(), Product.class);
+        if (search) {
+            query.setParameter("keyword", "%" + keyword + "%");
+        }
+        if (brandId != null) {
+            query.setParameter("brandId", brandId);
+        }
+        if (categoryId != null) {
+            query.setParameter("categoryId", categoryId);
+        }
+        return query;
+    }
+}
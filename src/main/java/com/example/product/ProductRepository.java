@@ -1,9 +1,18 @@
 package com.example.product;
 
+import static org.hibernate.jpa.QueryHints.*;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.entity.Product;
 
@@ -16,6 +25,17 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * @return 取得件数
      */
     public Long countById(Long id);
+
+    /**
+     * 商品情報の版の取得クエリ
+     * 画面の再表示が必要かどうかの判定に使うため、商品情報自体は取得しない
+     * 詳細画面にはブランド名とカテゴリー名も表示するため、ブランドとカテゴリーの版も取得する
+     *
+     * @param id 商品ID
+     * @return 商品情報の版（商品, ブランド, カテゴリー）のリスト（存在しない場合は空のリスト）
+     */
+    @Query("SELECT p.version, b.version, c.version FROM Product p LEFT JOIN p.brand b LEFT JOIN p.category c WHERE p.id = ?1")
+    public List<Object[]> findVersionsById(Long id);
     
     /**
      * 商品情報検索クエリ
@@ -27,14 +47,299 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
 
     /**
      * 商品情報検索クエリ
+     * 一覧画面に表示するブランドとカテゴリーも同時に取得する
      *
      * @param keyword 検索キーワード
+     * @param pageable 取得範囲
      * @return 商品情報のリスト
      */
-    @Query("SELECT p FROM Product p WHERE p.name LIKE %?1% "
+    @QueryHints(@QueryHint(name = SPEC_HINT_TIMEOUT, value = "5000"))
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.brand b LEFT JOIN FETCH p.category c "
+            + "WHERE p.name LIKE %?1% "
+            + "OR p.description LIKE %?1% "
+            + "OR b.name LIKE %?1% "
+            + "OR c.name LIKE %?1%")
+    public List<Product> search(String keyword, Pageable pageable);
+
+    /**
+     * 商品情報一覧表示用クエリ
+     * 一覧画面に表示するブランドとカテゴリーも同時に取得する
+     *
+     * @param pageable 取得範囲
+     * @return 商品情報のリスト
+     */
+    @QueryHints(@QueryHint(name = SPEC_HINT_TIMEOUT, value = "5000"))
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category")
+    public List<Product> list(Pageable pageable);
+
+    /**
+     * ブランドとカテゴリーの組み合わせごとの商品件数の集計クエリ（全件）
+     *
+     * @return ブランドID, カテゴリーID, 件数のリスト
+     */
+    @Query("SELECT p.brand.id, p.category.id, COUNT(p) FROM Product p GROUP BY p.brand.id, p.category.id")
+    public List<Object[]> countGroupByBrandAndCategory();
+
+    /**
+     * ブランドとカテゴリーの組み合わせごとの商品件数の集計クエリ（検索キーワードに一致するもの）
+     * 絞り込みの候補に表示するため、ブランド名とカテゴリー名も取得する
+     *
+     * @param keyword 検索キーワード
+     * @return ブランドID, ブランド名, カテゴリーID, カテゴリー名, 件数のリスト
+     */
+    @QueryHints(@QueryHint(name = SPEC_HINT_TIMEOUT, value = "5000"))
+    @Query("SELECT b.id, b.name, c.id, c.name, COUNT(p) FROM Product p LEFT JOIN p.brand b LEFT JOIN p.category c "
+            + "WHERE p.name LIKE %?1% "
+            + "OR p.description LIKE %?1% "
+            + "OR b.name LIKE %?1% "
+            + "OR c.name LIKE %?1% "
+            + "GROUP BY b.id, b.name, c.id, c.name")
+    public List<Object[]> countSearchGroupByBrandAndCategory(String keyword);
+
+    /**
+     * 列ごとの複写の作成用の取得クエリ（全件、ID順）
+     * 呼び出し元のトランザクション内で1件ずつ読み込む
+     *
+     * @return 商品ID, バージョン, 金額, 長さ, 幅, 高さ, 重さ, ブランドID, カテゴリーIDのストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, p.version, p.price, p.length, p.width, p.height, p.weight, b.id, c.id FROM Product p "
+            + "LEFT JOIN p.brand b LEFT JOIN p.category c ORDER BY p.id")
+    public Stream<Object[]> streamColumns();
+
+    /**
+     * 列ごとの複写の一部を読み込み直す取得クエリ（ID順）
+     *
+     * @param ids 商品IDのリスト（1000件まで）
+     * @return {@link #streamColumns()} と同じ項目のリスト（削除済みの商品は含まない）
+     */
+    @Query("SELECT p.id, p.version, p.price, p.length, p.width, p.height, p.weight, b.id, c.id FROM Product p "
+            + "LEFT JOIN p.brand b LEFT JOIN p.category c WHERE p.id IN ?1 ORDER BY p.id")
+    public List<Object[]> findColumnsByIds(List<Long> ids);
+
+    /**
+     * スナップショットの作成後の変更の有無の判定用の集計クエリ
+     * 商品IDは採番のため再利用されず、バージョンは変更のたびに増えるため、登録・変更・削除のいずれかがあれば値が変わる
+     *
+     * @return 件数, 最大の商品ID, バージョンの合計（1行）
+     */
+    @Query("SELECT COUNT(p), MAX(p.id), SUM(p.version) FROM Product p")
+    public List<Object[]> findChangeMarker();
+
+    /**
+     * スナップショットの作成後に変更した商品の判定用の取得クエリ（全件、ID順）
+     * 呼び出し元のトランザクション内で1件ずつ読み込む
+     *
+     * @return 商品ID, バージョンのストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, p.version FROM Product p ORDER BY p.id")
+    public Stream<Object[]> streamVersions();
+
+    /**
+     * 大きさの索引の作成用の取得クエリ（全件）
+     * 呼び出し元のトランザクション内で1件ずつ読み込む
+     *
+     * @return 商品ID, 長さ, 幅, 高さ, 重さのストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT p.id, p.length, p.width, p.height, p.weight FROM Product p")
+    public Stream<Object[]> streamDimensions();
+
+    /**
+     * 商品情報のID指定の取得クエリ（ブランド・カテゴリーも同時に取得する）
+     *
+     * @param ids 商品ID（OracleのIN句の上限の1000件以下）
+     * @return 商品情報のリスト（順序は不定）
+     */
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category WHERE p.id IN ?1")
+    public List<Product> findAllWithBrandAndCategoryByIds(Collection<Long> ids);
+
+    /**
+     * ブランド名の取得クエリ
+     *
+     * @param brandIds ブランドID
+     * @return ブランドID, ブランド名のリスト
+     */
+    @Query("SELECT b.id, b.name FROM Brand b WHERE b.id IN ?1")
+    public List<Object[]> findBrandNames(Collection<Long> brandIds);
+
+    /**
+     * カテゴリー名の取得クエリ
+     *
+     * @param categoryIds カテゴリーID
+     * @return カテゴリーID, カテゴリー名のリスト
+     */
+    @Query("SELECT c.id, c.name FROM Category c WHERE c.id IN ?1")
+    public List<Object[]> findCategoryNames(Collection<Long> categoryIds);
+
+    /**
+     * 商品情報一覧表示用クエリ（1件ずつ読み込む）
+     * 一覧画面に表示するブランドとカテゴリーも同時に取得する
+     *
+     * @return 商品情報のストリーム
+     */
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "200"), @QueryHint(name = HINT_READONLY, value = "true") })
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.brand LEFT JOIN FETCH p.category ORDER BY p.id")
+    public Stream<Product> streamEntities();
+
+    /**
+     * 商品情報一覧表示用検索クエリ（1件ずつ読み込む）
+     * 一覧画面に表示するブランドとカテゴリーも同時に取得する
+     * 件数の上限がないため、一覧画面の検索と同じタイムアウトで長時間の検索を中断する
+     *
+     * @param keyword 検索キーワード
+     * @return 商品情報のストリーム
+     */
+    @QueryHints({ @QueryHint(name = HINT_FETCH_SIZE, value = "200"), @QueryHint(name = HINT_READONLY, value = "true"),
+            @QueryHint(name = SPEC_HINT_TIMEOUT, value = "5000") })
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.brand b LEFT JOIN FETCH p.category c "
+            + "WHERE p.name LIKE %?1% "
+            + "OR p.description LIKE %?1% "
+            + "OR b.name LIKE %?1% "
+            + "OR c.name LIKE %?1% "
+            + "ORDER BY p.id")
+    public Stream<Product> streamSearchEntities(String keyword);
+
+    /**
+     * 商品情報出力用クエリ
+     *
+     * @return 商品情報（ID, 商品名, 商品説明, 金額, 長辺, 短辺, 高さ, 重量, ブランド名, カテゴリー名）のストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.id, p.name, p.description, p.price, p.length, p.width, p.height, p.weight, b.name, c.name "
+            + "FROM Product p LEFT JOIN p.brand b LEFT JOIN p.category c "
+            + "ORDER BY p.id")
+    public Stream<Object[]> streamAll();
+
+    /**
+     * 商品情報出力用検索クエリ
+     *
+     * @param keyword 検索キーワード
+     * @return 商品情報（ID, 商品名, 商品説明, 金額, 長辺, 短辺, 高さ, 重量, ブランド名, カテゴリー名）のストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT p.id, p.name, p.description, p.price, p.length, p.width, p.height, p.weight, b.name, c.name "
+            + "FROM Product p JOIN p.brand b JOIN p.category c "
+            + "WHERE p.name LIKE %?1% "
             + "OR p.description LIKE %?1% "
-            + "OR p.brand.name LIKE %?1% "
-            + "OR p.category.name LIKE %?1%")
-    public List<Product> search(String keyword);
+            + "OR b.name LIKE %?1% "
+            + "OR c.name LIKE %?1% "
+            + "ORDER BY p.id")
+    public Stream<Object[]> streamSearch(String keyword);
+
+    /**
+     * ブランドに属する商品IDの取得クエリ
+     *
+     * @param brandIds ブランドID
+     * @return 商品IDのリスト
+     */
+    @Query("SELECT p.id FROM Product p WHERE p.brand.id IN ?1")
+    public List<Long> findIdsByBrandIds(Collection<Long> brandIds);
+
+    /**
+     * カテゴリーに属する商品IDの取得クエリ
+     *
+     * @param categoryIds カテゴリーID
+     * @return 商品IDのリスト
+     */
+    @Query("SELECT p.id FROM Product p WHERE p.category.id IN ?1")
+    public List<Long> findIdsByCategoryIds(Collection<Long> categoryIds);
+
+    /**
+     * 商品情報の一括削除クエリ
+     *
+     * @param ids 商品ID
+     * @return 削除した件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Product p WHERE p.id IN ?1")
+    public int deleteByIds(Collection<Long> ids);
+
+    /**
+     * ブランドに属する商品情報の一括削除クエリ
+     *
+     * @param brandIds ブランドID
+     * @return 削除した件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Product p WHERE p.brand.id IN ?1")
+    public int deleteByBrandIds(Collection<Long> brandIds);
+
+    /**
+     * カテゴリーに属する商品情報の一括削除クエリ
+     *
+     * @param categoryIds カテゴリーID
+     * @return 削除した件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Product p WHERE p.category.id IN ?1")
+    public int deleteByCategoryIds(Collection<Long> categoryIds);
+
+    /**
+     * 商品情報のブランドの一括変更クエリ
+     * 編集画面の楽観的ロックと詳細画面のETagのため、版も更新する
+     *
+     * @param ids 商品ID
+     * @param brandId 変更後のブランドID
+     * @return 変更した件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.brand.id = ?2, p.version = p.version + 1 WHERE p.id IN ?1")
+    public int updateBrand(Collection<Long> ids, Long brandId);
+
+    /**
+     * 商品情報の金額の一括変更クエリ
+     *
+     * @param ids 商品ID
+     * @param price 変更後の金額
+     * @return 変更した件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.price = ?2, p.version = p.version + 1 WHERE p.id IN ?1")
+    public int updatePrice(Collection<Long> ids, int price);
+
+    /**
+     * 商品情報の金額の取得クエリ
+     *
+     * @param ids 商品ID
+     * @return 商品ID, 金額
+     */
+    @Query("SELECT p.id, p.price FROM Product p WHERE p.id IN ?1")
+    public List<Object[]> findPrices(Collection<Long> ids);
+
+    /**
+     * 商品情報のカテゴリーの一括変更クエリ
+     * 編集画面の楽観的ロックと詳細画面のETagのため、版も更新する
+     *
+     * @param ids 商品ID
+     * @param categoryId 変更後のカテゴリーID
+     * @return 変更した件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.category.id = ?2, p.version = p.version + 1 WHERE p.id IN ?1")
+    public int updateCategory(Collection<Long> ids, Long categoryId);
+
+    /**
+     * ブランドに属する商品情報のブランドの一括変更クエリ
+     *
+     * @param brandIds 変更前のブランドID
+     * @param brandId 変更後のブランドID
+     * @return 変更した件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.brand.id = ?2, p.version = p.version + 1 WHERE p.brand.id IN ?1")
+    public int moveBrand(Collection<Long> brandIds, Long brandId);
+
+    /**
+     * カテゴリーに属する商品情報のカテゴリーの一括変更クエリ
+     *
+     * @param categoryIds 変更前のカテゴリーID
+     * @param categoryId 変更後のカテゴリーID
+     * @return 変更した件数
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Product p SET p.category.id = ?2, p.version = p.version + 1 WHERE p.category.id IN ?1")
+    public int moveCategory(Collection<Long> categoryIds, Long categoryId);
 
 }
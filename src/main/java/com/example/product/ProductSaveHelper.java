@@ -1,8 +1,11 @@
 package com.example.product;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
@@ -28,4 +31,20 @@ public class ProductSaveHelper {
             product.setImage(fileName);
         }
     }
+
+    /**
+     * 削除した商品の画像を削除する
+     * 削除が確定してから実行するため、削除を取り消した場合は画像も残る
+     *
+     * @param event 商品情報の削除の通知
+     */
+    @TransactionalEventListener
+    public void onProductsDeleted(ProductsDeletedEvent event) {
+        for (Long id : event.getProductIds()) {
+            String dir = "product-images/" + id;
+            if (Files.isDirectory(Paths.get(dir))) {
+                FileUploadUtil.removeDir(dir);
+            }
+        }
+    }
 }
@@ -1,22 +1,98 @@
 package com.example.product;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.bulk.ChunkedTransactions;
+import com.example.datasource.UseWorkload;
+import com.example.datasource.Workload;
 import com.example.entity.Product;
+import com.example.search.KeysetQuery;
+import com.example.search.LimitedList;
+import com.example.search.Projection;
+import com.example.search.SearchLimit;
 
 
 @Service
 public class ProductService {
 
+    /** APIで取得できる項目 */
+    private static final Projection.Definition API_FIELDS = Projection.from("Product p")
+            .join("b", "LEFT JOIN p.brand b")
+            .join("c", "LEFT JOIN p.category c")
+            .field("name", "p.name")
+            .field("description", "p.description")
+            .field("price", "p.price")
+            .field("image", "CONCAT('/product-images/', CAST(p.id AS string), '/', p.image)")
+            .field("length", "p.length")
+            .field("width", "p.width")
+            .field("height", "p.height")
+            .field("weight", "p.weight")
+            .field("version", "p.version")
+            .field("brandId", "b.id")
+            .field("brandName", "b.name")
+            .field("categoryId", "c.id")
+            .field("categoryName", "c.name");
+
+    /** 一覧画面に表示する絞り込みの候補の数（ブランド・カテゴリーそれぞれ） */
+    static final int FACET_SIZE = 20;
+
+    /** 大きさの近い商品の表示件数 */
+    static final int SIMILAR_SIZE = 20;
+
+    /** 金額の取得で1回のSQLに指定する商品IDの件数（OracleのIN句の上限の1000件以下にする） */
+    private static final int PRICE_CHUNK_SIZE = 500;
+
+    /** APIの検索条件（一覧画面の検索と同じ項目を対象にする） */
+    private static final String API_SEARCH = "p.name LIKE :keyword OR p.description LIKE :keyword "
+            + "OR b.name LIKE :keyword OR c.name LIKE :keyword";
+
     private final ProductRepository productRepository;
 
+    private final SearchLimit searchLimit;
+
+    private final KeysetQuery keysetQuery;
+
+    private final ChunkedTransactions chunkedTransactions;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final ProductFilterQuery productFilterQuery;
+
+    private final ProductCounts productCounts;
+
+    private final ProductDimensionIndex productDimensionIndex;
+
+    private final ProductColumns productColumns;
+
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, SearchLimit searchLimit, KeysetQuery keysetQuery,
+            ChunkedTransactions chunkedTransactions, ApplicationEventPublisher eventPublisher,
+            ProductFilterQuery productFilterQuery, ProductCounts productCounts,
+            ProductDimensionIndex productDimensionIndex, ProductColumns productColumns) {
         this.productRepository = productRepository;
+        this.searchLimit = searchLimit;
+        this.keysetQuery = keysetQuery;
+        this.chunkedTransactions = chunkedTransactions;
+        this.eventPublisher = eventPublisher;
+        this.productFilterQuery = productFilterQuery;
+        this.productCounts = productCounts;
+        this.productDimensionIndex = productDimensionIndex;
+        this.productColumns = productColumns;
     }
 
     /**
@@ -24,24 +100,370 @@ public class ProductService {
      *
      * @return 商品情報のリスト
      */
+    @Transactional(readOnly = true)
     public List<Product> listAll() {
         return productRepository.findAll();
     }
 
     /**
      * 商品情報検索処理
+     * 一覧画面に表示する件数には上限があり、上限を超えた場合は先頭から上限までを返す
      *
      * @param keyword 検索キーワード
-     * @return 商品情報のリスト
+     * @return 商品情報のリスト（上限を超えたかどうかは {@link com.example.search.LimitedList#isTruncated(List)} で判定する）
      */
+    @Transactional(readOnly = true)
     public List<Product> listAll(String keyword) {
         // 検索キーワードがあった場合
         if (keyword != null && !keyword.isEmpty()) {
-            return productRepository.search(keyword);
+            return searchLimit.limit(productRepository.search(keyword, searchLimit.pageable()));
+        }
+        // それ以外の場合
+        else {
+            return searchLimit.limit(productRepository.list(searchLimit.pageable()));
+        }
+    }
+
+    /**
+     * 商品情報検索処理（ブランド・カテゴリーでの絞り込みあり）
+     * 一覧画面に表示する件数には上限があり、上限を超えた場合は先頭から上限までを返す
+     *
+     * @param keyword 検索キーワード
+     * @param brandId ブランドID（絞り込まない場合はnull）
+     * @param categoryId カテゴリーID（絞り込まない場合はnull）
+     * @return 商品情報のリスト（上限を超えたかどうかは {@link com.example.search.LimitedList#isTruncated(List)} で判定する）
+     */
+    @Transactional(readOnly = true)
+    public List<Product> listAll(String keyword, Long brandId, Long categoryId) {
+        if (brandId == null && categoryId == null) {
+            return listAll(keyword);
+        }
+        return searchLimit.limit(
+                productFilterQuery.list(keyword, brandId, categoryId, searchLimit.getMaxRows() + 1));
+    }
+
+    /**
+     * 商品情報一覧表示用の取得処理（件数の上限なし）
+     * 呼び出し元のトランザクション内で1件ずつ読み込むため、件数に関わらずメモリ使用量は一定になる
+     *
+     * @param keyword 検索キーワード
+     * @return 商品情報のストリーム（呼び出し元のトランザクション内で読み込み、読み込み後に閉じる）
+     */
+    @Transactional(readOnly = true)
+    @UseWorkload(Workload.BULK)
+    public Stream<Product> stream(String keyword) {
+        // 検索キーワードがあった場合は検索結果、それ以外の場合は全件を返す
+        return (keyword != null && !keyword.isEmpty())
+                ? productRepository.streamSearchEntities(keyword)
+                : productRepository.streamEntities();
+    }
+
+    /**
+     * 商品情報一覧表示用の取得処理（件数の上限なし、ブランド・カテゴリーでの絞り込みあり）
+     *
+     * @param keyword 検索キーワード
+     * @param brandId ブランドID（絞り込まない場合はnull）
+     * @param categoryId カテゴリーID（絞り込まない場合はnull）
+     * @return 商品情報のストリーム（呼び出し元のトランザクション内で読み込み、読み込み後に閉じる）
+     */
+    @Transactional(readOnly = true)
+    @UseWorkload(Workload.BULK)
+    public Stream<Product> stream(String keyword, Long brandId, Long categoryId) {
+        if (brandId == null && categoryId == null) {
+            return stream(keyword);
+        }
+        return productFilterQuery.stream(keyword, brandId, categoryId);
+    }
+
+    /**
+     * 商品一覧の絞り込みの候補の取得処理
+     * 検索キーワードがない場合はメモリ上の件数を使い、候補の名前だけを取得する
+     * 検索キーワードがある場合は、1回の集計で組み合わせごとの件数と名前を取得する
+     * ただし、絞り込みがなく一致したものがすべて表示中の場合は、表示中の商品情報から数える
+     *
+     * @param keyword 検索キーワード
+     * @param brandId 選択中のブランドID（カテゴリーの候補の件数の絞り込みに使う）
+     * @param categoryId 選択中のカテゴリーID（ブランドの候補の件数の絞り込みに使う）
+     * @param products 表示中の商品情報（{@link #listAll(String, Long, Long)} の結果）
+     * @return 絞り込みの候補
+     */
+    @Transactional(readOnly = true)
+    public ProductFacets facets(String keyword, Long brandId, Long categoryId, List<Product> products) {
+        Map<ProductCounts.Key, Long> counts = new HashMap<>();
+        Map<Long, String> brandNames = new HashMap<>();
+        Map<Long, String> categoryNames = new HashMap<>();
+        boolean search = keyword != null && !keyword.isEmpty();
+        if (!search) {
+            counts = productCounts.snapshot();
+        } else if (brandId == null && categoryId == null && !LimitedList.isTruncated(products)) {
+            for (Product product : products) {
+                counts.merge(new ProductCounts.Key(brandId(product), categoryId(product)), 1L, Long::sum);
+                if (product.getBrand() != null) {
+                    brandNames.put(product.getBrand().getId(), product.getBrand().getName());
+                }
+                if (product.getCategory() != null) {
+                    categoryNames.put(product.getCategory().getId(), product.getCategory().getName());
+                }
+            }
+        } else {
+            for (Object[] row : productRepository.countSearchGroupByBrandAndCategory(keyword)) {
+                counts.put(new ProductCounts.Key((Long) row[0], (Long) row[2]), ((Number) row[4]).longValue());
+                brandNames.put((Long) row[0], (String) row[1]);
+                categoryNames.put((Long) row[2], (String) row[3]);
+            }
+        }
+
+        List<Map.Entry<Long, Long>> brands = ProductFacets.top(counts, ProductCounts.Key::getBrandId,
+                ProductCounts.Key::getCategoryId, categoryId, FACET_SIZE);
+        List<Map.Entry<Long, Long>> categories = ProductFacets.top(counts, ProductCounts.Key::getCategoryId,
+                ProductCounts.Key::getBrandId, brandId, FACET_SIZE);
+        if (!search) {
+            // 表示する候補の名前だけを取得する
+            brandNames = names(brands, productRepository::findBrandNames);
+            categoryNames = names(categories, productRepository::findCategoryNames);
+        }
+        return new ProductFacets(ProductFacets.named(brands, brandNames), ProductFacets.named(categories, categoryNames));
+    }
+
+    /**
+     * 商品件数の多いブランド・カテゴリーの取得処理（ダッシュボードで使う）
+     * メモリ上の件数を使い、候補の名前だけを取得する
+     *
+     * @return 件数の多いブランド・カテゴリー
+     */
+    @Transactional(readOnly = true)
+    public ProductFacets topFacets() {
+        return facets(null, null, null, Collections.emptyList());
+    }
+
+    private static Map<Long, String> names(List<Map.Entry<Long, Long>> top,
+            Function<Collection<Long>, List<Object[]>> finder) {
+        Map<Long, String> names = new HashMap<>();
+        if (!top.isEmpty()) {
+            List<Long> ids = top.stream().map(Map.Entry::getKey).collect(Collectors.toList());
+            for (Object[] row : finder.apply(ids)) {
+                names.put((Long) row[0], (String) row[1]);
+            }
+        }
+        return names;
+    }
+
+    /**
+     * APIで取得する項目の選択
+     *
+     * @param keyword 検索キーワード
+     * @param fields 取得する項目名のカンマ区切り（空の場合は全項目）
+     * @return 選択した項目
+     * @throws IllegalArgumentException 存在しない項目名が含まれる場合
+     */
+    public Projection projection(String keyword, String fields) {
+        return (keyword != null && !keyword.isEmpty())
+                ? API_FIELDS.select(fields, "b", "c")
+                : API_FIELDS.select(fields);
+    }
+
+    /**
+     * API用の商品情報取得処理（キーセット方式で1ページ分を取得する）
+     * 選択した項目だけを取得し、エンティティを組み立てずに1件ずつ処理する
+     *
+     * @param keyword 検索キーワード
+     * @param projection 取得する項目（{@link #projection(String, String)} で選択する）
+     * @param after 前のページの最後のID（先頭のページの場合はnull）
+     * @param size ページの件数
+     * @param action 1件ごとの処理
+     * @return 次のページの取得に指定するID（最後のページの場合はnull）
+     */
+    @Transactional(readOnly = true)
+    public Long page(String keyword, Projection projection, Long after, int size, Consumer<Object[]> action) {
+        // 検索キーワードがあった場合
+        if (keyword != null && !keyword.isEmpty()) {
+            return keysetQuery.forEach(projection, API_SEARCH, Collections.singletonMap("keyword", "%" + keyword + "%"),
+                    after, size, action);
         }
         // それ以外の場合
         else {
-            return productRepository.findAll();
+            return keysetQuery.forEach(projection, null, Collections.emptyMap(), after, size, action);
+        }
+    }
+
+    /**
+     * 箱に入る商品の検索処理（大きさの索引を使い、一致した商品だけをDBから取得する）
+     * 3辺は向きを変えて入るものも含む
+     * 一覧画面に表示する件数には上限があり、上限を超えた場合はID順に上限までを返す
+     *
+     * @param length 箱の内寸の長さ
+     * @param width 箱の内寸の幅
+     * @param height 箱の内寸の高さ
+     * @param maxWeight 重さの上限（制限しない場合はnull）
+     * @return 商品情報のリスト（上限を超えたかどうかは {@link com.example.search.LimitedList#isTruncated(List)} で判定する）
+     */
+    @Transactional(readOnly = true)
+    public List<Product> listFit(double length, double width, double height, Double maxWeight) {
+        List<Long> ids = productDimensionIndex.fit(length, width, height, maxWeight, null, searchLimit.getMaxRows() + 1);
+        return searchLimit.limit(findAllByIds(ids));
+    }
+
+    /**
+     * 大きさの近い商品の検索処理
+     *
+     * @param product 基準の商品情報
+     * @return 商品情報のリスト（近い順、基準の商品は含まない）
+     */
+    @Transactional(readOnly = true)
+    public List<Product> listSimilar(Product product) {
+        return findAllByIds(productDimensionIndex.nearest(product.getLength(), product.getWidth(),
+                product.getHeight(), SIMILAR_SIZE, product.getId()));
+    }
+
+    /**
+     * 大きさの近い商品ID取得処理
+     *
+     * @param id 基準の商品ID
+     * @param size 取得する件数
+     * @return 商品ID（近い順、基準の商品は含まない）
+     * @throws NotFoundException 基準の商品が存在しない場合
+     */
+    @Transactional(readOnly = true)
+    public List<Long> similarIds(Long id, int size) throws NotFoundException {
+        Product product = productRepository.findById(id).orElseThrow(NotFoundException::new);
+        return productDimensionIndex.nearest(product.getLength(), product.getWidth(), product.getHeight(), size, id);
+    }
+
+    /**
+     * API用の箱に入る商品の取得処理（キーセット方式で1ページ分を取得する）
+     * 大きさの索引で求めたIDの商品だけを、選択した項目で取得する
+     *
+     * @param length 箱の内寸の長さ
+     * @param width 箱の内寸の幅
+     * @param height 箱の内寸の高さ
+     * @param maxWeight 重さの上限（制限しない場合はnull）
+     * @param projection 取得する項目（{@link #projection(String, String)} で選択する）
+     * @param after 前のページの最後のID（先頭のページの場合はnull）
+     * @param size ページの件数
+     * @param action 1件ごとの処理
+     * @return 次のページの取得に指定するID（最後のページの場合はnull）
+     */
+    @Transactional(readOnly = true)
+    public Long fitPage(double length, double width, double height, Double maxWeight, Projection projection,
+            Long after, int size, Consumer<Object[]> action) {
+        // 次のページがあるかどうかを判定するため、ページの件数より1件多く求める
+        List<Long> ids = productDimensionIndex.fit(length, width, height, maxWeight, after, size + 1);
+        if (ids.isEmpty()) {
+            return null;
+        }
+        return keysetQuery.forEach(projection, "p.id IN :ids", Collections.singletonMap("ids", ids), after, size,
+                action);
+    }
+
+    /**
+     * API用の商品情報取得処理（指定したIDの順に処理する）
+     *
+     * @param projection 取得する項目（{@link #projection(String, String)} で選択する）
+     * @param ids 商品ID（ページの件数以下）
+     * @param action 1件ごとの処理（存在しない商品は処理しない）
+     */
+    @Transactional(readOnly = true)
+    public void forEachById(Projection projection, List<Long> ids, Consumer<Object[]> action) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Map<Long, Object[]> rows = new HashMap<>();
+        keysetQuery.forEach(projection, "p.id IN :ids", Collections.singletonMap("ids", ids), null, ids.size(),
+                row -> rows.put(((Number) row[0]).longValue(), row));
+        ids.stream().map(rows::get).filter(row -> row != null).forEach(action);
+    }
+
+    /**
+     * 商品情報をブランド・カテゴリーと合わせて取得し、IDの順に並べる
+     */
+    private List<Product> findAllByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Product> products = productRepository.findAllWithBrandAndCategoryByIds(ids).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        return ids.stream().map(products::get).filter(product -> product != null).collect(Collectors.toList());
+    }
+
+    /**
+     * API用の金額・大きさ・ブランド・カテゴリーでの商品情報取得処理
+     * 列ごとの複写（{@link ProductColumns}）で一致する商品を求め、その商品だけを選択した項目で取得する
+     * ID順の場合はキーセット方式で1ページ分を取得し、金額順の場合は先頭から1ページ分だけを取得する
+     *
+     * @param criteria 検索条件
+     * @param sort 並び順（id:ID順 price:金額の安い順 -price:金額の高い順、同じ金額の場合はID順）
+     * @param projection 取得する項目（{@link #projection(String, String)} で選択する）
+     * @param after 前のページの最後のID（ID順の場合だけ指定できる、先頭のページの場合はnull）
+     * @param size ページの件数
+     * @param action 1件ごとの処理
+     * @return 次のページの取得に指定するID（最後のページ・金額順の場合はnull）
+     * @throws IllegalArgumentException 並び順の誤り、または金額順で前のページの最後のIDを指定した場合
+     */
+    @Transactional(readOnly = true)
+    public Long queryPage(ProductCriteria criteria, String sort, Projection projection, Long after, int size,
+            Consumer<Object[]> action) {
+        if ("id".equals(sort)) {
+            // 次のページがあるかどうかを判定するため、ページの件数より1件多く求める
+            List<Long> ids = productColumns.filter(criteria, after, size + 1);
+            if (ids.isEmpty()) {
+                return null;
+            }
+            return keysetQuery.forEach(projection, "p.id IN :ids", Collections.singletonMap("ids", ids), after, size,
+                    action);
+        }
+        if (!"price".equals(sort) && !"-price".equals(sort)) {
+            throw new IllegalArgumentException("sortはid, price, -priceのいずれかで指定してください");
+        }
+        if (after != null) {
+            throw new IllegalArgumentException("afterはsort=idの場合だけ指定できます");
+        }
+        forEachById(projection, productColumns.topByPrice(criteria, size, sort.startsWith("-")), action);
+        return null;
+    }
+
+    /**
+     * 金額・大きさ・ブランド・カテゴリーでの商品の集計処理（列ごとの複写を使うため、SQLを実行しない）
+     *
+     * @param criteria 検索条件
+     * @return 集計値
+     */
+    public ProductAggregate aggregate(ProductCriteria criteria) {
+        return productColumns.aggregate(criteria);
+    }
+
+    /**
+     * ブランドごとの商品件数取得処理（メモリ上の件数を使うため、SQLを実行しない）
+     *
+     * @return ブランドIDごとの件数（商品のないブランドは含まない）
+     */
+    public Map<Long, Long> countByBrand() {
+        return productCounts.byBrand();
+    }
+
+    /**
+     * カテゴリーごとの商品件数取得処理（メモリ上の件数を使うため、SQLを実行しない）
+     *
+     * @return カテゴリーIDごとの件数（商品のないカテゴリーは含まない）
+     */
+    public Map<Long, Long> countByCategory() {
+        return productCounts.byCategory();
+    }
+
+    /**
+     * 商品情報出力処理
+     * 検索結果を1件ずつ読み込みながら処理するため、件数に関わらずメモリ使用量は一定になる
+     *
+     * @param keyword 検索キーワード
+     * @param action 1件ごとの処理
+     */
+    @Transactional(readOnly = true)
+    @UseWorkload(Workload.BULK)
+    public void export(String keyword, Consumer<Object[]> action) {
+        // 検索キーワードがあった場合は検索結果、それ以外の場合は全件を出力
+        try (Stream<Object[]> rows = (keyword != null && !keyword.isEmpty())
+                ? productRepository.streamSearch(keyword)
+                : productRepository.streamAll()) {
+            rows.forEach(action);
         }
     }
 
@@ -52,6 +474,7 @@ public class ProductService {
      * @return 商品情報
      * @throws NotFoundException 
      */
+    @Transactional(readOnly = true)
     public Product get(Long id) throws NotFoundException {
         // IDに紐づく商品情報が存在するかの確認
         if (!this.exists(id)) {
@@ -60,14 +483,41 @@ public class ProductService {
         return productRepository.findById(id).get();
     }
 
+    /**
+     * IDに紐づく商品情報の版取得処理
+     * 詳細画面のETagに使う
+     *
+     * @param id 商品ID
+     * @return 商品情報の版（存在しない場合はnull）
+     */
+    @Transactional(readOnly = true)
+    public String getVersionTag(Long id) {
+        List<Object[]> versions = productRepository.findVersionsById(id);
+        if (versions.isEmpty()) {
+            return null;
+        }
+        // 商品・ブランド・カテゴリーのいずれかが更新されると変わる
+        Object[] row = versions.get(0);
+        return row[0] + "-" + row[1] + "-" + row[2];
+    }
+
     /**
      * 商品情報登録処理
      *
      * @param product 保存したい商品情報
      * @return 保存した商品情報
      */
+    @Transactional
     public Product save(Product product) {
-        return productRepository.save(product);
+        // 変更前の値（保存時の読み込みと同じ永続化コンテキストのため、SQLは増えない）
+        ProductCountsChangedEvent changes = new ProductCountsChangedEvent();
+        if (product.getId() != null) {
+            productRepository.findById(product.getId()).ifPresent(current -> changes.add(current, -1));
+        }
+        Product saved = productRepository.save(product);
+        changes.add(saved, 1);
+        eventPublisher.publishEvent(changes);
+        return saved;
     }
 
     /**
@@ -119,14 +569,188 @@ public class ProductService {
      * @param id 商品ID
      * @throws NotFoundException 
      */
+    @Transactional
     public void delete(Long id) throws NotFoundException {
         // IDに紐づく商品情報が存在するかの確認
         if (!this.exists(id)) {
             throw new NotFoundException();
         }
+        productRepository.findById(id).ifPresent(current -> eventPublisher.publishEvent(
+                new ProductCountsChangedEvent().add(current, -1)));
         productRepository.deleteById(id);
     }
 
+    /**
+     * 商品情報の一括削除処理
+     * 一定件数ごとに1回のSQLで削除し、確定した分の商品画像を削除する
+     *
+     * @param ids 商品ID
+     * @return 削除した件数
+     */
+    public int deleteAll(Collection<Long> ids) {
+        return chunkedTransactions.execute(ids, chunk -> {
+            int deleted = productRepository.deleteByIds(chunk);
+            eventPublisher.publishEvent(new ProductsDeletedEvent(chunk));
+            eventPublisher.publishEvent(ProductCountsChangedEvent.recount());
+            return deleted;
+        });
+    }
+
+    /**
+     * 商品情報のブランドの一括変更処理
+     * 一定件数ごとに1回のSQLで変更する
+     *
+     * @param ids 商品ID
+     * @param brandId 変更後のブランドID
+     * @return 変更した件数
+     */
+    public int changeBrand(Collection<Long> ids, Long brandId) {
+        return chunkedTransactions.execute(ids, chunk -> {
+            eventPublisher.publishEvent(ProductCountsChangedEvent.recount());
+            return productRepository.updateBrand(chunk, brandId);
+        });
+    }
+
+    /**
+     * 商品情報のカテゴリーの一括変更処理
+     * 一定件数ごとに1回のSQLで変更する
+     *
+     * @param ids 商品ID
+     * @param categoryId 変更後のカテゴリーID
+     * @return 変更した件数
+     */
+    public int changeCategory(Collection<Long> ids, Long categoryId) {
+        return chunkedTransactions.execute(ids, chunk -> {
+            eventPublisher.publishEvent(ProductCountsChangedEvent.recount());
+            return productRepository.updateCategory(chunk, categoryId);
+        });
+    }
+
+    /**
+     * 商品情報の金額の変更処理（金額の変更予定の適用で使う）
+     * 呼び出し元のトランザクションで、1回のSQLで変更する
+     *
+     * @param ids 商品ID（OracleのIN句の上限の1000件以下）
+     * @param price 変更後の金額
+     * @return 変更した件数
+     */
+    @Transactional
+    public int changePrice(Collection<Long> ids, int price) {
+        // 変更前の値を読み込み、金額が変わる商品だけ変更前後の値を通知する（集計し直さずに済む）
+        ProductCountsChangedEvent changes = new ProductCountsChangedEvent();
+        for (ProductCountsChangedEvent.Values before : getValues(new ArrayList<>(ids))) {
+            if (before.getPrice() != price) {
+                changes.add(before, -1).add(before.withPrice(price), 1);
+            }
+        }
+        eventPublisher.publishEvent(changes);
+        return productRepository.updatePrice(ids, price);
+    }
+
+    /**
+     * 商品の件数・集計値の対象になる値の取得（一括変更の前の値の複写に使う）
+     * 呼び出し元のトランザクションで、1回のSQLで取得する
+     *
+     * @param ids 商品ID（OracleのIN句の上限の1000件以下）
+     * @return 商品の値（ID順、存在しない商品は含まない）
+     */
+    @Transactional
+    public List<ProductCountsChangedEvent.Values> getValues(List<Long> ids) {
+        return productRepository.findColumnsByIds(ids).stream()
+                .map(ProductCountsChangedEvent.Values::of)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 商品情報の金額の取得
+     *
+     * @param ids 商品ID
+     * @return 商品IDごとの金額（存在しない商品は含まない）
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, Integer> getPrices(Collection<Long> ids) {
+        List<Long> all = new ArrayList<>(ids);
+        Map<Long, Integer> prices = new HashMap<>();
+        // IN句の要素数を抑えるため、一定件数ごとに分けて取得する
+        for (int from = 0; from < all.size(); from += PRICE_CHUNK_SIZE) {
+            List<Long> chunk = all.subList(from, Math.min(from + PRICE_CHUNK_SIZE, all.size()));
+            for (Object[] row : productRepository.findPrices(chunk)) {
+                prices.put(((Number) row[0]).longValue(), ((Number) row[1]).intValue());
+            }
+        }
+        return prices;
+    }
+
+    /**
+     * ブランドに属する商品情報の削除処理（ブランドの一括削除で使う）
+     *
+     * @param brandIds ブランドID
+     * @return 削除した件数
+     */
+    @Transactional
+    public int deleteByBrands(Collection<Long> brandIds) {
+        List<Long> ids = productRepository.findIdsByBrandIds(brandIds);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = productRepository.deleteByBrandIds(brandIds);
+        eventPublisher.publishEvent(new ProductsDeletedEvent(ids));
+        eventPublisher.publishEvent(ProductCountsChangedEvent.recount());
+        return deleted;
+    }
+
+    /**
+     * カテゴリーに属する商品情報の削除処理（カテゴリーの一括削除で使う）
+     *
+     * @param categoryIds カテゴリーID
+     * @return 削除した件数
+     */
+    @Transactional
+    public int deleteByCategories(Collection<Long> categoryIds) {
+        List<Long> ids = productRepository.findIdsByCategoryIds(categoryIds);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        int deleted = productRepository.deleteByCategoryIds(categoryIds);
+        eventPublisher.publishEvent(new ProductsDeletedEvent(ids));
+        eventPublisher.publishEvent(ProductCountsChangedEvent.recount());
+        return deleted;
+    }
+
+    /**
+     * ブランドに属する商品情報のブランドの変更処理（ブランドの一括削除で使う）
+     *
+     * @param brandIds 変更前のブランドID
+     * @param brandId 変更後のブランドID
+     * @return 変更した件数
+     */
+    @Transactional
+    public int moveBrands(Collection<Long> brandIds, Long brandId) {
+        eventPublisher.publishEvent(ProductCountsChangedEvent.recount());
+        return productRepository.moveBrand(brandIds, brandId);
+    }
+
+    /**
+     * カテゴリーに属する商品情報のカテゴリーの変更処理（カテゴリーの一括削除で使う）
+     *
+     * @param categoryIds 変更前のカテゴリーID
+     * @param categoryId 変更後のカテゴリーID
+     * @return 変更した件数
+     */
+    @Transactional
+    public int moveCategories(Collection<Long> categoryIds, Long categoryId) {
+        eventPublisher.publishEvent(ProductCountsChangedEvent.recount());
+        return productRepository.moveCategory(categoryIds, categoryId);
+    }
+
+    private static Long brandId(Product product) {
+        return product.getBrand() != null ? product.getBrand().getId() : null;
+    }
+
+    private static Long categoryId(Product product) {
+        return product.getCategory() != null ? product.getCategory().getId() : null;
+    }
+
     /**
      * 商品情報の存在チェック
      *
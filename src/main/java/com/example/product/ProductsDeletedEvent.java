@@ -0,0 +1,21 @@
+package com.example.product;
+
+import java.util.List;
+
+/**
+ * 商品情報の削除の通知
+ * 削除した商品の画像など、DB以外に保持している情報を削除するために使う
+ */
+public class ProductsDeletedEvent {
+
+    /** 削除した商品ID */
+    private final List<Long> productIds;
+
+    public ProductsDeletedEvent(List<Long> productIds) {
+        this.productIds = productIds;
+    }
+
+    public List<Long> getProductIds() {
+        return productIds;
+    }
+}
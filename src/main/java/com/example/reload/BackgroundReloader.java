@@ -0,0 +1,176 @@
+package com.example.reload;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * メモリ上に保持する値の読み込み・作り直しと、それを実行する別スレッド
+ * 読み込み中に反映した変更を記録し、読み込んだ値と一緒に渡して入れ替える（変更を反映し直すか、読み込み直すかは保持する側が決める）
+ * 値の入れ替えと変更の記録の間に変更が漏れないよう、どちらも保持する側のオブジェクトのロックを取得して行う
+ *
+ * @param <C> 変更の型
+ */
+public final class BackgroundReloader<C> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BackgroundReloader.class);
+
+    /** 状態を変更する際に取得するロック（値を保持する側のオブジェクト） */
+    private final Object lock;
+
+    /** 読み込み・作り直しを実行するスレッド */
+    private final ScheduledExecutorService executor;
+
+    /** 読み込み中に反映した変更（読み込み中でない場合はnull） */
+    private List<C> changesWhileLoading;
+
+    /**
+     * @param lock 値を保持する側のオブジェクト（値を変更する処理でも、このオブジェクトのロックを取得する）
+     * @param threadName 別スレッドの名前
+     */
+    public BackgroundReloader(Object lock, String threadName) {
+        this.lock = lock;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 値を読み込み、読み込み中に反映した変更と一緒に渡して入れ替える
+     * 読み込みに失敗した場合は入れ替えずに例外を投げる
+     *
+     * @param reader 値を読み込む処理（ロックを取得せずに呼び出す）
+     * @param install 読み込んだ値と読み込み中に反映した変更を受け取り、保持する値を入れ替える処理（ロックを取得して呼び出す）
+     * @return 読み込んだ値
+     */
+    public <T> T load(Supplier<T> reader, BiConsumer<T, List<C>> install) {
+        synchronized (lock) {
+            changesWhileLoading = new ArrayList<>();
+        }
+        T loaded;
+        try {
+            loaded = reader.get();
+        } catch (RuntimeException e) {
+            synchronized (lock) {
+                changesWhileLoading = null;
+            }
+            throw e;
+        }
+        synchronized (lock) {
+            List<C> changes = changesWhileLoading;
+            changesWhileLoading = null;
+            install.accept(loaded, changes);
+        }
+        return loaded;
+    }
+
+    /**
+     * 保持する値に変更を反映し、読み込み中の場合は変更を記録する
+     *
+     * @param changes 変更
+     * @param action 保持する値に変更を反映する処理（ロックを取得して呼び出す）
+     */
+    public void apply(Collection<? extends C> changes, Runnable action) {
+        synchronized (lock) {
+            action.run();
+            if (changesWhileLoading != null) {
+                changesWhileLoading.addAll(changes);
+            }
+        }
+    }
+
+    /**
+     * 別スレッドで実行する処理を作成する
+     *
+     * @param task 処理
+     * @param description 失敗した場合に出力する処理の説明
+     * @return 実行を予約する処理
+     */
+    public Task task(Runnable task, String description) {
+        return new Task(task, description);
+    }
+
+    /**
+     * 一定間隔で別スレッドで実行する
+     *
+     * @param task 処理
+     * @param delayMillis 前回の実行が終わってから次の実行までの間隔（ミリ秒）
+     * @param description 失敗した場合に出力する処理の説明
+     */
+    public void scheduleWithFixedDelay(Runnable task, long delayMillis, String description) {
+        // 例外を投げると以降の実行が止まるため、ここで処理する
+        executor.scheduleWithFixedDelay(() -> run(task, description), delayMillis, delayMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 別スレッドを終了する
+     * 実行中の処理は指定した秒数まで完了を待ち、終わらない場合は中断する（予約済みで始まっていない処理は実行しない）
+     *
+     * @param timeoutSeconds 完了を待つ秒数（0の場合は待たずに中断する）
+     */
+    public void shutdown(long timeoutSeconds) {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                if (timeoutSeconds > 0) {
+                    LOGGER.warn("Background tasks did not finish within {} seconds", timeoutSeconds);
+                }
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void run(Runnable task, String description) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            LOGGER.warn("Failed to {}", description, e);
+        }
+    }
+
+    /**
+     * 別スレッドで実行する処理
+     * 実行を始める前に続けて予約した場合は、1回の実行にまとめる
+     */
+    public final class Task {
+
+        private final Runnable task;
+
+        private final String description;
+
+        /** 予約済みで実行を始めていないかどうか */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Task(Runnable task, String description) {
+            this.task = task;
+            this.description = description;
+        }
+
+        /**
+         * 別スレッドでの実行を予約する
+         */
+        public void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(() -> {
+                    scheduled.set(false);
+                    run(task, description);
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.search;
+
+import static org.hibernate.jpa.QueryHints.*;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * キーセット方式での一覧取得
+ * 前のページの最後のIDより大きいものをID順に取得するため、OFFSETと違って後ろのページでも読み飛ばしが発生しない
+ * 呼び出し元のトランザクション内で実行する
+ */
+@Component
+public class KeysetQuery {
+
+    /** 問い合わせのタイムアウト（ミリ秒、一覧画面の検索と同じ） */
+    static final int TIMEOUT_MILLIS = 5000;
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public KeysetQuery(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * 1ページ分を取得して1件ずつ処理する
+     * 次のページがあるかどうかを判定するため、ページの件数より1件多く取得する
+     *
+     * @param projection 取得する項目
+     * @param where 検索条件（JPQL、条件がない場合はnull）
+     * @param parameters 検索条件のパラメータ
+     * @param after 前のページの最後のID（先頭のページの場合はnull）
+     * @param size ページの件数
+     * @param action 1件ごとの処理（値は {@link Projection#getNames()} と同じ順序）
+     * @return 次のページの取得に指定するID（最後のページの場合はnull）
+     */
+    public Long forEach(Projection projection, String where, Map<String, ?> parameters, Long after, int size,
+            Consumer<Object[]> action) {
+        StringBuilder jpql = new StringBuilder("SELECT ").append(projection.select())
+                .append(" FROM ").append(projection.from())
+                .append(" WHERE ").append(projection.id()).append(" > :after");
+        if (where != null) {
+            jpql.append(" AND (").append(where).append(')');
+        }
+        jpql.append(" ORDER BY ").append(projection.id());
+
+        Query query = entityManager.createQuery(jpql.toString())
+                .setParameter("after", after != null ? after : Long.MIN_VALUE)
+                .setMaxResults(size + 1)
+                .setHint(SPEC_HINT_TIMEOUT, TIMEOUT_MILLIS)
+                .setHint(HINT_FETCH_SIZE, size + 1);
+        parameters.forEach(query::setParameter);
+
+        int count = 0;
+        Long lastId = null;
+        try (Stream<?> rows = query.getResultStream()) {
+            Iterator<?> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                Object row = iterator.next();
+                if (count == size) {
+                    return lastId;
+                }
+                // 項目が識別子だけの場合は配列にならない
+                Object[] values = row instanceof Object[] ? (Object[]) row : new Object[] { row };
+                action.accept(values);
+                lastId = ((Number) values[0]).longValue();
+                count++;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 件数の上限で切り詰めた一覧
+ *
+ * @param <E> 要素の型
+ */
+public class LimitedList<E> extends ArrayList<E> {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 上限を超えたため切り詰めたかどうか */
+    private final boolean truncated;
+
+    LimitedList(Collection<? extends E> rows, boolean truncated) {
+        super(rows);
+        this.truncated = truncated;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    /**
+     * 一覧が上限で切り詰められたかどうか
+     *
+     * @param list 一覧
+     * @return 切り詰められた場合はtrue
+     */
+    public static boolean isTruncated(List<?> list) {
+        return list instanceof LimitedList && ((LimitedList<?>) list).isTruncated();
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 一覧の取得で選択する項目
+ * 指定された項目だけをSELECT句に含め、エンティティを組み立てずに値の配列として取得する
+ */
+public final class Projection {
+
+    /** 識別子の項目名（キーセットページングに使うため常に取得する） */
+    public static final String ID = "id";
+
+    /** 取得元のエンティティと別名（例：Product p） */
+    private final String root;
+
+    /** 識別子のJPQL式（例：p.id） */
+    private final String idExpression;
+
+    /** 項目名（先頭は常に識別子） */
+    private final List<String> names;
+
+    /** 項目のJPQL式（項目名と同じ順序） */
+    private final List<String> expressions;
+
+    /** 結合句（選択した項目と検索条件に必要なものだけ） */
+    private final List<String> joins;
+
+    private Projection(String root, String idExpression, List<String> names, List<String> expressions,
+            List<String> joins) {
+        this.root = root;
+        this.idExpression = idExpression;
+        this.names = Collections.unmodifiableList(names);
+        this.expressions = Collections.unmodifiableList(expressions);
+        this.joins = Collections.unmodifiableList(joins);
+    }
+
+    /**
+     * 項目の定義を開始する
+     *
+     * @param root 取得元のエンティティと別名（例：Product p）
+     * @return 項目の定義
+     */
+    public static Definition from(String root) {
+        return new Definition(root);
+    }
+
+    /**
+     * @return 項目名（先頭は常に識別子）
+     */
+    public List<String> getNames() {
+        return names;
+    }
+
+    /**
+     * @return SELECT句
+     */
+    String select() {
+        return String.join(", ", expressions);
+    }
+
+    /**
+     * @return FROM句（結合を含む）
+     */
+    String from() {
+        StringBuilder from = new StringBuilder(root);
+        for (String join : joins) {
+            from.append(' ').append(join);
+        }
+        return from.toString();
+    }
+
+    /**
+     * @return 識別子のJPQL式
+     */
+    String id() {
+        return idExpression;
+    }
+
+    /**
+     * 一覧の項目の定義
+     * リソースごとに1つ作成し、要求ごとに {@link #select(String, String...)} で取得する項目を選ぶ
+     */
+    public static final class Definition {
+
+        private final String root;
+
+        /** 項目名とJPQL式 */
+        private final Map<String, String> fields = new LinkedHashMap<>();
+
+        /** 項目名と項目に必要な結合先の別名 */
+        private final Map<String, Set<String>> fieldJoins = new LinkedHashMap<>();
+
+        /** 別名と結合句 */
+        private final Map<String, String> joins = new LinkedHashMap<>();
+
+        private Definition(String root) {
+            this.root = root;
+            String alias = root.substring(root.lastIndexOf(' ') + 1);
+            this.fields.put(ID, alias + ".id");
+            this.fieldJoins.put(ID, Collections.emptySet());
+        }
+
+        /**
+         * 結合を定義する
+         * 結合先の項目が選択された場合だけFROM句に含める（結合先の項目より先に定義する）
+         *
+         * @param joinAlias 結合先の別名
+         * @param clause 結合句（例：LEFT JOIN p.brand b）
+         * @return この定義
+         */
+        public Definition join(String joinAlias, String clause) {
+            joins.put(joinAlias, clause);
+            return this;
+        }
+
+        /**
+         * 項目を定義する
+         *
+         * @param name 項目名
+         * @param expression JPQL式（結合先の項目は結合先の別名で始める）
+         * @return この定義
+         */
+        public Definition field(String name, String expression) {
+            Set<String> required = new LinkedHashSet<>();
+            for (String joinAlias : joins.keySet()) {
+                if (Pattern.compile("\\b" + joinAlias + "\\.").matcher(expression).find()) {
+                    required.add(joinAlias);
+                }
+            }
+            fields.put(name, expression);
+            fieldJoins.put(name, required);
+            return this;
+        }
+
+        /**
+         * @return 定義した項目名
+         */
+        public Set<String> getNames() {
+            return Collections.unmodifiableSet(fields.keySet());
+        }
+
+        /**
+         * 取得する項目を選ぶ
+         *
+         * @param requested 取得する項目名のカンマ区切り（空の場合は全項目）
+         * @param requiredJoins 検索条件で使う結合先の別名
+         * @return 選択した項目
+         * @throws IllegalArgumentException 定義されていない項目名が含まれる場合
+         */
+        public Projection select(String requested, String... requiredJoins) {
+            Set<String> selected = new LinkedHashSet<>();
+            selected.add(ID);
+            if (requested == null || requested.trim().isEmpty()) {
+                selected.addAll(fields.keySet());
+            } else {
+                for (String name : requested.split(",")) {
+                    String trimmed = name.trim();
+                    if (!fields.containsKey(trimmed)) {
+                        throw new IllegalArgumentException("存在しない項目です: " + trimmed);
+                    }
+                    selected.add(trimmed);
+                }
+            }
+
+            List<String> names = new ArrayList<>();
+            List<String> expressions = new ArrayList<>();
+            Set<String> usedJoins = new LinkedHashSet<>();
+            for (String name : selected) {
+                names.add(name);
+                expressions.add(fields.get(name));
+                usedJoins.addAll(fieldJoins.get(name));
+            }
+            Collections.addAll(usedJoins, requiredJoins);
+
+            // 結合は定義した順序で並べる
+            List<String> joinClauses = new ArrayList<>();
+            for (Map.Entry<String, String> join : joins.entrySet()) {
+                if (usedJoins.contains(join.getKey())) {
+                    joinClauses.add(join.getValue());
+                }
+            }
+            return new Projection(root, fields.get(ID), names, expressions, joinClauses);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.search;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+/**
+ * 一覧画面に表示する件数の上限
+ * 短いキーワードでほぼ全件が一致した場合でも、取得と画面表示にかかる時間を一定以内に抑える
+ */
+@Component
+public class SearchLimit {
+
+    /** 一覧画面に表示する最大件数 */
+    private final int maxRows;
+
+    @Autowired
+    public SearchLimit(@Value("${slshop.search.max-rows:200}") int maxRows) {
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * 一覧取得用の取得範囲
+     * 上限を超えたかどうかを判定するため、上限より1件多く取得する
+     *
+     * @return ID順で先頭から（上限＋1）件の取得範囲
+     */
+    public Pageable pageable() {
+        return PageRequest.of(0, maxRows + 1, Sort.by("id"));
+    }
+
+    /**
+     * 取得結果を上限の件数に切り詰める
+     *
+     * @param <E> 要素の型
+     * @param rows {@link #pageable()} で取得した結果
+     * @return 上限までの結果
+     */
+    public <E> LimitedList<E> limit(List<E> rows) {
+        boolean truncated = rows.size() > maxRows;
+        return new LimitedList<>(truncated ? rows.subList(0, maxRows) : rows, truncated);
+    }
+
+    public int getMaxRows() {
+        return maxRows;
+    }
+}
@@ -4,7 +4,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.datasource.UseWorkload;
+import com.example.datasource.Workload;
 import com.example.entity.User;
 import com.example.user.UserRepository;
 
@@ -19,6 +22,8 @@ public class SLShopUserDetailsService implements UserDetailsService {
     }
 
 	@Override
+	@Transactional(readOnly = true)
+	@UseWorkload(Workload.AUTH)
 	public SLShopUserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = this.userRepository.findByEmail(email);
 
@@ -1,11 +1,15 @@
 package com.example.security;
 
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -42,4 +46,49 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
                 .logoutUrl("/logout")
                 .logoutSuccessUrl("/loginForm");
     }
+
+    /**
+     * APIの認証設定（画面より先に評価する）
+     * 利用者とパスワードの照合は画面と同じものを使い、要求ごとにBASIC認証で認証する
+     * セッションを作らないため、CSRF対策とログイン後の遷移先の保存は行わない
+     */
+    @Configuration
+    @Order(1)
+    public static class ApiSecurityConfig extends WebSecurityConfigurerAdapter {
+
+        @Override
+        protected void configure(HttpSecurity http) throws Exception {
+            http.antMatcher("/api/**")
+                    .authorizeRequests()
+                    .anyRequest().authenticated();
+
+            http.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+            http.csrf().disable();
+            http.requestCache().disable();
+            http.httpBasic();
+        }
+    }
+
+    /**
+     * 監視用のエンドポイント（/actuator）の認証設定（画面より先に評価する）
+     * Prometheusからの収集はBASIC認証で行い、画面ではBASIC認証を受け付けない
+     * ヘルスチェックは認証不要、それ以外は管理者のみ
+     */
+    @Configuration
+    @Order(2)
+    public static class ActuatorSecurityConfig extends WebSecurityConfigurerAdapter {
+
+        @Override
+        protected void configure(HttpSecurity http) throws Exception {
+            http.requestMatcher(EndpointRequest.toAnyEndpoint())
+                    .authorizeRequests()
+                    .requestMatchers(EndpointRequest.to(HealthEndpoint.class)).permitAll()
+                    .anyRequest().hasAuthority("管理者");
+
+            http.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS);
+            http.csrf().disable();
+            http.requestCache().disable();
+            http.httpBasic();
+        }
+    }
 }
\ No newline at end of file
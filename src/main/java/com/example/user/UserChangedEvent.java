@@ -0,0 +1,43 @@
+package com.example.user;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 管理者情報の登録・更新・削除の通知
+ * 管理者ごとに保持している情報（画面の部品のキャッシュなど）を破棄するために使う
+ * 権限ごとの管理者数を変更前後の権限で増減するため、変更前後の権限名も通知する
+ */
+public class UserChangedEvent {
+
+    /** 管理者ID */
+    private final Long userId;
+
+    /** 変更前の権限名（登録の場合は空） */
+    private final Set<String> oldRoles;
+
+    /** 変更後の権限名（削除の場合は空） */
+    private final Set<String> newRoles;
+
+    public UserChangedEvent(Long userId) {
+        this(userId, Collections.emptySet(), Collections.emptySet());
+    }
+
+    public UserChangedEvent(Long userId, Set<String> oldRoles, Set<String> newRoles) {
+        this.userId = userId;
+        this.oldRoles = oldRoles;
+        this.newRoles = newRoles;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Set<String> getOldRoles() {
+        return oldRoles;
+    }
+
+    public Set<String> getNewRoles() {
+        return newRoles;
+    }
+}
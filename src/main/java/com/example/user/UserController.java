@@ -1,9 +1,13 @@
 package com.example.user;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,15 +15,24 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import com.example.cache.ConditionalGet;
 import com.example.entity.Role;
 import com.example.entity.User;
+import com.example.export.ExportFormat;
+import com.example.export.ExportWriter;
+import com.example.search.LimitedList;
 
 @Controller
 @RequestMapping("/users")
 public class UserController {
 
+    /** 一覧出力時の列名 */
+    private static final String[] EXPORT_HEADERS = { "ID", "EMAIL", "NAME", "ROLES" };
+
     private final UserService userService;
 
     @Autowired
@@ -35,13 +48,40 @@ public class UserController {
      */
     @GetMapping
     public String listUsers(@RequestParam(required = false) String keyword, Model model) {
-        // 全管理者情報の取得
-        List<User> listUsers = userService.listAll(keyword);
+        List<User> listUsers;
+        try {
+            // 管理者情報の取得（表示件数の上限まで）
+            listUsers = userService.listAll(keyword);
+        } catch (QueryTimeoutException e) {
+            // 時間のかかる検索はタイムアウトで中断されるため、条件の絞り込みを促す
+            model.addAttribute("error_message", "検索に時間がかかったため中断しました。検索条件を絞り込んでください");
+            listUsers = Collections.emptyList();
+        }
         model.addAttribute("listUsers", listUsers);
         model.addAttribute("keyword", keyword);
+        model.addAttribute("truncated", LimitedList.isTruncated(listUsers));
         return "users/users";
     }
 
+    /**
+     * 管理者一覧出力処理
+     *
+     * @param keyword 検索キーワード
+     * @param format 出力形式（csv, jsonl）
+     * @param gzip true:gzip圧縮して出力する
+     * @return 管理者一覧ファイル
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(required = false) String keyword,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        // レスポンスへ1件ずつ書き出す（途中で失敗した場合は、完全なファイルの形にせずに中断する）
+        StreamingResponseBody body = ExportWriter.body(exportFormat, gzip, EXPORT_HEADERS,
+                writer -> userService.export(keyword, writer::write));
+        return ExportWriter.response("users", exportFormat, gzip, body);
+    }
+
     /**
      * 管理者新規登録画面表示
      *
@@ -81,7 +121,13 @@ public class UserController {
         }
 
         // 管理者情報の登録
-        userService.save(user);
+        try {
+            userService.save(user);
+        } catch (OptimisticLockingFailureException e) {
+            // 編集画面の表示後に他の利用者が更新していた場合は、上書きせずに一覧画面へ戻す
+            ra.addFlashAttribute("error_message", "他の利用者が更新したため保存できませんでした。最新の内容を確認してください");
+            return "redirect:/users";
+        }
         // 登録成功のメッセージを格納
         ra.addFlashAttribute("success_message", "登録に成功しました");
         return "redirect:/users";
@@ -93,10 +139,15 @@ public class UserController {
      * @param id 管理者ID
      * @param model
      * @param ra 
+     * @param request
      * @return 管理者詳細画面
      */
     @GetMapping("/detail/{id}")
-    public String detailUser(@PathVariable(name = "id") Long id, Model model, RedirectAttributes ra) {
+    public String detailUser(@PathVariable(name = "id") Long id, Model model, RedirectAttributes ra, WebRequest request) {
+        // 前回表示から更新されていない場合は、管理者情報を取得せずに304を返す
+        if (ConditionalGet.checkNotModified(request, userService.getVersionTag(id))) {
+            return null;
+        }
         try {
             // 管理者IDに紐づく管理者情報取得
             User user = userService.get(id);
@@ -1,9 +1,16 @@
 package com.example.user;
 
+import static org.hibernate.jpa.QueryHints.*;
+
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
 import com.example.entity.User;
 
@@ -16,6 +23,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * @return 取得件数
      */
     public Long countById(Long id);
+
+    /**
+     * 管理者情報の版の取得クエリ
+     * 画面の再表示が必要かどうかの判定に使うため、管理者情報自体は取得しない
+     *
+     * @param id 管理者ID
+     * @return 管理者情報の版（存在しない場合はnull）
+     */
+    @Query("SELECT u.version FROM User u WHERE u.id = ?1")
+    public Long findVersionById(Long id);
     
     /**
      * メールアドレスに紐づく管理者情報取得クエリ
@@ -29,9 +46,43 @@ public interface UserRepository extends JpaRepository<User, Long> {
      * 管理者情報検索クエリ
      *
      * @param keyword 検索キーワード
+     * @param pageable 取得範囲
      * @return 管理者情報のリスト
      */
+    @QueryHints(@QueryHint(name = SPEC_HINT_TIMEOUT, value = "5000"))
     @Query("SELECT u FROM User u WHERE CONCAT(u.id, ' ', u.email, ' ', u.name, ' ') LIKE %?1%")
-    public List<User> search(String keyword);
+    public List<User> search(String keyword, Pageable pageable);
+
+    /**
+     * 管理者情報一覧表示用クエリ
+     *
+     * @param pageable 取得範囲
+     * @return 管理者情報のリスト
+     */
+    @QueryHints(@QueryHint(name = SPEC_HINT_TIMEOUT, value = "5000"))
+    @Query("SELECT u FROM User u")
+    public List<User> list(Pageable pageable);
+
+    /**
+     * 管理者情報出力用クエリ
+     * ロールの数だけ行が返るため、同じ管理者の行は連続して返す
+     *
+     * @return 管理者情報（ID, メールアドレス, 管理者名, ロール名）のストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT u.id, u.email, u.name, r.name FROM User u LEFT JOIN u.roles r ORDER BY u.id, r.id")
+    public Stream<Object[]> streamAll();
+
+    /**
+     * 管理者情報出力用検索クエリ
+     * ロールの数だけ行が返るため、同じ管理者の行は連続して返す
+     *
+     * @param keyword 検索キーワード
+     * @return 管理者情報（ID, メールアドレス, 管理者名, ロール名）のストリーム
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT u.id, u.email, u.name, r.name FROM User u LEFT JOIN u.roles r "
+            + "WHERE CONCAT(u.id, ' ', u.email, ' ', u.name, ' ') LIKE %?1% ORDER BY u.id, r.id")
+    public Stream<Object[]> streamSearch(String keyword);
 
 }
@@ -1,45 +1,67 @@
 package com.example.user;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import com.example.datasource.UseWorkload;
+import com.example.datasource.Workload;
 import com.example.entity.Role;
 import com.example.entity.User;
+import com.example.search.SearchLimit;
 
 @Service
 public class UserService {
 
     private final UserRepository userRepository;
 
+    private final SearchLimit searchLimit;
+
     private final RoleRepository roleRepository;
 
     private final PasswordEncoder passwordEncoder;
 
+    private final ApplicationEventPublisher eventPublisher;
+
     @Autowired
-    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
+            SearchLimit searchLimit, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.searchLimit = searchLimit;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
      * 管理者情報検索処理
+     * 一覧画面に表示する件数には上限があり、上限を超えた場合は先頭から上限までを返す
      *
      * @param keyword 検索キーワード
-     * @return 管理者情報のリスト
+     * @return 管理者情報のリスト（上限を超えたかどうかは {@link com.example.search.LimitedList#isTruncated(List)} で判定する）
      */
+    @Transactional(readOnly = true)
     public List<User> listAll(String keyword) {
         // 検索キーワードがあった場合
         if (keyword != null && !keyword.isEmpty()) {
-            return userRepository.search(keyword);
+            return searchLimit.limit(userRepository.search(keyword, searchLimit.pageable()));
         }
         // それ以外の場合
         else {
-            return userRepository.findAll();
+            return searchLimit.limit(userRepository.list(searchLimit.pageable()));
         }
     }
 
@@ -48,10 +70,49 @@ public class UserService {
      *
      * @return ロール情報のリスト
      */
+    @Transactional(readOnly = true)
     public List<Role> listRoles() {
         return roleRepository.findAll();
     }
 
+    /**
+     * 管理者情報出力処理
+     * 検索結果を1件ずつ読み込みながら処理するため、件数に関わらずメモリ使用量は一定になる
+     *
+     * @param keyword 検索キーワード
+     * @param action 1件ごとの処理（ID, メールアドレス, 管理者名, スペース区切りのロール名）
+     */
+    @Transactional(readOnly = true)
+    @UseWorkload(Workload.BULK)
+    public void export(String keyword, Consumer<Object[]> action) {
+        // 検索キーワードがあった場合は検索結果、それ以外の場合は全件を出力
+        try (Stream<Object[]> rows = (keyword != null && !keyword.isEmpty())
+                ? userRepository.streamSearch(keyword)
+                : userRepository.streamAll()) {
+            // ロールの数だけ行が返るため、同じ管理者の行をまとめて1件にする
+            Iterator<Object[]> iterator = rows.iterator();
+            Object[] current = null;
+            StringJoiner roleNames = null;
+            while (iterator.hasNext()) {
+                Object[] row = iterator.next();
+                if (current != null && !Objects.equals(current[0], row[0])) {
+                    action.accept(new Object[] { current[0], current[1], current[2], roleNames.toString() });
+                    current = null;
+                }
+                if (current == null) {
+                    current = row;
+                    roleNames = new StringJoiner(" ");
+                }
+                if (row[3] != null) {
+                    roleNames.add(row[3].toString());
+                }
+            }
+            if (current != null) {
+                action.accept(new Object[] { current[0], current[1], current[2], roleNames.toString() });
+            }
+        }
+    }
+
     /**
      * IDに紐づく管理者情報取得処理
      *
@@ -59,6 +120,7 @@ public class UserService {
      * @return 管理者情報
      * @throws NotFoundException 
      */
+    @Transactional(readOnly = true)
     public User get(Long id) throws NotFoundException {
         // IDに紐づく管理者情報が存在するかの確認
         if (!this.exists(id)) {
@@ -67,17 +129,34 @@ public class UserService {
         return userRepository.findById(id).get();
     }
 
+    /**
+     * IDに紐づく管理者情報の版取得処理
+     * 詳細画面のETagに使う
+     *
+     * @param id 管理者ID
+     * @return 管理者情報の版（存在しない場合はnull）
+     */
+    @Transactional(readOnly = true)
+    public String getVersionTag(Long id) {
+        Long version = userRepository.findVersionById(id);
+        return version != null ? version.toString() : null;
+    }
+
     /**
      * 管理者情報登録処理
      *
      * @param user 保存したい管理者情報
      * @return 保存した管理者情報
      */
+    @Transactional
     public User save(User user) {
+        Set<String> oldRoles = Collections.emptySet();
         // 管理者情報を更新する場合
         if (user.getId() != null) {
             // 更新対象の管理者情報を取得
             User existingUser = userRepository.findById(user.getId()).get();
+            // 変更前の権限（保存すると同じ管理者情報に上書きされるため、先に複写する）
+            oldRoles = roleNames(existingUser);
             // 保存したい管理者情報のパスワードが空の場合
             if (user.getPassword().isEmpty()) {
                 // 保存したい管理者情報に以前のパスワードを格納
@@ -96,7 +175,9 @@ public class UserService {
             // ハッシュ化したパスワードを格納
             user.setPassword(encodedPassword);
         }
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        eventPublisher.publishEvent(new UserChangedEvent(savedUser.getId(), oldRoles, roleNames(savedUser)));
+        return savedUser;
     }
 
     /**
@@ -148,12 +229,16 @@ public class UserService {
      * @param id 管理者ID
      * @throws NotFoundException 
      */
+    @Transactional
     public void delete(Long id) throws NotFoundException {
         // IDに紐づく管理者情報が存在するかの確認
         if (!this.exists(id)) {
             throw new NotFoundException();
         }
+        // 削除前の権限（削除時の読み込みと同じ永続化コンテキストのため、SQLは増えない）
+        Set<String> oldRoles = userRepository.findById(id).map(UserService::roleNames).orElse(Collections.emptySet());
         userRepository.deleteById(id);
+        eventPublisher.publishEvent(new UserChangedEvent(id, oldRoles, Collections.emptySet()));
     }
 
     /**
@@ -165,6 +250,10 @@ public class UserService {
         return passwordEncoder.encode(rawPassword);
     }
 
+    private static Set<String> roleNames(User user) {
+        return user.getRoles().stream().map(Role::getName).collect(Collectors.toSet());
+    }
+
     /**
      * 管理者情報の存在チェック
      *
@@ -0,0 +1,86 @@
+-- perfプロファイル用のスキーマ定義（Oracle互換モードのH2で実行する）
+
+CREATE SEQUENCE BRANDS_ID_SEQ START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE CATEGORIES_ID_SEQ START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE PRODUCTS_ID_SEQ START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE USERS_ID_SEQ START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE ROLES_ID_SEQ START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE PRICE_SCHEDULES_ID_SEQ START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE BRANDS (
+    ID NUMBER(19) NOT NULL,
+    VERSION NUMBER(19) DEFAULT 0 NOT NULL,
+    NAME VARCHAR2(10) NOT NULL,
+    CONSTRAINT BRANDS_PK PRIMARY KEY (ID),
+    CONSTRAINT BRANDS_NAME_UK UNIQUE (NAME)
+);
+
+CREATE TABLE CATEGORIES (
+    ID NUMBER(19) NOT NULL,
+    VERSION NUMBER(19) DEFAULT 0 NOT NULL,
+    NAME VARCHAR2(32) NOT NULL,
+    CONSTRAINT CATEGORIES_PK PRIMARY KEY (ID),
+    CONSTRAINT CATEGORIES_NAME_UK UNIQUE (NAME)
+);
+
+CREATE TABLE PRODUCTS (
+    ID NUMBER(19) NOT NULL,
+    VERSION NUMBER(19) DEFAULT 0 NOT NULL,
+    NAME VARCHAR2(10) NOT NULL,
+    DESCRIPTION VARCHAR2(50) NOT NULL,
+    PRICE NUMBER(10) NOT NULL,
+    IMAGE VARCHAR2(255),
+    LENGTH FLOAT NOT NULL,
+    WIDTH FLOAT NOT NULL,
+    HEIGHT FLOAT NOT NULL,
+    WEIGHT FLOAT NOT NULL,
+    CATEGORY_ID NUMBER(19),
+    BRAND_ID NUMBER(19),
+    CONSTRAINT PRODUCTS_PK PRIMARY KEY (ID),
+    CONSTRAINT PRODUCTS_NAME_UK UNIQUE (NAME),
+    CONSTRAINT PRODUCTS_CATEGORY_FK FOREIGN KEY (CATEGORY_ID) REFERENCES CATEGORIES (ID),
+    CONSTRAINT PRODUCTS_BRAND_FK FOREIGN KEY (BRAND_ID) REFERENCES BRANDS (ID)
+);
+
+CREATE INDEX PRODUCTS_CATEGORY_IX ON PRODUCTS (CATEGORY_ID, PRICE);
+CREATE INDEX PRODUCTS_BRAND_IX ON PRODUCTS (BRAND_ID, PRICE);
+
+CREATE TABLE PRICE_SCHEDULES (
+    ID NUMBER(19) NOT NULL,
+    VERSION NUMBER(19) DEFAULT 0 NOT NULL,
+    PRODUCT_ID NUMBER(19) NOT NULL,
+    PRICE NUMBER(10) NOT NULL,
+    EFFECTIVE_AT TIMESTAMP NOT NULL,
+    APPLIED_AT TIMESTAMP,
+    CONSTRAINT PRICE_SCHEDULES_PK PRIMARY KEY (ID),
+    CONSTRAINT PRICE_SCHEDULES_PRODUCT_FK FOREIGN KEY (PRODUCT_ID) REFERENCES PRODUCTS (ID) ON DELETE CASCADE
+);
+
+CREATE INDEX PRICE_SCHEDULES_PRODUCT_IX ON PRICE_SCHEDULES (PRODUCT_ID);
+CREATE INDEX PRICE_SCHEDULES_PENDING_IX ON PRICE_SCHEDULES (APPLIED_AT, EFFECTIVE_AT);
+
+CREATE TABLE USERS (
+    ID NUMBER(19) NOT NULL,
+    VERSION NUMBER(19) DEFAULT 0 NOT NULL,
+    EMAIL VARCHAR2(50) NOT NULL,
+    PASSWORD VARCHAR2(64) NOT NULL,
+    NAME VARCHAR2(10) NOT NULL,
+    CONSTRAINT USERS_PK PRIMARY KEY (ID),
+    CONSTRAINT USERS_EMAIL_UK UNIQUE (EMAIL)
+);
+
+CREATE TABLE ROLES (
+    ID NUMBER(19) NOT NULL,
+    NAME VARCHAR2(40) NOT NULL,
+    DESCRIPTION VARCHAR2(150) NOT NULL,
+    CONSTRAINT ROLES_PK PRIMARY KEY (ID),
+    CONSTRAINT ROLES_NAME_UK UNIQUE (NAME)
+);
+
+CREATE TABLE USERS_ROLES (
+    USER_ID NUMBER(19) NOT NULL,
+    ROLE_ID NUMBER(19) NOT NULL,
+    CONSTRAINT USERS_ROLES_PK PRIMARY KEY (USER_ID, ROLE_ID),
+    CONSTRAINT USERS_ROLES_USER_FK FOREIGN KEY (USER_ID) REFERENCES USERS (ID),
+    CONSTRAINT USERS_ROLES_ROLE_FK FOREIGN KEY (ROLE_ID) REFERENCES ROLES (ID)
+);
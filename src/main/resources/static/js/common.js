@@ -6,8 +6,33 @@ $(document).ready(function() {
 
     $(".link-delete").on("click", function(e) {
         e.preventDefault();
-        $("#yesButton").attr("href", $(this).attr("href"));
+        $("#yesButton").off("click").attr("href", $(this).attr("href"));
         $("#confirmModal").modal();
     });
 
+    // 一括削除は確認後にフォームを送信する
+    $(".button-bulk-delete").on("click", function(e) {
+        e.preventDefault();
+        var form = $(this).closest("form");
+        $("#yesButton").off("click").on("click", function(e) {
+            e.preventDefault();
+            form.submit();
+        });
+        $("#confirmModal").modal();
+    });
+
+    // 一覧の全選択
+    $(".check-all").on("change", function() {
+        $(this).closest("table").find("input[name='ids']").prop("checked", this.checked);
+    });
+
+    // 一括金額変更の対象は、選んだ種類の選択肢だけを送信する
+    $(".select-scope").on("change", function() {
+        var scope = $(this).val();
+        $(".select-target").each(function() {
+            var selected = $(this).data("scope") === scope;
+            $(this).prop("disabled", !selected).toggle(selected);
+        });
+    }).trigger("change");
+
 });
\ No newline at end of file
@@ -0,0 +1,242 @@
+package com.example.api;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.brand.BrandRepository;
+import com.example.category.CategoryRepository;
+import com.example.entity.Product;
+import com.example.metrics.SqlStatisticsFilter;
+import com.example.product.ProductRepository;
+
+/**
+ * 一括更新APIの検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slshop-batch;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "slshop.api.batch.max-operations=30" })
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+class BatchExecutorTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    /**
+    * 概要 一括更新<br>
+    * 条件 正しい操作と誤った操作が混在する場合<br>
+    * 結果 正しい操作だけを実行し、操作ごとの結果を返すこと
+    */
+    @Test
+    void 操作ごとの結果を返すこと() throws Exception {
+        String body = "["
+                + "{\"op\":\"update\",\"type\":\"product\",\"id\":1,\"version\":0,\"price\":1200,\"description\":\"新しい説明\"},"
+                + "{\"op\":\"create\",\"type\":\"category\",\"name\":\"カテゴリーX\"},"
+                + "{\"op\":\"update\",\"type\":\"product\",\"id\":2,\"name\":\"商品名が長すぎる商品です\"},"
+                + "{\"op\":\"update\",\"type\":\"product\",\"id\":3,\"version\":5,\"price\":1},"
+                + "{\"op\":\"delete\",\"type\":\"brand\",\"id\":999},"
+                + "{\"op\":\"create\",\"type\":\"brand\",\"name\":\"ブランドA\"}"
+                + "]";
+
+        mockMvc.perform(post("/api/v1/batch").contentType(MediaType.APPLICATION_JSON).content(body)
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].version").value(1))
+                .andExpect(jsonPath("$[1].status").value(201))
+                .andExpect(jsonPath("$[1].id").isNumber())
+                .andExpect(jsonPath("$[2].status").value(400))
+                .andExpect(jsonPath("$[2].error").value(BatchExecutor.INVALID))
+                .andExpect(jsonPath("$[3].status").value(409))
+                .andExpect(jsonPath("$[4].status").value(404))
+                .andExpect(jsonPath("$[5].status").value(400))
+                .andExpect(jsonPath("$[5].error").value(BatchExecutor.DUPLICATE));
+
+        Product product = productRepository.findById(1L).get();
+        assertThat(product.getPrice()).isEqualTo(1200);
+        assertThat(product.getDescription()).isEqualTo("新しい説明");
+        assertThat(productRepository.findById(2L).get().getName()).isEqualTo("商品B");
+        assertThat(productRepository.findById(3L).get().getPrice()).isEqualTo(50000);
+        assertThat(categoryRepository.findByName("カテゴリーX")).isNotNull();
+    }
+
+    /**
+    * 概要 一括更新<br>
+    * 条件 送信時にDBの制約で失敗する操作が含まれる場合<br>
+    * 結果 1件ずつ実行し直し、失敗した操作以外は確定すること
+    */
+    @Test
+    void まとめて確定できない場合は1件ずつ実行すること() throws Exception {
+        // 存在しないブランドを参照させ、送信時に外部キーの制約で失敗させる
+        String body = "["
+                + "{\"op\":\"create\",\"type\":\"brand\",\"name\":\"ブランドY\"},"
+                + "{\"op\":\"update\",\"type\":\"product\",\"id\":2,\"brandId\":999},"
+                + "{\"op\":\"update\",\"type\":\"category\",\"id\":3,\"name\":\"カテゴリーZ\"}"
+                + "]";
+
+        mockMvc.perform(post("/api/v1/batch").contentType(MediaType.APPLICATION_JSON).content(body)
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[1].status").value(422))
+                .andExpect(jsonPath("$[1].error").value(BatchExecutor.FAILED))
+                .andExpect(jsonPath("$[2].status").value(200));
+
+        assertThat(brandRepository.findByName("ブランドY")).isNotNull();
+        assertThat(productRepository.findById(2L).get().getBrand().getId()).isEqualTo(1L);
+        assertThat(categoryRepository.findById(3L).get().getName()).isEqualTo("カテゴリーZ");
+    }
+
+    /**
+    * 概要 一括更新<br>
+    * 条件 存在しないカテゴリーを参照する商品の登録と、古い版を指定した更新が同じ範囲に含まれる場合<br>
+    * 結果 制約違反の登録は422、同時更新の競合は409を返し、他の操作は確定すること
+    */
+    @Test
+    void 存在しないカテゴリーを参照する登録は422を返すこと() throws Exception {
+        String body = "["
+                + "{\"op\":\"create\",\"type\":\"product\",\"name\":\"商品FK\",\"description\":\"説明\","
+                + "\"brandId\":1,\"categoryId\":999},"
+                + "{\"op\":\"update\",\"type\":\"brand\",\"id\":2,\"version\":-1,\"name\":\"ブランドFK\"},"
+                + "{\"op\":\"create\",\"type\":\"brand\",\"name\":\"ブランドFK2\"}"
+                + "]";
+
+        mockMvc.perform(post("/api/v1/batch").contentType(MediaType.APPLICATION_JSON).content(body)
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(422))
+                .andExpect(jsonPath("$[0].error").value(BatchExecutor.FAILED))
+                .andExpect(jsonPath("$[1].status").value(409))
+                .andExpect(jsonPath("$[1].error").value(BatchExecutor.CONFLICT))
+                .andExpect(jsonPath("$[2].status").value(201));
+
+        assertThat(productRepository.findByName("商品FK")).isNull();
+        assertThat(brandRepository.findByName("ブランドFK")).isNull();
+        assertThat(brandRepository.findByName("ブランドFK2")).isNotNull();
+    }
+
+    /**
+    * 概要 一括更新<br>
+    * 条件 ブランドまたはカテゴリーを指定せずに商品を登録する場合<br>
+    * 結果 送信する前に400を返し、同じ範囲の他の操作は1件ずつ実行し直さずに確定すること
+    */
+    @Test
+    void ブランドとカテゴリーのない商品の登録は400を返すこと() throws Exception {
+        String body = "["
+                + "{\"op\":\"create\",\"type\":\"product\",\"name\":\"商品Y\",\"description\":\"説明\",\"categoryId\":1},"
+                + "{\"op\":\"create\",\"type\":\"product\",\"name\":\"商品Z\",\"description\":\"説明\",\"brandId\":1},"
+                + "{\"op\":\"create\",\"type\":\"brand\",\"name\":\"ブランドW\"}"
+                + "]";
+
+        mockMvc.perform(post("/api/v1/batch").contentType(MediaType.APPLICATION_JSON).content(body)
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(400))
+                .andExpect(jsonPath("$[0].error").value(BatchExecutor.INVALID))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[1].error").value(BatchExecutor.INVALID))
+                .andExpect(jsonPath("$[2].status").value(201));
+
+        assertThat(productRepository.findByName("商品Y")).isNull();
+        assertThat(brandRepository.findByName("ブランドW")).isNotNull();
+    }
+
+    /**
+    * 概要 一括更新<br>
+    * 条件 画像のある商品を削除する場合<br>
+    * 結果 削除が確定してから商品の画像のディレクトリを削除すること
+    */
+    @Test
+    void 削除した商品の画像を削除すること() throws Exception {
+        String created = mockMvc.perform(post("/api/v1/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"op\":\"create\",\"type\":\"product\",\"name\":\"画像あり\",\"description\":\"説明\","
+                        + "\"brandId\":1,\"categoryId\":1}]")
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andReturn().getResponse().getContentAsString();
+        Long id = productRepository.findByName("画像あり").getId();
+        assertThat(created).contains("\"id\":" + id);
+        Path imageDir = Paths.get("product-images", id.toString());
+        Files.createDirectories(imageDir);
+        Files.write(imageDir.resolve("image.jpeg"), new byte[] { 1 });
+
+        mockMvc.perform(post("/api/v1/batch").contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"op\":\"delete\",\"type\":\"product\",\"id\":" + id + "}]")
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(jsonPath("$[0].status").value(204));
+
+        assertThat(productRepository.findById(id)).isEmpty();
+        assertThat(imageDir).doesNotExist();
+    }
+
+    /**
+    * 概要 一括更新<br>
+    * 条件 同じ種類の登録を20件指定した場合<br>
+    * 結果 登録のSQLは1回の準備でまとめて送ること
+    */
+    @Test
+    void 登録をJDBCのバッチでまとめて送ること() throws Exception {
+        String body = IntStream.range(0, 20)
+                .mapToObj(i -> "{\"op\":\"create\",\"type\":\"brand\",\"name\":\"一括" + i + "\"}")
+                .collect(Collectors.joining(",", "[", "]"));
+
+        // 認証のSQLを含めないよう、認証済みの利用者で実行する
+        UserDetails admin = userDetailsService.loadUserByUsername("admin@example.com");
+        String statements = mockMvc.perform(post("/api/v1/batch").contentType(MediaType.APPLICATION_JSON).content(body)
+                .with(user(admin)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[19].status").value(201))
+                .andReturn().getResponse().getHeader(SqlStatisticsFilter.STATEMENTS_HEADER);
+
+        // 1件ごとの採番と重複チェック（20件×2）と、まとめて送る登録（1回）
+        assertThat(statements).isEqualTo("41");
+        assertThat(brandRepository.findByName("一括19")).isNotNull();
+    }
+
+    /**
+    * 概要 一括更新<br>
+    * 条件 上限を超える件数の操作を指定した場合<br>
+    * 結果 400を返すこと
+    */
+    @Test
+    void 上限を超える場合は400を返すこと() throws Exception {
+        String body = IntStream.range(0, 31)
+                .mapToObj(i -> "{\"op\":\"delete\",\"type\":\"brand\",\"id\":999}")
+                .collect(Collectors.joining(",", "[", "]"));
+
+        mockMvc.perform(post("/api/v1/batch").contentType(MediaType.APPLICATION_JSON).content(body)
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.api;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.example.metrics.SqlStatisticsFilter;
+
+/**
+ * 参照用APIの検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:slshop-api;MODE=Oracle;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+class CatalogApiControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    /**
+    * 概要 商品情報一覧<br>
+    * 条件 項目を指定せずに、ページの件数より多く存在する場合<br>
+    * 結果 全項目を1件のSQLで取得し、次のページのIDを返すこと
+    */
+    @Test
+    void 全項目を取得して次のページを返すこと() throws Exception {
+        // 認証のSQLを含めないよう、認証済みの利用者で実行する
+        UserDetails admin = userDetailsService.loadUserByUsername("admin@example.com");
+        mockMvc.perform(get("/api/v1/products").param("size", "2").with(user(admin)))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENTS_HEADER, "1"))
+                .andExpect(header().string(SqlStatisticsFilter.ENTITIES_HEADER, "0"))
+                .andExpect(jsonPath("$.items.length()").value(2))
+                .andExpect(jsonPath("$.items[0].id").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("商品A"))
+                .andExpect(jsonPath("$.items[0].price").value(200000))
+                .andExpect(jsonPath("$.items[0].image").value("/product-images/1/desktop.jpeg"))
+                .andExpect(jsonPath("$.items[0].brandName").value("ブランドA"))
+                .andExpect(jsonPath("$.items[0].categoryName").value("カテゴリーA"))
+                .andExpect(jsonPath("$.next").value(2));
+    }
+
+    /**
+    * 概要 商品情報一覧<br>
+    * 条件 前のページの最後のIDを指定した場合<br>
+    * 結果 続きを取得し、最後のページでは次のページのIDがnullになること
+    */
+    @Test
+    void 続きのページを取得すること() throws Exception {
+        mockMvc.perform(get("/api/v1/products").param("size", "2").param("after", "2")
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(3)))
+                .andExpect(jsonPath("$.next").value(nullValue()));
+    }
+
+    /**
+    * 概要 商品情報一覧<br>
+    * 条件 項目と検索キーワードを指定した場合<br>
+    * 結果 識別子と指定した項目だけを出力すること
+    */
+    @Test
+    void 指定した項目だけを出力すること() throws Exception {
+        mockMvc.perform(get("/api/v1/products").param("fields", "name").param("keyword", "商品B")
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"items\":[{\"id\":2,\"name\":\"商品B\"}],\"next\":null}", true));
+    }
+
+    /**
+    * 概要 ブランド情報一覧とカテゴリー情報一覧<br>
+    * 条件 項目を指定しない場合<br>
+    * 結果 全件を出力すること
+    */
+    @Test
+    void ブランドとカテゴリーを出力すること() throws Exception {
+        mockMvc.perform(get("/api/v1/brands").with(httpBasic("staff@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("ブランドA", "ブランドB", "ブランドC")));
+        mockMvc.perform(get("/api/v1/categories").param("keyword", "B").with(httpBasic("staff@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].name", contains("カテゴリーB")));
+    }
+
+    /**
+    * 概要 入力値の誤り<br>
+    * 条件 存在しない項目名や上限を超えるページの件数を指定した場合<br>
+    * 結果 400を返すこと
+    */
+    @Test
+    void 入力値が誤っている場合は400を返すこと() throws Exception {
+        mockMvc.perform(get("/api/v1/products").param("fields", "name,password")
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", containsString("password")));
+        mockMvc.perform(get("/api/v1/brands").param("size", "100000")
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+    * 概要 認証<br>
+    * 条件 認証情報がない場合と、BASIC認証で認証した場合<br>
+    * 結果 認証情報がない場合は401を返し、どちらの場合もセッションを作らないこと
+    */
+    @Test
+    void セッションを作らずに認証すること() throws Exception {
+        mockMvc.perform(get("/api/v1/products"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().exists(HttpHeaders.WWW_AUTHENTICATE));
+
+        MvcResult result = mockMvc.perform(get("/api/v1/brands").with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertThat(result.getRequest().getSession(false)).isNull();
+    }
+}
@@ -1,12 +1,14 @@
 package com.example.brand;
 
 import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -15,11 +17,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import com.example.entity.Brand;
+import com.example.search.SearchLimit;
 
 @ExtendWith(MockitoExtension.class) // JUnit5でMockito使うために書く
 class BrandControllerTest {
@@ -77,6 +81,50 @@ class BrandControllerTest {
 
     }
 
+    /**
+     * 概要 ブランド一覧表示画面の検証<br>
+     * 条件 検索結果が表示件数の上限を超えた場合<br>
+     * 結果 上限までの一覧と、上限を超えたことがmodelに格納されること
+     */
+    @Test
+    void listBrandsTruncatedTest() throws Exception {
+        // 準備
+        String keyword = "a";
+        List<Brand> brands = new SearchLimit(1).limit(Arrays.asList(new Brand(), new Brand()));
+
+        // スタブを設定
+        doReturn(brands).when(this.mockBrandService).listAll(keyword);
+
+        // 検証
+        this.mockMvc.perform(get("/brands").param("keyword", keyword))
+                .andExpect(status().isOk())
+                .andExpect(view().name("brands/brands"))
+                .andExpect(model().attribute("listBrands", hasSize(1)))
+                .andExpect(model().attribute("truncated", true));
+    }
+
+    /**
+     * 概要 ブランド一覧表示画面の検証<br>
+     * 条件 検索がタイムアウトした場合<br>
+     * 結果 空の一覧と、検索条件の絞り込みを促すメッセージがmodelに格納されること
+     */
+    @Test
+    void listBrandsTimeoutTest() throws Exception {
+        // 準備
+        String keyword = "a";
+
+        // スタブを設定
+        doThrow(new QueryTimeoutException("timeout")).when(this.mockBrandService).listAll(keyword);
+
+        // 検証
+        this.mockMvc.perform(get("/brands").param("keyword", keyword))
+                .andExpect(status().isOk())
+                .andExpect(view().name("brands/brands"))
+                .andExpect(model().attribute("listBrands", empty()))
+                .andExpect(model().attribute("truncated", false))
+                .andExpect(model().attribute("error_message", "検索に時間がかかったため中断しました。検索条件を絞り込んでください"));
+    }
+
     /**
      * ブランド新規登録画面の検証
      */
@@ -138,6 +186,26 @@ class BrandControllerTest {
                 .andExpect(model().attribute("brand", brand));
     }
 
+    /**
+     * 概要 ブランド詳細画面の検証<br>
+     * 条件 前回表示した画面のETagを If-None-Match に指定した場合<br>
+     * 結果 ブランド情報を取得せずに304を返すこと
+     */
+    @Test
+    void detailBrandNotModifiedTest() throws Exception {
+        // 準備
+        Long id = 1L;
+
+        // スタブを設定
+        doReturn("3").when(this.mockBrandService).getVersionTag(id);
+
+        // 検証
+        this.mockMvc.perform(get("/brands/detail/{id}", id).header("If-None-Match", "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"3\""));
+        verify(this.mockBrandService, never()).get(id);
+    }
+
     /**
      * ブランド編集画面の検証
      */
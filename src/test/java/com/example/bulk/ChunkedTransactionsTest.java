@@ -0,0 +1,191 @@
+package com.example.bulk;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.brand.BrandRepository;
+import com.example.category.CategoryRepository;
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.Product;
+import com.example.metrics.SqlStatisticsFilter;
+import com.example.product.ProductRepository;
+
+/**
+ * 一覧画面の一括削除・一括変更の検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ * 初期データの商品（画像のディレクトリがある）は削除しないよう、テストごとに作成した商品を対象にする
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slshop-bulk;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "slshop.bulk.chunk-size=2" })
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@WithUserDetails("admin@example.com")
+class ChunkedTransactionsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    /**
+    * 概要 商品の一括削除<br>
+    * 条件 3件の商品を選択し、1つのトランザクションで処理する件数が2件の場合<br>
+    * 結果 2回のSQLで削除し、削除した商品の画像のディレクトリも削除すること
+    */
+    @Test
+    void 商品を分割して削除すること() throws Exception {
+        Brand brand = brandRepository.save(new Brand("一括削除B"));
+        Category category = categoryRepository.save(new Category("一括削除C"));
+        Product first = createProduct("一括削除1", brand, category);
+        Product second = createProduct("一括削除2", brand, category);
+        Product third = createProduct("一括削除3", brand, category);
+        Path imageDir = Paths.get("product-images", third.getId().toString());
+        Files.createDirectories(imageDir);
+        Files.write(imageDir.resolve("image.jpeg"), new byte[] { 1 });
+
+        mockMvc.perform(post("/products/bulk/delete").with(csrf())
+                .param("ids", first.getId().toString(), second.getId().toString(), third.getId().toString()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(flash().attribute("success_message", "3件を削除しました"))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENTS_HEADER, "2"));
+
+        assertThat(productRepository.findAllById(
+                Arrays.asList(first.getId(), second.getId(), third.getId()))).isEmpty();
+        assertThat(imageDir).doesNotExist();
+    }
+
+    /**
+    * 概要 商品のブランドの一括変更<br>
+    * 条件 2件の商品を選択した場合<br>
+    * 結果 ブランドを変更し、版を更新すること
+    */
+    @Test
+    void 商品のブランドを変更すること() throws Exception {
+        Brand from = brandRepository.save(new Brand("変更前B"));
+        Brand to = brandRepository.save(new Brand("変更後B"));
+        Category category = categoryRepository.save(new Category("ブランド変更C"));
+        Product first = createProduct("ブランド変更1", from, category);
+        Product second = createProduct("ブランド変更2", from, category);
+
+        mockMvc.perform(post("/products/bulk/brand").with(csrf())
+                .param("ids", first.getId().toString(), second.getId().toString())
+                .param("brandId", to.getId().toString()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(flash().attribute("success_message", "2件のブランドを変更しました"));
+
+        Product actual = productRepository.findById(first.getId()).get();
+        assertThat(actual.getBrand().getId()).isEqualTo(to.getId());
+        assertThat(actual.getVersion()).isEqualTo(first.getVersion() + 1);
+        assertThat(productRepository.findById(second.getId()).get().getBrand().getId()).isEqualTo(to.getId());
+    }
+
+    /**
+    * 概要 商品一括変更画面表示<br>
+    * 条件 商品を選択した場合<br>
+    * 結果 選択した商品と、変更先のブランドとカテゴリーを表示すること
+    */
+    @Test
+    void 一括変更画面を表示すること() throws Exception {
+        mockMvc.perform(post("/products/bulk/edit").with(csrf()).param("ids", "1", "2"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("products/product_bulk_edit"))
+                .andExpect(content().string(containsString("選択した2件の商品")))
+                .andExpect(content().string(containsString("ブランドA")))
+                .andExpect(content().string(containsString("カテゴリーA")));
+    }
+
+    /**
+    * 概要 ブランドの一括削除<br>
+    * 条件 属する商品の移動先を指定した場合<br>
+    * 結果 商品を移動してからブランドを削除すること
+    */
+    @Test
+    void 商品を移動してブランドを削除すること() throws Exception {
+        Brand removed = brandRepository.save(new Brand("削除B"));
+        Brand kept = brandRepository.save(new Brand("移動先B"));
+        Category category = categoryRepository.save(new Category("移動C"));
+        Product product = createProduct("移動1", removed, category);
+
+        mockMvc.perform(post("/brands/bulk/delete").with(csrf())
+                .param("ids", removed.getId().toString())
+                .param("moveTo", kept.getId().toString()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(flash().attribute("success_message", "1件を削除しました"));
+
+        assertThat(brandRepository.findById(removed.getId())).isEmpty();
+        assertThat(productRepository.findById(product.getId()).get().getBrand().getId()).isEqualTo(kept.getId());
+    }
+
+    /**
+    * 概要 カテゴリーの一括削除<br>
+    * 条件 属する商品の移動先を指定しない場合<br>
+    * 結果 属する商品も削除すること
+    */
+    @Test
+    void 商品も含めてカテゴリーを削除すること() throws Exception {
+        Brand brand = brandRepository.save(new Brand("削除対象B"));
+        Category first = categoryRepository.save(new Category("削除C1"));
+        Category second = categoryRepository.save(new Category("削除C2"));
+        Product product = createProduct("削除対象1", brand, first);
+
+        mockMvc.perform(post("/categories/bulk/delete").with(csrf())
+                .param("ids", first.getId().toString(), second.getId().toString())
+                .param("moveTo", ""))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(flash().attribute("success_message", "2件を削除しました"));
+
+        assertThat(categoryRepository.findById(first.getId())).isEmpty();
+        assertThat(categoryRepository.findById(second.getId())).isEmpty();
+        assertThat(productRepository.findById(product.getId())).isEmpty();
+    }
+
+    /**
+    * 概要 ブランドの一括削除<br>
+    * 条件 削除するブランドを移動先に指定した場合<br>
+    * 結果 削除せずにエラーメッセージを表示すること
+    */
+    @Test
+    void 削除するブランドは移動先に指定できないこと() throws Exception {
+        Brand brand = brandRepository.save(new Brand("移動先誤りB"));
+
+        mockMvc.perform(post("/brands/bulk/delete").with(csrf())
+                .param("ids", brand.getId().toString())
+                .param("moveTo", brand.getId().toString()))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(flash().attribute("error_message", "削除するブランドは移動先に指定できません"));
+
+        assertThat(brandRepository.findById(brand.getId())).isPresent();
+    }
+
+    private Product createProduct(String name, Brand brand, Category category) {
+        Product product = new Product(name, "一括処理の確認");
+        product.setBrand(brand);
+        product.setCategory(category);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.cache;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.entity.User;
+import com.example.user.UserService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * 画面の部品のキャッシュの検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:slshop-fragment;MODE=Oracle;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+class CachedFragmentDialectTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FragmentCache fragmentCache;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserDetailsService userDetailsService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        fragmentCache.clear();
+    }
+
+    /**
+    * 概要 ヘッダー・サイドバーの生成結果の再利用<br>
+    * 条件 同じ管理者が画面を2回表示した場合<br>
+    * 結果 2回目はヘッダー・サイドバーを生成せず、ログアウト用のフォームは画面ごとのCSRFトークンで生成すること
+    */
+    @Test
+    @WithUserDetails("admin@example.com")
+    void 同じ管理者の2回目の表示では生成結果を再利用すること() throws Exception {
+        double hits = requests("hit");
+
+        mockMvc.perform(get("/brands"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("管理者太郎")))
+                .andExpect(content().string(containsString("name=\"_csrf\"")));
+        mockMvc.perform(get("/categories"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("管理者太郎")))
+                .andExpect(content().string(containsString("name=\"_csrf\"")));
+
+        assertThat(requests("hit") - hits).isEqualTo(2);
+    }
+
+    /**
+    * 概要 ヘッダー・サイドバーの生成結果の再利用<br>
+    * 条件 別の管理者が画面を表示した場合<br>
+    * 結果 他の管理者の生成結果を使わないこと
+    */
+    @Test
+    void 別の管理者には生成結果を再利用しないこと() throws Exception {
+        mockMvc.perform(get("/brands").with(user(userDetailsService.loadUserByUsername("admin@example.com"))))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("管理者太郎")));
+
+        mockMvc.perform(get("/brands").with(user(userDetailsService.loadUserByUsername("staff@example.com"))))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("アシスタント次郎")))
+                .andExpect(content().string(not(containsString("管理者太郎"))));
+    }
+
+    /**
+    * 概要 管理者情報の更新時の破棄<br>
+    * 条件 表示後に管理者情報を更新した場合<br>
+    * 結果 次の表示でヘッダー・サイドバーを生成し直すこと
+    */
+    @Test
+    @WithUserDetails("admin@example.com")
+    void 管理者情報を更新した場合は生成し直すこと() throws Exception {
+        mockMvc.perform(get("/brands")).andExpect(status().isOk());
+        double misses = requests("miss");
+
+        User user = userService.get(1L);
+        user.setPassword("");
+        userService.save(user);
+        mockMvc.perform(get("/brands")).andExpect(status().isOk());
+
+        assertThat(requests("miss") - misses).isEqualTo(2);
+    }
+
+    private double requests(String result) {
+        return registry.get("slshop.fragment.cache.requests").tag("result", result).functionCounter().count();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.cache;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.brand.BrandService;
+import com.example.entity.Brand;
+import com.example.entity.Product;
+import com.example.metrics.SqlStatisticsFilter;
+import com.example.product.ProductService;
+
+/**
+ * 版によるETagと楽観的ロックの検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:slshop-etag;MODE=Oracle;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@WithUserDetails("admin@example.com")
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BrandService brandService;
+
+    @Autowired
+    private ProductService productService;
+
+    /**
+    * 概要 詳細画面の条件付きGET<br>
+    * 条件 前回表示した画面のETagを If-None-Match に指定した場合<br>
+    * 結果 エンティティを読み込まずに304を返すこと
+    */
+    @Test
+    void 更新されていない場合は304を返すこと() throws Exception {
+        // ETagにはセッションのCSRFトークンが含まれるため、同じセッションで表示する
+        MockHttpSession session = new MockHttpSession();
+        String etag = mockMvc.perform(get("/brands/detail/{id}", 1).session(session))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, ConditionalGet.CACHE_CONTROL))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isNotNull();
+
+        mockMvc.perform(get("/brands/detail/{id}", 1).session(session).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENTS_HEADER, "1"))
+                .andExpect(header().string(SqlStatisticsFilter.ENTITIES_HEADER, "0"))
+                .andExpect(content().string(""));
+    }
+
+    /**
+    * 概要 詳細画面の条件付きGET<br>
+    * 条件 前回表示した後に、商品のブランドが更新された場合<br>
+    * 結果 商品詳細画面を再表示すること
+    */
+    @Test
+    void 関連するエンティティが更新された場合は再表示すること() throws Exception {
+        MockHttpSession session = new MockHttpSession();
+        Product product = productService.get(2L);
+        String etag = mockMvc.perform(get("/products/detail/{id}", product.getId()).session(session))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        Brand brand = brandService.get(product.getBrand().getId());
+        brand.setName("改名ブランド");
+        brandService.save(brand);
+
+        String actual = mockMvc.perform(get("/products/detail/{id}", product.getId()).session(session).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("改名ブランド")))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(actual).isNotEqualTo(etag);
+    }
+
+    /**
+    * 概要 編集画面からの保存<br>
+    * 条件 編集画面の表示後に、他の利用者が同じブランドを更新した場合<br>
+    * 結果 上書きせずに一覧画面へ戻り、エラーメッセージを表示すること
+    */
+    @Test
+    void 他の利用者が更新した場合は上書きしないこと() throws Exception {
+        Brand brand = brandService.get(3L);
+        Long staleVersion = brand.getVersion();
+        brand.setName("先に保存");
+        brandService.save(brand);
+
+        mockMvc.perform(post("/brands/save").with(csrf())
+                .param("id", "3")
+                .param("version", String.valueOf(staleVersion))
+                .param("name", "後から保存"))
+                .andExpect(status().isFound())
+                .andExpect(redirectedUrl("/brands"))
+                .andExpect(flash().attribute("error_message", "他の利用者が更新したため保存できませんでした。最新の内容を確認してください"));
+
+        assertThat(brandService.get(3L).getName()).isEqualTo("先に保存");
+    }
+}
@@ -0,0 +1,160 @@
+package com.example.cache;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.example.entity.Role;
+import com.example.entity.User;
+import com.example.security.SLShopUserDetails;
+import com.example.user.UserChangedEvent;
+
+class FragmentCacheTest {
+
+    private final FragmentCache target = new FragmentCache(true, 100);
+
+    /** 部品の生成回数 */
+    private final AtomicInteger renders = new AtomicInteger();
+
+    private final Supplier<String> renderer = () -> "<nav>" + renders.incrementAndGet() + "</nav>";
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    /**
+    * 概要 部品の生成結果の再利用<br>
+    * 条件 同じ管理者が同じ部品を2回取得した場合<br>
+    * 結果 1回だけ生成し、2回目は生成結果を再利用すること
+    */
+    @Test
+    void 同じ管理者と権限の場合は生成結果を再利用すること() {
+        login(1L, "管理者");
+
+        assertThat(target.get("header", renderer)).isEqualTo("<nav>1</nav>");
+        assertThat(target.get("header", renderer)).isEqualTo("<nav>1</nav>");
+        assertThat(renders).hasValue(1);
+    }
+
+    /**
+    * 概要 部品の生成結果の再利用<br>
+    * 条件 部品名・管理者・権限のいずれかが異なる場合<br>
+    * 結果 それぞれ生成すること
+    */
+    @Test
+    void 部品名と管理者と権限ごとに生成すること() {
+        login(1L, "管理者");
+        target.get("header", renderer);
+        target.get("sidebar", renderer);
+        login(2L, "管理者");
+        target.get("header", renderer);
+        login(1L, "管理者", "アシスタント");
+        target.get("header", renderer);
+
+        assertThat(renders).hasValue(4);
+    }
+
+    /**
+    * 概要 部品の生成結果の再利用<br>
+    * 条件 ログインしていない場合<br>
+    * 結果 毎回生成すること
+    */
+    @Test
+    void ログインしていない場合は毎回生成すること() {
+        target.get("header", renderer);
+        target.get("header", renderer);
+
+        assertThat(renders).hasValue(2);
+    }
+
+    /**
+    * 概要 管理者情報の更新時の破棄<br>
+    * 条件 管理者情報が更新された場合<br>
+    * 結果 その管理者の生成結果だけを破棄すること
+    */
+    @Test
+    void 更新された管理者の生成結果を破棄すること() {
+        login(2L, "アシスタント");
+        target.get("header", renderer);
+        login(1L, "管理者");
+        target.get("header", renderer);
+
+        target.onUserChanged(new UserChangedEvent(1L));
+
+        assertThat(target.get("header", renderer)).isEqualTo("<nav>3</nav>");
+        login(2L, "アシスタント");
+        assertThat(target.get("header", renderer)).isEqualTo("<nav>1</nav>");
+    }
+
+    /**
+    * 概要 更新前の管理者情報でログイン中のセッション<br>
+    * 条件 管理者情報の更新後に、更新前の情報でログイン中のセッションが部品を生成した場合<br>
+    * 結果 更新後の情報でログインしたセッションでは、その生成結果を使わずに生成すること
+    */
+    @Test
+    void 管理者情報のバージョンごとに生成すること() {
+        target.onUserChanged(new UserChangedEvent(1L));
+        login(1L, 0L, "管理者");
+        assertThat(target.get("header", renderer)).isEqualTo("<nav>1</nav>");
+
+        login(1L, 1L, "管理者");
+        assertThat(target.get("header", renderer)).isEqualTo("<nav>2</nav>");
+        login(1L, 0L, "管理者");
+        assertThat(target.get("header", renderer)).isEqualTo("<nav>1</nav>");
+    }
+
+    /**
+    * 概要 キャッシュの無効化<br>
+    * 条件 キャッシュを使わない設定の場合<br>
+    * 結果 毎回生成すること
+    */
+    @Test
+    void キャッシュを使わない場合は毎回生成すること() {
+        FragmentCache disabled = new FragmentCache(false, 100);
+        login(1L, "管理者");
+
+        disabled.get("header", renderer);
+        disabled.get("header", renderer);
+
+        assertThat(renders).hasValue(2);
+    }
+
+    /**
+     * 指定した管理者・権限でログインした状態にする
+     *
+     * @param id 管理者ID
+     * @param roleNames ロール名
+     */
+    private static void login(Long id, String... roleNames) {
+        login(id, 0L, roleNames);
+    }
+
+    /**
+     * 指定した管理者情報のバージョン・権限でログインした状態にする
+     *
+     * @param id 管理者ID
+     * @param version 管理者情報のバージョン
+     * @param roleNames ロール名
+     */
+    private static void login(Long id, Long version, String... roleNames) {
+        User user = new User("user" + id + "@example.com", "管理者" + id);
+        user.setId(id);
+        user.setVersion(version);
+        for (String roleName : roleNames) {
+            Role role = new Role();
+            role.setId((long) roleName.hashCode());
+            role.setName(roleName);
+            user.addRole(role);
+        }
+        SLShopUserDetails principal = new SLShopUserDetails(user);
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+    }
+}
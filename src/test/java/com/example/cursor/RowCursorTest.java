@@ -0,0 +1,117 @@
+package com.example.cursor;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+@ExtendWith(MockitoExtension.class)
+class RowCursorTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private HttpServletResponse response;
+
+    private final TransactionDefinition definition = new DefaultTransactionDefinition();
+
+    /**
+    * 概要 1件ずつの読み込み<br>
+    * 条件 5件を2件単位で最後まで読み込んだ場合<br>
+    * 結果 2件ごとに画面を送信してエンティティを破棄し、最後にトランザクションを確定すること
+    */
+    @Test
+    void 一定件数ごとに送信と破棄を行うこと() throws IOException {
+        SimpleTransactionStatus status = new SimpleTransactionStatus();
+        doReturn(status).when(transactionManager).getTransaction(definition);
+        RowCursor<Integer> target = cursor(Stream.of(1, 2, 3, 4, 5));
+
+        List<Integer> actual = new ArrayList<>();
+        target.forEachRemaining(actual::add);
+
+        assertThat(actual).containsExactly(1, 2, 3, 4, 5);
+        assertThat(target.getCount()).isEqualTo(5);
+        verify(response, times(2)).flushBuffer();
+        verify(entityManager, times(2)).clear();
+        verify(transactionManager).commit(status);
+    }
+
+    /**
+    * 概要 検索の開始<br>
+    * 条件 要素を取得していない場合<br>
+    * 結果 トランザクションを開始せず、検索も行わないこと
+    */
+    @Test
+    void 要素を取得するまで検索しないこと() {
+        RowCursor<Integer> target = new RowCursor<>(() -> {
+            throw new AssertionError("検索してはいけない");
+        }, transactionManager, definition, entityManager, response, 2);
+
+        target.close();
+
+        verifyNoInteractions(transactionManager);
+        assertThat(target.hasNext()).isFalse();
+    }
+
+    /**
+    * 概要 検索の終了<br>
+    * 条件 画面の生成が途中で終了した場合<br>
+    * 結果 検索を閉じて、トランザクションをロールバックすること
+    */
+    @Test
+    void 途中で終了した場合はロールバックすること() {
+        SimpleTransactionStatus status = new SimpleTransactionStatus();
+        doReturn(status).when(transactionManager).getTransaction(definition);
+        List<String> closed = new ArrayList<>();
+        RowCursor<Integer> target = cursor(Stream.of(1, 2, 3).onClose(() -> closed.add("closed")));
+
+        target.next();
+        target.close();
+
+        assertThat(closed).containsExactly("closed");
+        verify(transactionManager).rollback(status);
+        verify(transactionManager, never()).commit(status);
+        assertThat(target.hasNext()).isFalse();
+    }
+
+    /**
+    * 概要 画面の送信<br>
+    * 条件 クライアントが切断した場合<br>
+    * 結果 例外で画面の生成を中断すること
+    */
+    @Test
+    void クライアントが切断した場合は中断すること() throws IOException {
+        doReturn(new SimpleTransactionStatus()).when(transactionManager).getTransaction(definition);
+        doThrow(new IOException("Broken pipe")).when(response).flushBuffer();
+        RowCursor<Integer> target = cursor(Stream.of(1, 2, 3));
+
+        target.next();
+        target.next();
+
+        assertThatThrownBy(target::next).isInstanceOf(UncheckedIOException.class);
+    }
+
+    private RowCursor<Integer> cursor(Stream<Integer> rows) {
+        return new RowCursor<>(() -> rows, transactionManager, definition, entityManager, response, 2);
+    }
+}
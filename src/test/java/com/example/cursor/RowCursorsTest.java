@@ -0,0 +1,90 @@
+package com.example.cursor;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.product.ProductService;
+
+/**
+ * 一覧の全件表示の検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slshop-cursor;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "slshop.cursor.chunk-size=2" })
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@WithUserDetails("admin@example.com")
+class RowCursorsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @SpyBean
+    private ProductService productService;
+
+    /**
+    * 概要 商品一覧の全件表示<br>
+    * 条件 全件表示を指定した場合<br>
+    * 結果 全件を表示し、生成の途中から送信を始め、トランザクションが残らないこと
+    */
+    @Test
+    void 全件を1件ずつ読み込んで表示すること() throws Exception {
+        MvcResult result = mockMvc.perform(get("/products").param("all", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("商品A")))
+                .andExpect(content().string(containsString("商品C")))
+                .andExpect(content().string(not(containsString("件のみ表示しています"))))
+                .andReturn();
+
+        assertThat(result.getResponse().isCommitted()).isTrue();
+        assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+        assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+    }
+
+    /**
+    * 概要 商品一覧の全件表示<br>
+    * 条件 検索キーワードと全件表示を指定した場合<br>
+    * 結果 検索結果を表示すること
+    */
+    @Test
+    void 検索結果を1件ずつ読み込んで表示すること() throws Exception {
+        mockMvc.perform(get("/products").param("keyword", "商品A").param("all", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("商品A")))
+                .andExpect(content().string(not(containsString("商品B"))));
+    }
+
+    /**
+    * 概要 商品一覧の全件表示の検索のタイムアウト<br>
+    * 条件 検索キーワードと全件表示を指定し、検索がタイムアウトした場合<br>
+    * 結果 画面の生成を始める前に中断し、件数を制限した一覧と同じく絞り込みを促すこと
+    */
+    @Test
+    void 検索がタイムアウトした場合は絞り込みを促すこと() throws Exception {
+        doThrow(new QueryTimeoutException("timeout")).when(productService).stream("タイムアウト", null, null);
+
+        mockMvc.perform(get("/products").param("keyword", "タイムアウト").param("all", "true"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("listProducts", empty()))
+                .andExpect(model().attribute("error_message", "検索に時間がかかったため中断しました。検索条件を絞り込んでください"));
+
+        assertThat(TransactionSynchronizationManager.isActualTransactionActive()).isFalse();
+        assertThat(TransactionSynchronizationManager.getResourceMap()).isEmpty();
+    }
+}
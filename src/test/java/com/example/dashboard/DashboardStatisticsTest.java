@@ -0,0 +1,191 @@
+package com.example.dashboard;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.entity.Product;
+import com.example.entity.User;
+import com.example.metrics.SqlStatisticsFilter;
+import com.example.product.ProductRepository;
+import com.example.product.ProductService;
+import com.example.user.RoleRepository;
+import com.example.user.UserService;
+
+/**
+ * ダッシュボードの集計値の検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ * 初期データの商品・管理者は変更しないよう、テストごとに作成したものを対象にする
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:slshop-dashboard;MODE=Oracle;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@WithUserDetails("admin@example.com")
+class DashboardStatisticsTest {
+
+    /** テストで使う権限（アシスタント） */
+    private static final long ROLE_ID = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DashboardStatistics dashboardStatistics;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /** 作成する商品・管理者の名前の連番（テストのインスタンスをまたいで重複させない） */
+    private static int sequence;
+
+    /**
+    * 概要 商品の集計値の増減<br>
+    * 条件 商品を登録し、金額を変更してから削除した場合<br>
+    * 結果 確定するたびに件数・価格帯・平均に反映され、削除後は登録前の値に戻ること
+    */
+    @Test
+    void 商品の登録と変更と削除が集計値に反映されること() throws Exception {
+        DashboardSummary before = dashboardStatistics.summary();
+
+        Product product = createProduct(1234);
+        DashboardSummary created = dashboardStatistics.summary();
+        assertThat(created.getProductCount()).isEqualTo(before.getProductCount() + 1);
+        assertThat(created.getPriceRanges().get(1).getCount()).isEqualTo(before.getPriceRanges().get(1).getCount() + 1);
+        assertThat(created.getAverageLength()).isNotEqualTo(before.getAverageLength());
+
+        Product changed = productRepository.findById(product.getId()).get();
+        changed.setPrice(60000);
+        productService.save(changed);
+        DashboardSummary updated = dashboardStatistics.summary();
+        assertThat(updated.getProductCount()).isEqualTo(created.getProductCount());
+        assertThat(updated.getPriceRanges().get(1).getCount()).isEqualTo(before.getPriceRanges().get(1).getCount());
+        assertThat(updated.getPriceRanges().get(4).getCount()).isEqualTo(before.getPriceRanges().get(4).getCount() + 1);
+
+        productService.delete(product.getId());
+        DashboardSummary deleted = dashboardStatistics.summary();
+        assertThat(deleted.getProductCount()).isEqualTo(before.getProductCount());
+        assertThat(deleted.getPriceRanges()).extracting(DashboardSummary.PriceRange::getCount)
+                .containsExactlyElementsOf(counts(before));
+        assertThat(deleted.getAveragePrice()).isCloseTo(before.getAveragePrice(), within(1e-6));
+        assertThat(deleted.getAverageWeight()).isCloseTo(before.getAverageWeight(), within(1e-6));
+    }
+
+    /**
+    * 概要 商品の集計値の増減<br>
+    * 条件 金額を一括で変更した場合<br>
+    * 結果 全件を集計し直さずに、変更前後の金額の差分が確定時に価格帯に反映されること
+    */
+    @Test
+    void 一括の金額変更の差分を反映すること() throws Exception {
+        Product product = createProduct(500);
+        DashboardSummary before = dashboardStatistics.summary();
+
+        transactionTemplate().executeWithoutResult(
+                status -> productService.changePrice(Collections.singletonList(product.getId()), 200000));
+
+        DashboardSummary changed = dashboardStatistics.summary();
+        assertThat(changed.getPriceRanges().get(0).getCount()).isEqualTo(before.getPriceRanges().get(0).getCount() - 1);
+        assertThat(changed.getPriceRanges().get(5).getCount()).isEqualTo(before.getPriceRanges().get(5).getCount() + 1);
+        assertThat(changed.getProductCount()).isEqualTo(before.getProductCount());
+        assertThat(changed.getLoadedAt()).isEqualTo(before.getLoadedAt());
+    }
+
+    /**
+    * 概要 定期的な照合<br>
+    * 条件 通知を経由せずにDBの金額を変更した場合<br>
+    * 結果 照合で全件を集計し直し、DBの値に合わせること
+    */
+    @Test
+    void 照合で反映漏れを直すこと() throws Exception {
+        Product product = createProduct(700);
+        long cheap = dashboardStatistics.summary().getPriceRanges().get(0).getCount();
+
+        // 通知しない変更（増減の反映漏れ）
+        transactionTemplate().executeWithoutResult(
+                status -> productRepository.updatePrice(Collections.singletonList(product.getId()), 300000));
+        assertThat(dashboardStatistics.summary().getPriceRanges().get(0).getCount()).isEqualTo(cheap);
+
+        dashboardStatistics.reconcile();
+        assertThat(dashboardStatistics.summary().getPriceRanges().get(0).getCount()).isEqualTo(cheap - 1);
+    }
+
+    /**
+    * 概要 権限ごとの管理者数の増減<br>
+    * 条件 権限を持つ管理者を登録してから削除した場合<br>
+    * 結果 その権限の管理者数が増え、削除後は元に戻ること
+    */
+    @Test
+    void 管理者の登録と削除が権限ごとの人数に反映されること() throws Exception {
+        String role = roleRepository.findById(ROLE_ID).get().getName();
+        long before = dashboardStatistics.summary().getUsersByRole().get(role);
+
+        User user = new User("dashboard" + (++sequence) + "@example.com", "集計" + sequence);
+        user.setPassword("password");
+        user.addRole(roleRepository.findById(ROLE_ID).get());
+        User saved = userService.save(user);
+        assertThat(dashboardStatistics.summary().getUsersByRole()).containsEntry(role, before + 1);
+
+        userService.delete(saved.getId());
+        assertThat(dashboardStatistics.summary().getUsersByRole()).containsEntry(role, before);
+    }
+
+    /**
+    * 概要 HOME画面の表示<br>
+    * 条件 変更のないまま2回表示した場合<br>
+    * 結果 集計値を表示し、2回目はSQLを実行しないこと
+    */
+    @Test
+    void HOME画面は変更がなければSQLを実行しないこと() throws Exception {
+        mockMvc.perform(get("/home"))
+                .andExpect(status().isOk())
+                .andExpect(model().attributeExists("dashboard"));
+
+        mockMvc.perform(get("/home"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(SqlStatisticsFilter.STATEMENTS_HEADER, "0"));
+    }
+
+    private static List<Long> counts(DashboardSummary summary) {
+        return summary.getPriceRanges().stream().map(DashboardSummary.PriceRange::getCount).collect(Collectors.toList());
+    }
+
+    private TransactionTemplate transactionTemplate() {
+        return new TransactionTemplate(transactionManager);
+    }
+
+    private Product createProduct(int price) {
+        Product product = new Product("集計" + (++sequence), "集計の確認");
+        product.setPrice(price);
+        product.setLength(12.5);
+        product.setWidth(3.5);
+        product.setHeight(2);
+        product.setWeight(0.75);
+        return productService.save(product);
+    }
+}
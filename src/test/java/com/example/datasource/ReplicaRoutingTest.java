@@ -0,0 +1,157 @@
+package com.example.datasource;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import com.example.brand.BrandService;
+import com.example.entity.Brand;
+import com.example.security.SLShopUserDetailsService;
+
+/**
+ * レプリカへの振り分けの検証
+ * プライマリとレプリカの代わりに2つの組み込みDBを使う（レプリカにはテストでスキーマを作成し、別のデータを入れる）
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slshop-primary;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "slshop.datasource.replica.enabled=true",
+        "slshop.datasource.replica.url=jdbc:h2:mem:slshop-replica;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "slshop.datasource.replica.username=sa",
+        "slshop.datasource.replica.driver-class-name=org.h2.Driver" })
+@ActiveProfiles("perf")
+class ReplicaRoutingTest {
+
+    @Autowired
+    private BrandService brandService;
+
+    @Autowired
+    private SLShopUserDetailsService userDetailsService;
+
+    /** プライマリ（検証用に直接接続する） */
+    private final DataSource primaryDataSource = new DriverManagerDataSource("jdbc:h2:mem:slshop-primary;MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", "");
+
+    /** レプリカ（検証用に直接接続する） */
+    private static final DataSource replicaDataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:slshop-replica;MODE=Oracle;DB_CLOSE_DELAY=-1", "sa", "");
+
+    @BeforeAll
+    static void createReplica() {
+        new ResourceDatabasePopulator(new ClassPathResource("db/perf/schema.sql")).execute(replicaDataSource);
+    }
+
+    @BeforeEach
+    void setUp() {
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+        replica.update("DELETE FROM BRANDS");
+        replica.update("INSERT INTO BRANDS (ID, NAME) VALUES (1, 'レプリカ')");
+        replica.update("DELETE FROM USERS");
+        replica.update("INSERT INTO USERS (ID, EMAIL, PASSWORD, NAME) VALUES (1, 'replica@example.com', 'x', 'レプリカ')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        new JdbcTemplate(primaryDataSource).update("DELETE FROM BRANDS WHERE NAME = '新ブランド'");
+    }
+
+    /**
+    * 概要 参照の振り分け<br>
+    * 条件 読み取り専用のサービスのメソッドを呼び出した場合<br>
+    * 結果 レプリカのデータが取得されること
+    */
+    @Test
+    void 参照はレプリカで行われること() throws Exception {
+        assertThat(names(brandService.listAll())).containsExactly("レプリカ");
+        assertThat(brandService.get(1L).getName()).isEqualTo("レプリカ");
+    }
+
+    /**
+    * 概要 ログイン時の利用者の取得の振り分け<br>
+    * 条件 処理の種類ごとの接続プールを使わず、レプリカだけを設定した場合<br>
+    * 結果 レプリカで取得され、プライマリにだけ存在する利用者は見つからないこと
+    */
+    @Test
+    void ログイン時の利用者の取得はレプリカで行われること() {
+        assertThat(userDetailsService.loadUserByUsername("replica@example.com").getUsername())
+                .isEqualTo("replica@example.com");
+        assertThatThrownBy(() -> userDetailsService.loadUserByUsername("admin@example.com"))
+                .isInstanceOf(UsernameNotFoundException.class);
+    }
+
+    /**
+    * 概要 更新の振り分け<br>
+    * 条件 登録処理を呼び出した場合<br>
+    * 結果 プライマリに登録され、レプリカには登録されないこと
+    */
+    @Test
+    void 更新はプライマリで行われること() {
+        brandService.save(new Brand("新ブランド"));
+
+        assertThat(count(primaryDataSource, "新ブランド")).isEqualTo(1);
+        assertThat(count(replicaDataSource, "新ブランド")).isZero();
+    }
+
+    /**
+    * 概要 更新直後の参照<br>
+    * 条件 ログイン済みのセッションで登録した後に一覧を取得した場合<br>
+    * 結果 プライマリで参照され、登録したデータが取得されること
+    */
+    @Test
+    void 更新した利用者の参照はプライマリで行われること() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.getSession(true);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        assertThat(names(brandService.listAll())).containsExactly("レプリカ");
+
+        brandService.save(new Brand("新ブランド"));
+
+        assertThat(names(brandService.listAll())).contains("新ブランド").doesNotContain("レプリカ");
+
+        // 別のセッションではレプリカで参照される
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        assertThat(names(brandService.listAll())).containsExactly("レプリカ");
+    }
+
+    /**
+    * 概要 セッションを使わないリクエストの更新<br>
+    * 条件 セッションのないリクエスト（APIなど）で登録した後に一覧を取得した場合<br>
+    * 結果 更新の記録のためにセッションを作らず、参照はレプリカで行われること
+    */
+    @Test
+    void セッションのないリクエストではセッションを作らないこと() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        brandService.save(new Brand("新ブランド"));
+
+        assertThat(request.getSession(false)).isNull();
+        assertThat(names(brandService.listAll())).containsExactly("レプリカ");
+    }
+
+    private static List<String> names(List<Brand> brands) {
+        return brands.stream().map(Brand::getName).collect(Collectors.toList());
+    }
+
+    private static int count(DataSource dataSource, String name) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM BRANDS WHERE NAME = ?", Integer.class, name);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.datasource;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.brand.BrandService;
+import com.example.security.SLShopUserDetailsService;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 処理の種類ごとの接続プールの検証
+ * 接続プールごとの接続の使用回数（hikaricp.connections.usage）で、使われたプールを確認する
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slshop-pools;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "slshop.datasource.workload-pools.enabled=true",
+        "slshop.datasource.workload-pools.read.hikari.maximum-pool-size=1",
+        "slshop.datasource.workload-pools.read.hikari.connection-timeout=250" })
+@ActiveProfiles("perf")
+class WorkloadPoolsTest {
+
+    @Autowired
+    private SLShopUserDetailsService userDetailsService;
+
+    @Autowired
+    private BrandService brandService;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+    * 概要 認証の接続プール<br>
+    * 条件 ログイン時の利用者の取得を行った場合<br>
+    * 結果 認証用のプールの接続が使われること
+    */
+    @Test
+    void 認証は認証用のプールを使うこと() {
+        long auth = usage("auth");
+        long read = usage("read");
+
+        userDetailsService.loadUserByUsername("admin@example.com");
+
+        assertThat(usage("auth")).isGreaterThan(auth);
+        assertThat(usage("read")).isEqualTo(read);
+    }
+
+    /**
+    * 概要 参照・一括処理・更新の接続プール<br>
+    * 条件 一覧の取得、一覧の出力を行った場合<br>
+    * 結果 それぞれ参照用、一括処理用のプールの接続が使われること
+    */
+    @Test
+    void 参照と一括処理はそれぞれのプールを使うこと() {
+        long read = usage("read");
+        long bulk = usage("bulk");
+        long write = usage("write");
+
+        brandService.listAll();
+        assertThat(usage("read")).isGreaterThan(read);
+
+        brandService.export(null, row -> {
+        });
+        assertThat(usage("bulk")).isGreaterThan(bulk);
+        assertThat(usage("write")).isEqualTo(write);
+    }
+
+    /**
+    * 概要 接続プールの分離<br>
+    * 条件 参照用のプールの接続を使い切っている場合<br>
+    * 結果 参照は接続の取得がタイムアウトし、認証は影響を受けずに行えること
+    */
+    @Test
+    void 参照のプールを使い切っても認証できること() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        // 別のスレッドで参照用のプールの唯一の接続を使い続ける
+        Thread holder = new Thread(() -> readOnly.executeWithoutResult(status -> {
+            brandService.listAll();
+            holding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        holder.start();
+        try {
+            assertThat(holding.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> brandService.listAll()).isInstanceOf(DataAccessException.class);
+            assertThat(userDetailsService.loadUserByUsername("admin@example.com").getUsername())
+                    .isEqualTo("admin@example.com");
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+    }
+
+    private long usage(String pool) {
+        Timer timer = registry.find("hikaricp.connections.usage").tag("pool", pool).timer();
+        return timer == null ? 0 : timer.count();
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.export;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+class ExportWriterTest {
+
+    /**
+    * 概要 CSV形式の出力<br>
+    * 条件 カンマ・ダブルクォートを含む値を出力する場合<br>
+    * 結果 値がダブルクォートで囲まれ、BOMと列名が先頭に出力されること
+    */
+    @Test
+    void CSV形式で出力できること() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportWriter writer = new ExportWriter(out, ExportFormat.CSV, false, "ID", "NAME")) {
+            writer.write(1L, "商品A");
+            writer.write(2L, "a,\"b\"");
+            writer.write(3L, null);
+        }
+
+        assertThat(out.toString("UTF-8"))
+                .isEqualTo("\uFEFFID,NAME\r\n1,商品A\r\n2,\"a,\"\"b\"\"\"\r\n3,\r\n");
+    }
+
+    /**
+    * 概要 JSON Lines形式の出力<br>
+    * 条件 数値・文字列・nullを含む行を出力する場合<br>
+    * 結果 1行に1つのJSONオブジェクトが出力されること
+    */
+    @Test
+    void JSONLines形式で出力できること() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportWriter writer = new ExportWriter(out, ExportFormat.JSONL, false, "ID", "NAME", "PRICE")) {
+            writer.write(1L, "商品A", 1.5);
+            writer.write(2L, null, 0.0);
+        }
+
+        assertThat(out.toString("UTF-8")).isEqualTo(
+                "{\"ID\":1,\"NAME\":\"商品A\",\"PRICE\":1.5}\n{\"ID\":2,\"NAME\":null,\"PRICE\":0.0}\n");
+    }
+
+    /**
+    * 概要 gzip圧縮した出力<br>
+    * 条件 gzip圧縮を指定した場合<br>
+    * 結果 展開すると圧縮しない場合と同じ内容になること
+    */
+    @Test
+    void gzip圧縮して出力できること() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ExportWriter writer = new ExportWriter(out, ExportFormat.CSV, true, "ID", "NAME")) {
+            writer.write(1L, "ブランドA");
+        }
+
+        byte[] unzipped = StreamUtils.copyToByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())));
+        assertThat(new String(unzipped, StandardCharsets.UTF_8)).isEqualTo("\uFEFFID,NAME\r\n1,ブランドA\r\n");
+    }
+
+    /**
+    * 概要 出力の途中での失敗<br>
+    * 条件 gzip圧縮して出力する途中で例外が発生した場合<br>
+    * 結果 例外がそのまま投げられ、gzipの末尾を書かないため展開に失敗すること
+    */
+    @Test
+    void 途中で失敗した場合は完全なファイルの形にしないこと() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StreamingResponseBody body = ExportWriter.body(ExportFormat.CSV, true, new String[] { "ID", "NAME" },
+                writer -> {
+                    writer.write(1L, "ブランドA");
+                    throw new IllegalStateException("検索に失敗");
+                });
+
+        assertThatThrownBy(() -> body.writeTo(out)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> StreamUtils.copyToByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())))).isInstanceOf(EOFException.class);
+    }
+
+    /**
+    * 概要 出力形式の取得<br>
+    * 条件 未対応の出力形式を指定した場合<br>
+    * 結果 例外が発生すること
+    */
+    @Test
+    void 未対応の出力形式の場合例外が発生すること() {
+        assertThat(ExportFormat.of("JSONL")).isEqualTo(ExportFormat.JSONL);
+        assertThatThrownBy(() -> ExportFormat.of("xml")).isInstanceOf(RuntimeException.class);
+    }
+}
@@ -0,0 +1,139 @@
+package com.example.logging;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.AppenderBase;
+
+class DiscardingAsyncAppenderTest {
+
+    /** 出力先（releaseまで出力を止める） */
+    private BlockingAppender blocking;
+
+    private DiscardingAsyncAppender target;
+
+    private Logger logger;
+
+    @BeforeEach
+    void setUp() {
+        LoggerContext context = new LoggerContext();
+        blocking = new BlockingAppender();
+        blocking.setContext(context);
+        blocking.start();
+
+        target = new DiscardingAsyncAppender();
+        target.setContext(context);
+        target.setQueueSize(4);
+        target.setDiscardingThreshold(2);
+        target.addAppender(blocking);
+
+        logger = context.getLogger("test");
+        logger.setLevel(Level.TRACE);
+        logger.addAppender(target);
+    }
+
+    @AfterEach
+    void tearDown() {
+        blocking.release.countDown();
+        target.stop();
+    }
+
+    /**
+    * 概要 キューの空きが少ない場合の破棄<br>
+    * 条件 出力が止まってキューの空きが閾値を下回った状態で、DEBUG・INFO・WARNのログを出力した場合<br>
+    * 結果 DEBUGのみ破棄され、破棄した件数が数えられること
+    */
+    @Test
+    void DEBUG以下のログのみ破棄されること() throws Exception {
+        target.start();
+        // 1件目は出力先で止まり、残りの3件でキューの空きが閾値を下回る
+        logger.info("1");
+        assertThat(blocking.started.await(5, TimeUnit.SECONDS)).isTrue();
+        logger.info("2");
+        logger.info("3");
+        logger.info("4");
+
+        logger.debug("破棄される");
+        logger.trace("破棄される");
+        logger.info("5");
+
+        assertThat(target.getDiscardedCount()).isEqualTo(2);
+        assertThat(target.getNumberOfElementsInQueue()).isEqualTo(4);
+
+        blocking.release.countDown();
+        target.stop();
+        assertThat(blocking.messages()).containsExactly("1", "2", "3", "4", "5");
+    }
+
+    /**
+    * 概要 破棄レベルの上限<br>
+    * 条件 破棄レベルにWARNを指定した場合<br>
+    * 結果 INFOとして扱われ、WARNのログは破棄されないこと
+    */
+    @Test
+    void WARN以上のログは破棄されないこと() throws Exception {
+        target.setDiscardLevel("WARN");
+        target.start();
+        assertThat(target.getDiscardLevel()).isEqualTo("INFO");
+
+        logger.info("1");
+        assertThat(blocking.started.await(5, TimeUnit.SECONDS)).isTrue();
+        logger.warn("2");
+        logger.warn("3");
+        logger.warn("4");
+        logger.warn("5");
+        logger.info("破棄される");
+
+        // キューに空きがないため、WARNは空きができるまで待つ
+        Thread writer = new Thread(() -> logger.error("6"));
+        writer.start();
+        writer.join(200);
+        assertThat(writer.isAlive()).isTrue();
+
+        blocking.release.countDown();
+        writer.join(5000);
+        target.stop();
+        assertThat(target.getDiscardedCount()).isEqualTo(1);
+        assertThat(blocking.messages()).containsExactly("1", "2", "3", "4", "5", "6");
+    }
+
+    /**
+     * release されるまで出力を止めるアペンダー
+     */
+    private static class BlockingAppender extends AppenderBase<ILoggingEvent> {
+
+        final CountDownLatch started = new CountDownLatch(1);
+
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final List<ILoggingEvent> events = new CopyOnWriteArrayList<>();
+
+        @Override
+        protected void append(ILoggingEvent event) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(event);
+        }
+
+        List<String> messages() {
+            return events.stream().map(ILoggingEvent::getFormattedMessage).collect(Collectors.toList());
+        }
+    }
+}
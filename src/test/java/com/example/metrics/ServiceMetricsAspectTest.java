@@ -0,0 +1,72 @@
+package com.example.metrics;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Collections;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.data.crossstore.ChangeSetPersister.NotFoundException;
+
+import com.example.brand.BrandRepository;
+import com.example.brand.BrandService;
+import com.example.search.SearchLimit;
+
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ServiceMetricsAspectTest {
+
+    private SimpleMeterRegistry registry;
+
+    private BrandRepository brandRepository;
+
+    private BrandService target;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        brandRepository = mock(BrandRepository.class);
+        AspectJProxyFactory factory = new AspectJProxyFactory(new BrandService(brandRepository, new SearchLimit(200), null, null, null));
+        factory.setProxyTargetClass(true);
+        factory.addAspect(new ServiceMetricsAspect(registry));
+        target = factory.getProxy();
+    }
+
+    /**
+    * 概要 サービスの処理時間の計測<br>
+    * 条件 サービスのメソッドを2回呼び出した場合<br>
+    * 結果 クラス名・メソッド名ごとのタイマーに2回分記録されること
+    */
+    @Test
+    void サービスの処理時間が記録されること() {
+        when(brandRepository.findAll()).thenReturn(Collections.emptyList());
+
+        target.listAll();
+        target.listAll();
+
+        Timer timer = registry.find(ServiceMetricsAspect.METRIC_NAME)
+                .tags("class", "BrandService", "method", "listAll", "exception", "none").timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(2);
+    }
+
+    /**
+    * 概要 サービスの処理時間の計測<br>
+    * 条件 サービスのメソッドが例外をスローした場合<br>
+    * 結果 例外はそのままスローされ、例外のクラス名をタグに持つタイマーに記録されること
+    */
+    @Test
+    void 例外の場合は例外名で記録されること() {
+        when(brandRepository.countById(1L)).thenReturn(0L);
+
+        assertThatThrownBy(() -> target.get(1L)).isInstanceOf(NotFoundException.class);
+
+        Timer timer = registry.find(ServiceMetricsAspect.METRIC_NAME)
+                .tags("method", "get", "exception", "NotFoundException").timer();
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+/**
+ * テスト中に処理したリクエストごとのSQL実行件数の上限
+ * いずれかのリクエストが上限を超えた場合はテストを失敗にする（MockMvcのテストで使う）
+ *
+ * <pre>
+ * &#64;Test
+ * &#64;SqlStatementBudget(3)
+ * void 商品一覧() throws Exception {
+ *     mockMvc.perform(get("/products"));
+ * }
+ * </pre>
+ */
+@Target({ ElementType.TYPE, ElementType.METHOD })
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@ExtendWith(SqlStatementBudgetExtension.class)
+public @interface SqlStatementBudget {
+
+    /**
+     * 1リクエストあたりのSQL実行件数の上限
+     */
+    int value();
+}
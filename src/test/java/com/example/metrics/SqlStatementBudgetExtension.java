@@ -0,0 +1,55 @@
+package com.example.metrics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.extension.AfterEachCallback;
+import org.junit.jupiter.api.extension.BeforeEachCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+/**
+ * {@link SqlStatementBudget}の検証
+ * テストの実行中に終了したリクエストのSQL実行状況を集め、テストの終了後に上限と比較する
+ */
+class SqlStatementBudgetExtension implements BeforeEachCallback, AfterEachCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace
+            .create(SqlStatementBudgetExtension.class);
+
+    @Override
+    public void beforeEach(ExtensionContext context) {
+        List<SqlStatistics> recorded = new CopyOnWriteArrayList<>();
+        Consumer<SqlStatistics> listener = recorded::add;
+        SqlStatistics.addListener(listener);
+        context.getStore(NAMESPACE).put("recorded", recorded);
+        context.getStore(NAMESPACE).put("listener", listener);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void afterEach(ExtensionContext context) {
+        SqlStatistics.removeListener(context.getStore(NAMESPACE).remove("listener", Consumer.class));
+        List<SqlStatistics> recorded = context.getStore(NAMESPACE).remove("recorded", List.class);
+
+        int budget = AnnotationSupport.findAnnotation(context.getRequiredTestMethod(), SqlStatementBudget.class)
+                .orElseGet(() -> AnnotationSupport
+                        .findAnnotation(context.getRequiredTestClass(), SqlStatementBudget.class).get())
+                .value();
+        List<SqlStatistics> exceeded = recorded.stream()
+                .filter(statistics -> statistics.getStatements() > budget)
+                .collect(Collectors.toList());
+        if (!exceeded.isEmpty()) {
+            throw new AssertionError("SQLの実行件数が上限（" + budget + "件）を超えました\n"
+                    + exceeded.stream().map(SqlStatementBudgetExtension::describe).collect(Collectors.joining("\n")));
+        }
+    }
+
+    private static String describe(SqlStatistics statistics) {
+        Map.Entry<String, Integer> mostRepeated = statistics.getMostRepeated();
+        return statistics + "（最多: " + mostRepeated.getValue() + "回 " + mostRepeated.getKey() + "）";
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.metrics;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.example.brand.BrandRepository;
+import com.example.category.CategoryRepository;
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.Product;
+import com.example.product.ProductService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * リクエストごとのSQL実行状況の検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:slshop-sql;MODE=Oracle;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@WithUserDetails("admin@example.com")
+class SqlStatisticsFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductService productService;
+
+    /**
+    * 概要 SQL実行状況の出力<br>
+    * 条件 商品一覧画面を表示した場合<br>
+    * 結果 SQLの実行件数・エンティティの読み込み件数がヘッダーとメトリクスに出力されること
+    */
+    @Test
+    void SQLの実行件数がヘッダーとメトリクスに出力されること() throws Exception {
+        // 同じアプリケーションコンテキストの他のテストも商品一覧画面を表示するため、表示前からの増分を確認する
+        long before = count("/products");
+        MvcResult result = mockMvc.perform(get("/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(SqlStatisticsFilter.STATEMENTS_HEADER))
+                .andReturn();
+
+        assertThat(Integer.parseInt(result.getResponse().getHeader(SqlStatisticsFilter.STATEMENTS_HEADER))).isPositive();
+        assertThat(count("/products")).isEqualTo(before + 1);
+    }
+
+    /**
+    * 概要 SQL実行件数の上限<br>
+    * 条件 ブランド・カテゴリーの異なる商品を登録し、商品一覧画面を表示した場合<br>
+    * 結果 商品ごとにブランド・カテゴリーを取得するSQLが増えず、上限内に収まること
+    */
+    @Test
+    @SqlStatementBudget(3)
+    void 商品一覧のSQL実行件数が上限内であること() throws Exception {
+        // 初期データの商品は全て同じブランド・カテゴリーのため、組み合わせごとに商品を登録する（リクエスト外のSQLは数えない）
+        // 同じDBを使う他のテストに影響しないよう、登録した商品は終了時に削除する
+        List<Long> created = new ArrayList<>();
+        try {
+            for (Brand brand : brandRepository.findAll()) {
+                for (Category category : categoryRepository.findAll()) {
+                    Product product = new Product("SQL件数" + brand.getId() + "-" + category.getId(), "SQL件数の確認");
+                    product.setPrice(1000);
+                    product.setBrand(brand);
+                    product.setCategory(category);
+                    created.add(productService.save(product).getId());
+                }
+            }
+
+            mockMvc.perform(get("/products"))
+                    .andExpect(status().isOk())
+                    .andExpect(model().attribute("listProducts", hasItems(
+                            hasProperty("name", is("SQL件数3-3")), hasProperty("name", is("SQL件数2-1")))));
+        } finally {
+            if (!created.isEmpty()) {
+                productService.deleteAll(created);
+            }
+        }
+    }
+
+    /**
+    * 概要 SQL実行件数の上限<br>
+    * 条件 ブランド一覧・カテゴリー一覧画面を表示した場合<br>
+    * 結果 1件のSQLで表示できること
+    */
+    @Test
+    @SqlStatementBudget(1)
+    void ブランド一覧とカテゴリー一覧のSQL実行件数が上限内であること() throws Exception {
+        mockMvc.perform(get("/brands")).andExpect(status().isOk());
+        mockMvc.perform(get("/categories")).andExpect(status().isOk());
+    }
+
+    /**
+    * 概要 SQL実行件数の上限<br>
+    * 条件 管理者一覧画面を表示した場合<br>
+    * 結果 管理者ごとにロールを取得するSQLが増えず、上限内に収まること
+    */
+    @Test
+    @SqlStatementBudget(3)
+    void 管理者一覧のSQL実行件数が上限内であること() throws Exception {
+        mockMvc.perform(get("/users")).andExpect(status().isOk());
+    }
+
+    private long count(String uri) {
+        DistributionSummary summary = registry.find("slshop.sql.statements").tag("uri", uri).summary();
+        return summary != null ? summary.count() : 0;
+    }
+}
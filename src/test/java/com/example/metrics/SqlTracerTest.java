@@ -0,0 +1,131 @@
+package com.example.metrics;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+class SqlTracerTest {
+
+    private SqlTracer target;
+
+    @AfterEach
+    void tearDown() {
+        target.endRequest();
+        target.close();
+    }
+
+    /**
+    * 概要 SQLの正規化<br>
+    * 条件 リテラル・INリスト・改行を含むSQLの場合<br>
+    * 結果 リテラルが?に、INリストが(?)に置き換えられ、空白がまとめられること
+    */
+    @Test
+    void SQLが正規化されること() {
+        target = new SqlTracer(0, 500, 10, false);
+
+        assertThat(SqlTracer.normalize("select *\n  from products where name = 'a''b' and id in (?, ?, ?) and price > 100"))
+                .isEqualTo("select * from products where name = ? and id in (?) and price > ?");
+    }
+
+    /**
+    * 概要 遅いSQLの記録<br>
+    * 条件 バインド値を記録する設定で、サンプリング対象外のリクエストで閾値より遅いSQLと速いSQLを実行した場合<br>
+    * 結果 遅いSQLのみがバインド値とともに記録されること
+    */
+    @Test
+    void 遅いSQLはバインド値とともに記録されること() throws Exception {
+        target = new SqlTracer(0, 500, 10, true);
+        target.beginRequest();
+
+        target.afterQuery(execution(600), Collections.singletonList(query("select * from products where id = ?", 1L)));
+        target.afterQuery(execution(1), Collections.singletonList(query("select * from brands", null)));
+
+        Map<String, Object> report = awaitReport(1);
+        assertThat((List<?>) report.get("byCount")).hasSize(1);
+        SqlTracer.SlowQuery slowQuery = (SqlTracer.SlowQuery) ((List<?>) report.get("slowQueries")).get(0);
+        assertThat(slowQuery.getSql()).isEqualTo("select * from products where id = ?");
+        assertThat(slowQuery.getParameters()).containsExactly(Collections.singletonList(1L));
+    }
+
+    /**
+    * 概要 遅いSQLの記録<br>
+    * 条件 バインド値を記録しない設定（既定）で、閾値より遅いSQLを実行した場合<br>
+    * 結果 SQLは記録され、バインド値は記録されないこと
+    */
+    @Test
+    void 既定では遅いSQLのバインド値を記録しないこと() throws Exception {
+        target = new SqlTracer(0, 500, 10, false);
+        target.beginRequest();
+
+        target.afterQuery(execution(600), Collections.singletonList(query("select * from users where email = ?", "a@example.com")));
+
+        Map<String, Object> report = awaitReport(1);
+        SqlTracer.SlowQuery slowQuery = (SqlTracer.SlowQuery) ((List<?>) report.get("slowQueries")).get(0);
+        assertThat(slowQuery.getSql()).isEqualTo("select * from users where email = ?");
+        assertThat(slowQuery.getParameters()).isNull();
+    }
+
+    /**
+    * 概要 サンプリング<br>
+    * 条件 サンプリング対象のリクエストで、同じ形のSQLを2回実行した場合<br>
+    * 結果 正規化したSQLごとに実行回数と合計時間が集計されること
+    */
+    @Test
+    void サンプリング対象のSQLが集計されること() throws Exception {
+        target = new SqlTracer(1, 500, 10, false);
+        target.beginRequest();
+
+        target.afterQuery(execution(3), Collections.singletonList(query("select * from brands where id = 1", null)));
+        target.afterQuery(execution(5), Collections.singletonList(query("select * from brands where id = 2", null)));
+
+        Map<String, Object> report = awaitReport(2);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> row = ((List<Map<String, Object>>) report.get("byTotalTime")).get(0);
+        assertThat(row.get("sql")).isEqualTo("select * from brands where id = ?");
+        assertThat(row.get("count")).isEqualTo(2L);
+        assertThat(row.get("totalMillis")).isEqualTo(8L);
+        assertThat(row.get("maxMillis")).isEqualTo(5L);
+        assertThat((List<?>) report.get("slowQueries")).isEmpty();
+    }
+
+    private static ExecutionInfo execution(long elapsed) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsed);
+        return execution;
+    }
+
+    private static QueryInfo query(String sql, Object parameter) {
+        QueryInfo query = new QueryInfo(sql);
+        if (parameter != null) {
+            query.getParametersList().add(Arrays.asList(new ParameterSetOperation(null, new Object[] { 1, parameter })));
+        }
+        return query;
+    }
+
+    /**
+     * 集計用のスレッドが指定した件数を集計するまで待つ
+     */
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> awaitReport(long count) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            Map<String, Object> report = target.report(10);
+            long total = ((List<Map<String, Object>>) report.get("byCount")).stream()
+                    .mapToLong(row -> (Long) row.get("count")).sum();
+            if (total >= count) {
+                return report;
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("集計されませんでした");
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.perf;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+class CatalogDataGeneratorTest {
+
+    /**
+    * 概要 データ生成の再現性<br>
+    * 条件 同じシード値で2回生成した場合<br>
+    * 結果 同じデータが生成されること
+    */
+    @Test
+    void 同じシード値からは同じデータが生成されること() {
+        EmbeddedDatabase first = createDatabase("gen1");
+        EmbeddedDatabase second = createDatabase("gen2");
+        try {
+            new CatalogDataGenerator(first, 42L, 4, 100).generate(5, 3, 25_000, 30, "password");
+            new CatalogDataGenerator(second, 42L, 2, 333).generate(5, 3, 25_000, 30, "password");
+
+            String sql = "SELECT ID, NAME, DESCRIPTION, PRICE, LENGTH, WIDTH, HEIGHT, WEIGHT, BRAND_ID, CATEGORY_ID "
+                    + "FROM PRODUCTS ORDER BY ID";
+            List<Map<String, Object>> expected = new JdbcTemplate(first).queryForList(sql);
+            assertThat(expected).hasSize(25_000);
+            assertThat(new JdbcTemplate(second).queryForList(sql)).isEqualTo(expected);
+            assertThat(new JdbcTemplate(second).queryForList("SELECT * FROM USERS_ROLES ORDER BY USER_ID, ROLE_ID"))
+                    .isEqualTo(new JdbcTemplate(first).queryForList("SELECT * FROM USERS_ROLES ORDER BY USER_ID, ROLE_ID"));
+        } finally {
+            first.shutdown();
+            second.shutdown();
+        }
+    }
+
+    /**
+    * 概要 生成データの妥当性<br>
+    * 条件 データを生成した場合<br>
+    * 結果 各項目がエンティティの桁数の範囲内であり、シーケンスが生成済みIDの後ろから採番されること
+    */
+    @Test
+    void 生成データが項目の桁数の範囲内であること() {
+        EmbeddedDatabase database = createDatabase("gen3");
+        try {
+            new CatalogDataGenerator(database, 7L, 2, 500).generate(10, 10, 2_000, 50, "password");
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT MAX(LENGTH(NAME)) FROM PRODUCTS", Integer.class)).isLessThanOrEqualTo(10);
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT MAX(LENGTH(DESCRIPTION)) FROM PRODUCTS", Integer.class)).isLessThanOrEqualTo(50);
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM PRODUCTS WHERE PRICE < 100 OR PRICE > 500000 OR WIDTH > LENGTH",
+                    Integer.class)).isZero();
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT MIN(LENGTH(EMAIL)) FROM USERS", Integer.class)).isGreaterThanOrEqualTo(10);
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM USERS U WHERE NOT EXISTS "
+                            + "(SELECT 1 FROM USERS_ROLES R WHERE R.USER_ID = U.ID)", Integer.class)).isZero();
+            assertThat(jdbcTemplate.queryForObject(
+                    "SELECT PRODUCTS_ID_SEQ.NEXTVAL FROM DUAL", Long.class)).isEqualTo(2_001L);
+        } finally {
+            database.shutdown();
+        }
+    }
+
+    private EmbeddedDatabase createDatabase(String name) {
+        return new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .setName(name + ";MODE=Oracle")
+                .addScript("db/perf/schema.sql")
+                .build();
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.perf;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.example.brand.BrandRepository;
+import com.example.category.CategoryRepository;
+import com.example.entity.Category;
+import com.example.entity.User;
+import com.example.product.ProductRepository;
+import com.example.user.UserRepository;
+import com.example.user.UserService;
+
+/**
+ * perfプロファイル（組み込みDB）の検証
+ */
+@SpringBootTest
+@ActiveProfiles("perf")
+class PerfDataLoaderTest {
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserService userService;
+
+    /**
+    * 概要 初期データの投入<br>
+    * 条件 perfプロファイルで起動した場合<br>
+    * 結果 testDataのCSVの内容が投入されていること
+    */
+    @Test
+    void テストデータが投入されていること() {
+        assertThat(brandRepository.count()).isEqualTo(3L);
+        assertThat(categoryRepository.findByName("カテゴリーA")).isNotNull();
+        assertThat(productRepository.findByName("商品A").getBrand().getName()).isEqualTo("ブランドA");
+
+        User admin = userRepository.findByEmail("admin@example.com");
+        assertThat(admin.hasRole("管理者")).isTrue();
+        assertThat(admin.hasRole("アシスタント")).isTrue();
+    }
+
+    /**
+    * 概要 シーケンスの採番<br>
+    * 条件 初期データ投入後に新規登録した場合<br>
+    * 結果 投入済みのIDと重複しないIDが採番されること
+    */
+    @Test
+    void 投入済みのIDと重複しないIDが採番されること() {
+        Category saved = categoryRepository.save(new Category("カテゴリーZ"));
+        assertThat(saved.getId()).isGreaterThan(3L);
+        categoryRepository.delete(saved);
+    }
+
+    /**
+    * 概要 管理者情報の出力<br>
+    * 条件 ロールを複数持つ管理者がいる場合<br>
+    * 結果 ロールがまとめられ、管理者1人につき1行になること
+    */
+    @Test
+    void 管理者1人につき1行出力されること() {
+        List<Object[]> rows = new ArrayList<>();
+        userService.export(null, rows::add);
+
+        assertThat(rows).hasSize(2);
+        assertThat(rows.get(0)).containsExactly(1L, "admin@example.com", "管理者太郎", "管理者 アシスタント");
+        assertThat(rows.get(1)).containsExactly(2L, "staff@example.com", "アシスタント次郎", "アシスタント");
+    }
+}
@@ -0,0 +1,188 @@
+package com.example.pricing;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.brand.BrandRepository;
+import com.example.category.CategoryRepository;
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.PriceSchedule;
+import com.example.entity.Product;
+import com.example.product.ProductRepository;
+
+/**
+ * 金額の変更予定の実行の検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ * 初期データの商品は変更しないよう、テストごとに作成した商品を対象にする
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slshop-schedule;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "slshop.bulk.chunk-size=2" })
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@WithUserDetails("admin@example.com")
+class PriceSchedulerTest {
+
+    /** 予定の適用を待つ時間の上限（ミリ秒） */
+    private static final long WAIT_MILLIS = 5000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PriceScheduler priceScheduler;
+
+    @Autowired
+    private PriceScheduleService priceScheduleService;
+
+    @Autowired
+    private PriceScheduleRepository priceScheduleRepository;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    /**
+    * 概要 金額の変更の予約<br>
+    * 条件 3件の商品の金額を、期間を指定して予約した場合<br>
+    * 結果 開始の日時に金額を変更して版を更新し、終了の日時に元の金額へ戻すこと
+    */
+    @Test
+    void 期間を指定した予約を適用すること() throws Exception {
+        Product first = createProduct("予約1", 1000);
+        Product second = createProduct("予約2", 2000);
+        Product third = createProduct("予約3", 3000);
+        LocalDateTime start = LocalDateTime.now().plusSeconds(1);
+
+        mockMvc.perform(post("/products/bulk/schedule").with(csrf())
+                .param("ids", first.getId().toString(), second.getId().toString(), third.getId().toString())
+                .param("price", "500")
+                .param("effectiveAt", start.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .param("endAt", start.plusSeconds(1).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(flash().attribute("success_message", "3件の金額の変更を予約しました"));
+        assertThat(productRepository.findById(first.getId()).get().getPrice()).isEqualTo(1000);
+
+        awaitPrice(third, 500);
+        assertThat(productRepository.findById(third.getId()).get().getVersion()).isEqualTo(third.getVersion() + 1);
+
+        awaitPrice(first, 1000);
+        awaitPrice(second, 2000);
+        awaitPrice(third, 3000);
+    }
+
+    /**
+    * 概要 起動時の予定の読み込み<br>
+    * 条件 期限を過ぎた未適用の予定と、適用済みの予定がある場合<br>
+    * 結果 読み込み後、未適用の予定だけを適用すること
+    */
+    @Test
+    void 未適用の予定を読み込んで適用すること() throws Exception {
+        Product pending = createProduct("読込1", 1000);
+        Product applied = createProduct("読込2", 1000);
+        PriceSchedule done = new PriceSchedule(applied, 10, LocalDateTime.now().minusMinutes(1));
+        done.setAppliedAt(LocalDateTime.now().minusMinutes(1));
+        priceScheduleRepository.saveAll(Arrays.asList(
+                new PriceSchedule(pending, 800, LocalDateTime.now().minusMinutes(1)), done));
+
+        priceScheduler.load();
+
+        awaitPrice(pending, 800);
+        assertThat(productRepository.findById(applied.getId()).get().getPrice()).isEqualTo(1000);
+    }
+
+    /**
+    * 概要 同じ商品の予定の重なり<br>
+    * 条件 同じ商品に期限を過ぎた予定が2件ある場合<br>
+    * 結果 変更する日時の遅い予定の金額にし、両方の予定を適用済みにすること
+    */
+    @Test
+    void 重なった予定は遅い方を適用すること() {
+        Product product = createProduct("重複1", 1000);
+        LocalDateTime now = LocalDateTime.now();
+        PriceSchedule later = priceScheduleRepository.save(new PriceSchedule(product, 700, now.minusSeconds(1)));
+        PriceSchedule earlier = priceScheduleRepository.save(new PriceSchedule(product, 900, now.minusSeconds(2)));
+
+        int changed = priceScheduleService.apply(Arrays.asList(
+                pending(later), pending(earlier)));
+
+        assertThat(changed).isEqualTo(1);
+        assertThat(productRepository.findById(product.getId()).get().getPrice()).isEqualTo(700);
+        assertThat(priceScheduleRepository.findById(earlier.getId()).get().getAppliedAt()).isNotNull();
+        // 適用済みの予定は再度適用しない
+        assertThat(priceScheduleService.apply(Arrays.asList(pending(earlier)))).isZero();
+    }
+
+    /**
+    * 概要 金額の変更の予約<br>
+    * 条件 終了の日時が開始の日時より前の場合<br>
+    * 結果 予約せずにエラーメッセージを表示すること
+    */
+    @Test
+    void 終了が開始より前の予約はできないこと() throws Exception {
+        Product product = createProduct("誤り1", 1000);
+        LocalDateTime start = LocalDateTime.now().plusHours(1);
+
+        mockMvc.perform(post("/products/bulk/schedule").with(csrf())
+                .param("ids", product.getId().toString())
+                .param("price", "500")
+                .param("effectiveAt", start.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))
+                .param("endAt", start.minusMinutes(1).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(flash().attribute("error_message", "入力に誤りがあります"));
+    }
+
+    private PendingPriceChange pending(PriceSchedule schedule) {
+        return new PendingPriceChange(schedule.getId(), schedule.getProduct().getId(), schedule.getPrice(),
+                PriceScheduleService.toEpochMilli(schedule.getEffectiveAt()));
+    }
+
+    private void awaitPrice(Product product, int price) throws InterruptedException {
+        await(() -> productRepository.findById(product.getId()).get().getPrice() == price);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("timed out").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private Product createProduct(String name, int price) {
+        Brand brand = brandRepository.findByName("予約B");
+        if (brand == null) {
+            brand = brandRepository.save(new Brand("予約B"));
+        }
+        Category category = categoryRepository.findByName("予約C");
+        if (category == null) {
+            category = categoryRepository.save(new Category("予約C"));
+        }
+        Product product = new Product(name, "金額の予約の確認");
+        product.setPrice(price);
+        product.setBrand(brand);
+        product.setCategory(category);
+        return productRepository.save(product);
+    }
+}
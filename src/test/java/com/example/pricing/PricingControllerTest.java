@@ -0,0 +1,214 @@
+package com.example.pricing;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.example.brand.BrandRepository;
+import com.example.category.CategoryRepository;
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.Product;
+import com.example.product.ProductRepository;
+
+/**
+ * 一括金額変更の検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ * 初期データの商品は変更しないよう、テストごとに作成したブランド・カテゴリーの商品を対象にする
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slshop-pricing;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "slshop.bulk.chunk-size=2" })
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@WithUserDetails("admin@example.com")
+class PricingControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private PricingService pricingService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    /** 作成するブランド・カテゴリー・商品の名前の連番（テストのインスタンスをまたいで重複させない） */
+    private static int sequence;
+
+    /**
+    * 概要 一括金額変更の試算<br>
+    * 条件 10%値上げし、10円単位で四捨五入、上限を5000円にした場合<br>
+    * 結果 対象と変更される件数、上限で止めた件数、変更前後の合計と金額ごとの変更内容を表示し、商品は変更しないこと
+    */
+    @Test
+    void 試算結果を表示すること() throws Exception {
+        Brand brand = brandRepository.save(new Brand("試算B"));
+        Category category = categoryRepository.save(new Category("試算C"));
+        Product first = createProduct("試算1", 1000, brand, category);
+        createProduct("試算2", 1234, brand, category);
+        createProduct("試算3", 5000, brand, category);
+
+        MvcResult result = mockMvc.perform(post("/pricing/preview").with(csrf())
+                .param("scope", "BRAND")
+                .param("targetId", brand.getId().toString())
+                .param("method", "PERCENT")
+                .param("value", "10")
+                .param("unit", "10")
+                .param("rounding", "HALF_UP")
+                .param("ceiling", "5000"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("pricing/pricing"))
+                .andReturn();
+
+        PriceSummary summary = (PriceSummary) result.getModelAndView().getModel().get("summary");
+        assertThat(summary.getTargets()).isEqualTo(3);
+        assertThat(summary.getChanged()).isEqualTo(2);
+        assertThat(summary.getAtFloor()).isEqualTo(0);
+        assertThat(summary.getAtCeiling()).isEqualTo(1);
+        assertThat(summary.getTotalBefore()).isEqualTo(7234);
+        assertThat(summary.getTotalAfter()).isEqualTo(1100 + 1360 + 5000);
+        assertThat(summary.getChanges()).extracting(PriceChange::getBefore).containsExactly(1000, 1234);
+        assertThat(summary.getChanges()).extracting(PriceChange::getAfter).containsExactly(1100, 1360);
+        assertThat(productRepository.findById(first.getId()).get().getPrice()).isEqualTo(1000);
+    }
+
+    /**
+    * 概要 一括金額変更処理<br>
+    * 条件 カテゴリーの商品を100円値下げし、1つのトランザクションで処理する件数が2件の場合<br>
+    * 結果 金額が変わる商品だけを変更して版を更新し、対象外の商品は変更しないこと
+    */
+    @Test
+    void 金額を変更すること() throws Exception {
+        Brand brand = brandRepository.save(new Brand("変更B"));
+        Category category = categoryRepository.save(new Category("変更C"));
+        Category other = categoryRepository.save(new Category("対象外C"));
+        Product first = createProduct("変更1", 1000, brand, category);
+        Product outside = createProduct("対象外1", 1000, brand, other);
+        Product second = createProduct("変更2", 50, brand, category);
+        Product zero = createProduct("変更3", 0, brand, category);
+
+        mockMvc.perform(post("/pricing/apply").with(csrf())
+                .param("scope", "CATEGORY")
+                .param("targetId", category.getId().toString())
+                .param("method", "AMOUNT")
+                .param("value", "-100"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/products"))
+                .andExpect(flash().attribute("success_message", "2件の金額を変更しました"));
+
+        Product actual = productRepository.findById(first.getId()).get();
+        assertThat(actual.getPrice()).isEqualTo(900);
+        assertThat(actual.getVersion()).isEqualTo(first.getVersion() + 1);
+        // 下限（0円）で止める
+        assertThat(productRepository.findById(second.getId()).get().getPrice()).isEqualTo(0);
+        // 金額が変わらない商品は版を更新しない
+        assertThat(productRepository.findById(zero.getId()).get().getVersion()).isEqualTo(zero.getVersion());
+        assertThat(productRepository.findById(outside.getId()).get().getPrice()).isEqualTo(1000);
+    }
+
+    /**
+    * 概要 端数の処理と下限<br>
+    * 条件 1999円の商品を500円値下げし、100円単位で切り上げ・切り捨て・四捨五入・下限1450円の場合<br>
+    * 結果 試算と変更の結果がそれぞれ1500円、1400円、1500円、1450円になること
+    */
+    @Test
+    void 端数を処理して下限で止めること() {
+        PriceRule rule = new PriceRule();
+        rule.setMethod(PriceRule.Method.AMOUNT);
+        rule.setValue(new BigDecimal("-500"));
+        rule.setUnit(100);
+        rule.setRounding(PriceRule.Rounding.UP);
+        assertAdjusted(rule, 1999, 1500);
+
+        rule.setRounding(PriceRule.Rounding.DOWN);
+        assertAdjusted(rule, 1999, 1400);
+
+        rule.setRounding(PriceRule.Rounding.HALF_UP);
+        assertAdjusted(rule, 1999, 1500);
+
+        rule.setRounding(PriceRule.Rounding.DOWN);
+        rule.setFloor(1450);
+        assertAdjusted(rule, 1999, 1450);
+    }
+
+    /**
+    * 概要 割合での変更<br>
+    * 条件 15%値下げし、10円単位で四捨五入・切り上げする場合<br>
+    * 結果 試算と変更の結果が同じになること
+    */
+    @Test
+    void 割合の試算と変更の結果が一致すること() {
+        PriceRule rule = new PriceRule();
+        rule.setMethod(PriceRule.Method.PERCENT);
+        rule.setValue(new BigDecimal("-15"));
+        rule.setUnit(10);
+        // 1230 * 0.85 = 1045.5
+        assertAdjusted(rule, 1230, 1050);
+        rule.setRounding(PriceRule.Rounding.UP);
+        // 1100 * 0.85 = 935
+        assertAdjusted(rule, 1100, 940);
+        rule.setValue(new BigDecimal("7.5"));
+        rule.setRounding(PriceRule.Rounding.HALF_UP);
+        // 998 * 1.075 = 1072.85
+        assertAdjusted(rule, 998, 1070);
+    }
+
+    /**
+    * 概要 一括金額変更の試算<br>
+    * 条件 -100%以下の割合を指定した場合<br>
+    * 結果 試算せずにエラーメッセージを表示すること
+    */
+    @Test
+    void 誤った条件は試算しないこと() throws Exception {
+        mockMvc.perform(post("/pricing/preview").with(csrf())
+                .param("scope", "BRAND")
+                .param("targetId", "1")
+                .param("method", "PERCENT")
+                .param("value", "-100"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("error_message", "入力に誤りがあります"))
+                .andExpect(model().attributeDoesNotExist("summary"));
+    }
+
+    /**
+     * 新しいブランドの1件の商品を対象にして、試算の結果と変更した結果を確認する
+     */
+    private void assertAdjusted(PriceRule rule, int price, int expected) {
+        Brand brand = brandRepository.save(new Brand("端数B" + (++sequence)));
+        Category category = categoryRepository.save(new Category("端数C" + sequence));
+        Product product = createProduct("端数" + sequence, price, brand, category);
+        rule.setScope(PriceRule.Scope.BRAND);
+        rule.setTargetId(brand.getId());
+
+        assertThat(pricingService.summarize(rule).getTotalAfter()).isEqualTo(expected);
+        pricingService.apply(rule);
+        assertThat(productRepository.findById(product.getId()).get().getPrice()).isEqualTo(expected);
+    }
+
+    private Product createProduct(String name, int price, Brand brand, Category category) {
+        Product product = new Product(name, "金額変更の確認");
+        product.setPrice(price);
+        product.setBrand(brand);
+        product.setCategory(category);
+        return productRepository.save(product);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.pricing;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTest {
+
+    /**
+    * 概要 期限の来た予定の取り出し<br>
+    * 条件 目盛りの間隔が100ミリ秒で、期限の異なる予定を追加した場合<br>
+    * 結果 期限より前には取り出さず、期限を過ぎた最初の目盛りで取り出すこと
+    */
+    @Test
+    void 期限の来た予定だけを取り出すこと() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 1000);
+        wheel.add(1250, "a");
+        wheel.add(1300, "b");
+        wheel.add(1301, "c");
+
+        assertThat(wheel.advance(1299)).isEmpty();
+        assertThat(wheel.advance(1300)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.advance(1399)).isEmpty();
+        assertThat(wheel.advance(1400)).containsExactly("c");
+        assertThat(wheel.size()).isZero();
+    }
+
+    /**
+    * 概要 輪を一周するより先の予定<br>
+    * 条件 輪の大きさ（8目盛り）を超える期限の予定を追加した場合<br>
+    * 結果 同じ位置を通過しても期限まで残すこと
+    */
+    @Test
+    void 一周より先の予定は期限まで残すこと() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 0);
+        wheel.add(300, "near");
+        wheel.add(1100, "far");
+
+        assertThat(wheel.advance(300)).containsExactly("near");
+        assertThat(wheel.advance(1099)).isEmpty();
+        assertThat(wheel.size()).isEqualTo(1);
+        assertThat(wheel.advance(1100)).containsExactly("far");
+    }
+
+    /**
+    * 概要 期限を過ぎた予定の追加と、長時間の停止<br>
+    * 条件 追加時点で期限を過ぎている予定と、一周以上先まで時間を進めた場合<br>
+    * 結果 次に時間を進めたときに取り出し、一周以上進めた場合も期限の来た予定を全て取り出すこと
+    */
+    @Test
+    void 期限を過ぎた予定も取り出すこと() {
+        TimingWheel<String> wheel = new TimingWheel<>(100, 8, 1000);
+        wheel.advance(2000);
+        wheel.add(500, "late");
+        wheel.add(2500, "a");
+        wheel.add(4000, "b");
+        wheel.add(9000, "c");
+
+        assertThat(wheel.advance(2100)).containsExactly("late");
+        assertThat(wheel.advance(5000)).containsExactlyInAnyOrder("a", "b");
+        assertThat(wheel.advance(9000)).containsExactly("c");
+    }
+
+    /**
+    * 概要 輪の大きさの指定<br>
+    * 条件 2のべき乗でない大きさを指定した場合<br>
+    * 結果 IllegalArgumentExceptionが発生すること
+    */
+    @Test
+    void 輪の大きさは2のべき乗であること() {
+        assertThatThrownBy(() -> new TimingWheel<String>(100, 10, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.product;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CatalogSnapshotFileTest {
+
+    @TempDir
+    Path directory;
+
+    /**
+    * 概要 ファイルの書き出しと読み込み<br>
+    * 条件 ブランド・カテゴリーのない行と、バージョンの分からない行を含む配列を書き出して読み込んだ場合<br>
+    * 結果 全ての列と辞書が書き出す前と一致し、一時ファイルが残らないこと
+    */
+    @Test
+    void 書き出した配列を読み込めること() throws IOException {
+        ColumnarProducts columns = new ColumnarProducts.Builder()
+                .add(1, 3, 1000, 10.5, 20, 30, 1.25, 7L, 3L)
+                .add(5, 0, 2000, 1, 2, 3, 4, null, 3L)
+                .add(9, ColumnarProducts.UNKNOWN_VERSION, 0, 0, 0, 0, 0, 8L, null)
+                .build();
+        Path path = directory.resolve("catalog.snapshot");
+
+        CatalogSnapshotFile.write(path, columns, 123456789L);
+        CatalogSnapshotFile file = CatalogSnapshotFile.read(path);
+
+        assertThat(file.getWrittenAt()).isEqualTo(123456789L);
+        ColumnarProducts read = file.getColumns();
+        assertThat(read.ids).containsExactly(1, 5, 9);
+        assertThat(read.versions).containsExactly(3, 0, ColumnarProducts.UNKNOWN_VERSION);
+        assertThat(read.prices).containsExactly(1000, 2000, 0);
+        assertThat(read.lengths).containsExactly(10.5, 1, 0);
+        assertThat(read.weights).containsExactly(1.25, 4, 0);
+        assertThat(read.brandIds).containsExactly(columns.brandIds);
+        assertThat(read.categoryIds).containsExactly(columns.categoryIds);
+
+        ProductCriteria criteria = new ProductCriteria();
+        criteria.setCategoryId(3L);
+        assertThat(new ProductAggregate(read.aggregate(read.bounds(criteria), new long[1])).getCount()).isEqualTo(2);
+        assertThat(Files.list(directory)).containsExactly(path);
+    }
+
+    /**
+    * 概要 読み込めないファイル<br>
+    * 条件 ファイルがない場合と、内容の一部が変わった場合、途中までしかない場合<br>
+    * 結果 ファイルがない場合はnullを返し、それ以外は例外を投げること
+    */
+    @Test
+    void 壊れたファイルを読み込まないこと() throws IOException {
+        Path path = directory.resolve("catalog.snapshot");
+        assertThat(CatalogSnapshotFile.read(path)).isNull();
+
+        ColumnarProducts columns = new ColumnarProducts.Builder().add(1, 0, 1000, 1, 2, 3, 4, 1L, 1L).build();
+        CatalogSnapshotFile.write(path, columns, 0);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(file.length() - 12);
+            file.write(0x7f);
+        }
+        assertThatThrownBy(() -> CatalogSnapshotFile.read(path)).isInstanceOf(IOException.class)
+                .hasMessageContaining("Corrupted");
+
+        CatalogSnapshotFile.write(path, columns, 0);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.setLength(file.length() - 4);
+        }
+        assertThatThrownBy(() -> CatalogSnapshotFile.read(path)).isInstanceOf(IOException.class)
+                .hasMessageContaining("Truncated");
+    }
+}
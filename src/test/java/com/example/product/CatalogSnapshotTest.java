@@ -0,0 +1,178 @@
+package com.example.product;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.example.entity.Product;
+
+/**
+ * カタログのスナップショットのファイルの書き出しと、起動時の読み込みの検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ * 前回のテストの実行で書き出したファイルがある場合は、起動時にそのファイルから読み込む（DBとの差分を反映する）
+ * テストごとに金額の桁を変えて作成した商品を対象にする
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slshop-snapshot;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "slshop.catalog-snapshot.enabled=true",
+        "slshop.catalog-snapshot.path=build/test-snapshots/catalog.snapshot",
+        "slshop.catalog-snapshot.write-millis=0" })
+@ActiveProfiles("perf")
+class CatalogSnapshotTest {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductColumns productColumns;
+
+    @Autowired
+    private ProductDimensionIndex productDimensionIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${slshop.catalog-snapshot.path}")
+    private String snapshotPath;
+
+    /** 作成する商品の名前の連番（テストのインスタンスをまたいで重複させない） */
+    private static int sequence;
+
+    /**
+    * 概要 ファイルを書き出した後の変更の反映<br>
+    * 条件 ファイルを書き出した後に商品を登録・変更・削除し、ファイルから読み込み直した場合<br>
+    * 結果 変更した商品だけをDBから読み込み、登録・変更・削除が反映されていること
+    */
+    @Test
+    void ファイルを書き出した後の変更を反映すること() throws Exception {
+        Product changed = createProduct(10000000);
+        Product deleted = createProduct(10000001);
+        Product kept = createProduct(10000002);
+        productColumns.writeSnapshot();
+
+        Product product = productRepository.findById(changed.getId()).get();
+        product.setPrice(10000010);
+        productService.save(product);
+        productService.delete(deleted.getId());
+        Product created = createProduct(10000003);
+
+        assertThat(productColumns.restore()).isTrue();
+        assertThat(productColumns.topByPrice(priceRange(10000000, 19999999), 10, false))
+                .containsExactly(kept.getId(), created.getId(), changed.getId());
+        assertThat(productColumns.size()).isEqualTo(productRepository.count());
+    }
+
+    /**
+    * 概要 変更の通知から反映した商品の書き出し<br>
+    * 条件 商品を登録・変更した後にファイルを書き出した場合<br>
+    * 結果 DBのバージョンと一致する値を書き出し、変更がなければそのまま読み込めること
+    */
+    @Test
+    void 書き出すファイルのバージョンがDBと一致すること() throws Exception {
+        Product product = createProduct(20000000);
+        Product changed = productRepository.findById(product.getId()).get();
+        changed.setPrice(20000001);
+        productService.save(changed);
+
+        productColumns.writeSnapshot();
+
+        ColumnarProducts columns = CatalogSnapshotFile.read(Paths.get(snapshotPath)).getColumns();
+        int row = columns.rowOf(product.getId());
+        assertThat(columns.versions[row]).isEqualTo(productRepository.findById(product.getId()).get().getVersion());
+        assertThat(columns.prices[row]).isEqualTo(20000001);
+        assertThat(columns.versions).doesNotContain(ColumnarProducts.UNKNOWN_VERSION);
+
+        assertThat(productColumns.restore()).isTrue();
+        assertThat(productColumns.filter(priceRange(20000000, 29999999), null, 10)).containsExactly(product.getId());
+    }
+
+    /**
+    * 概要 壊れたファイル<br>
+    * 条件 書き出したファイルの内容の一部が変わった場合<br>
+    * 結果 ファイルから読み込まず、起動時の処理でDBから全件を読み込むこと
+    */
+    @Test
+    void 壊れたファイルの場合はDBから読み込むこと() throws Exception {
+        Product product = createProduct(30000000);
+        productColumns.writeSnapshot();
+        Path path = Paths.get(snapshotPath);
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "rw")) {
+            file.seek(file.length() - 12);
+            file.write(0x7f);
+        }
+
+        assertThat(productColumns.restore()).isFalse();
+        productColumns.start();
+        assertThat(productColumns.filter(priceRange(30000000, 39999999), null, 10)).containsExactly(product.getId());
+    }
+
+    /**
+    * 概要 列ごとの複写からの大きさの索引の作成<br>
+    * 条件 起動時の処理で、列ごとの複写を作成済みの場合<br>
+    * 結果 DBを読まずに作成した索引で、箱に入る商品を検索できること
+    */
+    @Test
+    void 列ごとの複写から大きさの索引を作成すること() {
+        Product product = createProduct(40000000);
+        Product stored = productRepository.findById(product.getId()).get();
+        stored.setLength(4000);
+        stored.setWidth(4000);
+        stored.setHeight(4000);
+        productService.save(stored);
+
+        assertThat(productColumns.isLoaded()).isTrue();
+        productDimensionIndex.start();
+        List<Long> fit = productDimensionIndex.fit(4000, 4000, 4000, null, null, Integer.MAX_VALUE);
+        assertThat(fit).contains(product.getId());
+        assertThat(productDimensionIndex.size()).isEqualTo(productColumns.size());
+        assertThat(fit).doesNotHaveDuplicates();
+    }
+
+    /**
+    * 概要 終了時の書き出し<br>
+    * 条件 起動時の処理の後に商品を登録し、終了した場合<br>
+    * 結果 終了時にファイルを書き出し、登録した商品を含む全件を読み込めること
+    */
+    @Test
+    void 終了時にファイルを書き出すこと(@TempDir Path directory) throws Exception {
+        Path path = directory.resolve("catalog.snapshot");
+        ProductColumns columns = new ProductColumns(productRepository, transactionManager, Integer.MAX_VALUE, true,
+                path.toString(), 0);
+        columns.start();
+        Product product = createProduct(50000000);
+        columns.onProductCountsChanged(new ProductCountsChangedEvent().add(product, 1));
+
+        columns.destroy();
+
+        ColumnarProducts written = CatalogSnapshotFile.read(path).getColumns();
+        assertThat(written.size()).isEqualTo(productRepository.count());
+        assertThat(written.prices[written.rowOf(product.getId())]).isEqualTo(50000000);
+    }
+
+    private static ProductCriteria priceRange(int min, int max) {
+        ProductCriteria criteria = new ProductCriteria();
+        criteria.setMinPrice(min);
+        criteria.setMaxPrice(max);
+        return criteria;
+    }
+
+    private Product createProduct(int price) {
+        Product product = new Product("複写" + (++sequence), "複写の確認");
+        product.setPrice(price);
+        return productService.save(product);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.product;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+class KdTreeTest {
+
+    private static final int DIMENSIONS = 4;
+
+    /**
+    * 概要 範囲に含まれる点の検索<br>
+    * 条件 ランダムな点と、値の重複する点から木を作成した場合（全ての次元で分割する木と、先頭の3次元だけで分割する木）<br>
+    * 結果 全ての点を調べた結果と一致し、下限・上限の値の点も含むこと
+    */
+    @Test
+    void 範囲検索が全件を調べた結果と一致すること() {
+        Random random = new Random(1);
+        int size = 5000;
+        double[] points = randomPoints(random, size);
+        KdTree[] trees = {
+                new KdTree(DIMENSIONS, ids(size), points.clone(), size),
+                new KdTree(DIMENSIONS, 3, ids(size), points.clone(), size) };
+
+        for (int n = 0; n < 50; n++) {
+            double[] min = new double[DIMENSIONS];
+            double[] max = new double[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                double a = random.nextInt(20);
+                double b = random.nextInt(20);
+                min[d] = Math.min(a, b);
+                max[d] = Math.max(a, b);
+            }
+            List<Long> expected = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (contains(points, i, min, max)) {
+                    expected.add((long) i);
+                }
+            }
+            for (KdTree tree : trees) {
+                List<Long> found = new ArrayList<>();
+                tree.range(min, max, found::add);
+                assertThat(found).containsExactlyInAnyOrderElementsOf(expected);
+            }
+        }
+    }
+
+    /**
+    * 概要 近い点の検索<br>
+    * 条件 先頭の3次元だけで距離を求め、一部のIDを除いた場合（全ての次元で分割する木と、先頭の3次元だけで分割する木）<br>
+    * 結果 全ての点を調べた結果と同じ点を、近い順（同じ距離はID順）に返すこと
+    */
+    @Test
+    void 近い点の検索が全件を調べた結果と一致すること() {
+        Random random = new Random(2);
+        int size = 5000;
+        double[] points = randomPoints(random, size);
+        KdTree[] trees = {
+                new KdTree(DIMENSIONS, ids(size), points.clone(), size),
+                new KdTree(DIMENSIONS, 3, ids(size), points.clone(), size) };
+
+        for (int n = 0; n < 50; n++) {
+            double[] target = { random.nextInt(20), random.nextInt(20), random.nextInt(20) };
+
+            List<long[]> all = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                if (i % 3 != 0) {
+                    double distance = 0;
+                    for (int d = 0; d < target.length; d++) {
+                        distance += (points[i * DIMENSIONS + d] - target[d]) * (points[i * DIMENSIONS + d] - target[d]);
+                    }
+                    // 座標は整数のため、距離の2乗も整数になる
+                    all.add(new long[] { (long) distance, i });
+                }
+            }
+            List<Long> expected = all.stream()
+                    .sorted(Comparator.<long[]> comparingLong(a -> a[0]).thenComparingLong(a -> a[1]))
+                    .limit(10).map(a -> a[1]).collect(Collectors.toList());
+            for (KdTree tree : trees) {
+                List<Long> found = tree.nearest(target, 10, id -> id % 3 != 0).stream()
+                        .map(KdTree.Neighbor::getId).collect(Collectors.toList());
+                assertThat(found).containsExactlyElementsOf(expected);
+            }
+        }
+    }
+
+    /**
+    * 概要 点の数が少ない木<br>
+    * 条件 点のない木と、1点だけの木を作成した場合<br>
+    * 結果 点のない木は何も返さず、1点だけの木はその点を返すこと
+    */
+    @Test
+    void 点が少ない木も検索できること() {
+        KdTree empty = new KdTree(DIMENSIONS, new long[0], new double[0], 0);
+        List<Long> found = new ArrayList<>();
+        empty.range(new double[] { 0, 0, 0, 0 }, new double[] { 9, 9, 9, 9 }, found::add);
+        assertThat(found).isEmpty();
+        assertThat(empty.nearest(new double[] { 1, 1, 1 }, 5, id -> true)).isEmpty();
+
+        KdTree single = new KdTree(DIMENSIONS, new long[] { 7, 0 }, new double[] { 1, 2, 3, 4, 0, 0, 0, 0 }, 1);
+        assertThat(single.size()).isEqualTo(1);
+        single.range(new double[] { 1, 2, 3, 4 }, new double[] { 1, 2, 3, 4 }, found::add);
+        assertThat(found).containsExactly(7L);
+        assertThat(single.nearest(new double[] { 0, 0, 0 }, 5, id -> true))
+                .extracting(KdTree.Neighbor::getId, KdTree.Neighbor::getDistance)
+                .containsExactly(tuple(7L, 14.0));
+    }
+
+    private static long[] ids(int size) {
+        long[] ids = new long[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    /**
+     * 値の重複が多くなるよう、0から19の整数の座標を作成する
+     */
+    private static double[] randomPoints(Random random, int size) {
+        double[] points = new double[size * DIMENSIONS];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = random.nextInt(20);
+        }
+        return points;
+    }
+
+    private static boolean contains(double[] points, int index, double[] min, double[] max) {
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double value = points[index * DIMENSIONS + d];
+            if (value < min[d] || value > max[d]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,269 @@
+package com.example.product;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.Product;
+
+/**
+ * 商品の列ごとの複写と、金額・大きさ・ブランド・カテゴリーでの検索と集計の検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ * テストごとに金額の桁を変えて作成した商品を対象にする
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:slshop-columns;MODE=Oracle;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@WithUserDetails("admin@example.com")
+class ProductColumnsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductColumns productColumns;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    /** 作成する商品の名前の連番（テストのインスタンスをまたいで重複させない） */
+    private static int sequence;
+
+    /**
+    * 概要 複数の区間にまたがる検索と集計<br>
+    * 条件 区間の行数を超える商品を作り直した配列に入れ、一部を変更・削除した差分のある状態と、作り直した後に検索した場合<br>
+    * 結果 どちらも全ての商品を調べた結果と一致すること
+    */
+    @Test
+    void 検索と集計が全件を調べた結果と一致すること() {
+        ProductColumns columns = new ProductColumns(null, null, Integer.MAX_VALUE, false, null, 0);
+        Random random = new Random(1);
+        int size = ColumnarProducts.CHUNK_SIZE * 2 + 100;
+        TreeMap<Long, ProductCountsChangedEvent.Values> expected = new TreeMap<>();
+        ProductCountsChangedEvent event = new ProductCountsChangedEvent();
+        // 作り直しでID順に並べ替えることを確認するため、IDの大きい順に加える
+        for (long id = size; id > 0; id--) {
+            ProductCountsChangedEvent.Values values = randomValues(random, id);
+            expected.put(id, values);
+            event.add(values, 1);
+        }
+        columns.onProductCountsChanged(event);
+        columns.rebuild();
+
+        ProductCountsChangedEvent changed = new ProductCountsChangedEvent();
+        for (int n = 0; n < 500; n++) {
+            long id = 1 + random.nextInt(size);
+            if (expected.containsKey(id)) {
+                ProductCountsChangedEvent.Values values = randomValues(random, id);
+                changed.add(expected.put(id, values), -1);
+                changed.add(values, 1);
+            }
+        }
+        ProductCountsChangedEvent.Values created = randomValues(random, size + 1);
+        expected.put(created.getId(), created);
+        changed.add(created, 1);
+        columns.onProductCountsChanged(changed);
+        List<Long> deleted = random.ints(500, 1, size).mapToObj(Long::valueOf).collect(Collectors.toList());
+        deleted.forEach(expected::remove);
+        columns.onProductsDeleted(new ProductsDeletedEvent(deleted));
+
+        assertSameAsBruteForce(columns, expected, random);
+        columns.rebuild();
+        assertSameAsBruteForce(columns, expected, random);
+        assertThat(columns.size()).isEqualTo(expected.size());
+    }
+
+    /**
+    * 概要 複写への変更の反映<br>
+    * 条件 商品を登録し、金額を変更してから削除した場合<br>
+    * 結果 確定するたびに検索と集計の結果に反映されること
+    */
+    @Test
+    void 登録と変更と削除が複写に反映されること() throws Exception {
+        Product product = createProduct(10000000, 1);
+        ProductCriteria criteria = priceRange(10000000, 19999999);
+        assertThat(productColumns.filter(criteria, null, Integer.MAX_VALUE)).containsExactly(product.getId());
+
+        Product changed = productRepository.findById(product.getId()).get();
+        changed.setPrice(20000000);
+        productService.save(changed);
+        assertThat(productColumns.filter(criteria, null, Integer.MAX_VALUE)).isEmpty();
+        assertThat(productColumns.aggregate(priceRange(20000000, 29999999)).getCount()).isEqualTo(1);
+
+        productService.delete(product.getId());
+        assertThat(productColumns.aggregate(priceRange(20000000, 29999999)).getCount()).isZero();
+
+        Product first = createProduct(30000000, 1);
+        Product second = createProduct(30000001, 1);
+        productService.deleteAll(Arrays.asList(first.getId(), second.getId()));
+        assertThat(productColumns.filter(priceRange(30000000, 39999999), null, Integer.MAX_VALUE)).isEmpty();
+    }
+
+    /**
+    * 概要 金額・大きさ・ブランド・カテゴリーでの検索と集計のAPI<br>
+    * 条件 ページの件数を1件にしてID順・金額順で取得し、集計を取得した場合と、並び順を誤った場合<br>
+    * 結果 条件に一致する商品を指定した順に返し、並び順の誤りの場合は400を返すこと
+    */
+    @Test
+    void 検索と集計をAPIで取得すること() throws Exception {
+        Product cheap = createProduct(40000000, 2);
+        Product expensive = createProduct(40000100, 4);
+
+        mockMvc.perform(get("/api/v1/products/query").param("minPrice", "40000000").param("maxPrice", "49999999")
+                .param("fields", "name").param("size", "1").with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(cheap.getId().intValue())))
+                .andExpect(jsonPath("$.items[0].name").value(cheap.getName()))
+                .andExpect(jsonPath("$.next").value(cheap.getId().intValue()));
+
+        mockMvc.perform(get("/api/v1/products/query").param("minPrice", "40000000").param("maxPrice", "49999999")
+                .param("sort", "-price").param("size", "1").with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(expensive.getId().intValue())))
+                .andExpect(jsonPath("$.next").value(nullValue()));
+
+        mockMvc.perform(get("/api/v1/products/stats").param("minPrice", "40000000").param("maxPrice", "49999999")
+                .param("minWeight", "3").with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.minPrice").value(40000100))
+                .andExpect(jsonPath("$.averageWeight").value(4.0));
+
+        mockMvc.perform(get("/api/v1/products/query").param("sort", "name")
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v1/products/query").param("sort", "price").param("after", "1")
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static void assertSameAsBruteForce(ProductColumns columns,
+            TreeMap<Long, ProductCountsChangedEvent.Values> expected, Random random) {
+        for (int n = 0; n < 30; n++) {
+            ProductCriteria criteria = randomCriteria(random);
+            List<ProductCountsChangedEvent.Values> matched = expected.values().stream()
+                    .filter(criteria::matches).collect(Collectors.toList());
+
+            long after = random.nextInt(expected.lastKey().intValue());
+            assertThat(columns.filter(criteria, after, 50)).containsExactlyElementsOf(matched.stream()
+                    .map(ProductCountsChangedEvent.Values::getId).filter(id -> id > after).limit(50)
+                    .collect(Collectors.toList()));
+
+            Comparator<ProductCountsChangedEvent.Values> byPrice = Comparator
+                    .comparingInt(ProductCountsChangedEvent.Values::getPrice);
+            for (boolean descending : new boolean[] { false, true }) {
+                assertThat(columns.topByPrice(criteria, 20, descending)).containsExactlyElementsOf(matched.stream()
+                        .sorted((descending ? byPrice.reversed() : byPrice)
+                                .thenComparing(ProductCountsChangedEvent.Values::getId))
+                        .limit(20).map(ProductCountsChangedEvent.Values::getId).collect(Collectors.toList()));
+            }
+
+            ProductAggregate aggregate = columns.aggregate(criteria);
+            assertThat(aggregate.getCount()).isEqualTo(matched.size());
+            if (matched.isEmpty()) {
+                assertThat(aggregate.getMinPrice()).isNull();
+                assertThat(aggregate.getAverageWeight()).isNull();
+                continue;
+            }
+            assertThat(aggregate.getMinPrice()).isEqualTo(matched.stream()
+                    .mapToInt(ProductCountsChangedEvent.Values::getPrice).min().getAsInt());
+            assertThat(aggregate.getMaxPrice()).isEqualTo(matched.stream()
+                    .mapToInt(ProductCountsChangedEvent.Values::getPrice).max().getAsInt());
+            assertThat(aggregate.getAveragePrice()).isCloseTo(matched.stream()
+                    .mapToInt(ProductCountsChangedEvent.Values::getPrice).average().getAsDouble(), Offset.offset(1e-6));
+            assertThat(aggregate.getAverageWeight()).isCloseTo(matched.stream()
+                    .mapToDouble(ProductCountsChangedEvent.Values::getWeight).average().getAsDouble(),
+                    Offset.offset(1e-6));
+        }
+    }
+
+    /**
+     * 値の重複が多くなるよう、金額・大きさは狭い範囲の整数にし、ブランド・カテゴリーのない商品も含める
+     */
+    private static ProductCountsChangedEvent.Values randomValues(Random random, long id) {
+        Product product = new Product("列", "列の確認");
+        product.setId(id);
+        product.setPrice(random.nextInt(1000));
+        product.setLength(random.nextInt(50));
+        product.setWidth(random.nextInt(50));
+        product.setHeight(random.nextInt(50));
+        product.setWeight(random.nextInt(10));
+        if (random.nextInt(10) > 0) {
+            Brand brand = new Brand("ブランド");
+            brand.setId((long) (1 + random.nextInt(20)));
+            product.setBrand(brand);
+        }
+        if (random.nextInt(10) > 0) {
+            Category category = new Category("カテゴリー");
+            category.setId((long) (1 + random.nextInt(5)));
+            product.setCategory(category);
+        }
+        return ProductCountsChangedEvent.Values.of(product);
+    }
+
+    /**
+     * 条件の項目ごとに、指定しない場合と、存在しないブランドを指定する場合も含める
+     */
+    private static ProductCriteria randomCriteria(Random random) {
+        ProductCriteria criteria = new ProductCriteria();
+        if (random.nextBoolean()) {
+            int a = random.nextInt(1000);
+            int b = random.nextInt(1000);
+            criteria.setMinPrice(Math.min(a, b));
+            criteria.setMaxPrice(Math.max(a, b));
+        }
+        if (random.nextBoolean()) {
+            criteria.setMaxLength((double) random.nextInt(50));
+        }
+        if (random.nextBoolean()) {
+            criteria.setMinHeight((double) random.nextInt(50));
+        }
+        if (random.nextBoolean()) {
+            criteria.setMaxWeight((double) random.nextInt(10));
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setBrandId((long) (1 + random.nextInt(21)));
+        }
+        if (random.nextInt(3) == 0) {
+            criteria.setCategoryId((long) (1 + random.nextInt(5)));
+        }
+        return criteria;
+    }
+
+    private static ProductCriteria priceRange(int min, int max) {
+        ProductCriteria criteria = new ProductCriteria();
+        criteria.setMinPrice(min);
+        criteria.setMaxPrice(max);
+        return criteria;
+    }
+
+    private Product createProduct(int price, double weight) {
+        Product product = new Product("列" + (++sequence), "列の確認");
+        product.setPrice(price);
+        product.setWeight(weight);
+        return productService.save(product);
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.product;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.example.brand.BrandRepository;
+import com.example.category.CategoryRepository;
+import com.example.entity.Brand;
+import com.example.entity.Category;
+import com.example.entity.Product;
+
+/**
+ * ブランド・カテゴリーごとの商品件数と商品一覧の絞り込みの検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ * 初期データの商品は変更しないよう、テストごとに作成したブランド・カテゴリーの商品を対象にする
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:slshop-counts;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "slshop.bulk.chunk-size=2" })
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@WithUserDetails("admin@example.com")
+class ProductCountsTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductCounts productCounts;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private BrandRepository brandRepository;
+
+    @Autowired
+    private CategoryRepository categoryRepository;
+
+    /** 別スレッドの集計し直しを待つ時間（ミリ秒） */
+    private static final long WAIT_MILLIS = 5000;
+
+    /** 作成するブランド・カテゴリー・商品の名前の連番（テストのインスタンスをまたいで重複させない） */
+    private static int sequence;
+
+    /**
+    * 概要 商品件数の増減<br>
+    * 条件 商品を登録し、ブランドを変更してから削除した場合<br>
+    * 結果 確定するたびにブランド・カテゴリーごとの件数に反映されること
+    */
+    @Test
+    void 登録と変更と削除が件数に反映されること() throws Exception {
+        Brand brand = createBrand();
+        Brand other = createBrand();
+        Category category = createCategory();
+        Product first = createProduct(brand, category);
+        createProduct(brand, category);
+
+        assertThat(productCounts.byBrand()).containsEntry(brand.getId(), 2L).doesNotContainKey(other.getId());
+        assertThat(productCounts.byCategory()).containsEntry(category.getId(), 2L);
+
+        Product changed = productRepository.findById(first.getId()).get();
+        changed.setBrand(other);
+        productService.save(changed);
+        assertThat(productCounts.byBrand()).containsEntry(brand.getId(), 1L).containsEntry(other.getId(), 1L);
+        assertThat(productCounts.byCategory()).containsEntry(category.getId(), 2L);
+
+        productService.delete(first.getId());
+        assertThat(productCounts.byBrand()).containsEntry(brand.getId(), 1L).doesNotContainKey(other.getId());
+        assertThat(productCounts.byCategory()).containsEntry(category.getId(), 1L);
+    }
+
+    /**
+    * 概要 商品件数の増減<br>
+    * 条件 一括変更・一括削除を1つのトランザクションで処理する件数が2件の場合<br>
+    * 結果 別スレッドで集計し直した件数に反映され、その場で全件を集計し直した結果と一致すること
+    *      金額だけの一括変更では件数を変更しないこと
+    */
+    @Test
+    void 一括変更と一括削除が件数に反映されること() throws Exception {
+        Brand brand = createBrand();
+        Brand other = createBrand();
+        Category category = createCategory();
+        Category otherCategory = createCategory();
+        Product first = createProduct(brand, category);
+        Product second = createProduct(brand, category);
+        Product third = createProduct(brand, otherCategory);
+
+        productService.changeBrand(Arrays.asList(first.getId(), second.getId(), third.getId()), other.getId());
+        await(() -> !productCounts.byBrand().containsKey(brand.getId())
+                && Long.valueOf(3).equals(productCounts.byBrand().get(other.getId())));
+
+        productService.changeCategory(Arrays.asList(first.getId(), third.getId()), otherCategory.getId());
+        await(() -> Long.valueOf(1).equals(productCounts.byCategory().get(category.getId()))
+                && Long.valueOf(2).equals(productCounts.byCategory().get(otherCategory.getId())));
+
+        long version = productCounts.version();
+        productService.changePrice(Arrays.asList(first.getId(), second.getId()), 12345);
+        assertThat(productCounts.version()).isEqualTo(version);
+
+        productService.deleteAll(Arrays.asList(first.getId(), second.getId()));
+        await(() -> Long.valueOf(1).equals(productCounts.byBrand().get(other.getId()))
+                && !productCounts.byCategory().containsKey(category.getId()));
+        assertThat(productCounts.byCategory()).containsEntry(otherCategory.getId(), 1L);
+
+        Map<ProductCounts.Key, Long> counted = productCounts.snapshot();
+        productCounts.load();
+        assertThat(productCounts.snapshot()).isEqualTo(counted);
+    }
+
+    /**
+    * 概要 商品件数の増減<br>
+    * 条件 商品名が重複していて、登録が確定しなかった場合<br>
+    * 結果 件数に反映されないこと
+    */
+    @Test
+    void 確定しなかった変更は件数に反映されないこと() throws Exception {
+        Brand brand = createBrand();
+        Category category = createCategory();
+        Product product = createProduct(brand, category);
+
+        Product duplicate = new Product(product.getName(), "件数の確認");
+        duplicate.setBrand(brand);
+        duplicate.setCategory(category);
+        assertThatThrownBy(() -> productService.save(duplicate)).isInstanceOf(DataIntegrityViolationException.class);
+
+        assertThat(productCounts.byBrand()).containsEntry(brand.getId(), 1L);
+    }
+
+    /**
+    * 概要 商品一覧の絞り込み<br>
+    * 条件 検索キーワードに一致する商品があり、ブランドで絞り込んだ場合<br>
+    * 結果 ブランドごとの件数を候補に表示し、絞り込んだ後はそのブランドの商品とカテゴリーごとの件数を表示すること
+    */
+    @Test
+    @SuppressWarnings("unchecked")
+    void 検索キーワードに一致する件数で絞り込めること() throws Exception {
+        Brand brand = createBrand();
+        Brand other = createBrand();
+        Category category = createCategory();
+        Category otherCategory = createCategory();
+        Product first = createProduct(brand, category, "絞込");
+        Product second = createProduct(brand, otherCategory, "絞込");
+        createProduct(other, category, "絞込");
+
+        MvcResult result = mockMvc.perform(get("/products").param("keyword", "絞込"))
+                .andExpect(status().isOk())
+                .andReturn();
+        ProductFacets facets = (ProductFacets) result.getModelAndView().getModel().get("facets");
+        assertThat(facets.getBrands()).extracting(FacetCount::getId, FacetCount::getCount)
+                .containsExactly(tuple(brand.getId(), 2L), tuple(other.getId(), 1L));
+        assertThat(facets.getCategories()).extracting(FacetCount::getId, FacetCount::getCount)
+                .containsExactly(tuple(category.getId(), 2L), tuple(otherCategory.getId(), 1L));
+
+        result = mockMvc.perform(get("/products").param("keyword", "絞込").param("brandId", brand.getId().toString()))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<Product> products = (List<Product>) result.getModelAndView().getModel().get("listProducts");
+        assertThat(products).extracting(Product::getId).containsExactly(first.getId(), second.getId());
+        facets = (ProductFacets) result.getModelAndView().getModel().get("facets");
+        assertThat(facets.getBrands()).extracting(FacetCount::getId, FacetCount::getCount)
+                .containsExactly(tuple(brand.getId(), 2L), tuple(other.getId(), 1L));
+        assertThat(facets.getCategories()).extracting(FacetCount::getId, FacetCount::getCount)
+                .containsExactly(tuple(category.getId(), 1L), tuple(otherCategory.getId(), 1L));
+    }
+
+    /**
+    * 概要 商品一覧の絞り込み<br>
+    * 条件 検索キーワードがなく、カテゴリーで絞り込んだ場合<br>
+    * 結果 そのカテゴリーの商品と、メモリ上の件数によるブランドごとの件数を表示すること
+    */
+    @Test
+    @SuppressWarnings("unchecked")
+    void 検索キーワードがなくても絞り込めること() throws Exception {
+        Brand brand = createBrand();
+        Category category = createCategory();
+        Product product = createProduct(brand, category);
+
+        MvcResult result = mockMvc.perform(get("/products").param("categoryId", category.getId().toString()))
+                .andExpect(status().isOk())
+                .andReturn();
+        List<Product> products = (List<Product>) result.getModelAndView().getModel().get("listProducts");
+        assertThat(products).extracting(Product::getId).containsExactly(product.getId());
+        ProductFacets facets = (ProductFacets) result.getModelAndView().getModel().get("facets");
+        assertThat(facets.getBrands()).extracting(FacetCount::getId, FacetCount::getName, FacetCount::getCount)
+                .containsExactly(tuple(brand.getId(), brand.getName(), 1L));
+    }
+
+    /**
+    * 概要 ブランド一覧・カテゴリー一覧の商品数<br>
+    * 条件 ブランド・カテゴリーに商品がある場合<br>
+    * 結果 ブランドごと・カテゴリーごとの商品数を表示すること
+    */
+    @Test
+    @SuppressWarnings("unchecked")
+    void ブランド一覧とカテゴリー一覧に商品数を表示すること() throws Exception {
+        Brand brand = createBrand();
+        Category category = createCategory();
+        createProduct(brand, category);
+        createProduct(brand, category);
+
+        MvcResult result = mockMvc.perform(get("/brands")).andExpect(status().isOk()).andReturn();
+        assertThat((Map<Long, Long>) result.getModelAndView().getModel().get("productCounts"))
+                .containsEntry(brand.getId(), 2L);
+        result = mockMvc.perform(get("/categories")).andExpect(status().isOk()).andReturn();
+        assertThat((Map<Long, Long>) result.getModelAndView().getModel().get("productCounts"))
+                .containsEntry(category.getId(), 2L);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT_MILLIS;
+        while (!condition.getAsBoolean()) {
+            assertThat(System.currentTimeMillis()).as("timed out").isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private Brand createBrand() {
+        return brandRepository.save(new Brand("件数B" + (++sequence)));
+    }
+
+    private Category createCategory() {
+        return categoryRepository.save(new Category("件数C" + (++sequence)));
+    }
+
+    private Product createProduct(Brand brand, Category category) {
+        return createProduct(brand, category, "件数");
+    }
+
+    private Product createProduct(Brand brand, Category category, String prefix) {
+        Product product = new Product(prefix + (++sequence), "件数の確認");
+        product.setBrand(brand);
+        product.setCategory(category);
+        return productService.save(product);
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.product;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.test.context.support.WithUserDetails;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.entity.Product;
+
+/**
+ * 商品の大きさの索引と、大きさでの検索の検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ * 初期データの商品は大きさが0のため、どの箱にも入る（結果に含まれることを前提にしない）
+ * テストごとに大きさの桁を変えて作成した商品を対象にする
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:slshop-dimensions;MODE=Oracle;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@ActiveProfiles("perf")
+@WithUserDetails("admin@example.com")
+class ProductDimensionIndexTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductDimensionIndex productDimensionIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    /** 作成する商品の名前の連番（テストのインスタンスをまたいで重複させない） */
+    private static int sequence;
+
+    /**
+    * 概要 箱に入る商品の検索<br>
+    * 条件 3辺の向きを変えた箱と、重さの上限を指定した場合<br>
+    * 結果 向きを変えて入る商品を含み、はみ出す商品と重さの上限を超える商品を含まないこと
+    */
+    @Test
+    void 向きを変えて箱に入る商品を返すこと() throws Exception {
+        Product fit = createProduct(10, 20, 30, 1);
+        Product tall = createProduct(5, 5, 50, 1);
+        Product large = createProduct(40, 40, 40, 5);
+
+        assertThat(ids(productService.listFit(35, 25, 15, null)))
+                .contains(fit.getId()).doesNotContain(tall.getId(), large.getId());
+        assertThat(ids(productService.listFit(15, 35, 25, null)))
+                .contains(fit.getId()).doesNotContain(tall.getId(), large.getId());
+        assertThat(ids(productService.listFit(60, 10, 10, null)))
+                .contains(tall.getId()).doesNotContain(fit.getId(), large.getId());
+        assertThat(ids(productService.listFit(35, 25, 15, 0.5))).doesNotContain(fit.getId());
+    }
+
+    /**
+    * 概要 索引への変更の反映<br>
+    * 条件 商品を登録し、大きさを変更してから削除した場合<br>
+    * 結果 確定するたびに検索結果に反映されること
+    */
+    @Test
+    void 登録と変更と削除が索引に反映されること() throws Exception {
+        Product product = createProduct(100, 100, 100, 1);
+        assertThat(productDimensionIndex.fit(100, 100, 100, null, null, Integer.MAX_VALUE)).contains(product.getId());
+
+        Product changed = productRepository.findById(product.getId()).get();
+        changed.setHeight(150);
+        productService.save(changed);
+        assertThat(productDimensionIndex.fit(100, 100, 100, null, null, Integer.MAX_VALUE))
+                .doesNotContain(product.getId());
+        assertThat(productDimensionIndex.fit(150, 100, 100, null, null, Integer.MAX_VALUE)).contains(product.getId());
+
+        productService.delete(product.getId());
+        assertThat(productDimensionIndex.fit(150, 100, 100, null, null, Integer.MAX_VALUE))
+                .doesNotContain(product.getId());
+
+        Product first = createProduct(120, 120, 120, 1);
+        Product second = createProduct(120, 120, 120, 1);
+        productService.deleteAll(Arrays.asList(first.getId(), second.getId()));
+        assertThat(productDimensionIndex.fit(120, 120, 120, null, null, Integer.MAX_VALUE))
+                .doesNotContain(first.getId(), second.getId());
+    }
+
+    /**
+    * 概要 木の作り直し<br>
+    * 条件 差分（登録・削除）のある状態で木を作り直した場合<br>
+    * 結果 作り直す前と同じ検索結果になること
+    */
+    @Test
+    void 作り直しても検索結果が変わらないこと() throws Exception {
+        Product kept = createProduct(300, 200, 100, 2);
+        Product deleted = createProduct(300, 200, 100, 2);
+        productService.delete(deleted.getId());
+        List<Long> before = productDimensionIndex.fit(300, 200, 100, null, null, Integer.MAX_VALUE);
+        int size = productDimensionIndex.size();
+
+        productDimensionIndex.rebuild();
+
+        assertThat(productDimensionIndex.fit(300, 200, 100, null, null, Integer.MAX_VALUE))
+                .containsExactlyElementsOf(before).contains(kept.getId()).doesNotContain(deleted.getId());
+        assertThat(productDimensionIndex.size()).isEqualTo(size);
+    }
+
+    /**
+    * 概要 複数の木にまたがる検索<br>
+    * 条件 木1本の点の数を超える商品を作り直した索引に入れ、前のページの最後のIDを変えて検索した場合<br>
+    * 結果 全ての商品を調べた結果と同じく、IDの小さい順に件数まで返すこと
+    */
+    @Test
+    void 複数の木にまたがってID順に返すこと() {
+        ProductDimensionIndex index = new ProductDimensionIndex(null, null, null, Integer.MAX_VALUE);
+        Random random = new Random(1);
+        int size = ProductDimensionIndex.TREE_SIZE * 3 + 100;
+        double[][] points = new double[size + 1][];
+        ProductCountsChangedEvent event = new ProductCountsChangedEvent();
+        // 作り直しでID順に並べ替えることを確認するため、IDの大きい順に加える
+        for (long id = size; id > 0; id--) {
+            Product product = new Product("大きさ", "大きさの確認");
+            product.setId(id);
+            product.setLength(random.nextInt(50));
+            product.setWidth(random.nextInt(50));
+            product.setHeight(random.nextInt(50));
+            product.setWeight(random.nextInt(10));
+            points[(int) id] = ProductDimensionIndex.point(product.getLength(), product.getWidth(),
+                    product.getHeight(), product.getWeight());
+            event.add(product, 1);
+        }
+        index.onProductCountsChanged(event);
+        index.rebuild();
+
+        for (Long after : Arrays.asList(null, 100L, (long) ProductDimensionIndex.TREE_SIZE - 3, (long) size - 50)) {
+            List<Long> expected = new ArrayList<>();
+            for (long id = after != null ? after + 1 : 1; id <= size && expected.size() < 30; id++) {
+                double[] point = points[(int) id];
+                if (point[0] <= 40 && point[1] <= 30 && point[2] <= 5 && point[3] <= 3) {
+                    expected.add(id);
+                }
+            }
+            assertThat(index.fit(5, 40, 30, 3.0, after, 30)).containsExactlyElementsOf(expected);
+        }
+        assertThat(index.size()).isEqualTo(size);
+    }
+
+    /**
+    * 概要 1件ずつの変更の反映<br>
+    * 条件 作り直した索引に、1件ずつの削除と、削除した商品の再登録、木にない商品の登録・削除を続けて反映した場合<br>
+    * 結果 件数と検索結果が、反映した変更と一致すること
+    */
+    @Test
+    void 一件ずつの変更を続けて反映しても件数と検索結果が一致すること() {
+        ProductDimensionIndex index = new ProductDimensionIndex(null, null, null, Integer.MAX_VALUE);
+        int size = ProductDimensionIndex.TREE_SIZE + 100;
+        ProductCountsChangedEvent created = new ProductCountsChangedEvent();
+        for (long id = 1; id <= size; id++) {
+            created.add(dimensionProduct(id, 10), 1);
+        }
+        index.onProductCountsChanged(created);
+        index.rebuild();
+
+        for (long id = 1; id <= size; id += 2) {
+            ProductCountsChangedEvent deleted = new ProductCountsChangedEvent();
+            deleted.add(dimensionProduct(id, 10), -1);
+            index.onProductCountsChanged(deleted);
+        }
+        ProductCountsChangedEvent restored = new ProductCountsChangedEvent();
+        restored.add(dimensionProduct(1, 20), 1);
+        index.onProductCountsChanged(restored);
+        for (long id = size + 1; id <= size + 3; id++) {
+            ProductCountsChangedEvent added = new ProductCountsChangedEvent();
+            added.add(dimensionProduct(id, 10), 1);
+            index.onProductCountsChanged(added);
+        }
+        index.onProductsDeleted(new ProductsDeletedEvent(Arrays.asList((long) size + 2, 2L, 2L)));
+
+        List<Long> fit = index.fit(10, 10, 10, null, null, Integer.MAX_VALUE);
+        assertThat(fit).hasSize(size / 2 - 1 + 2).doesNotContain(1L, 2L, 3L, (long) size + 2)
+                .contains(4L, (long) size + 1, (long) size + 3);
+        assertThat(index.fit(20, 20, 20, null, null, Integer.MAX_VALUE)).contains(1L);
+        assertThat(index.size()).isEqualTo(fit.size() + 1);
+
+        index.rebuild();
+        assertThat(index.fit(10, 10, 10, null, null, Integer.MAX_VALUE)).containsExactlyElementsOf(fit);
+        assertThat(index.size()).isEqualTo(fit.size() + 1);
+    }
+
+    /**
+    * 概要 大きさの近い商品の検索<br>
+    * 条件 基準の商品と、大きさの近い商品・遠い商品がある場合<br>
+    * 結果 近い順に返し、基準の商品自身は含まないこと
+    */
+    @Test
+    void 大きさの近い商品を近い順に返すこと() throws Exception {
+        Product base = createProduct(1000, 800, 600, 10);
+        Product nearest = createProduct(600, 1000, 801, 50);
+        Product near = createProduct(1010, 790, 600, 10);
+        Product far = createProduct(900, 700, 500, 10);
+
+        List<Long> similar = ids(productService.listSimilar(base));
+        assertThat(similar).doesNotContain(base.getId());
+        assertThat(similar.subList(0, 3)).containsExactly(nearest.getId(), near.getId(), far.getId());
+    }
+
+    /**
+    * 概要 大きさでの商品検索画面<br>
+    * 条件 箱の内寸を指定した場合と、存在しない基準の商品を指定した場合<br>
+    * 結果 箱に入る商品を表示し、存在しない商品の場合は検索画面へ戻ること
+    */
+    @Test
+    void 大きさでの商品検索画面を表示すること() throws Exception {
+        Product product = createProduct(2000, 2000, 2000, 1);
+
+        mockMvc.perform(get("/products/dimensions"))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("listProducts", nullValue()));
+
+        mockMvc.perform(get("/products/dimensions").param("length", "2000").param("width", "2000")
+                .param("height", "2000"))
+                .andExpect(status().isOk())
+                .andExpect(view().name("products/dimensions"))
+                .andExpect(model().attribute("listProducts", hasItem(hasProperty("id", is(product.getId())))));
+
+        mockMvc.perform(get("/products/dimensions").param("similarTo", String.valueOf(product.getId())))
+                .andExpect(status().isOk())
+                .andExpect(model().attribute("similarTo", hasProperty("id", is(product.getId()))));
+
+        mockMvc.perform(get("/products/dimensions").param("similarTo", "999999"))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrl("/products/dimensions"));
+    }
+
+    /**
+    * 概要 箱に入る商品・大きさの近い商品のAPI<br>
+    * 条件 ページの件数を1件にして箱に入る商品を取得し、存在しない基準の商品を指定した場合<br>
+    * 結果 ID順に次のページを返し、存在しない商品の場合は404を返すこと
+    */
+    @Test
+    void 大きさでの検索をAPIで取得すること() throws Exception {
+        Product first = createProduct(3000, 3000, 3000, 1);
+        Product second = createProduct(3000, 3000, 3000, 1);
+        // 初期データ（大きさ0）より後のIDから取得する
+        String after = String.valueOf(first.getId() - 1);
+
+        mockMvc.perform(get("/api/v1/products/fit").param("length", "3000").param("width", "3000")
+                .param("height", "3000").param("fields", "name").param("after", after).param("size", "1")
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(first.getId().intValue())))
+                .andExpect(jsonPath("$.items[0].name").value(first.getName()))
+                .andExpect(jsonPath("$.next").value(first.getId().intValue()));
+
+        mockMvc.perform(get("/api/v1/products/" + first.getId() + "/similar").param("fields", "name")
+                .param("size", "1").with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[*].id", contains(second.getId().intValue())))
+                .andExpect(jsonPath("$.next").value(nullValue()));
+
+        mockMvc.perform(get("/api/v1/products/999999/similar").with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/v1/products/fit").param("length", "-1").param("width", "1").param("height", "1")
+                .with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isBadRequest());
+    }
+
+    private static List<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toList());
+    }
+
+    private static Product dimensionProduct(long id, double side) {
+        Product product = new Product("大きさ", "大きさの確認");
+        product.setId(id);
+        product.setLength(side);
+        product.setWidth(side);
+        product.setHeight(side);
+        product.setWeight(1);
+        return product;
+    }
+
+    private Product createProduct(double length, double width, double height, double weight) {
+        Product product = new Product("大きさ" + (++sequence), "大きさの確認");
+        product.setPrice(1000);
+        product.setLength(length);
+        product.setWidth(width);
+        product.setHeight(height);
+        product.setWeight(weight);
+        return productService.save(product);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.reload;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class BackgroundReloaderTest {
+
+    /** 保持する値（テストでは変更の一覧） */
+    private final List<String> values = new ArrayList<>();
+
+    private final BackgroundReloader<String> reloader = new BackgroundReloader<>(this, "reloader-test");
+
+    @AfterEach
+    void tearDown() {
+        reloader.shutdown(0);
+    }
+
+    /**
+    * 概要 読み込み中の変更の記録<br>
+    * 条件 読み込みの前・読み込み中・読み込みの後に変更を反映した場合<br>
+    * 結果 読み込み中の変更だけを読み込んだ値と一緒に渡し、前後の変更は渡さないこと
+    */
+    @Test
+    void 読み込み中の変更だけを渡すこと() {
+        reloader.apply(Collections.singletonList("前"), () -> values.add("前"));
+        List<List<String>> passed = new ArrayList<>();
+
+        String loaded = reloader.load(() -> {
+            reloader.apply(Arrays.asList("中1", "中2"), () -> values.add("中"));
+            return "読み込んだ値";
+        }, (value, changes) -> passed.add(changes));
+        reloader.apply(Collections.singletonList("後"), () -> values.add("後"));
+
+        assertThat(loaded).isEqualTo("読み込んだ値");
+        assertThat(passed).containsExactly(Arrays.asList("中1", "中2"));
+        assertThat(values).containsExactly("前", "中", "後");
+    }
+
+    /**
+    * 概要 読み込みの失敗<br>
+    * 条件 読み込み中に変更を反映し、読み込みが例外を投げた場合<br>
+    * 結果 入れ替えずに例外を投げ、以降の変更を記録しないこと
+    */
+    @Test
+    void 失敗した場合は入れ替えないこと() {
+        List<List<String>> passed = new ArrayList<>();
+
+        assertThatThrownBy(() -> reloader.load(() -> {
+            reloader.apply(Collections.singletonList("中"), () -> { });
+            throw new IllegalStateException("失敗");
+        }, (value, changes) -> passed.add(changes))).isInstanceOf(IllegalStateException.class);
+        reloader.apply(Collections.singletonList("後"), () -> { });
+        reloader.load(() -> "読み込んだ値", (value, changes) -> passed.add(changes));
+
+        assertThat(passed).containsExactly(Collections.emptyList());
+    }
+
+    /**
+    * 概要 別スレッドでの実行の予約<br>
+    * 条件 実行中に続けて予約した場合と、処理が例外を投げた場合<br>
+    * 結果 実行を始める前の予約は1回にまとめ、例外を投げても以降の予約を実行すること
+    */
+    @Test
+    void 続けて予約した場合は一回にまとめること() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch finished = new CountDownLatch(2);
+        BackgroundReloader<String>.Task task = reloader.task(() -> {
+            count.incrementAndGet();
+            started.countDown();
+            finished.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("失敗");
+        }, "run test task");
+
+        task.schedule();
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        task.schedule();
+        task.schedule();
+        task.schedule();
+        release.countDown();
+
+        // 1回目の実行中の予約が1回にまとまり、例外の後に2回目を実行する
+        assertThat(finished.await(5, TimeUnit.SECONDS)).isTrue();
+        reloader.shutdown(5);
+        assertThat(count).hasValue(2);
+    }
+}
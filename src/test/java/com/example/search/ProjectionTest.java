@@ -0,0 +1,69 @@
+package com.example.search;
+
+import static org.assertj.core.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+class ProjectionTest {
+
+    private final Projection.Definition target = Projection.from("Product p")
+            .join("b", "LEFT JOIN p.brand b")
+            .join("c", "LEFT JOIN p.category c")
+            .field("name", "p.name")
+            .field("description", "p.description")
+            .field("brandName", "b.name")
+            .field("categoryName", "c.name");
+
+    /**
+     * 概要 取得する項目の選択<br>
+     * 条件 項目を指定しない場合<br>
+     * 結果 全項目を取得し、すべての結合を含むこと
+     */
+    @Test
+    void 指定しない場合は全項目を取得すること() {
+        Projection actual = target.select(null);
+
+        assertThat(actual.getNames()).containsExactly("id", "name", "description", "brandName", "categoryName");
+        assertThat(actual.select()).isEqualTo("p.id, p.name, p.description, b.name, c.name");
+        assertThat(actual.from()).isEqualTo("Product p LEFT JOIN p.brand b LEFT JOIN p.category c");
+    }
+
+    /**
+     * 概要 取得する項目の選択<br>
+     * 条件 結合先の項目を含まない項目を指定した場合<br>
+     * 結果 識別子と指定した項目だけを取得し、結合しないこと
+     */
+    @Test
+    void 指定した項目だけを取得すること() {
+        Projection actual = target.select("description, name");
+
+        assertThat(actual.getNames()).containsExactly("id", "description", "name");
+        assertThat(actual.select()).isEqualTo("p.id, p.description, p.name");
+        assertThat(actual.from()).isEqualTo("Product p");
+    }
+
+    /**
+     * 概要 取得する項目の選択<br>
+     * 条件 結合先の項目と、検索条件で使う結合先を指定した場合<br>
+     * 結果 必要な結合だけを定義した順序で含むこと
+     */
+    @Test
+    void 必要な結合だけを含むこと() {
+        assertThat(target.select("categoryName").from())
+                .isEqualTo("Product p LEFT JOIN p.category c");
+        assertThat(target.select("categoryName", "b").from())
+                .isEqualTo("Product p LEFT JOIN p.brand b LEFT JOIN p.category c");
+    }
+
+    /**
+     * 概要 取得する項目の選択<br>
+     * 条件 定義されていない項目を指定した場合<br>
+     * 結果 IllegalArgumentExceptionが発生すること
+     */
+    @Test
+    void 存在しない項目の場合は例外が発生すること() {
+        assertThatThrownBy(() -> target.select("name,password"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("password");
+    }
+}
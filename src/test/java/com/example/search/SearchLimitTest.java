@@ -0,0 +1,67 @@
+package com.example.search;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+class SearchLimitTest {
+
+    private final SearchLimit target = new SearchLimit(3);
+
+    /**
+     * 概要 一覧取得用の取得範囲<br>
+     * 条件 上限が3件の場合<br>
+     * 結果 ID順で先頭から4件を取得する範囲になること
+     */
+    @Test
+    void 上限より1件多く取得すること() {
+        Pageable pageable = target.pageable();
+
+        assertThat(pageable.getOffset()).isZero();
+        assertThat(pageable.getPageSize()).isEqualTo(4);
+        assertThat(pageable.getSort()).isEqualTo(Sort.by("id"));
+    }
+
+    /**
+     * 概要 取得結果の切り詰め<br>
+     * 条件 取得結果が上限を超えた場合<br>
+     * 結果 上限までの結果になり、切り詰めたと判定されること
+     */
+    @Test
+    void 上限を超えた場合は切り詰めること() {
+        List<String> actual = target.limit(Arrays.asList("a", "b", "c", "d"));
+
+        assertThat(actual).containsExactly("a", "b", "c");
+        assertThat(LimitedList.isTruncated(actual)).isTrue();
+    }
+
+    /**
+     * 概要 取得結果の切り詰め<br>
+     * 条件 取得結果が上限ちょうどの場合<br>
+     * 結果 全件が返り、切り詰めていないと判定されること
+     */
+    @Test
+    void 上限以内の場合は切り詰めないこと() {
+        List<String> actual = target.limit(Arrays.asList("a", "b", "c"));
+
+        assertThat(actual).containsExactly("a", "b", "c");
+        assertThat(LimitedList.isTruncated(actual)).isFalse();
+    }
+
+    /**
+     * 概要 切り詰めの判定<br>
+     * 条件 上限を適用していない一覧の場合<br>
+     * 結果 切り詰めていないと判定されること
+     */
+    @Test
+    void 上限を適用していない一覧は切り詰めていないと判定すること() {
+        assertThat(LimitedList.isTruncated(Collections.emptyList())).isFalse();
+        assertThat(LimitedList.isTruncated(Arrays.asList("a", "b", "c", "d"))).isFalse();
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.security;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * 画面と監視用のエンドポイントの認証設定の検証（perfプロファイルの組み込みDBを使う）
+ * 他のテストのアプリケーションコンテキストとDBを共有しないよう、DB名を変えて起動する
+ * Prometheus形式のメトリクスを公開するため、テストでも計測値の出力を有効にする
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:slshop-security;MODE=Oracle;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+@AutoConfigureMetrics
+@ActiveProfiles("perf")
+class SecurityConfigTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    /**
+    * 概要 監視用のエンドポイントの認証<br>
+    * 条件 管理者のBASIC認証でメトリクスを取得した場合<br>
+    * 結果 200を返し、セッションを作成しないこと
+    */
+    @Test
+    void メトリクスはBASIC認証で取得できること() throws Exception {
+        MvcResult result = mockMvc.perform(get("/actuator/prometheus").with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(result.getRequest().getSession(false)).isNull();
+    }
+
+    /**
+    * 概要 監視用のエンドポイントの認証<br>
+    * 条件 認証せずにメトリクスとヘルスチェックを取得した場合<br>
+    * 結果 メトリクスはログイン画面に転送せずに401を返し、ヘルスチェックは200を返すこと
+    */
+    @Test
+    void 認証しない場合はヘルスチェックだけを取得できること() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/health"))
+                .andExpect(status().isOk());
+    }
+
+    /**
+    * 概要 画面の認証<br>
+    * 条件 画面をBASIC認証で表示しようとした場合<br>
+    * 結果 認証せずにログイン画面に転送すること
+    */
+    @Test
+    void 画面ではBASIC認証を受け付けないこと() throws Exception {
+        mockMvc.perform(get("/products").with(httpBasic("admin@example.com", "test")))
+                .andExpect(status().is3xxRedirection())
+                .andExpect(redirectedUrlPattern("**/loginForm"));
+    }
+}